@@ -0,0 +1,44 @@
+package com.rssai.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTML转纯文本基准：对比多次正则替换的旧实现与单遍扫描的新实现
+ * 使用 mvn -Pjmh test-compile exec:exec 运行，输入与 HtmlTextScannerTest 中的对比文章相同
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HtmlTextScannerBenchmark {
+
+    private String article;
+
+    @Setup
+    public void setUp() {
+        article = HtmlTextScannerTest.buildArticle();
+    }
+
+    @Benchmark
+    public String legacyRegex() {
+        return HtmlTextScannerTest.legacyCleanHtmlAndTruncate(article, HtmlTextScannerTest.MAX_LENGTH);
+    }
+
+    @Benchmark
+    public String singlePassScanner() {
+        return HtmlTextScanner.toPlainText(article, HtmlTextScannerTest.MAX_LENGTH);
+    }
+}
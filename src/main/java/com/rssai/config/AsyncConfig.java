@@ -7,7 +7,10 @@ import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Configuration
 public class AsyncConfig implements AsyncConfigurer {
@@ -24,6 +27,12 @@ public class AsyncConfig implements AsyncConfigurer {
     @Value("${rss.fetch.thread-pool.keep-alive-seconds:60}")
     private int rssKeepAliveSeconds;
 
+    @Value("${ai.dispatch.thread-pool.max-size:16}")
+    private int aiDispatchMaxPoolSize;
+
+    @Value("${ai.dispatch.thread-pool.queue-capacity:200}")
+    private int aiDispatchQueueCapacity;
+
     @Bean("rssFetchExecutor")
     public Executor rssFetchExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
@@ -53,6 +62,43 @@ public class AsyncConfig implements AsyncConfigurer {
         return executor;
     }
 
+    /**
+     * AI批量筛选的批次分发线程池
+     * 与RSS抓取线程池分开，抓取线程等待批次结果时不会占用自己的线程池；
+     * 队列满时由提交批次的线程自己执行，不会死锁。每个服务的并发数由 AiConcurrencyLimiter 限制，
+     * 批次取得名额后才提交到这里，线程不会因等待名额而阻塞
+     */
+    @Bean("aiDispatchExecutor")
+    public Executor aiDispatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(aiDispatchMaxPoolSize);
+        executor.setMaxPoolSize(aiDispatchMaxPoolSize);
+        executor.setQueueCapacity(aiDispatchQueueCapacity);
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("ai-dispatch-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 重试调度线程，只负责在退避时间到达后把下一次尝试提交回原线程池，不执行重试本身
+     */
+    @Bean(name = "retryScheduler", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService retryScheduler() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(2, runnable -> {
+            Thread thread = new Thread(runnable, "retry-scheduler-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
     @Override
     public Executor getAsyncExecutor() {
         return rssFetchExecutor();
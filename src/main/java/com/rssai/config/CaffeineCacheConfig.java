@@ -3,6 +3,7 @@ package com.rssai.config;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.rssai.constant.RssConstants;
+import com.rssai.service.ReadStateService;
 import okhttp3.OkHttpClient;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -39,4 +40,12 @@ public class CaffeineCacheConfig {
                 .maximumSize(500)
                 .build();
     }
+    
+    @Bean
+    public Cache<Long, ReadStateService.ReadState> readStateCache() {
+        return Caffeine.newBuilder()
+                .expireAfterAccess(RssConstants.READ_STATE_CACHE_EXPIRE_MINUTES, TimeUnit.MINUTES)
+                .maximumSize(1000)
+                .build();
+    }
 }
@@ -1,5 +1,6 @@
 package com.rssai.config;
 
+import com.rssai.dialect.SqlDialect;
 import com.rssai.service.SystemConfigService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,21 +21,25 @@ public class DatabaseInitializer implements CommandLineRunner {
     private final JdbcTemplate jdbcTemplate;
     private final SystemConfigService systemConfigService;
     private final SecurityKeyProvider securityKeyProvider;
+    private final SqlDialect sqlDialect;
 
     @Value("${spring.datasource.url}")
     private String datasourceUrl;
 
     public DatabaseInitializer(JdbcTemplate jdbcTemplate, SystemConfigService systemConfigService,
-                             SecurityKeyProvider securityKeyProvider) {
+                             SecurityKeyProvider securityKeyProvider, SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
         this.systemConfigService = systemConfigService;
         this.securityKeyProvider = securityKeyProvider;
+        this.sqlDialect = sqlDialect;
     }
 
+    /**
+     * 基础表结构由 DatabaseMigrationService 在执行版本迁移前创建，这里只做数据初始化
+     */
     @Override
     public void run(String... args) {
         ensureDatabaseFile();
-        ensureTables();
         initializeSystemConfigs();
         generateAndStoreSecurityKeys();
     }
@@ -68,7 +73,10 @@ public class DatabaseInitializer implements CommandLineRunner {
         }
     }
     
-    private void ensureTables() {
+    /**
+     * 创建基础表结构（幂等），需要在版本迁移之前执行，迁移脚本中的外键依赖这些表
+     */
+    public void ensureTables() {
         try {
             createTables();
             logger.info("数据库表结构检查完成");
@@ -104,25 +112,25 @@ public class DatabaseInitializer implements CommandLineRunner {
 
     private void createTables() {
         // 用户表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS users (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS users (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "username TEXT UNIQUE NOT NULL, " +
                 "password TEXT NOT NULL, " +
                 "email TEXT, " +
-                "email_subscription_enabled BOOLEAN DEFAULT 0, " +
+                "email_subscription_enabled BOOLEAN DEFAULT FALSE, " +
                 "email_digest_time TEXT DEFAULT '19:00', " +
                 "last_email_sent_at TIMESTAMP, " +
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                "is_admin BOOLEAN DEFAULT 0, " +
-                "force_password_change BOOLEAN DEFAULT 0, " +
-                "is_banned BOOLEAN DEFAULT 0, " +
+                "is_admin BOOLEAN DEFAULT FALSE, " +
+                "force_password_change BOOLEAN DEFAULT FALSE, " +
+                "is_banned BOOLEAN DEFAULT FALSE, " +
                 "last_login_at TIMESTAMP)");
 
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_email_digest_time ON users(email_digest_time, email_subscription_enabled)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_email_digest_time ON users(email_digest_time, email_subscription_enabled)");
 
         // AI配置表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS ai_configs (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS ai_configs (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "user_id INTEGER NOT NULL, " +
                 "base_url TEXT NOT NULL, " +
@@ -131,6 +139,12 @@ public class DatabaseInitializer implements CommandLineRunner {
                 "system_prompt TEXT, " +
                 "refresh_interval INTEGER DEFAULT 10, " +
                 "is_reasoning_model INTEGER DEFAULT NULL, " +
+                "max_concurrency INTEGER DEFAULT NULL, " +
+                "max_tokens_batch INTEGER DEFAULT NULL, " +
+                "max_input_tokens_batch INTEGER DEFAULT NULL, " +
+                "use_stream INTEGER DEFAULT NULL, " +
+                "prefilter_enabled INTEGER DEFAULT NULL, " +
+                "prompt_updated_at BIGINT DEFAULT NULL, " +
                 "service_status INTEGER DEFAULT 0, " +
                 "last_status_change_at TEXT, " +
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
@@ -138,89 +152,84 @@ public class DatabaseInitializer implements CommandLineRunner {
                 "FOREIGN KEY (user_id) REFERENCES users(id))");
 
         // RSS源表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rss_sources (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS rss_sources (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "user_id INTEGER NOT NULL, " +
                 "name TEXT NOT NULL, " +
                 "url TEXT NOT NULL, " +
-                "enabled BOOLEAN DEFAULT 1, " +
+                "enabled BOOLEAN DEFAULT TRUE, " +
                 "refresh_interval INTEGER DEFAULT 60, " +
-                "ai_filter_enabled BOOLEAN DEFAULT 1, " +
-                "special_attention BOOLEAN DEFAULT 0, " +
-                "last_fetch_time TIMESTAMP, " +
+                "ai_filter_enabled BOOLEAN DEFAULT TRUE, " +
+                "special_attention BOOLEAN DEFAULT FALSE, " +
+                "last_fetch_time BIGINT, " +
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "FOREIGN KEY (user_id) REFERENCES users(id))");
 
         // RSS条目表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS rss_items (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS rss_items (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "source_id INTEGER NOT NULL, " +
                 "title TEXT NOT NULL, " +
                 "link TEXT UNIQUE NOT NULL, " +
                 "description TEXT, " +
                 "content TEXT, " +
-                "pub_date TIMESTAMP, " +
-                "ai_filtered BOOLEAN DEFAULT 0, " +
+                "pub_date BIGINT, " +
+                "ai_filtered BOOLEAN DEFAULT FALSE, " +
                 "ai_reason TEXT, " +
                 "needs_retry INTEGER DEFAULT 0, " +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "created_at BIGINT, " +
+                "excerpt TEXT, " +
+                "image_url TEXT, " +
                 "FOREIGN KEY (source_id) REFERENCES rss_sources(id))");
 
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_rss_items_created_at ON rss_items(created_at)");
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_rss_items_pub_date ON rss_items(pub_date)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_rss_items_created_at ON rss_items(created_at)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_rss_items_pub_date ON rss_items(pub_date)");
+
+        // 文章全文索引（FTS5，trigram 分词以支持中文子串匹配），rowid 与 rss_items.id 一致
+        executeDdl("CREATE VIRTUAL TABLE IF NOT EXISTS rss_items_fts USING fts5(" +
+                "title, body, tokenize = 'trigram')");
 
         // 用户RSS订阅表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS user_rss_feeds (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS user_rss_feeds (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "user_id INTEGER NOT NULL, " +
                 "feed_token TEXT UNIQUE NOT NULL, " +
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "FOREIGN KEY (user_id) REFERENCES users(id))");
 
-        // 过滤日志表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS filter_logs (" +
-                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
-                "user_id INTEGER NOT NULL, " +
-                "rss_item_id INTEGER, " +
-                "title TEXT NOT NULL, " +
-                "link TEXT, " +
-                "ai_filtered BOOLEAN NOT NULL, " +
-                "ai_reason TEXT, " +
-                "ai_raw_response TEXT, " +
-                "source_name TEXT, " +
-                "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
-                "FOREIGN KEY (user_id) REFERENCES users(id), " +
-                "FOREIGN KEY (rss_item_id) REFERENCES rss_items(id))");
+        // 过滤日志表及全文索引
+        createFilterLogTables(jdbcTemplate, true);
+        createIngestJournalStateTable(jdbcTemplate);
 
         // 关键词订阅表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS keyword_subscriptions (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS keyword_subscriptions (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "user_id INTEGER NOT NULL, " +
                 "keywords TEXT NOT NULL, " +
-                "enabled BOOLEAN DEFAULT 1, " +
+                "enabled BOOLEAN DEFAULT TRUE, " +
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "FOREIGN KEY (user_id) REFERENCES users(id))");
 
         // 关键词匹配通知表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS keyword_match_notifications (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS keyword_match_notifications (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "user_id INTEGER NOT NULL, " +
                 "rss_item_id INTEGER NOT NULL, " +
                 "subscription_id INTEGER NOT NULL, " +
                 "matched_keyword TEXT NOT NULL, " +
-                "notified BOOLEAN DEFAULT 0, " +
+                "notified BOOLEAN DEFAULT FALSE, " +
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "FOREIGN KEY (user_id) REFERENCES users(id), " +
                 "FOREIGN KEY (rss_item_id) REFERENCES rss_items(id), " +
                 "FOREIGN KEY (subscription_id) REFERENCES keyword_subscriptions(id))");
 
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_keyword_match_notifications_user_rss ON keyword_match_notifications(user_id, rss_item_id)");
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_keyword_match_notifications_notified ON keyword_match_notifications(notified, user_id)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_keyword_match_notifications_user_rss ON keyword_match_notifications(user_id, rss_item_id)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_keyword_match_notifications_notified ON keyword_match_notifications(notified, user_id)");
 
         // 用户收藏表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS user_favorites (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS user_favorites (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "user_id INTEGER NOT NULL, " +
                 "rss_item_id INTEGER NOT NULL, " +
@@ -229,12 +238,12 @@ public class DatabaseInitializer implements CommandLineRunner {
                 "FOREIGN KEY (rss_item_id) REFERENCES rss_items(id), " +
                 "UNIQUE(user_id, rss_item_id))");
 
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_user_favorites_user_id ON user_favorites(user_id)");
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_user_favorites_rss_item_id ON user_favorites(rss_item_id)");
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_user_favorites_created_at ON user_favorites(created_at)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_user_favorites_user_id ON user_favorites(user_id)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_user_favorites_rss_item_id ON user_favorites(rss_item_id)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_user_favorites_created_at ON user_favorites(created_at)");
 
         // 用户已读条目表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS user_read_items (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS user_read_items (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "user_id INTEGER NOT NULL, " +
                 "rss_item_id INTEGER NOT NULL, " +
@@ -243,25 +252,94 @@ public class DatabaseInitializer implements CommandLineRunner {
                 "FOREIGN KEY (rss_item_id) REFERENCES rss_items(id), " +
                 "UNIQUE(user_id, rss_item_id))");
 
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_user_read_items_user_rss ON user_read_items(user_id, rss_item_id)");
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_user_read_items_user_id ON user_read_items(user_id)");
-        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_user_read_items_rss_item_id ON user_read_items(rss_item_id)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_user_read_items_user_rss ON user_read_items(user_id, rss_item_id)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_user_read_items_user_id ON user_read_items(user_id)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_user_read_items_rss_item_id ON user_read_items(rss_item_id)");
+
+        // 用户已读状态表（每个用户一个压缩位图）
+        executeDdl("CREATE TABLE IF NOT EXISTS user_read_states (" +
+                "user_id INTEGER PRIMARY KEY, " +
+                "bitmap BLOB NOT NULL, " +
+                "version INTEGER NOT NULL DEFAULT 0, " +
+                "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+                "FOREIGN KEY (user_id) REFERENCES users(id))");
 
         // 持久化登录表（Spring Security Remember-Me）
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS persistent_logins (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS persistent_logins (" +
                 "username VARCHAR(64) NOT NULL, " +
                 "series VARCHAR(64) PRIMARY KEY, " +
                 "token VARCHAR(64) NOT NULL, " +
                 "last_used TIMESTAMP NOT NULL)");
 
         // 系统配置表
-        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS system_configs (" +
+        executeDdl("CREATE TABLE IF NOT EXISTS system_configs (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "config_key TEXT UNIQUE NOT NULL, " +
                 "config_value TEXT, " +
                 "description TEXT, " +
                 "created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
                 "updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+
+        // AI筛选结果缓存表（跨用户共享，按模型、筛选偏好和文章内容的摘要命中）
+        executeDdl("CREATE TABLE IF NOT EXISTS ai_verdict_cache (" +
+                "cache_key TEXT PRIMARY KEY, " +
+                "verdict TEXT NOT NULL, " +
+                "raw_response TEXT, " +
+                "created_at BIGINT NOT NULL)");
+        executeDdl("CREATE INDEX IF NOT EXISTS idx_ai_verdict_cache_created_at ON ai_verdict_cache(created_at)");
+    }
+
+    /**
+     * 在分片库中创建过滤日志表（幂等），分片库中没有 users、rss_items 表，不声明外键
+     */
+    public void createShardTables(JdbcTemplate shardJdbcTemplate) {
+        createFilterLogTables(shardJdbcTemplate, false);
+        createIngestJournalStateTable(shardJdbcTemplate);
+    }
+
+    /**
+     * 入库日志在每个库中记录已应用到的位置，与写入的数据在同一事务中更新
+     */
+    private void createIngestJournalStateTable(JdbcTemplate target) {
+        executeDdl(target, "CREATE TABLE IF NOT EXISTS ingest_journal_state (" +
+                "name TEXT PRIMARY KEY, " +
+                "applied_offset BIGINT NOT NULL)");
+    }
+
+    private void createFilterLogTables(JdbcTemplate target, boolean foreignKeys) {
+        executeDdl(target, "CREATE TABLE IF NOT EXISTS filter_logs (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "user_id INTEGER NOT NULL, " +
+                "rss_item_id INTEGER, " +
+                "title TEXT NOT NULL, " +
+                "link TEXT, " +
+                "ai_filtered BOOLEAN NOT NULL, " +
+                "ai_reason TEXT, " +
+                "ai_raw_response TEXT, " +
+                "source_name TEXT, " +
+                "created_at BIGINT" +
+                (foreignKeys ? ", FOREIGN KEY (user_id) REFERENCES users(id), " +
+                        "FOREIGN KEY (rss_item_id) REFERENCES rss_items(id))" : ")"));
+        executeDdl(target, "CREATE INDEX IF NOT EXISTS idx_filter_logs_user_id ON filter_logs(user_id)");
+        executeDdl(target, "CREATE INDEX IF NOT EXISTS idx_filter_logs_created_at ON filter_logs(created_at)");
+
+        // 过滤日志全文索引（FTS5，trigram 分词），rowid 与 filter_logs.id 一致
+        executeDdl(target, "CREATE VIRTUAL TABLE IF NOT EXISTS filter_logs_fts USING fts5(" +
+                "title, ai_reason, ai_raw_response, tokenize = 'trigram')");
+    }
+
+    /**
+     * 建表语句按 SQLite 语法编写，由方言转换后执行；方言不支持的语句（如 FTS5 虚拟表）跳过
+     */
+    private void executeDdl(String ddl) {
+        executeDdl(jdbcTemplate, ddl);
+    }
+
+    private void executeDdl(JdbcTemplate target, String ddl) {
+        String translated = sqlDialect.translateDdl(ddl);
+        if (translated != null) {
+            target.execute(translated);
+        }
     }
 
     private void initializeSystemConfigs() {
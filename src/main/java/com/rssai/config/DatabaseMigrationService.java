@@ -1,20 +1,28 @@
 package com.rssai.config;
 
+import com.rssai.dialect.SqlDialect;
+import com.rssai.util.DateTimeUtils;
+import com.rssai.util.ResultSetColumns;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -22,12 +30,19 @@ import java.util.regex.Pattern;
  * 数据库版本管理器
  * 负责解析和执行版本化的SQL更新脚本
  * 支持三位版本号格式，如 v1.2.3
+ * 脚本按 SQLite 语法编写，执行前由 {@link SqlDialect} 转换为当前数据库的语法
+ * 无法用SQL表达的数据转换注册为同版本的数据迁移，在该版本的SQL之后执行
  */
 @Component
 public class DatabaseMigrationService {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseMigrationService.class);
 
     private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
+    private final DatabaseInitializer databaseInitializer;
+    private final TimezoneConfig timezoneConfig;
+    private final Map<String, Runnable> dataMigrations = new HashMap<>();
+    private volatile List<VersionedMigration> migrations;
 
     @Value("${application.version:0.0.0}")
     private String applicationVersion;
@@ -35,8 +50,42 @@ public class DatabaseMigrationService {
     // 匹配版本标记的正则表达式: -- VERSION:v{数字}.{数字}.{数字}
     private static final Pattern VERSION_PATTERN = Pattern.compile("--\\s*VERSION:v(\\d+)\\.(\\d+)\\.(\\d+)");
 
-    public DatabaseMigrationService(JdbcTemplate jdbcTemplate) {
+    /**
+     * 转换为毫秒时间戳的时间列：表名 -> 列名
+     */
+    private static final String[][] EPOCH_MILLIS_COLUMNS = {
+            {"rss_items", "created_at"},
+            {"rss_items", "pub_date"},
+            {"filter_logs", "created_at"},
+            {"rss_sources", "last_fetch_time"}
+    };
+
+    /**
+     * 分片库中的表，update.sql 中只有涉及这些表的语句会在分片上执行
+     */
+    private static final Pattern SHARD_TABLE_PATTERN =
+            Pattern.compile("\\b(filter_logs|filter_logs_fts|ingest_journal_state)\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 时间列转换每批读取的行数
+     */
+    private static final int TIMESTAMP_CONVERT_CHUNK_SIZE = 1000;
+
+    public DatabaseMigrationService(JdbcTemplate jdbcTemplate, SqlDialect sqlDialect,
+                                    DatabaseInitializer databaseInitializer, TimezoneConfig timezoneConfig) {
         this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
+        this.databaseInitializer = databaseInitializer;
+        this.timezoneConfig = timezoneConfig;
+        dataMigrations.put("1.7.0", this::convertTimestampsToEpochMillis);
+        dataMigrations.put("1.8.0", this::addItemPreviewColumns);
+        dataMigrations.put("1.9.0", () -> addMissingIntegerColumns("ai_configs", "max_concurrency"));
+        dataMigrations.put("1.11.0", () -> addMissingIntegerColumns("ai_configs", "max_tokens_batch", "max_input_tokens_batch"));
+        dataMigrations.put("1.12.0", () -> addMissingIntegerColumns("ai_configs", "use_stream"));
+        dataMigrations.put("1.13.0", () -> {
+            addMissingIntegerColumns("ai_configs", "prefilter_enabled");
+            addMissingColumns("ai_configs", "BIGINT", "prompt_updated_at");
+        });
     }
 
     /**
@@ -45,8 +94,11 @@ public class DatabaseMigrationService {
     @PostConstruct
     public void migrate() {
         try {
+            // 先创建基础表，迁移脚本中的外键和索引依赖这些表
+            databaseInitializer.ensureTables();
+
             // 确保版本表存在
-            createVersionTableIfNotExists();
+            createVersionTableIfNotExists(jdbcTemplate);
 
             // 获取当前版本
             String currentVersion = getCurrentVersion();
@@ -65,8 +117,8 @@ public class DatabaseMigrationService {
     /**
      * 创建数据库版本表
      */
-    private void createVersionTableIfNotExists() {
-        jdbcTemplate.execute(
+    private void createVersionTableIfNotExists(JdbcTemplate target) {
+        target.execute(
             "CREATE TABLE IF NOT EXISTS schema_version (" +
             "version TEXT PRIMARY KEY, " +
             "executed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
@@ -103,7 +155,7 @@ public class DatabaseMigrationService {
      * @param currentVersion 当前数据库版本
      */
     private void executePendingMigrations(String currentVersion) {
-        List<VersionedMigration> migrations = parseUpdateSqlFile();
+        List<VersionedMigration> migrations = loadMigrations();
 
         if (migrations.isEmpty()) {
             logger.info("未发现待执行的数据库迁移");
@@ -121,6 +173,55 @@ public class DatabaseMigrationService {
         }
     }
 
+    /**
+     * 分片库的版本迁移，由 {@link ShardRouter} 在打开每个分片时调用
+     * 分片的建表语句与最新结构一致，没有版本记录的分片（新建的分片）直接记为最新版本；
+     * 之后新增的版本只执行涉及分片表（filter_logs、filter_logs_fts、ingest_journal_state）的SQL语句，
+     * 注册的数据迁移只作用于主库
+     */
+    public void migrateShard(String name, JdbcTemplate shard) {
+        createVersionTableIfNotExists(shard);
+        List<VersionedMigration> migrations = loadMigrations();
+        if (migrations.isEmpty()) {
+            return;
+        }
+        String shardVersion;
+        try {
+            shardVersion = shard.queryForObject(
+                    "SELECT version FROM schema_version ORDER BY sortable_version DESC LIMIT 1", String.class);
+        } catch (org.springframework.dao.EmptyResultDataAccessException e) {
+            VersionedMigration latest = migrations.get(migrations.size() - 1);
+            recordMigration(shard, latest.version, latest.description);
+            logger.debug("分片 {} 首次记录数据库版本: v{}", name, latest.version);
+            return;
+        }
+        for (VersionedMigration migration : migrations) {
+            if (compareVersion(migration.version, shardVersion) <= 0) {
+                continue;
+            }
+            try {
+                executeStatements(shard, migration.sql, true);
+                recordMigration(shard, migration.version, migration.description);
+                logger.info("分片 {} 版本 v{} 迁移成功", name, migration.version);
+            } catch (Exception e) {
+                throw new RuntimeException(String.format("分片%s版本v%s迁移失败: %s",
+                        name, migration.version, e.getMessage()), e);
+            }
+        }
+    }
+
+    /**
+     * 解析后的版本迁移，主库和各分片共用
+     */
+    private List<VersionedMigration> loadMigrations() {
+        List<VersionedMigration> result = migrations;
+        if (result == null) {
+            result = parseUpdateSqlFile();
+            migrations = result;
+        }
+        return result;
+    }
+
     /**
      * 比较版本号大小
      * @param v1 版本1，格式如 "1.2.3"
@@ -250,21 +351,17 @@ public class DatabaseMigrationService {
             logger.info("开始执行版本 v{} 迁移: {}", migration.version,
                        migration.description.isEmpty() ? "无描述" : migration.description);
 
-            if (migration.sql.isEmpty()) {
+            Runnable dataMigration = dataMigrations.get(migration.version);
+            if (migration.sql.isEmpty() && dataMigration == null) {
                 logger.warn("版本 v{} 的SQL为空，跳过执行", migration.version);
                 recordMigration(migration.version, migration.description);
                 return;
             }
 
-            // 按分号分割并执行每条SQL语句
-            String[] statements = migration.sql.split(";");
+            executeStatements(jdbcTemplate, migration.sql, false);
 
-            for (String statement : statements) {
-                String trimmed = statement.trim();
-                if (!trimmed.isEmpty()) {
-                    logger.debug("执行SQL: {}", trimmed);
-                    jdbcTemplate.execute(trimmed);
-                }
+            if (dataMigration != null) {
+                dataMigration.run();
             }
 
             // 记录版本执行
@@ -279,11 +376,124 @@ public class DatabaseMigrationService {
         }
     }
 
+    /**
+     * v1.7.0：把按配置时区写入的时间字符串转换为毫秒时间戳
+     * 只转换仍为文本的值，重复执行不会影响已转换的数据；
+     * 只有 SQLite 的旧库存在文本时间，其他数据库建表时已是 BIGINT 列。
+     * 逐行在 Java 中按配置的时区换算，夏令时前后的时间使用各自的偏移；
+     * 无法解析的值保持原样并记录日志，不会被置空
+     */
+    private void convertTimestampsToEpochMillis() {
+        if (!sqlDialect.supportsDynamicTyping()) {
+            return;
+        }
+        ZoneId zoneId = timezoneConfig.getZoneId();
+        for (String[] column : EPOCH_MILLIS_COLUMNS) {
+            String table = column[0];
+            String name = column[1];
+            long lastRowId = 0;
+            int converted = 0;
+            int unparseable = 0;
+            List<String> samples = new ArrayList<>();
+            while (true) {
+                List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                        "SELECT rowid AS row_id, " + name + " AS value FROM " + table + " " +
+                        "WHERE rowid > ? AND typeof(" + name + ") = 'text' ORDER BY rowid LIMIT ?",
+                        lastRowId, TIMESTAMP_CONVERT_CHUNK_SIZE);
+                if (rows.isEmpty()) {
+                    break;
+                }
+                List<Object[]> updates = new ArrayList<>(rows.size());
+                for (Map<String, Object> row : rows) {
+                    lastRowId = ((Number) row.get("row_id")).longValue();
+                    String value = (String) row.get("value");
+                    LocalDateTime dateTime = DateTimeUtils.parseLocalDateTime(value);
+                    if (dateTime == null) {
+                        unparseable++;
+                        if (samples.size() < 5) {
+                            samples.add(value);
+                        }
+                        continue;
+                    }
+                    updates.add(new Object[]{dateTime.atZone(zoneId).toInstant().toEpochMilli(), lastRowId});
+                }
+                if (!updates.isEmpty()) {
+                    jdbcTemplate.batchUpdate("UPDATE " + table + " SET " + name + " = ? WHERE rowid = ?", updates);
+                    converted += updates.size();
+                }
+            }
+            logger.info("{}.{} 转换为毫秒时间戳: {} 行", table, name, converted);
+            if (unparseable > 0) {
+                logger.warn("{}.{} 有 {} 行时间无法解析，保留原值，示例: {}", table, name, unparseable, samples);
+            }
+        }
+    }
+
+    /**
+     * v1.8.0：为旧库的 rss_items 补充 excerpt 和 image_url 列
+     * 首次部署时建表语句已包含这两列，SQLite 不支持 ADD COLUMN IF NOT EXISTS，因此先检查列是否存在
+     */
+    private void addItemPreviewColumns() {
+        ResultSetColumns columns = jdbcTemplate.query("SELECT * FROM rss_items WHERE 1 = 0",
+                (ResultSetExtractor<ResultSetColumns>) ResultSetColumns::of);
+        for (String column : new String[]{"excerpt", "image_url"}) {
+            if (columns != null && columns.indexOf(column) == 0) {
+                jdbcTemplate.execute("ALTER TABLE rss_items ADD COLUMN " + column + " TEXT");
+                logger.info("rss_items 添加列: {}", column);
+            }
+        }
+    }
+
+    /**
+     * v1.9.0 / v1.11.0 / v1.12.0 / v1.13.0：为旧库的 ai_configs 补充可空的配置列
+     */
+    private void addMissingIntegerColumns(String table, String... names) {
+        addMissingColumns(table, "INTEGER", names);
+    }
+
+    private void addMissingColumns(String table, String type, String... names) {
+        ResultSetColumns columns = jdbcTemplate.query("SELECT * FROM " + table + " WHERE 1 = 0",
+                (ResultSetExtractor<ResultSetColumns>) ResultSetColumns::of);
+        for (String column : names) {
+            if (columns != null && columns.indexOf(column) == 0) {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + type + " DEFAULT NULL");
+                logger.info("{} 添加列: {}", table, column);
+            }
+        }
+    }
+
     /**
      * 记录版本执行历史
      */
+    /**
+     * 按分号分割并执行每条SQL语句
+     * @param shardTablesOnly 只执行涉及分片表的语句
+     */
+    private void executeStatements(JdbcTemplate target, String sql, boolean shardTablesOnly) {
+        for (String statement : sql.split(";")) {
+            String trimmed = statement.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (shardTablesOnly && !SHARD_TABLE_PATTERN.matcher(trimmed).find()) {
+                continue;
+            }
+            String translated = sqlDialect.translateDdl(trimmed);
+            if (translated == null) {
+                logger.debug("当前数据库（{}）不支持该语句，跳过: {}", sqlDialect.getName(), trimmed);
+                continue;
+            }
+            logger.debug("执行SQL: {}", translated);
+            target.execute(translated);
+        }
+    }
+
     private void recordMigration(String version, String description) {
-        jdbcTemplate.update(
+        recordMigration(jdbcTemplate, version, description);
+    }
+
+    private void recordMigration(JdbcTemplate target, String version, String description) {
+        target.update(
             "INSERT INTO schema_version (version, sortable_version, description) VALUES (?, ?, ?)",
             version, versionToSortable(version), description
         );
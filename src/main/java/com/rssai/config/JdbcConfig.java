@@ -1,5 +1,9 @@
 package com.rssai.config;
 
+import com.rssai.dialect.PostgreSqlDialect;
+import com.rssai.dialect.SqlDialect;
+import com.rssai.dialect.SqliteDialect;
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -15,22 +19,60 @@ public class JdbcConfig {
     @Value("${spring.datasource.url}")
     private String jdbcUrl;
 
+    @Value("${spring.datasource.username:}")
+    private String username;
+
+    @Value("${spring.datasource.password:}")
+    private String password;
+
+    /**
+     * 数据库方言，为空时按 JDBC URL 推断
+     */
+    @Value("${storage.dialect:}")
+    private String dialectName;
+
+    @Value("${storage.pool.max-size:10}")
+    private int poolMaxSize;
+
+    @Bean
+    public SqlDialect sqlDialect() {
+        String name = dialectName != null && !dialectName.isEmpty() ? dialectName
+                : jdbcUrl.startsWith("jdbc:postgresql:") ? "postgresql" : "sqlite";
+        switch (name) {
+            case "sqlite":
+                return new SqliteDialect();
+            case "postgresql":
+                return new PostgreSqlDialect();
+            default:
+                throw new IllegalStateException("不支持的数据库方言: " + name);
+        }
+    }
+
     @Bean
-    public DataSource dataSource() {
+    public DataSource dataSource(SqlDialect sqlDialect) {
+        if (!(sqlDialect instanceof SqliteDialect)) {
+            // 服务端数据库支持多个连接并发写入，使用连接池
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setDriverClassName(sqlDialect.getDriverClassName());
+            dataSource.setJdbcUrl(jdbcUrl);
+            dataSource.setUsername(username);
+            dataSource.setPassword(password);
+            dataSource.setMaximumPoolSize(poolMaxSize);
+            return dataSource;
+        }
         ensureDataDirectory();
         DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setDriverClassName(sqlDialect.getDriverClassName());
         dataSource.setUrl(jdbcUrl);
         return dataSource;
     }
 
     @Bean
-    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+    public JdbcTemplate jdbcTemplate(DataSource dataSource, SqlDialect sqlDialect) {
         JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-        jdbcTemplate.execute("PRAGMA timezone = 'Asia/Shanghai'");
-        jdbcTemplate.execute("PRAGMA busy_timeout = 30000");
-        jdbcTemplate.execute("PRAGMA journal_mode = WAL");
-        jdbcTemplate.execute("PRAGMA synchronous = NORMAL");
+        for (String statement : sqlDialect.getInitStatements()) {
+            jdbcTemplate.execute(statement);
+        }
         return jdbcTemplate;
     }
 
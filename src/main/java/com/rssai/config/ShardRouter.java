@@ -0,0 +1,238 @@
+package com.rssai.config;
+
+import com.rssai.dialect.SqlDialect;
+import com.rssai.dialect.SqliteDialect;
+import com.rssai.util.TextCompressionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按用户分片的数据库路由
+ * 开启后过滤日志（filter_logs 及其全文索引）按 user_id 哈希写入独立的 SQLite 文件，
+ * 不同分片的写入互不阻塞；每个分片的自增ID从 (分片序号 + 1) << 40 开始，ID 全局唯一并可直接定位分片。
+ * 只有过滤日志分片：文章（rss_items）、已读状态和收藏都要与 RSS 源、用户表关联查询和去重，仍在主库（全局目录库）中。
+ * 分片打开时由 {@link DatabaseMigrationService#migrateShard} 执行 update.sql 中涉及分片表的新版本；
+ * 热备份（{@code BackupService}）只归档主库，分片不在备份范围内。
+ * 未开启或使用服务端数据库时所有方法都路由到主库
+ */
+@Component
+public class ShardRouter {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    /**
+     * 每个分片可用的ID位数
+     */
+    static final int SHARD_ID_BITS = 40;
+
+    private static final int MOVE_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
+    private final DatabaseInitializer databaseInitializer;
+    private final DatabaseMigrationService databaseMigrationService;
+
+    @Value("${storage.sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${storage.sharding.shards:8}")
+    private int shardCount;
+
+    @Value("${storage.sharding.directory:data/shards}")
+    private String directory;
+
+    @Value("${spring.datasource.url:}")
+    private String jdbcUrl;
+
+    @Value("${backup.enabled:false}")
+    private boolean backupEnabled;
+
+    private List<JdbcTemplate> shards = Collections.emptyList();
+
+    public ShardRouter(JdbcTemplate jdbcTemplate, SqlDialect sqlDialect, DatabaseInitializer databaseInitializer,
+                       DatabaseMigrationService databaseMigrationService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
+        this.databaseInitializer = databaseInitializer;
+        this.databaseMigrationService = databaseMigrationService;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        if (!(sqlDialect instanceof SqliteDialect)) {
+            logger.warn("分片存储只支持 SQLite，当前数据库为 {}，已忽略 storage.sharding 配置", sqlDialect.getName());
+            enabled = false;
+            return;
+        }
+        if (shardCount < 1 || shardCount > 1000) {
+            throw new IllegalStateException("storage.sharding.shards 必须在 1 到 1000 之间: " + shardCount);
+        }
+        File dir = new File(directory);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new IllegalStateException("无法创建分片目录: " + dir.getAbsolutePath());
+        }
+        // 用户到分片的映射取决于分片数量，已有分片时数量不能修改
+        File[] existing = dir.listFiles((d, name) -> name.matches("shard-\\d{3}\\.db"));
+        if (existing != null && existing.length > 0 && existing.length != shardCount) {
+            throw new IllegalStateException("分片目录中已有 " + existing.length + " 个分片，与 storage.sharding.shards="
+                    + shardCount + " 不一致");
+        }
+        String options = jdbcUrl.contains("?") ? jdbcUrl.substring(jdbcUrl.indexOf('?')) : "";
+        List<JdbcTemplate> created = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            DriverManagerDataSource dataSource = new DriverManagerDataSource();
+            dataSource.setDriverClassName(sqlDialect.getDriverClassName());
+            dataSource.setUrl("jdbc:sqlite:" + new File(dir, String.format("shard-%03d.db", i)).getPath() + options);
+            JdbcTemplate shard = new JdbcTemplate(dataSource);
+            for (String statement : sqlDialect.getInitStatements()) {
+                shard.execute(statement);
+            }
+            databaseInitializer.createShardTables(shard);
+            databaseMigrationService.migrateShard(String.format("shard-%03d", i), shard);
+            // 记录已从主库搬入的日志ID，与搬入的日志在同一事务中写入，搬移中断后重新执行不会重复
+            shard.execute("CREATE TABLE IF NOT EXISTS moved_filter_logs (legacy_id INTEGER PRIMARY KEY)");
+            // 自增序列从分片的ID区间起点开始，只在分片库第一次创建时写入
+            shard.update("INSERT INTO sqlite_sequence (name, seq) SELECT 'filter_logs', ? " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM sqlite_sequence WHERE name = 'filter_logs')",
+                    (long) (i + 1) << SHARD_ID_BITS);
+            created.add(shard);
+        }
+        shards = Collections.unmodifiableList(created);
+        logger.info("分片存储已开启，共 {} 个分片，目录: {}", shardCount, dir.getAbsolutePath());
+        if (backupEnabled) {
+            logger.warn("热备份只包含主库，分片目录 {} 中的过滤日志不在备份范围内", dir.getAbsolutePath());
+        }
+        moveLegacyFilterLogs();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 用户数据所在的库
+     */
+    public JdbcTemplate forUser(Long userId) {
+        if (!enabled) {
+            return jdbcTemplate;
+        }
+        return shards.get((int) Math.floorMod(userId != null ? userId : 0L, (long) shards.size()));
+    }
+
+    /**
+     * 按分片内生成的ID定位所在的库
+     */
+    public JdbcTemplate forId(long id) {
+        if (!enabled) {
+            return jdbcTemplate;
+        }
+        int shard = (int) (id >> SHARD_ID_BITS) - 1;
+        if (shard < 0 || shard >= shards.size()) {
+            throw new IllegalArgumentException("ID 不属于任何分片: " + id);
+        }
+        return shards.get(shard);
+    }
+
+    /**
+     * 所有分片，按ID区间升序排列，用于跨用户的统计、清理和回填；未开启时只包含主库
+     */
+    public List<JdbcTemplate> all() {
+        return enabled ? shards : Collections.singletonList(jdbcTemplate);
+    }
+
+    /**
+     * 主库和所有分片，按名称（main、shard-000 ...）排列，用于数据库维护
+     */
+    public Map<String, JdbcTemplate> databases() {
+        Map<String, JdbcTemplate> databases = new LinkedHashMap<>();
+        databases.put("main", jdbcTemplate);
+        if (enabled) {
+            for (int i = 0; i < shards.size(); i++) {
+                databases.put(String.format("shard-%03d", i), shards.get(i));
+            }
+        }
+        return databases;
+    }
+
+    /**
+     * 首次开启分片时把主库中已有的过滤日志按用户搬到分片中（重新分配ID），搬完后从主库删除
+     * 每批日志在各分片中的写入和搬移记录在同一事务中提交，已记录的主库ID不再写入，
+     * 写入分片后、从主库删除前中断时，重新启动只会补做删除。
+     * 全文索引不搬移，由 FilterLogService 的后台回填在分片中重建
+     */
+    private void moveLegacyFilterLogs() {
+        long moved = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.query(
+                    "SELECT * FROM filter_logs ORDER BY id LIMIT ?",
+                    (rs, rowNum) -> {
+                        Map<String, Object> row = new LinkedHashMap<>();
+                        row.put("id", rs.getLong("id"));
+                        row.put("user_id", rs.getLong("user_id"));
+                        row.put("rss_item_id", rs.getObject("rss_item_id"));
+                        row.put("title", rs.getString("title"));
+                        row.put("link", rs.getString("link"));
+                        row.put("ai_filtered", rs.getObject("ai_filtered"));
+                        row.put("ai_reason", rs.getString("ai_reason"));
+                        row.put("ai_raw_response", TextCompressionUtils.readRaw(rs, "ai_raw_response"));
+                        row.put("source_name", rs.getString("source_name"));
+                        row.put("created_at", rs.getObject("created_at"));
+                        return row;
+                    },
+                    MOVE_CHUNK_SIZE);
+            if (rows.isEmpty()) {
+                break;
+            }
+            List<Object> ids = new ArrayList<>(rows.size());
+            Map<JdbcTemplate, List<Map<String, Object>>> byShard = new LinkedHashMap<>();
+            for (Map<String, Object> row : rows) {
+                ids.add(row.get("id"));
+                byShard.computeIfAbsent(forUser((Long) row.get("user_id")), k -> new ArrayList<>()).add(row);
+            }
+            for (Map.Entry<JdbcTemplate, List<Map<String, Object>>> entry : byShard.entrySet()) {
+                moveToShard(entry.getKey(), entry.getValue());
+            }
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            if (sqlDialect.supportsFullTextIndex()) {
+                jdbcTemplate.update("DELETE FROM filter_logs_fts WHERE rowid IN (" + placeholders + ")", ids.toArray());
+            }
+            jdbcTemplate.update("DELETE FROM filter_logs WHERE id IN (" + placeholders + ")", ids.toArray());
+            moved += rows.size();
+            logger.info("已将 {} 条过滤日志从主库搬移到分片", moved);
+        }
+    }
+
+    private void moveToShard(JdbcTemplate shard, List<Map<String, Object>> rows) {
+        TransactionTemplate transactionTemplate =
+                new TransactionTemplate(new DataSourceTransactionManager(shard.getDataSource()));
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Map<String, Object> row : rows) {
+                Map<String, Object> values = new LinkedHashMap<>(row);
+                Object legacyId = values.remove("id");
+                if (shard.update("INSERT OR IGNORE INTO moved_filter_logs (legacy_id) VALUES (?)", legacyId) == 0) {
+                    // 上次搬移中断前已写入分片
+                    continue;
+                }
+                shard.update("INSERT INTO filter_logs (user_id, rss_item_id, title, link, ai_filtered, ai_reason, " +
+                        "ai_raw_response, source_name, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        values.values().toArray());
+            }
+        });
+    }
+}
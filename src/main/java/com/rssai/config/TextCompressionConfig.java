@@ -0,0 +1,54 @@
+package com.rssai.config;
+
+import com.rssai.dialect.SqlDialect;
+import com.rssai.util.TextCompressionUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 大文本列压缩存储配置
+ * 默认关闭；开启后新写入的 rss_items.description/content 和 filter_logs.ai_raw_response
+ * 超过阈值时以压缩BLOB写入，历史数据由 TextCompressionMigrationService 在后台转换。
+ * 压缩依赖 SQLite 在 TEXT 列中存放 BLOB 的能力，其他数据库下始终关闭
+ */
+@Configuration
+public class TextCompressionConfig {
+
+    @Value("${storage.compression.enabled:false}")
+    private boolean enabled;
+
+    @Value("${storage.compression.min-bytes:512}")
+    private int minBytes;
+
+    private final SqlDialect sqlDialect;
+
+    public TextCompressionConfig(SqlDialect sqlDialect) {
+        this.sqlDialect = sqlDialect;
+    }
+
+    public boolean isEnabled() {
+        return enabled && sqlDialect.supportsDynamicTyping();
+    }
+
+    public int getMinBytes() {
+        return minBytes;
+    }
+
+    /**
+     * 按配置把文本转换为写入数据库的参数：未开启或低于阈值时保持字符串，否则返回压缩后的字节数组
+     */
+    public Object encode(String text) {
+        if (!isEnabled() || text == null || text.length() * 3 < minBytes) {
+            return text;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length < minBytes) {
+            return text;
+        }
+        byte[] compressed = TextCompressionUtils.compress(text);
+        // 压缩收益不明显时保留原文，避免读取时白白解压
+        return compressed.length < utf8.length * 0.9 ? compressed : text;
+    }
+}
@@ -3,6 +3,11 @@ package com.rssai.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
 @Configuration
 public class TimezoneConfig {
 
@@ -28,4 +33,31 @@ public class TimezoneConfig {
         }
         return "+8 hours"; // 默认 GMT+8
     }
+
+    /**
+     * 配置的时区，无法识别时使用 GMT+8
+     */
+    public ZoneId getZoneId() {
+        try {
+            return ZoneId.of(timezone);
+        } catch (DateTimeException e) {
+            return ZoneId.of("GMT+8");
+        }
+    }
+
+    /**
+     * 配置时区下某一天零点的毫秒时间戳
+     * @param dayOffset 相对今天的天数，0 为今天，1 为明天
+     */
+    public long startOfDayMillis(int dayOffset) {
+        ZoneId zoneId = getZoneId();
+        return LocalDate.now(zoneId).plusDays(dayOffset).atStartOfDay(zoneId).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 配置时区当前相对 UTC 的偏移毫秒数，用于把毫秒时间戳按天分组
+     */
+    public long getOffsetMillis() {
+        return getZoneId().getRules().getOffset(Instant.now()).getTotalSeconds() * 1000L;
+    }
 }
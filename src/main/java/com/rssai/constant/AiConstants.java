@@ -20,6 +20,33 @@ public final class AiConstants {
     public static final int DEFAULT_MAX_TOKENS_BATCH = 2000;
     public static final int DEFAULT_MAX_TOKENS_SUMMARY = 1000;
     
+    // 并发限制：同一AI服务（baseUrl + 模型）同时进行的批量筛选请求数
+    public static final int DEFAULT_MAX_CONCURRENCY = 4;
+    public static final int MAX_CONCURRENCY_LIMIT = 16;
+    public static final String MAX_CONCURRENCY_CONFIG_KEY = "ai.max-concurrency";
+    // 同一请求因429被限流时最多发送的次数，限流等待不消耗批量筛选的重试次数
+    public static final int MAX_RATE_LIMITED_ATTEMPTS = 5;
+    
+    // 批量筛选的token预算：按估算的输入和输出token数装箱，每批条数随内容长短变化
+    public static final int DEFAULT_MAX_INPUT_TOKENS_BATCH = 4000;
+    // 单条文章（标题+内容）最多占用的输入token，超出部分截断
+    public static final int MAX_ITEM_INPUT_TOKENS_BATCH = 300;
+    // 每条文章在提示词中的格式开销（"[3] 标题: 内容:"）
+    public static final int BATCH_ITEM_OVERHEAD_TOKENS = 8;
+    // 每条文章的回复（"[3]YES-原因"）预留的输出token
+    public static final int BATCH_VERDICT_OUTPUT_TOKENS = 20;
+    // 输出预算只使用 max_tokens 的这一比例，为格式偏差留余量；思考模型的推理过程也计入输出，只使用一半
+    public static final double BATCH_OUTPUT_BUDGET_RATIO = 0.8;
+    public static final double REASONING_OUTPUT_BUDGET_RATIO = 0.4;
+    // 批量响应中缺失或无法解析的条目最多补充请求的轮数，只请求这些条目
+    public static final int MAX_FOLLOW_UP_ROUNDS = 2;
+    
+    // 本地预筛给出的筛选原因中的标记，带有此标记的结果不用于训练
+    public static final String PREFILTER_REASON_TAG = "本地预筛";
+    
+    // AI服务不可用时本地给出的临时结果的标记，这些条目仍标记为需要重试，服务恢复后重新筛选
+    public static final String PROVISIONAL_REASON_TAG = "临时判断";
+    
     // 温度参数
     public static final double FILTER_TEMPERATURE = 0.1;
     public static final double SUMMARY_TEMPERATURE = 0.3;
@@ -16,24 +16,50 @@ public final class RssConstants {
     // 重复检查时间范围（天）
     public static final int DUPLICATE_CHECK_DAYS = 30;
     
-    // 批量处理大小
-    public static final int DEFAULT_BATCH_SIZE = 10;
+    // 批量筛选每批最多条数，实际条数按token预算决定
     public static final int MAX_BATCH_SIZE = 50;
     
     // 内容长度限制
     public static final int MAX_TITLE_LENGTH = 200;
     public static final int MAX_DESCRIPTION_LENGTH = 500;
     public static final int MAX_SUMMARY_LENGTH = 100;
+    public static final int LIST_EXCERPT_LENGTH = 200;
     
     // 重试配置
     public static final int MAX_RETRY_ATTEMPTS = 3;
     public static final long INITIAL_RETRY_DELAY_MS = 1000;
     public static final int RETRY_BACKOFF_MULTIPLIER = 2;
+    public static final long MAX_RETRY_DELAY_MS = 30000;
     
     // 缓存过期时间（分钟）
     public static final int VERIFICATION_CODE_EXPIRE_MINUTES = 5;
     public static final int USER_CACHE_EXPIRE_MINUTES = 30;
     public static final int HTTP_CLIENT_CACHE_EXPIRE_HOURS = 1;
+    public static final int READ_STATE_CACHE_EXPIRE_MINUTES = 60;
+    
+    // 已读位图保留的最近变更条数（用于增量同步）
+    public static final int READ_STATE_DELTA_LOG_SIZE = 500;
+    
+    // 全文搜索配置
+    public static final int SEARCH_DEFAULT_PAGE_SIZE = 20;
+    public static final int SEARCH_MAX_PAGE_SIZE = 50;
+    public static final int SEARCH_MAX_BODY_LENGTH = 20000;
+    public static final int SEARCH_MIN_TRIGRAM_LENGTH = 3;
+    public static final int SEARCH_BACKFILL_CHUNK_SIZE = 200;
+    public static final int SEARCH_MAX_RANKED_RESULTS = 1000;
+    public static final int SEARCH_SNAPSHOT_CACHE_SIZE = 1000;
+    public static final int SEARCH_SNAPSHOT_EXPIRE_MINUTES = 10;
+    
+    // 流式筛选结果合并写入：攒够条数或距上次写入超过间隔时写入一次
+    public static final int STREAM_VERDICT_FLUSH_SIZE = 20;
+    public static final long STREAM_VERDICT_FLUSH_INTERVAL_MS = 300;
+    
+    // 列表摘要回填分块大小
+    public static final int PREVIEW_BACKFILL_CHUNK_SIZE = 200;
+    
+    // 过滤日志查询配置（总数超过上限时只返回近似值）
+    public static final int FILTER_LOG_MAX_PAGE_SIZE = 100;
+    public static final int FILTER_LOG_COUNT_CAP = 1000;
     
     // 邮件配置
     public static final int MAX_EMAIL_ITEMS = 50;
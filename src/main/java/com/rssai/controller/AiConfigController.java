@@ -1,10 +1,12 @@
 package com.rssai.controller;
 
+import com.rssai.constant.AiConstants;
 import com.rssai.mapper.AiConfigMapper;
 import com.rssai.mapper.RssSourceMapper;
 import com.rssai.mapper.UserMapper;
 import com.rssai.model.AiConfig;
 import com.rssai.model.User;
+import com.rssai.service.ai.AiPreFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -20,13 +22,16 @@ public class AiConfigController {
     private final AiConfigMapper aiConfigMapper;
     private final UserMapper userMapper;
     private final RssSourceMapper rssSourceMapper;
+    private final AiPreFilter aiPreFilter;
     
     public AiConfigController(AiConfigMapper aiConfigMapper,
                               UserMapper userMapper,
-                              RssSourceMapper rssSourceMapper) {
+                              RssSourceMapper rssSourceMapper,
+                              AiPreFilter aiPreFilter) {
         this.aiConfigMapper = aiConfigMapper;
         this.userMapper = userMapper;
         this.rssSourceMapper = rssSourceMapper;
+        this.aiPreFilter = aiPreFilter;
     }
 
     @GetMapping
@@ -34,6 +39,7 @@ public class AiConfigController {
         User user = userMapper.findByUsername(auth.getName());
         AiConfig config = aiConfigMapper.findByUserId(user.getId());
         model.addAttribute("config", config);
+        model.addAttribute("prefilterStats", aiPreFilter.getStats(user.getId()));
         return "ai-config";
     }
 
@@ -45,7 +51,12 @@ public class AiConfigController {
                             @RequestParam String systemPrompt,
                             @RequestParam(defaultValue = "10") Integer refreshInterval,
                             @RequestParam(required = false) String forceUpdateSources,
-                            @RequestParam(required = false) String isReasoningModel) {
+                            @RequestParam(required = false) String isReasoningModel,
+                            @RequestParam(required = false) Integer maxConcurrency,
+                            @RequestParam(required = false) Integer maxTokensBatch,
+                            @RequestParam(required = false) Integer maxInputTokensBatch,
+                            @RequestParam(required = false) String useStream,
+                            @RequestParam(required = false) String prefilterEnabled) {
         User user = userMapper.findByUsername(auth.getName());
         AiConfig config = aiConfigMapper.findByUserId(user.getId());
 
@@ -55,6 +66,21 @@ public class AiConfigController {
             reasoningModel = Boolean.parseBoolean(isReasoningModel) ? 1 : 0;
         }
 
+        // 并发批次数：空值使用管理员设置的默认值
+        if (maxConcurrency != null) {
+            maxConcurrency = Math.max(1, Math.min(maxConcurrency, AiConstants.MAX_CONCURRENCY_LIMIT));
+        }
+        // 批量筛选token预算：空值或非正数使用默认值
+        if (maxTokensBatch != null && maxTokensBatch <= 0) {
+            maxTokensBatch = null;
+        }
+        if (maxInputTokensBatch != null && maxInputTokensBatch <= 0) {
+            maxInputTokensBatch = null;
+        }
+
+        Integer stream = "true".equals(useStream) ? 1 : 0;
+        Integer prefilter = "true".equals(prefilterEnabled) ? 1 : 0;
+
         if (config == null) {
             config = new AiConfig();
             config.setUserId(user.getId());
@@ -64,14 +90,29 @@ public class AiConfigController {
             config.setSystemPrompt(systemPrompt);
             config.setRefreshInterval(refreshInterval);
             config.setIsReasoningModel(reasoningModel);
+            config.setMaxConcurrency(maxConcurrency);
+            config.setMaxTokensBatch(maxTokensBatch);
+            config.setMaxInputTokensBatch(maxInputTokensBatch);
+            config.setUseStream(stream);
+            config.setPrefilterEnabled(prefilter);
+            config.setPromptUpdatedAt(System.currentTimeMillis());
             aiConfigMapper.insert(config);
         } else {
+            // 筛选偏好或模型变化后，以往的筛选结果不再用于训练本地预筛
+            if (!systemPrompt.equals(config.getSystemPrompt()) || !model.equals(config.getModel())) {
+                config.setPromptUpdatedAt(System.currentTimeMillis());
+            }
             config.setBaseUrl(baseUrl);
             config.setModel(model);
             config.setApiKey(apiKey);
             config.setSystemPrompt(systemPrompt);
             config.setRefreshInterval(refreshInterval);
             config.setIsReasoningModel(reasoningModel);
+            config.setMaxConcurrency(maxConcurrency);
+            config.setMaxTokensBatch(maxTokensBatch);
+            config.setMaxInputTokensBatch(maxInputTokensBatch);
+            config.setUseStream(stream);
+            config.setPrefilterEnabled(prefilter);
             aiConfigMapper.update(config);
         }
 
@@ -6,9 +6,11 @@ import com.rssai.mapper.RssSourceMapper;
 import com.rssai.mapper.UserMapper;
 import com.rssai.model.RssItem;
 import com.rssai.model.User;
-import com.rssai.util.HtmlUtils;
+import com.rssai.service.ArticleSearchService;
+import com.rssai.service.ReadStateService;
 import com.rssai.service.SystemConfigService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -17,8 +19,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import java.util.Base64;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @Controller
@@ -28,17 +30,23 @@ public class DashboardController {
     private final RssItemMapper rssItemMapper;
     private final AiConfigMapper aiConfigMapper;
     private final SystemConfigService systemConfigService;
+    private final ReadStateService readStateService;
+    private final ArticleSearchService articleSearchService;
     
     public DashboardController(UserMapper userMapper,
                                RssSourceMapper rssSourceMapper,
                                RssItemMapper rssItemMapper,
                                AiConfigMapper aiConfigMapper,
-                               SystemConfigService systemConfigService) {
+                               SystemConfigService systemConfigService,
+                               ReadStateService readStateService,
+                               ArticleSearchService articleSearchService) {
         this.userMapper = userMapper;
         this.rssSourceMapper = rssSourceMapper;
         this.rssItemMapper = rssItemMapper;
         this.aiConfigMapper = aiConfigMapper;
         this.systemConfigService = systemConfigService;
+        this.readStateService = readStateService;
+        this.articleSearchService = articleSearchService;
     }
 
     @GetMapping("/dashboard")
@@ -53,22 +61,11 @@ public class DashboardController {
         // 默认只显示未读文章
         Boolean effectiveIsRead = isRead != null ? isRead : false;
         
-        int totalItems = rssItemMapper.countFilteredByUserId(user.getId(), effectiveIsRead);
+        ReadStateService.ItemPage itemPage = readStateService.findFilteredItems(user.getId(), page, pageSize, effectiveIsRead);
+        int totalItems = itemPage.getTotalItems();
         int totalPages = (int) Math.ceil((double) totalItems / pageSize);
         
-        List<RssItem> items = rssItemMapper.findFilteredByUserIdWithPagination(user.getId(), page, pageSize, effectiveIsRead);
-        for (RssItem item : items) {
-            String cleanDesc = HtmlUtils.stripHtml(item.getDescription());
-            item.setDescription(HtmlUtils.truncate(cleanDesc, 200));
-            // 提取第一张图片
-            String imageUrl = HtmlUtils.extractFirstImage(item.getContent());
-            if (imageUrl == null) {
-                imageUrl = HtmlUtils.extractFirstImage(item.getDescription());
-            }
-            item.setImageUrl(imageUrl);
-        }
-        
-        model.addAttribute("items", items);
+        model.addAttribute("items", itemPage.getItems());
         model.addAttribute("aiConfig", aiConfigMapper.findByUserId(user.getId()));
         model.addAttribute("currentPage", page);
         model.addAttribute("pageSize", pageSize);
@@ -87,36 +84,78 @@ public class DashboardController {
         User user = userMapper.findByUsername(auth.getName());
         // 默认只显示未读文章
         Boolean effectiveIsRead = isRead != null ? isRead : false;
-        int totalItems = rssItemMapper.countFilteredByUserId(user.getId(), effectiveIsRead);
+        ReadStateService.ItemPage itemPage = readStateService.findFilteredItems(user.getId(), page, pageSize, effectiveIsRead);
+        int totalItems = itemPage.getTotalItems();
         int totalPages = (int) Math.ceil((double) totalItems / pageSize);
 
-        List<RssItem> items = rssItemMapper.findFilteredByUserIdWithPagination(user.getId(), page, pageSize, effectiveIsRead);
-        for (RssItem item : items) {
-            String cleanDesc = HtmlUtils.stripHtml(item.getDescription());
-            item.setDescription(HtmlUtils.truncate(cleanDesc, 200));
-            // 提取第一张图片
-            String imageUrl = HtmlUtils.extractFirstImage(item.getContent());
-            if (imageUrl == null) {
-                imageUrl = HtmlUtils.extractFirstImage(item.getDescription());
-            }
-            item.setImageUrl(imageUrl);
-        }
-
         Map<String, Object> result = new HashMap<>();
-        result.put("items", items);
+        result.put("items", itemPage.getItems());
         result.put("hasMore", page < totalPages);
         result.put("currentPage", page);
         result.put("totalPages", totalPages);
         return result;
     }
 
+    /**
+     * 按需加载单篇文章的完整摘要和正文，列表接口只返回截断后的摘要
+     */
+    @GetMapping("/dashboard/item")
+    @ResponseBody
+    public ResponseEntity<Map<String, Object>> getItem(Authentication auth, @RequestParam Long id) {
+        User user = userMapper.findByUsername(auth.getName());
+        RssItem item = rssItemMapper.findByIdAndUserId(id, user.getId());
+        if (item == null) {
+            return ResponseEntity.notFound().build();
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("id", item.getId());
+        result.put("title", item.getTitle());
+        result.put("link", item.getLink());
+        result.put("sourceName", item.getSourceName());
+        result.put("pubDate", item.getPubDate());
+        result.put("description", item.getDescription());
+        result.put("content", item.getContent());
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * 全文搜索已通过筛选的文章
+     * 返回的 titleHighlight/snippet 已做HTML转义，只包含 &lt;mark&gt; 标签
+     */
+    @GetMapping("/dashboard/search")
+    @ResponseBody
+    public Map<String, Object> searchItems(Authentication auth,
+                                           @RequestParam String q,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int pageSize) {
+        User user = userMapper.findByUsername(auth.getName());
+        ArticleSearchService.SearchPage searchPage = articleSearchService.search(user.getId(), q, cursor, pageSize);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("items", searchPage.getHits());
+        result.put("nextCursor", searchPage.getNextCursor());
+        result.put("hasMore", searchPage.getNextCursor() != null);
+        return result;
+    }
+
+    /**
+     * 获取已读状态
+     * 传入客户端持有的版本号时，若服务端仍保留足够的变更记录则只返回增量ID，
+     * 否则返回Base64编码的完整Roaring位图
+     */
     @GetMapping("/dashboard/read-ids")
     @ResponseBody
-    public Map<String, Object> getReadItemIds(Authentication auth) {
+    public Map<String, Object> getReadItemIds(Authentication auth,
+                                              @RequestParam(required = false) Long since) {
         User user = userMapper.findByUsername(auth.getName());
-        List<Long> readItemIds = rssItemMapper.findReadItemIds(user.getId());
+        ReadStateService.ReadStateSnapshot snapshot = readStateService.getSnapshot(user.getId(), since);
         Map<String, Object> result = new HashMap<>();
-        result.put("readIds", readItemIds);
+        result.put("version", snapshot.getVersion());
+        if (snapshot.isDelta()) {
+            result.put("delta", snapshot.getDelta());
+        } else {
+            result.put("bitmap", Base64.getEncoder().encodeToString(snapshot.getBitmap()));
+        }
         return result;
     }
 
@@ -124,7 +163,7 @@ public class DashboardController {
     @ResponseBody
     public Map<String, Object> markAsRead(Authentication auth, @RequestParam Long itemId) {
         User user = userMapper.findByUsername(auth.getName());
-        rssItemMapper.markAsRead(user.getId(), itemId);
+        readStateService.markAsRead(user.getId(), itemId);
         Map<String, Object> result = new HashMap<>();
         result.put("success", true);
         return result;
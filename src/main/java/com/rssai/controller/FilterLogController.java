@@ -3,8 +3,8 @@ package com.rssai.controller;
 import com.rssai.mapper.FilterLogMapper;
 import com.rssai.mapper.RssSourceMapper;
 import com.rssai.mapper.UserMapper;
-import com.rssai.model.FilterLog;
 import com.rssai.model.User;
+import com.rssai.service.FilterLogService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,7 +17,6 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
@@ -27,29 +26,25 @@ public class FilterLogController {
     private final UserMapper userMapper;
     private final FilterLogMapper filterLogMapper;
     private final RssSourceMapper rssSourceMapper;
+    private final FilterLogService filterLogService;
 
-    private static final int DEFAULT_PAGE_SIZE = 20;
-    
     public FilterLogController(UserMapper userMapper,
                                FilterLogMapper filterLogMapper,
-                               RssSourceMapper rssSourceMapper) {
+                               RssSourceMapper rssSourceMapper,
+                               FilterLogService filterLogService) {
         this.userMapper = userMapper;
         this.filterLogMapper = filterLogMapper;
         this.rssSourceMapper = rssSourceMapper;
+        this.filterLogService = filterLogService;
     }
 
     @GetMapping("/filter-logs")
-public String filterLogs(Authentication auth, Model model,
-                            @RequestParam(defaultValue = "1") int page,
-                            @RequestParam(defaultValue = "20") int pageSize,
-                            @RequestParam(required = false) String filtered,
-                            @RequestParam(required = false) String source,
-                            @RequestParam(required = false) String keyword) {
-        // Guard clause: validate page parameter - Law of Early Exit
-        if (page < 1) {
-            throw new IllegalArgumentException("page must be >= 1");
-        }
-
+    public String filterLogs(Authentication auth, Model model,
+                             @RequestParam(required = false) String cursor,
+                             @RequestParam(defaultValue = "20") int pageSize,
+                             @RequestParam(required = false) String filtered,
+                             @RequestParam(required = false) String source,
+                             @RequestParam(required = false) String keyword) {
         User user = userMapper.findByUsername(auth.getName());
         // Guard clause: validate user exists - Law of Fail Fast
         if (user == null) {
@@ -57,48 +52,16 @@ public String filterLogs(Authentication auth, Model model,
         }
         model.addAttribute("user", user);
 
-        List<FilterLog> logs;
-        int totalLogs;
-
-        Boolean isFiltered = hasFilter(filtered) ? Boolean.parseBoolean(filtered) : null;
-        boolean hasKeyword = hasFilter(keyword);
-
-        if (isFiltered != null && hasFilter(source) && hasKeyword) {
-            logs = filterLogMapper.findByUserIdAndFilteredAndSourceAndKeyword(user.getId(), isFiltered, source, keyword, page, pageSize);
-            totalLogs = filterLogMapper.countByUserIdAndFilteredAndSourceAndKeyword(user.getId(), isFiltered, source, keyword);
-        } else if (isFiltered != null && hasFilter(source)) {
-            logs = filterLogMapper.findByUserIdAndFilteredAndSource(user.getId(), isFiltered, source, page, pageSize);
-            totalLogs = filterLogMapper.countByUserIdAndFilteredAndSource(user.getId(), isFiltered, source);
-        } else if (isFiltered != null && hasKeyword) {
-            logs = filterLogMapper.findByUserIdAndFilteredAndKeyword(user.getId(), isFiltered, keyword, page, pageSize);
-            totalLogs = filterLogMapper.countByUserIdAndFilteredAndKeyword(user.getId(), isFiltered, keyword);
-        } else if (hasFilter(source) && hasKeyword) {
-            logs = filterLogMapper.findByUserIdAndSourceAndKeyword(user.getId(), source, keyword, page, pageSize);
-            totalLogs = filterLogMapper.countByUserIdAndSourceAndKeyword(user.getId(), source, keyword);
-        } else if (isFiltered != null) {
-            logs = filterLogMapper.findByUserIdAndFilteredWithPagination(user.getId(), isFiltered, page, pageSize);
-            totalLogs = filterLogMapper.countByUserIdAndFiltered(user.getId(), isFiltered);
-        } else if (hasFilter(source)) {
-            logs = filterLogMapper.findByUserIdAndSource(user.getId(), source, page, pageSize);
-            totalLogs = filterLogMapper.countByUserIdAndSource(user.getId(), source);
-        } else if (hasKeyword) {
-            logs = filterLogMapper.findByUserIdAndKeyword(user.getId(), keyword, page, pageSize);
-            totalLogs = filterLogMapper.countByUserIdAndKeyword(user.getId(), keyword);
-        } else {
-            logs = filterLogMapper.findByUserIdWithPagination(user.getId(), page, pageSize);
-            totalLogs = filterLogMapper.countByUserId(user.getId());
-        }
-
-        int totalPages = (int) Math.ceil((double) totalLogs / pageSize);
+        FilterLogService.LogPage logPage = queryLogs(user.getId(), filtered, source, keyword, cursor, pageSize);
 
         Set<String> sources = filterLogMapper.findDistinctSourcesByUserId(user.getId());
         sources = new TreeSet<>(sources);
 
-        model.addAttribute("logs", logs);
-        model.addAttribute("currentPage", page);
+        model.addAttribute("logs", logPage.getLogs());
+        model.addAttribute("nextCursor", logPage.getNextCursor());
         model.addAttribute("pageSize", pageSize);
-        model.addAttribute("totalLogs", totalLogs);
-        model.addAttribute("totalPages", totalPages);
+        model.addAttribute("totalLogs", logPage.getTotal());
+        model.addAttribute("totalApproximate", logPage.isTotalApproximate());
         model.addAttribute("filtered", filtered);
         model.addAttribute("currentSource", source);
         model.addAttribute("keyword", keyword);
@@ -109,97 +72,49 @@ public String filterLogs(Authentication auth, Model model,
 
     /**
      * REST API endpoint for infinite scroll pagination.
-     * Returns filter logs in JSON format.
+     * Returns filter logs in JSON format, paged by keyset cursor.
+     * The total is only counted for the first page and is capped (see totalApproximate).
      */
     @GetMapping("/api/filter-logs")
     @ResponseBody
     public ResponseEntity<Map<String, Object>> getFilterLogsApi(
             Authentication auth,
-            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int pageSize,
             @RequestParam(required = false) String filtered,
             @RequestParam(required = false) String source,
             @RequestParam(required = false) String keyword) {
 
-        // Guard clause: validate page parameter - Law of Early Exit
-        if (page < 1) {
-            throw new IllegalArgumentException("page must be >= 1");
-        }
-
         User user = userMapper.findByUsername(auth.getName());
         // Guard clause: validate user exists - Law of Fail Fast
         if (user == null) {
             return ResponseEntity.status(401).build();
         }
 
-        List<FilterLog> logs = fetchLogsForUser(user.getId(), filtered, source, keyword, page, pageSize);
-        int totalLogs = countLogsForUser(user.getId(), filtered, source, keyword);
-        int totalPages = calculateTotalPages(totalLogs, pageSize);
-        boolean hasMore = page < totalPages;
+        FilterLogService.LogPage logPage = queryLogs(user.getId(), filtered, source, keyword, cursor, pageSize);
 
-        Map<String, Object> response = buildPaginatedResponse(logs, page, pageSize, totalPages, totalLogs, hasMore);
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", logPage.getLogs());
+        response.put("pageSize", pageSize);
+        response.put("nextCursor", logPage.getNextCursor());
+        response.put("hasMore", logPage.getNextCursor() != null);
+        response.put("totalLogs", logPage.getTotal());
+        response.put("totalApproximate", logPage.isTotalApproximate());
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Fetches logs based on filter criteria - Law of Atomic Predictability.
-     * Pure function: same inputs always produce same outputs.
-     * Refactored to use unified query strategy - eliminates duplicate condition logic.
+     * Normalizes request parameters and delegates to the unified query - Law of Atomic Predictability.
      */
-    private List<FilterLog> fetchLogsForUser(Long userId, String filtered, String source, String keyword, int page, int pageSize) {
-        Boolean isFiltered = hasFilter(filtered) ? Boolean.parseBoolean(filtered) : null;
-        boolean hasKeyword = hasFilter(keyword);
-        QueryStrategy strategy = determineQueryStrategy(filtered, source, hasKeyword);
-
-        switch (strategy) {
-            case FILTERED_AND_SOURCE_AND_KEYWORD:
-                return filterLogMapper.findByUserIdAndFilteredAndSourceAndKeyword(userId, isFiltered, source, keyword, page, pageSize);
-            case FILTERED_AND_KEYWORD:
-                return filterLogMapper.findByUserIdAndFilteredAndKeyword(userId, isFiltered, keyword, page, pageSize);
-            case SOURCE_AND_KEYWORD:
-                return filterLogMapper.findByUserIdAndSourceAndKeyword(userId, source, keyword, page, pageSize);
-            case KEYWORD_ONLY:
-                return filterLogMapper.findByUserIdAndKeyword(userId, keyword, page, pageSize);
-            case FILTERED_AND_SOURCE:
-                return filterLogMapper.findByUserIdAndFilteredAndSource(userId, isFiltered, source, page, pageSize);
-            case FILTERED_ONLY:
-                return filterLogMapper.findByUserIdAndFilteredWithPagination(userId, isFiltered, page, pageSize);
-            case SOURCE_ONLY:
-                return filterLogMapper.findByUserIdAndSource(userId, source, page, pageSize);
-            case NONE:
-            default:
-                return filterLogMapper.findByUserIdWithPagination(userId, page, pageSize);
+    private FilterLogService.LogPage queryLogs(Long userId, String filtered, String source, String keyword,
+                                               String cursor, int pageSize) {
+        // Guard clause: validate page size - Law of Fail Fast
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive, got: " + pageSize);
         }
-    }
-
-    /**
-     * Counts logs based on filter criteria - Law of Atomic Predictability.
-     * Refactored to use unified query strategy - eliminates duplicate condition logic.
-     */
-    private int countLogsForUser(Long userId, String filtered, String source, String keyword) {
         Boolean isFiltered = hasFilter(filtered) ? Boolean.parseBoolean(filtered) : null;
-        boolean hasKeyword = hasFilter(keyword);
-        QueryStrategy strategy = determineQueryStrategy(filtered, source, hasKeyword);
-
-        switch (strategy) {
-            case FILTERED_AND_SOURCE_AND_KEYWORD:
-                return filterLogMapper.countByUserIdAndFilteredAndSourceAndKeyword(userId, isFiltered, source, keyword);
-            case FILTERED_AND_KEYWORD:
-                return filterLogMapper.countByUserIdAndFilteredAndKeyword(userId, isFiltered, keyword);
-            case SOURCE_AND_KEYWORD:
-                return filterLogMapper.countByUserIdAndSourceAndKeyword(userId, source, keyword);
-            case KEYWORD_ONLY:
-                return filterLogMapper.countByUserIdAndKeyword(userId, keyword);
-            case FILTERED_AND_SOURCE:
-                return filterLogMapper.countByUserIdAndFilteredAndSource(userId, isFiltered, source);
-            case FILTERED_ONLY:
-                return filterLogMapper.countByUserIdAndFiltered(userId, isFiltered);
-            case SOURCE_ONLY:
-                return filterLogMapper.countByUserIdAndSource(userId, source);
-            case NONE:
-            default:
-                return filterLogMapper.countByUserId(userId);
-        }
+        return filterLogService.queryLogs(userId, isFiltered, hasFilter(source) ? source : null,
+                keyword, cursor, pageSize);
     }
 
     /**
@@ -208,73 +123,4 @@ public String filterLogs(Authentication auth, Model model,
     private boolean hasFilter(String value) {
         return value != null && !value.isEmpty();
     }
-
-    /**
-     * Query strategy selector - consolidates filter combination logic.
-     * Returns an enum indicating which query pattern to use.
-     */
-    private enum QueryStrategy {
-        FILTERED_AND_SOURCE_AND_KEYWORD,
-        FILTERED_AND_KEYWORD,
-        SOURCE_AND_KEYWORD,
-        KEYWORD_ONLY,
-        FILTERED_AND_SOURCE,
-        FILTERED_ONLY,
-        SOURCE_ONLY,
-        NONE
-    }
-
-    /**
-     * Determines query strategy based on filter parameters - Law of Atomic Predictability.
-     */
-    private QueryStrategy determineQueryStrategy(String filtered, String source, boolean hasKeyword) {
-        boolean hasFiltered = hasFilter(filtered);
-        boolean hasSource = hasFilter(source);
-
-        if (hasFiltered && hasSource && hasKeyword) {
-            return QueryStrategy.FILTERED_AND_SOURCE_AND_KEYWORD;
-        } else if (hasFiltered && hasKeyword) {
-            return QueryStrategy.FILTERED_AND_KEYWORD;
-        } else if (hasSource && hasKeyword) {
-            return QueryStrategy.SOURCE_AND_KEYWORD;
-        } else if (hasKeyword) {
-            return QueryStrategy.KEYWORD_ONLY;
-        } else if (hasFiltered && hasSource) {
-            return QueryStrategy.FILTERED_AND_SOURCE;
-        } else if (hasFiltered) {
-            return QueryStrategy.FILTERED_ONLY;
-        } else if (hasSource) {
-            return QueryStrategy.SOURCE_ONLY;
-        } else {
-            return QueryStrategy.NONE;
-        }
-    }
-
-    /**
-     * Calculates total pages - Law of Atomic Predictability.
-     * Fail Fast: throws on invalid page size.
-     */
-    private int calculateTotalPages(int totalLogs, int pageSize) {
-        if (pageSize <= 0) {
-            throw new IllegalArgumentException("Page size must be positive, got: " + pageSize);
-        }
-        return (int) Math.ceil((double) totalLogs / pageSize);
-    }
-
-    /**
-     * Builds standardized paginated response - Law of Intentional Naming.
-     */
-    private Map<String, Object> buildPaginatedResponse(
-            List<FilterLog> logs, int page, int pageSize, int totalPages, int totalLogs, boolean hasMore) {
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("data", logs);
-        response.put("page", page);
-        response.put("pageSize", pageSize);
-        response.put("totalPages", totalPages);
-        response.put("totalLogs", totalLogs);
-        response.put("hasMore", hasMore);
-
-        return response;
-    }
 }
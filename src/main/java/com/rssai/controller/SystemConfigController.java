@@ -1,6 +1,7 @@
 package com.rssai.controller;
 
 import com.rssai.config.MailConfig;
+import com.rssai.constant.AiConstants;
 import com.rssai.mapper.UserMapper;
 import com.rssai.mapper.RssSourceMapper;
 import com.rssai.mapper.FilterLogMapper;
@@ -8,8 +9,16 @@ import com.rssai.mapper.KeywordSubscriptionMapper;
 import com.rssai.model.SystemConfig;
 import com.rssai.model.User;
 import com.rssai.service.SystemConfigService;
+import com.rssai.service.AsyncRetryService;
+import com.rssai.service.BackupService;
+import com.rssai.service.DatabaseMaintenanceService;
 import com.rssai.service.EmailService;
+import com.rssai.service.RetentionService;
 import com.rssai.service.RssFetchSchedulerService;
+import com.rssai.service.ai.AiConcurrencyLimiter;
+import com.rssai.service.ai.AiPreFilter;
+import com.rssai.service.ai.AiRateLimiter;
+import com.rssai.service.ai.AiVerdictCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
@@ -43,6 +52,14 @@ public class SystemConfigController {
     private final FilterLogMapper filterLogMapper;
     private final KeywordSubscriptionMapper keywordSubscriptionMapper;
     private final SessionRegistry sessionRegistry;
+    private final RetentionService retentionService;
+    private final BackupService backupService;
+    private final DatabaseMaintenanceService databaseMaintenanceService;
+    private final AiConcurrencyLimiter aiConcurrencyLimiter;
+    private final AiRateLimiter aiRateLimiter;
+    private final AsyncRetryService asyncRetryService;
+    private final AiPreFilter aiPreFilter;
+    private final AiVerdictCache aiVerdictCache;
 
     public SystemConfigController(SystemConfigService systemConfigService,
                                   EmailService emailService,
@@ -53,7 +70,15 @@ public class SystemConfigController {
                                   RssSourceMapper rssSourceMapper,
                                   FilterLogMapper filterLogMapper,
                                   KeywordSubscriptionMapper keywordSubscriptionMapper,
-                                  SessionRegistry sessionRegistry) {
+                                  SessionRegistry sessionRegistry,
+                                  RetentionService retentionService,
+                                  BackupService backupService,
+                                  DatabaseMaintenanceService databaseMaintenanceService,
+                                  AiConcurrencyLimiter aiConcurrencyLimiter,
+                                  AiRateLimiter aiRateLimiter,
+                                  AsyncRetryService asyncRetryService,
+                                  AiPreFilter aiPreFilter,
+                                  AiVerdictCache aiVerdictCache) {
         this.systemConfigService = systemConfigService;
         this.emailService = emailService;
         this.userMapper = userMapper;
@@ -64,6 +89,14 @@ public class SystemConfigController {
         this.rssSourceMapper = rssSourceMapper;
         this.filterLogMapper = filterLogMapper;
         this.keywordSubscriptionMapper = keywordSubscriptionMapper;
+        this.retentionService = retentionService;
+        this.backupService = backupService;
+        this.databaseMaintenanceService = databaseMaintenanceService;
+        this.aiConcurrencyLimiter = aiConcurrencyLimiter;
+        this.aiRateLimiter = aiRateLimiter;
+        this.asyncRetryService = asyncRetryService;
+        this.aiPreFilter = aiPreFilter;
+        this.aiVerdictCache = aiVerdictCache;
     }
 
     @GetMapping("/system-config")
@@ -480,6 +513,279 @@ public class SystemConfigController {
         return result;
     }
 
+    @GetMapping("/system-config/retention")
+    @ResponseBody
+    public Map<String, Object> getRetentionReport(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限访问");
+            return result;
+        }
+
+        result.put("success", true);
+        result.put("running", retentionService.isRunning());
+        result.put("runId", retentionService.getCurrentRunId());
+        result.put("report", retentionService.getLastReport());
+        return result;
+    }
+
+    @PostMapping("/system-config/retention/run")
+    @ResponseBody
+    public Map<String, Object> runRetention(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限操作");
+            return result;
+        }
+
+        Long runId = retentionService.requestRun();
+        if (runId == null) {
+            result.put("success", false);
+            result.put("message", "清理任务正在运行");
+            result.put("runId", retentionService.getCurrentRunId());
+            return result;
+        }
+        result.put("success", true);
+        result.put("runId", runId);
+        result.put("message", "已开始清理，完成情况请查看清理报告");
+        return result;
+    }
+
+    @GetMapping("/system-config/backup")
+    @ResponseBody
+    public Map<String, Object> getBackupStatus(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限访问");
+            return result;
+        }
+
+        try {
+            result.put("success", true);
+            result.put("status", backupService.getStatus());
+            result.put("generations", backupService.listGenerations());
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "获取备份状态失败: " + e.getMessage());
+        }
+        return result;
+    }
+
+    @PostMapping("/system-config/backup/run")
+    @ResponseBody
+    public Map<String, Object> runBackup(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限操作");
+            return result;
+        }
+
+        if (!backupService.requestNewGeneration()) {
+            result.put("success", false);
+            result.put("message", "热备份未启用");
+            return result;
+        }
+        result.put("success", true);
+        result.put("message", "已开始新的备份，完成情况请查看备份状态");
+        return result;
+    }
+
+    /**
+     * 把备份恢复为 backup.directory 下的新数据库文件，需要停机后手动替换 data/rss.db
+     * @param pointInTime 毫秒时间戳，为空时恢复到最新归档
+     */
+    @PostMapping("/system-config/backup/restore")
+    @ResponseBody
+    public Map<String, Object> restoreBackup(Authentication auth,
+                                             @RequestParam(required = false) String generation,
+                                             @RequestParam(required = false) Long pointInTime) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限操作");
+            return result;
+        }
+
+        try {
+            result.put("success", true);
+            result.put("file", backupService.restore(generation, pointInTime).toString());
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "恢复失败: " + e.getMessage());
+        }
+        return result;
+    }
+
+    @GetMapping("/system-config/maintenance")
+    @ResponseBody
+    public Map<String, Object> getMaintenanceStatus(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限访问");
+            return result;
+        }
+
+        try {
+            result.put("success", true);
+            result.put("analyzing", databaseMaintenanceService.isAnalyzing());
+            result.put("lastAnalyze", databaseMaintenanceService.getLastAnalyze());
+            result.put("lastOptimizeAt", databaseMaintenanceService.getLastOptimizeAt());
+            result.put("lastOptimizeDurationMs", databaseMaintenanceService.getLastOptimizeDurationMs());
+            result.put("walSizes", databaseMaintenanceService.getWalSizes());
+            result.put("checkpoints", databaseMaintenanceService.getRecentCheckpoints());
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "获取维护状态失败: " + e.getMessage());
+        }
+        return result;
+    }
+
+    @PostMapping("/system-config/maintenance/analyze")
+    @ResponseBody
+    public Map<String, Object> runAnalyze(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限操作");
+            return result;
+        }
+
+        DatabaseMaintenanceService.AnalyzeReport report = databaseMaintenanceService.runAnalyze();
+        if (report == null) {
+            result.put("success", false);
+            result.put("message", "ANALYZE 正在运行、数据库不支持或执行失败，请查看系统日志");
+            return result;
+        }
+        result.put("success", true);
+        result.put("report", report);
+        return result;
+    }
+
+    @GetMapping("/system-config/ai-concurrency")
+    @ResponseBody
+    public Map<String, Object> getAiConcurrency(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限访问");
+            return result;
+        }
+
+        result.put("success", true);
+        result.put("maxConcurrency", systemConfigService.getConfigValue(AiConstants.MAX_CONCURRENCY_CONFIG_KEY,
+                String.valueOf(AiConstants.DEFAULT_MAX_CONCURRENCY)));
+        result.put("inFlight", aiConcurrencyLimiter.getInFlight());
+        result.put("queued", aiConcurrencyLimiter.getQueued());
+        return result;
+    }
+
+    @PostMapping("/system-config/ai-concurrency")
+    @ResponseBody
+    public Map<String, Object> updateAiConcurrency(Authentication auth, @RequestParam int maxConcurrency) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限操作");
+            return result;
+        }
+
+        if (maxConcurrency < 1 || maxConcurrency > AiConstants.MAX_CONCURRENCY_LIMIT) {
+            result.put("success", false);
+            result.put("message", "并发数必须在 1 到 " + AiConstants.MAX_CONCURRENCY_LIMIT + " 之间");
+            return result;
+        }
+
+        try {
+            systemConfigService.updateConfig(AiConstants.MAX_CONCURRENCY_CONFIG_KEY, String.valueOf(maxConcurrency));
+            result.put("success", true);
+            result.put("message", "AI并发配置已保存");
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "保存失败: " + e.getMessage());
+        }
+        return result;
+    }
+
+    @GetMapping("/system-config/ai-rate-limit")
+    @ResponseBody
+    public Map<String, Object> getAiRateLimit(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限访问");
+            return result;
+        }
+
+        result.put("success", true);
+        result.put("providers", aiRateLimiter.getStatus());
+        result.put("retryBudgets", asyncRetryService.getStats());
+        return result;
+    }
+
+    @GetMapping("/system-config/ai-prefilter")
+    @ResponseBody
+    public Map<String, Object> getAiPreFilter(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限访问");
+            return result;
+        }
+
+        result.put("success", true);
+        result.put("stats", aiPreFilter.getTotalStats());
+        return result;
+    }
+
+    @GetMapping("/system-config/ai-verdict-cache")
+    @ResponseBody
+    public Map<String, Object> getAiVerdictCacheStats(Authentication auth) {
+        Map<String, Object> result = new HashMap<>();
+
+        User user = userMapper.findByUsername(auth.getName());
+        if (user.getIsAdmin() == null || !user.getIsAdmin()) {
+            result.put("success", false);
+            result.put("message", "无权限访问");
+            return result;
+        }
+
+        try {
+            result.put("success", true);
+            result.put("stats", aiVerdictCache.getStats());
+        } catch (Exception e) {
+            result.put("success", false);
+            result.put("message", "获取缓存统计失败: " + e.getMessage());
+        }
+        return result;
+    }
+
     /**
      * 使指定用户的所有会话失效
      */
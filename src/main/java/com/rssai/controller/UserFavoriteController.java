@@ -4,7 +4,6 @@ import com.rssai.mapper.UserMapper;
 import com.rssai.model.User;
 import com.rssai.model.UserFavorite;
 import com.rssai.service.UserFavoriteService;
-import com.rssai.util.HtmlUtils;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
@@ -39,18 +38,6 @@ public class UserFavoriteController {
         int totalPages = (int) Math.ceil((double) totalItems / pageSize);
 
         List<UserFavorite> favorites = userFavoriteService.getUserFavorites(user.getId(), page, pageSize);
-        for (UserFavorite favorite : favorites) {
-            if (favorite.getRssItem() != null) {
-                String cleanDesc = HtmlUtils.stripHtml(favorite.getRssItem().getDescription());
-                favorite.getRssItem().setDescription(HtmlUtils.truncate(cleanDesc, 200));
-                // 提取第一张图片
-                String imageUrl = HtmlUtils.extractFirstImage(favorite.getRssItem().getContent());
-                if (imageUrl == null) {
-                    imageUrl = HtmlUtils.extractFirstImage(favorite.getRssItem().getDescription());
-                }
-                favorite.getRssItem().setImageUrl(imageUrl);
-            }
-        }
 
         model.addAttribute("favorites", favorites);
         model.addAttribute("currentPage", page);
@@ -73,18 +60,6 @@ public class UserFavoriteController {
         int totalPages = (int) Math.ceil((double) totalItems / pageSize);
 
         List<UserFavorite> favorites = userFavoriteService.getUserFavorites(user.getId(), page, pageSize);
-        for (UserFavorite favorite : favorites) {
-            if (favorite.getRssItem() != null) {
-                String cleanDesc = HtmlUtils.stripHtml(favorite.getRssItem().getDescription());
-                favorite.getRssItem().setDescription(HtmlUtils.truncate(cleanDesc, 200));
-                // 提取第一张图片
-                String imageUrl = HtmlUtils.extractFirstImage(favorite.getRssItem().getContent());
-                if (imageUrl == null) {
-                    imageUrl = HtmlUtils.extractFirstImage(favorite.getRssItem().getDescription());
-                }
-                favorite.getRssItem().setImageUrl(imageUrl);
-            }
-        }
 
         Map<String, Object> result = new HashMap<>();
         result.put("favorites", favorites);
@@ -0,0 +1,122 @@
+package com.rssai.dialect;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PostgreSQL 方言
+ * 时间列为 TIMESTAMP，'+8 hours' 这样的偏移量换算为 UTC 时间加上固定小时数，'localtime' 使用会话时区。
+ * 不支持 FTS5 和 TEXT/BLOB 混存，全文搜索降级为 LIKE，压缩存储自动关闭。
+ */
+public class PostgreSqlDialect implements SqlDialect {
+    private static final Pattern HOURS_MODIFIER = Pattern.compile("^\\s*([+-]?\\d+)\\s+hours?\\s*$");
+    private static final Pattern AUTOINCREMENT_PK = Pattern.compile("INTEGER\\s+PRIMARY\\s+KEY\\s+AUTOINCREMENT", Pattern.CASE_INSENSITIVE);
+    private static final Pattern BLOB_TYPE = Pattern.compile("\\bBLOB\\b", Pattern.CASE_INSENSITIVE);
+
+    @Override
+    public String getName() {
+        return "postgresql";
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "org.postgresql.Driver";
+    }
+
+    @Override
+    public List<String> getInitStatements() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public String translateDdl(String ddl) {
+        String trimmed = ddl.trim();
+        String upper = trimmed.toUpperCase(Locale.ROOT);
+        if (upper.startsWith("CREATE VIRTUAL TABLE") || upper.startsWith("PRAGMA")) {
+            return null;
+        }
+        String translated = AUTOINCREMENT_PK.matcher(trimmed).replaceAll("BIGSERIAL PRIMARY KEY");
+        return BLOB_TYPE.matcher(translated).replaceAll("BYTEA");
+    }
+
+    @Override
+    public String now(String timezoneModifier) {
+        Matcher matcher = HOURS_MODIFIER.matcher(timezoneModifier);
+        if (matcher.matches()) {
+            return "(CAST(CURRENT_TIMESTAMP AT TIME ZONE 'UTC' AS TIMESTAMP(0)) + INTERVAL '"
+                    + Integer.parseInt(matcher.group(1)) + "' HOUR)";
+        }
+        return "LOCALTIMESTAMP(0)";
+    }
+
+    @Override
+    public String daysAgo(String timezoneModifier) {
+        return "(" + now(timezoneModifier) + " - CAST(? AS INTEGER) * INTERVAL '1' DAY)";
+    }
+
+    @Override
+    public String date(String expression) {
+        return "CAST(" + expression + " AS DATE)";
+    }
+
+    @Override
+    public String today(String timezoneModifier, int dayOffset) {
+        return "CAST(" + now(timezoneModifier) + " + (" + dayOffset + ") * INTERVAL '1' DAY AS DATE)";
+    }
+
+    /**
+     * PostgreSQL 的周从周一开始，与 SQLite 'weekday 0'（周日）的口径略有不同
+     */
+    @Override
+    public String weekStart(String timezoneModifier, int weeksAgo) {
+        return "(date_trunc('week', " + now(timezoneModifier) + ") - " + weeksAgo + " * INTERVAL '7' DAY)";
+    }
+
+    @Override
+    public String yearMonth(String expression) {
+        return "to_char(" + expression + ", 'YYYY-MM')";
+    }
+
+    @Override
+    public String currentYearMonth(String timezoneModifier, int monthOffset) {
+        return "to_char(" + now(timezoneModifier) + " + (" + monthOffset + ") * INTERVAL '1' MONTH, 'YYYY-MM')";
+    }
+
+    @Override
+    public String insertIgnore(String table, String columns, String values) {
+        return "INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ") ON CONFLICT DO NOTHING";
+    }
+
+    @Override
+    public String caseInsensitiveLike() {
+        return "ILIKE";
+    }
+
+    @Override
+    public String inJsonIdArray(String column) {
+        return column + " IN (SELECT jsonb_array_elements_text(?::jsonb)::bigint)";
+    }
+
+    @Override
+    public boolean supportsFullTextIndex() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsDynamicTyping() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsIncrementalVacuum() {
+        return false;
+    }
+
+    @Override
+    public boolean supportsWalArchiving() {
+        return false;
+    }
+}
@@ -0,0 +1,105 @@
+package com.rssai.dialect;
+
+import java.util.List;
+
+/**
+ * 数据库方言
+ * 数据访问层中与具体数据库相关的SQL片段都通过方言生成，其余SQL保持两种数据库通用的写法
+ * （布尔值使用 TRUE/FALSE 字面量，分页使用 LIMIT/OFFSET）。
+ * <p>
+ * 时间相关方法的 timezoneModifier 与 {@link com.rssai.config.TimezoneConfig#getTimezoneModifier()} 一致，
+ * 取值为 '+8 hours' 这样的偏移量，或 'localtime' 表示数据库所在机器的本地时间。
+ */
+public interface SqlDialect {
+
+    /**
+     * 使用数据库所在机器本地时间的时区修饰符
+     */
+    String LOCALTIME = "localtime";
+
+    String getName();
+
+    String getDriverClassName();
+
+    /**
+     * 建立连接后执行的初始化语句
+     */
+    List<String> getInitStatements();
+
+    /**
+     * 把按 SQLite 语法编写的建表/迁移语句转换为当前方言
+     * @return 转换后的语句；当前方言不支持该语句时返回 null，调用方应跳过
+     */
+    String translateDdl(String ddl);
+
+    /**
+     * 当前时间
+     */
+    String now(String timezoneModifier);
+
+    /**
+     * 当前时间减去若干天，天数由调用方绑定到表达式中唯一的 ? 参数
+     */
+    String daysAgo(String timezoneModifier);
+
+    /**
+     * 取时间表达式的日期部分
+     */
+    String date(String expression);
+
+    /**
+     * 当前日期加上 dayOffset 天（可为负数）
+     */
+    String today(String timezoneModifier, int dayOffset);
+
+    /**
+     * weeksAgo 周前那一周的起始时间
+     */
+    String weekStart(String timezoneModifier, int weeksAgo);
+
+    /**
+     * 取时间表达式的年月（yyyy-MM）
+     */
+    String yearMonth(String expression);
+
+    /**
+     * 当前年月加上 monthOffset 个月（可为负数）
+     */
+    String currentYearMonth(String timezoneModifier, int monthOffset);
+
+    /**
+     * 插入语句，唯一约束冲突时忽略该行
+     */
+    String insertIgnore(String table, String columns, String values);
+
+    /**
+     * 忽略大小写的 LIKE 运算符
+     */
+    String caseInsensitiveLike();
+
+    /**
+     * 列值属于一组ID的条件，ID列表以JSON数组文本（如 [1,2,3]）绑定到表达式中唯一的 ? 参数，
+     * 避免ID较多时超出单条语句的参数个数限制
+     */
+    String inJsonIdArray(String column);
+
+    /**
+     * 是否支持 FTS5 全文索引表，不支持时搜索降级为对原表的 LIKE 查询
+     */
+    boolean supportsFullTextIndex();
+
+    /**
+     * 是否允许在 TEXT 列中写入 BLOB（压缩存储依赖此特性）
+     */
+    boolean supportsDynamicTyping();
+
+    /**
+     * 是否支持 PRAGMA 空间统计和增量 VACUUM
+     */
+    boolean supportsIncrementalVacuum();
+
+    /**
+     * 是否为单文件的 WAL 数据库，可由应用自行做热备份和 WAL 归档
+     */
+    boolean supportsWalArchiving();
+}
@@ -0,0 +1,112 @@
+package com.rssai.dialect;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * SQLite 方言，生成的SQL与引入方言之前各 Mapper 中的写法保持一致
+ */
+public class SqliteDialect implements SqlDialect {
+
+    @Override
+    public String getName() {
+        return "sqlite";
+    }
+
+    @Override
+    public String getDriverClassName() {
+        return "org.sqlite.JDBC";
+    }
+
+    @Override
+    public List<String> getInitStatements() {
+        // auto_vacuum 仅对尚未建表的新库生效，已有库由 RetentionService 按配置切换
+        return Arrays.asList(
+                "PRAGMA auto_vacuum = INCREMENTAL",
+                "PRAGMA timezone = 'Asia/Shanghai'",
+                "PRAGMA busy_timeout = 30000",
+                "PRAGMA journal_mode = WAL",
+                "PRAGMA synchronous = NORMAL");
+    }
+
+    @Override
+    public String translateDdl(String ddl) {
+        return ddl;
+    }
+
+    @Override
+    public String now(String timezoneModifier) {
+        return "datetime('now', '" + timezoneModifier + "')";
+    }
+
+    @Override
+    public String daysAgo(String timezoneModifier) {
+        return "datetime('now', '" + timezoneModifier + "', '-' || ? || ' days')";
+    }
+
+    @Override
+    public String date(String expression) {
+        return "date(" + expression + ")";
+    }
+
+    @Override
+    public String today(String timezoneModifier, int dayOffset) {
+        if (dayOffset == 0) {
+            return "date('now', '" + timezoneModifier + "')";
+        }
+        return "date('now', '" + timezoneModifier + "', '" + dayOffset + " day')";
+    }
+
+    @Override
+    public String weekStart(String timezoneModifier, int weeksAgo) {
+        return "datetime('now', '" + timezoneModifier + "', 'weekday 0', '-" + (weeksAgo + 1) * 7 + " days')";
+    }
+
+    @Override
+    public String yearMonth(String expression) {
+        return "strftime('%Y-%m', " + expression + ")";
+    }
+
+    @Override
+    public String currentYearMonth(String timezoneModifier, int monthOffset) {
+        if (monthOffset == 0) {
+            return "strftime('%Y-%m', 'now', '" + timezoneModifier + "')";
+        }
+        return "strftime('%Y-%m', 'now', '" + timezoneModifier + "', '" + monthOffset + " month')";
+    }
+
+    @Override
+    public String insertIgnore(String table, String columns, String values) {
+        return "INSERT OR IGNORE INTO " + table + " (" + columns + ") VALUES (" + values + ")";
+    }
+
+    @Override
+    public String caseInsensitiveLike() {
+        return "LIKE";
+    }
+
+    @Override
+    public String inJsonIdArray(String column) {
+        return column + " IN (SELECT value FROM json_each(?))";
+    }
+
+    @Override
+    public boolean supportsFullTextIndex() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsDynamicTyping() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsIncrementalVacuum() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsWalArchiving() {
+        return true;
+    }
+}
@@ -0,0 +1,89 @@
+package com.rssai.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 过滤日志查询条件，为空的条件不参与过滤
+ */
+public class FilterLogQuery {
+
+    private Long userId;
+
+    private Boolean filtered;
+
+    private String sourceName;
+
+    /**
+     * FTS5 MATCH 表达式，所有关键词都能使用 trigram 索引时设置
+     */
+    private String matchExpression;
+
+    /**
+     * 关键词过短时降级使用的 LIKE 模式，多个模式之间为 AND
+     */
+    private List<String> likePatterns = new ArrayList<>();
+
+    /**
+     * 游标：只返回ID小于该值的日志
+     */
+    private Long beforeId;
+
+    private int limit;
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Boolean getFiltered() {
+        return filtered;
+    }
+
+    public void setFiltered(Boolean filtered) {
+        this.filtered = filtered;
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    public void setSourceName(String sourceName) {
+        this.sourceName = sourceName;
+    }
+
+    public String getMatchExpression() {
+        return matchExpression;
+    }
+
+    public void setMatchExpression(String matchExpression) {
+        this.matchExpression = matchExpression;
+    }
+
+    public List<String> getLikePatterns() {
+        return likePatterns;
+    }
+
+    public void setLikePatterns(List<String> likePatterns) {
+        this.likePatterns = likePatterns;
+    }
+
+    public Long getBeforeId() {
+        return beforeId;
+    }
+
+    public void setBeforeId(Long beforeId) {
+        this.beforeId = beforeId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,106 @@
+package com.rssai.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文章列表项，只包含列表页展示需要的字段
+ * 摘要和封面图为入库时预计算的列，完整正文通过 /dashboard/item 按需加载
+ */
+public class RssItemListDTO {
+
+    private Long id;
+
+    private String title;
+
+    private String link;
+
+    private String sourceName;
+
+    private LocalDateTime pubDate;
+
+    /**
+     * 去除HTML后截断的摘要，历史文章回填完成前为空
+     */
+    private String excerpt;
+
+    /**
+     * 封面图，取正文或摘要中的第一张图片
+     */
+    private String imageUrl;
+
+    private Boolean isRead;
+
+    private Boolean sourceSpecialAttention;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getLink() {
+        return link;
+    }
+
+    public void setLink(String link) {
+        this.link = link;
+    }
+
+    public String getSourceName() {
+        return sourceName;
+    }
+
+    public void setSourceName(String sourceName) {
+        this.sourceName = sourceName;
+    }
+
+    public LocalDateTime getPubDate() {
+        return pubDate;
+    }
+
+    public void setPubDate(LocalDateTime pubDate) {
+        this.pubDate = pubDate;
+    }
+
+    public String getExcerpt() {
+        return excerpt;
+    }
+
+    public void setExcerpt(String excerpt) {
+        this.excerpt = excerpt;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public Boolean getIsRead() {
+        return isRead;
+    }
+
+    public void setIsRead(Boolean isRead) {
+        this.isRead = isRead;
+    }
+
+    public Boolean getSourceSpecialAttention() {
+        return sourceSpecialAttention;
+    }
+
+    public void setSourceSpecialAttention(Boolean sourceSpecialAttention) {
+        this.sourceSpecialAttention = sourceSpecialAttention;
+    }
+}
@@ -0,0 +1,26 @@
+package com.rssai.exception;
+
+/**
+ * 稍后重试异常
+ * 操作暂时不能执行（如AI服务的速率限制额度不足或服务要求暂停），到 delayMillis 后重新提交即可，
+ * 不代表操作失败，不计入重试次数；排队总时长超过 maxWaitMillis 后按失败处理
+ */
+public class RetryLaterException extends RuntimeException {
+
+    private final long delayMillis;
+    private final long maxWaitMillis;
+
+    public RetryLaterException(String message, long delayMillis, long maxWaitMillis) {
+        super(message);
+        this.delayMillis = delayMillis;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+}
@@ -1,8 +1,10 @@
 package com.rssai.mapper;
 
 import com.rssai.config.TimezoneConfig;
+import com.rssai.dialect.SqlDialect;
 import com.rssai.model.AiConfig;
 import com.rssai.util.DateTimeUtils;
+import com.rssai.util.ResultSetColumns;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
@@ -15,71 +17,83 @@ import java.util.List;
 public class AiConfigMapper {
     private final JdbcTemplate jdbcTemplate;
     private final TimezoneConfig timezoneConfig;
+    private final SqlDialect sqlDialect;
     
-    public AiConfigMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig) {
+    public AiConfigMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig, SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
         this.timezoneConfig = timezoneConfig;
+        this.sqlDialect = sqlDialect;
     }
     
     /**
-     * 创建 RowMapper
+     * 创建 RowMapper，每次查询新建实例：时区偏移在创建时计算一次，列序号在首行时解析
      */
     private RowMapper<AiConfig> createRowMapper() {
-        return (rs, rowNum) -> {
-            AiConfig config = new AiConfig();
-            config.setId(rs.getLong("id"));
-            config.setUserId(rs.getLong("user_id"));
-            config.setBaseUrl(rs.getString("base_url"));
-            config.setModel(rs.getString("model"));
-            config.setApiKey(rs.getString("api_key"));
-            config.setSystemPrompt(rs.getString("system_prompt"));
-            config.setRefreshInterval(rs.getInt("refresh_interval"));
-            config.setIsReasoningModel(parseReasoningModel(rs));
-            config.setServiceStatus(parseServiceStatus(rs));
-            
-            // 获取配置的时区偏移量
-            int timezoneOffset = 8; // 默认 GMT+8
-            if (timezoneConfig != null) {
-                String timezone = timezoneConfig.getTimezone();
-                if (timezone != null && (timezone.startsWith("GMT") || timezone.startsWith("UTC"))) {
-                    String offset = timezone.substring(3);
-                    try {
-                        timezoneOffset = Integer.parseInt(offset);
-                    } catch (NumberFormatException e) {
-                        timezoneOffset = 8;
-                    }
+        int timezoneOffset = resolveTimezoneOffset();
+        return new RowMapper<AiConfig>() {
+            private ResultSetColumns columns;
+
+            @Override
+            public AiConfig mapRow(ResultSet rs, int rowNum) throws SQLException {
+                if (columns == null) {
+                    columns = ResultSetColumns.of(rs);
                 }
+                AiConfig config = new AiConfig();
+                config.setId(rs.getLong(columns.require("id")));
+                config.setUserId(rs.getLong(columns.require("user_id")));
+                config.setBaseUrl(rs.getString(columns.require("base_url")));
+                config.setModel(rs.getString(columns.require("model")));
+                config.setApiKey(rs.getString(columns.require("api_key")));
+                config.setSystemPrompt(rs.getString(columns.require("system_prompt")));
+                config.setRefreshInterval(rs.getInt(columns.require("refresh_interval")));
+                config.setIsReasoningModel(readInteger(rs, columns.indexOf("is_reasoning_model"), null));
+                config.setMaxConcurrency(readInteger(rs, columns.indexOf("max_concurrency"), null));
+                config.setMaxTokensBatch(readInteger(rs, columns.indexOf("max_tokens_batch"), null));
+                config.setMaxInputTokensBatch(readInteger(rs, columns.indexOf("max_input_tokens_batch"), null));
+                config.setUseStream(readInteger(rs, columns.indexOf("use_stream"), null));
+                config.setPrefilterEnabled(readInteger(rs, columns.indexOf("prefilter_enabled"), null));
+                config.setPromptUpdatedAt(readLong(rs, columns.indexOf("prompt_updated_at")));
+                // 默认正常
+                config.setServiceStatus(readInteger(rs, columns.indexOf("service_status"), 0));
+                config.setCreatedAt(DateTimeUtils.parseDateTime(rs.getString(columns.require("created_at")), timezoneOffset));
+                config.setUpdatedAt(DateTimeUtils.parseDateTime(rs.getString(columns.require("updated_at")), timezoneOffset));
+                config.setLastStatusChangeAt(DateTimeUtils.parseDateTime(rs.getString(columns.require("last_status_change_at")), timezoneOffset));
+                return config;
             }
-            
-            config.setCreatedAt(DateTimeUtils.parseDateTime(rs.getString("created_at"), timezoneOffset));
-            config.setUpdatedAt(DateTimeUtils.parseDateTime(rs.getString("updated_at"), timezoneOffset));
-            config.setLastStatusChangeAt(DateTimeUtils.parseDateTime(rs.getString("last_status_change_at"), timezoneOffset));
-            return config;
         };
     }
-    
-    private Integer parseReasoningModel(ResultSet rs) throws SQLException {
-        try {
-            Object reasoningModelObj = rs.getObject("is_reasoning_model");
-            if (reasoningModelObj instanceof Number) {
-                return ((Number) reasoningModelObj).intValue();
+
+    /**
+     * 获取配置的时区偏移量，默认 GMT+8
+     */
+    private int resolveTimezoneOffset() {
+        if (timezoneConfig != null) {
+            String timezone = timezoneConfig.getTimezone();
+            if (timezone != null && (timezone.startsWith("GMT") || timezone.startsWith("UTC"))) {
+                try {
+                    return Integer.parseInt(timezone.substring(3));
+                } catch (NumberFormatException e) {
+                    return 8;
+                }
             }
-            return null;
-        } catch (SQLException e) {
-            return null;
         }
+        return 8;
     }
-    
-    private Integer parseServiceStatus(ResultSet rs) throws SQLException {
-        try {
-            Object statusObj = rs.getObject("service_status");
-            if (statusObj instanceof Number) {
-                return ((Number) statusObj).intValue();
-            }
-            return 0; // 默认正常
-        } catch (SQLException e) {
-            return 0; // 默认正常
+
+    private static Integer readInteger(ResultSet rs, int index, Integer defaultValue) throws SQLException {
+        if (index == 0) {
+            return defaultValue;
+        }
+        Object value = rs.getObject(index);
+        return value instanceof Number ? Integer.valueOf(((Number) value).intValue()) : defaultValue;
+    }
+
+    private static Long readLong(ResultSet rs, int index) throws SQLException {
+        if (index == 0) {
+            return null;
         }
+        Object value = rs.getObject(index);
+        return value instanceof Number ? Long.valueOf(((Number) value).longValue()) : null;
     }
 
     public AiConfig findByUserId(Long userId) {
@@ -88,15 +102,19 @@ public class AiConfigMapper {
     }
 
     public void insert(AiConfig config) {
-        String timezoneModifier = timezoneConfig.getTimezoneModifier();
-        jdbcTemplate.update("INSERT INTO ai_configs (user_id, base_url, model, api_key, system_prompt, refresh_interval, is_reasoning_model, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, datetime('now', ?), datetime('now', ?))",
-                config.getUserId(), config.getBaseUrl(), config.getModel(), config.getApiKey(), config.getSystemPrompt(), config.getRefreshInterval(), config.getIsReasoningModel(), timezoneModifier, timezoneModifier);
+        String now = sqlDialect.now(timezoneConfig.getTimezoneModifier());
+        jdbcTemplate.update("INSERT INTO ai_configs (user_id, base_url, model, api_key, system_prompt, refresh_interval, is_reasoning_model, max_concurrency, max_tokens_batch, max_input_tokens_batch, use_stream, prefilter_enabled, prompt_updated_at, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " + now + ", " + now + ")",
+                config.getUserId(), config.getBaseUrl(), config.getModel(), config.getApiKey(), config.getSystemPrompt(), config.getRefreshInterval(), config.getIsReasoningModel(), config.getMaxConcurrency(),
+                config.getMaxTokensBatch(), config.getMaxInputTokensBatch(), config.getUseStream(),
+                config.getPrefilterEnabled(), config.getPromptUpdatedAt());
     }
 
     public void update(AiConfig config) {
-        String timezoneModifier = timezoneConfig.getTimezoneModifier();
-        jdbcTemplate.update("UPDATE ai_configs SET base_url = ?, model = ?, api_key = ?, system_prompt = ?, refresh_interval = ?, is_reasoning_model = ?, updated_at = datetime('now', ?) WHERE user_id = ?",
-                config.getBaseUrl(), config.getModel(), config.getApiKey(), config.getSystemPrompt(), config.getRefreshInterval(), config.getIsReasoningModel(), timezoneModifier, config.getUserId());
+        String now = sqlDialect.now(timezoneConfig.getTimezoneModifier());
+        jdbcTemplate.update("UPDATE ai_configs SET base_url = ?, model = ?, api_key = ?, system_prompt = ?, refresh_interval = ?, is_reasoning_model = ?, max_concurrency = ?, max_tokens_batch = ?, max_input_tokens_batch = ?, use_stream = ?, prefilter_enabled = ?, prompt_updated_at = ?, updated_at = " + now + " WHERE user_id = ?",
+                config.getBaseUrl(), config.getModel(), config.getApiKey(), config.getSystemPrompt(), config.getRefreshInterval(), config.getIsReasoningModel(), config.getMaxConcurrency(),
+                config.getMaxTokensBatch(), config.getMaxInputTokensBatch(), config.getUseStream(),
+                config.getPrefilterEnabled(), config.getPromptUpdatedAt(), config.getUserId());
     }
     
     /**
@@ -105,10 +123,10 @@ public class AiConfigMapper {
      * @param status 状态：0=正常，1=异常
      */
     public void updateServiceStatus(Long userId, Integer status) {
-        String timezoneModifier = timezoneConfig.getTimezoneModifier();
+        String now = sqlDialect.now(timezoneConfig.getTimezoneModifier());
         jdbcTemplate.update(
-            "UPDATE ai_configs SET service_status = ?, last_status_change_at = datetime('now', ?), updated_at = datetime('now', ?) WHERE user_id = ?",
-            status, timezoneModifier, timezoneModifier, userId
+            "UPDATE ai_configs SET service_status = ?, last_status_change_at = " + now + ", updated_at = " + now + " WHERE user_id = ?",
+            status, userId
         );
     }
 }
@@ -0,0 +1,90 @@
+package com.rssai.mapper;
+
+import com.rssai.dialect.SqlDialect;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AI筛选结果缓存的持久层，时间为毫秒时间戳
+ */
+@Repository
+public class AiVerdictCacheMapper {
+    private static final int QUERY_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
+
+    public AiVerdictCacheMapper(JdbcTemplate jdbcTemplate, SqlDialect sqlDialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
+    }
+
+    /**
+     * 查询未过期的缓存结果
+     * @return 缓存键 -> [筛选结果, 原始响应]
+     */
+    public Map<String, String[]> findByKeys(Collection<String> keys, long createdAfter) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String[]> found = new HashMap<>();
+        List<String> keyList = new ArrayList<>(keys);
+        for (int from = 0; from < keyList.size(); from += QUERY_CHUNK_SIZE) {
+            List<String> chunk = keyList.subList(from, Math.min(from + QUERY_CHUNK_SIZE, keyList.size()));
+            List<Object> args = new ArrayList<Object>(chunk);
+            args.add(createdAfter);
+            jdbcTemplate.query(
+                    "SELECT cache_key, verdict, raw_response FROM ai_verdict_cache WHERE cache_key IN (" +
+                    String.join(",", Collections.nCopies(chunk.size(), "?")) + ") AND created_at >= ?",
+                    rs -> {
+                        found.put(rs.getString(1), new String[]{rs.getString(2), rs.getString(3)});
+                    },
+                    args.toArray());
+        }
+        return found;
+    }
+
+    /**
+     * 写入缓存结果，已有的键（可能已过期）被覆盖
+     * @param entries 缓存键 -> [筛选结果, 原始响应]
+     */
+    public void saveAll(Map<String, String[]> entries, long createdAt) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>(entries.size());
+        List<Object[]> inserts = new ArrayList<>(entries.size());
+        for (Map.Entry<String, String[]> entry : entries.entrySet()) {
+            updates.add(new Object[]{entry.getValue()[0], entry.getValue()[1], createdAt, entry.getKey()});
+            inserts.add(new Object[]{entry.getKey(), entry.getValue()[0], entry.getValue()[1], createdAt});
+        }
+        jdbcTemplate.batchUpdate(
+                "UPDATE ai_verdict_cache SET verdict = ?, raw_response = ?, created_at = ? WHERE cache_key = ?", updates);
+        jdbcTemplate.batchUpdate(
+                sqlDialect.insertIgnore("ai_verdict_cache", "cache_key, verdict, raw_response, created_at", "?, ?, ?, ?"),
+                inserts);
+    }
+
+    /**
+     * 删除一块过期的缓存结果
+     * @return 删除的行数
+     */
+    public int deleteOlderThanChunk(long createdBefore, int chunkSize) {
+        return jdbcTemplate.update(
+                "DELETE FROM ai_verdict_cache WHERE cache_key IN " +
+                "(SELECT cache_key FROM ai_verdict_cache WHERE created_at < ? LIMIT ?)",
+                createdBefore, chunkSize);
+    }
+
+    public long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ai_verdict_cache", Long.class);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,202 @@
+package com.rssai.mapper;
+
+import com.rssai.dialect.SqlDialect;
+import com.rssai.model.ArticleSearchHit;
+import com.rssai.model.RssItem;
+import com.rssai.util.DateTimeUtils;
+import com.rssai.util.TextCompressionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文章全文索引数据访问层
+ * rss_items_fts 是 FTS5 虚拟表（trigram 分词），rowid 与 rss_items.id 一致；
+ * 数据库不支持全文索引时不维护索引表，搜索只走 LIKE 降级路径
+ */
+@Repository
+public class ArticleSearchMapper {
+    /**
+     * highlight/snippet 使用的命中标记，由服务层转义后替换为HTML标签
+     */
+    public static final char MARK_START = '\u0002';
+    public static final char MARK_END = '\u0003';
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
+
+    private final RowMapper<ArticleSearchHit> hitRowMapper = (rs, rowNum) -> {
+        ArticleSearchHit hit = new ArticleSearchHit();
+        hit.setId(rs.getLong("id"));
+        hit.setTitle(rs.getString("title"));
+        hit.setLink(rs.getString("link"));
+        hit.setSourceName(rs.getString("source_name"));
+        hit.setPubDate(DateTimeUtils.readEpochMillis(rs, "pub_date"));
+        return hit;
+    };
+
+    public ArticleSearchMapper(JdbcTemplate jdbcTemplate, SqlDialect sqlDialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
+    }
+
+    /**
+     * 是否可以使用 MATCH 表达式检索
+     */
+    public boolean supportsFullTextSearch() {
+        return sqlDialect.supportsFullTextIndex();
+    }
+
+    /**
+     * 写入或覆盖一条文章的索引
+     */
+    public void index(Long id, String title, String body) {
+        if (!sqlDialect.supportsFullTextIndex()) {
+            return;
+        }
+        jdbcTemplate.update("INSERT OR REPLACE INTO rss_items_fts (rowid, title, body) VALUES (?, ?, ?)",
+                id, title != null ? title : "", body != null ? body : "");
+    }
+
+    public void deleteByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty() || !sqlDialect.supportsFullTextIndex()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.update("DELETE FROM rss_items_fts WHERE rowid IN (" + placeholders + ")", ids.toArray());
+    }
+
+    /**
+     * 按相关度排序用户已通过筛选的文章，只返回ID和得分
+     * MATCH 限定在用户自己的文章ID内（FTS5 按 rowid 逐条匹配），bm25 不会为其他用户的文章计算得分
+     */
+    public List<ArticleSearchHit> searchRanked(Long userId, String matchExpression, int limit) {
+        return jdbcTemplate.query(
+                "SELECT rowid AS id, bm25(rss_items_fts, 10.0, 1.0) AS score FROM rss_items_fts " +
+                "WHERE rss_items_fts MATCH ? AND rowid IN (" +
+                "  SELECT ri.id FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "  WHERE rs.user_id = ? AND ri.ai_filtered = TRUE) " +
+                "ORDER BY score, id LIMIT ?",
+                (rs, rowNum) -> {
+                    ArticleSearchHit hit = new ArticleSearchHit();
+                    hit.setId(rs.getLong("id"));
+                    hit.setScore(rs.getDouble("score"));
+                    return hit;
+                },
+                matchExpression, userId, limit);
+    }
+
+    /**
+     * 按ID查询当前页的文章信息，只返回仍属于该用户且已通过筛选的文章
+     */
+    public List<ArticleSearchHit> findHitsByIds(Long userId, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        params.addAll(ids);
+        return jdbcTemplate.query(
+                "SELECT ri.id, ri.title, ri.link, ri.pub_date, rs.name AS source_name " +
+                "FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "WHERE rs.user_id = ? AND ri.ai_filtered = TRUE AND ri.id IN (" + placeholders + ")",
+                hitRowMapper, params.toArray());
+    }
+
+    /**
+     * 对当前页的文章计算标题高亮和正文片段
+     * @return rowid -> [标题高亮, 正文片段]
+     */
+    public Map<Long, String[]> highlight(String matchExpression, List<Long> ids) {
+        Map<Long, String[]> result = new HashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        String marks = "char(" + (int) MARK_START + "), char(" + (int) MARK_END + ")";
+        List<Object> params = new ArrayList<>();
+        params.add(matchExpression);
+        params.addAll(ids);
+        jdbcTemplate.query(
+                "SELECT rowid, highlight(rss_items_fts, 0, " + marks + ") AS title_hl, " +
+                "snippet(rss_items_fts, 1, " + marks + ", '…', 24) AS snippet " +
+                "FROM rss_items_fts WHERE rss_items_fts MATCH ? AND rowid IN (" + placeholders + ")",
+                rs -> {
+                    result.put(rs.getLong("rowid"), new String[]{rs.getString("title_hl"), rs.getString("snippet")});
+                },
+                params.toArray());
+        return result;
+    }
+
+    /**
+     * 查询词过短无法使用 trigram 索引时的降级搜索：只扫描当前用户的文章，按ID倒序
+     * 不支持全文索引时直接匹配原表的标题和摘要，返回的 body 为未去除HTML的摘要
+     * @param likePatterns 已转义的 LIKE 模式，多个模式之间为 AND
+     */
+    public List<Map<String, Object>> searchLike(Long userId, List<String> likePatterns, Long beforeId, int limit) {
+        boolean fullText = sqlDialect.supportsFullTextIndex();
+        String like = " " + (fullText ? "LIKE" : sqlDialect.caseInsensitiveLike()) + " ? ESCAPE '\\'";
+        StringBuilder sql = new StringBuilder(
+                "SELECT ri.id, ri.title, ri.link, ri.pub_date, rs.name AS source_name, " +
+                (fullText ? "f.body " : "ri.description AS body ") +
+                "FROM rss_items ri " +
+                "JOIN rss_sources rs ON ri.source_id = rs.id " +
+                (fullText ? "JOIN rss_items_fts f ON f.rowid = ri.id " : "") +
+                "WHERE rs.user_id = ? AND ri.ai_filtered = TRUE ");
+        String titleColumn = fullText ? "f.title" : "ri.title";
+        String bodyColumn = fullText ? "f.body" : "ri.description";
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        for (String pattern : likePatterns) {
+            sql.append("AND (" + titleColumn + like + " OR " + bodyColumn + like + ") ");
+            params.add(pattern);
+            params.add(pattern);
+        }
+        if (beforeId != null) {
+            sql.append("AND ri.id < ? ");
+            params.add(beforeId);
+        }
+        sql.append("ORDER BY ri.id DESC LIMIT ?");
+        params.add(limit);
+        return jdbcTemplate.queryForList(sql.toString(), params.toArray());
+    }
+
+    /**
+     * 查询尚未建立索引的文章，用于后台回填
+     */
+    public List<RssItem> findUnindexedAfterId(long afterId, int limit) {
+        if (!sqlDialect.supportsFullTextIndex()) {
+            return Collections.emptyList();
+        }
+        return jdbcTemplate.query(
+                "SELECT ri.id, ri.title, ri.description, ri.content FROM rss_items ri " +
+                "WHERE ri.id > ? AND NOT EXISTS (SELECT 1 FROM rss_items_fts f WHERE f.rowid = ri.id) " +
+                "ORDER BY ri.id LIMIT ?",
+                (rs, rowNum) -> {
+                    RssItem item = new RssItem();
+                    item.setId(rs.getLong("id"));
+                    item.setTitle(rs.getString("title"));
+                    Object description = TextCompressionUtils.readRaw(rs, "description");
+                    if (description instanceof byte[]) {
+                        item.setCompressedDescription((byte[]) description);
+                    } else {
+                        item.setDescription((String) description);
+                    }
+                    Object content = TextCompressionUtils.readRaw(rs, "content");
+                    if (content instanceof byte[]) {
+                        item.setCompressedContent((byte[]) content);
+                    } else {
+                        item.setContent((String) content);
+                    }
+                    return item;
+                },
+                afterId, limit);
+    }
+}
@@ -0,0 +1,152 @@
+package com.rssai.mapper;
+
+import com.rssai.dialect.SqlDialect;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 数据库维护相关的 PRAGMA 操作
+ * 只对 SQLite 有效，其他数据库下空间统计返回0，回收操作不执行（由数据库自身的 VACUUM 机制负责）
+ * 传入 JdbcTemplate 的方法作用于指定的库（主库或分片），由调用方检查 {@link #isSupported()}
+ */
+@Repository
+public class DatabaseMaintenanceMapper {
+    /**
+     * PRAGMA auto_vacuum 返回值：0 = NONE, 1 = FULL, 2 = INCREMENTAL
+     */
+    public static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
+
+    public DatabaseMaintenanceMapper(JdbcTemplate jdbcTemplate, SqlDialect sqlDialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
+    }
+
+    public boolean isSupported() {
+        return sqlDialect.supportsIncrementalVacuum();
+    }
+
+    public long getPageCount() {
+        return queryLong("PRAGMA page_count");
+    }
+
+    public long getPageSize() {
+        return queryLong("PRAGMA page_size");
+    }
+
+    public long getFreelistCount() {
+        return queryLong("PRAGMA freelist_count");
+    }
+
+    public int getAutoVacuumMode() {
+        return (int) queryLong("PRAGMA auto_vacuum");
+    }
+
+    /**
+     * 切换为增量 auto_vacuum，已有数据的库需要执行一次 VACUUM 才会生效
+     */
+    public void enableIncrementalAutoVacuum() {
+        if (!isSupported()) {
+            return;
+        }
+        jdbcTemplate.execute("PRAGMA auto_vacuum = INCREMENTAL");
+    }
+
+    public void vacuum() {
+        if (!isSupported()) {
+            return;
+        }
+        jdbcTemplate.execute("VACUUM");
+    }
+
+    /**
+     * 归还最多 pages 个空闲页，pages 为0时归还全部空闲页
+     */
+    public void incrementalVacuum(long pages) {
+        if (!isSupported()) {
+            return;
+        }
+        // incremental_vacuum 每次 step 只归还一页，execute 只会 step 一次，executeUpdate 才会执行到结束
+        jdbcTemplate.update("PRAGMA incremental_vacuum(" + Math.max(pages, 0) + ")");
+    }
+
+    /**
+     * 数据库文件路径，内存库返回空字符串
+     */
+    public String getDatabaseFile(JdbcTemplate target) {
+        List<Map<String, Object>> rows = target.queryForList("PRAGMA database_list");
+        for (Map<String, Object> row : rows) {
+            if ("main".equals(row.get("name"))) {
+                Object file = row.get("file");
+                return file != null ? file.toString() : "";
+            }
+        }
+        return "";
+    }
+
+    public String getJournalMode(JdbcTemplate target) {
+        return target.queryForObject("PRAGMA journal_mode", String.class);
+    }
+
+    /**
+     * 收集统计信息，analysisLimit 大于0时每个索引最多采样这么多行
+     */
+    public void analyze(JdbcTemplate target, int analysisLimit) {
+        target.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA analysis_limit = " + Math.max(analysisLimit, 0));
+                statement.execute("ANALYZE");
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 只对统计信息过期的表重新分析，开销很小
+     */
+    public void optimize(JdbcTemplate target) {
+        target.execute("PRAGMA optimize");
+    }
+
+    /**
+     * 执行 WAL 检查点
+     * @param mode PASSIVE 或 TRUNCATE
+     * @param busyTimeoutMs 本次检查点等待读写完成的最长时间，避免 TRUNCATE 长时间阻塞写入
+     * @return [busy, WAL 帧数, 已写回帧数]
+     */
+    public long[] checkpoint(JdbcTemplate target, String mode, long busyTimeoutMs) {
+        return target.execute((ConnectionCallback<long[]>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA busy_timeout = " + busyTimeoutMs);
+                try (ResultSet rs = statement.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+                    rs.next();
+                    return new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)};
+                }
+            }
+        });
+    }
+
+    /**
+     * 查询计划的文本形式，每个步骤一行
+     */
+    public String explainQueryPlan(JdbcTemplate target, String sql, Object... args) {
+        List<String> steps = target.query("EXPLAIN QUERY PLAN " + sql, (rs, rowNum) -> rs.getString("detail"), args);
+        return String.join("\n", steps);
+    }
+
+    private long queryLong(String sql) {
+        if (!isSupported()) {
+            return 0L;
+        }
+        Long value = jdbcTemplate.queryForObject(sql, Long.class);
+        return value != null ? value : 0L;
+    }
+}
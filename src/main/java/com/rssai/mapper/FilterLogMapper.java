@@ -1,20 +1,39 @@
 package com.rssai.mapper;
 
+import com.rssai.config.ShardRouter;
+import com.rssai.config.TextCompressionConfig;
 import com.rssai.config.TimezoneConfig;
+import com.rssai.dialect.SqlDialect;
+import com.rssai.dto.FilterLogQuery;
 import com.rssai.model.FilterLog;
 import com.rssai.util.DateTimeUtils;
+import com.rssai.util.TextCompressionUtils;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * 过滤日志数据访问层
+ * 按用户的查询和写入路由到用户所在的分片，跨用户的统计、清理和回填遍历所有分片后合并；未开启分片时只有主库
+ */
 @Repository
 public class FilterLogMapper {
-    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
     private final TimezoneConfig timezoneConfig;
+    private final TextCompressionConfig textCompressionConfig;
+    private final SqlDialect sqlDialect;
 
     private final RowMapper<FilterLog> rowMapper = (rs, rowNum) -> {
         FilterLog log = new FilterLog();
@@ -25,203 +44,354 @@ public class FilterLogMapper {
         log.setLink(rs.getString("link"));
         log.setAiFiltered(rs.getBoolean("ai_filtered"));
         log.setAiReason(rs.getString("ai_reason"));
-        log.setAiRawResponse(rs.getString("ai_raw_response"));
+        Object rawResponse = TextCompressionUtils.readRaw(rs, "ai_raw_response");
+        if (rawResponse instanceof byte[]) {
+            log.setCompressedAiRawResponse((byte[]) rawResponse);
+        } else {
+            log.setAiRawResponse((String) rawResponse);
+        }
         log.setSourceName(rs.getString("source_name"));
-        log.setCreatedAt(DateTimeUtils.parseDateTime(rs.getString("created_at")));
+        log.setCreatedAt(DateTimeUtils.readEpochMillis(rs, "created_at"));
         return log;
     };
     
-    public FilterLogMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig) {
-        this.jdbcTemplate = jdbcTemplate;
+    public FilterLogMapper(ShardRouter shardRouter, TimezoneConfig timezoneConfig,
+                           TextCompressionConfig textCompressionConfig,
+                           SqlDialect sqlDialect) {
+        this.shardRouter = shardRouter;
         this.timezoneConfig = timezoneConfig;
+        this.textCompressionConfig = textCompressionConfig;
+        this.sqlDialect = sqlDialect;
     }
 
     public List<FilterLog> findByUserId(Long userId) {
-        return jdbcTemplate.query(
+        return shardRouter.forUser(userId).query(
                 "SELECT * FROM filter_logs WHERE user_id = ? ORDER BY created_at DESC LIMIT 100",
                 rowMapper, userId);
     }
 
     public List<FilterLog> findByUserIdWithPagination(Long userId, int page, int pageSize) {
         int offset = (page - 1) * pageSize;
-        return jdbcTemplate.query(
+        return shardRouter.forUser(userId).query(
                 "SELECT * FROM filter_logs WHERE user_id = ? ORDER BY created_at DESC LIMIT ? OFFSET ?",
                 rowMapper, userId, pageSize, offset);
     }
 
     public int countByUserId(Long userId) {
-        Integer count = jdbcTemplate.queryForObject(
+        Integer count = shardRouter.forUser(userId).queryForObject(
                 "SELECT COUNT(*) FROM filter_logs WHERE user_id = ?",
                 Integer.class, userId);
         return count != null ? count : 0;
     }
 
     public List<FilterLog> findByUserIdAndFiltered(Long userId, Boolean filtered) {
-        return jdbcTemplate.query(
+        return shardRouter.forUser(userId).query(
                 "SELECT * FROM filter_logs WHERE user_id = ? AND ai_filtered = ? ORDER BY created_at DESC LIMIT 100",
                 rowMapper, userId, filtered);
     }
 
-    public void insert(FilterLog log) {
-        String timeClause = String.format("datetime('now', '%s')", timezoneConfig.getTimezoneModifier());
-        jdbcTemplate.update(
-                "INSERT INTO filter_logs (user_id, rss_item_id, title, link, ai_filtered, ai_reason, ai_raw_response, source_name, created_at) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, " + timeClause + ")",
-                log.getUserId(), log.getRssItemId(), log.getTitle(), log.getLink(),
-                log.getAiFiltered(), log.getAiReason(), log.getAiRawResponse(), log.getSourceName());
+    /**
+     * 查询用于训练本地预筛的最近筛选结果，只包含标题、来源、是否通过和原因
+     */
+    public List<FilterLog> findTrainingSamples(Long userId, long createdAfter, int limit) {
+        return shardRouter.forUser(userId).query(
+                "SELECT title, source_name, ai_filtered, ai_reason FROM filter_logs " +
+                "WHERE user_id = ? AND created_at >= ? ORDER BY created_at DESC LIMIT ?",
+                (rs, rowNum) -> {
+                    FilterLog log = new FilterLog();
+                    log.setUserId(userId);
+                    log.setTitle(rs.getString("title"));
+                    log.setSourceName(rs.getString("source_name"));
+                    log.setAiFiltered(rs.getBoolean("ai_filtered"));
+                    log.setAiReason(rs.getString("ai_reason"));
+                    return log;
+                }, userId, createdAfter, limit);
     }
 
-    public void deleteOldLogs(Long userId, int daysToKeep) {
-        jdbcTemplate.update(
-                "DELETE FROM filter_logs WHERE user_id = ? AND created_at < datetime('now', 'localtime', '-' || ? || ' days')",
-                userId, daysToKeep);
+    /**
+     * 插入日志并回写自增ID，供后续写入全文索引
+     */
+    public void insert(FilterLog log) {
+        insert(log, System.currentTimeMillis());
     }
 
-    public List<FilterLog> findByUserIdAndFilteredWithPagination(Long userId, Boolean filtered, int page, int pageSize) {
-        int offset = (page - 1) * pageSize;
-        return jdbcTemplate.query(
-                "SELECT * FROM filter_logs WHERE user_id = ? AND ai_filtered = ? ORDER BY created_at DESC LIMIT ? OFFSET ?",
-                rowMapper, userId, filtered, pageSize, offset);
+    /**
+     * 按指定的创建时间写入日志，用于入库日志延迟写入时保留筛选发生的时间
+     */
+    public void insert(FilterLog log, long createdAt) {
+        String sql = "INSERT INTO filter_logs (user_id, rss_item_id, title, link, ai_filtered, ai_reason, ai_raw_response, source_name, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        Object[] params = {log.getUserId(), log.getRssItemId(), log.getTitle(), log.getLink(),
+                log.getAiFiltered(), log.getAiReason(), textCompressionConfig.encode(log.getAiRawResponse()), log.getSourceName(),
+                createdAt};
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        shardRouter.forUser(log.getUserId()).update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, new String[]{"id"});
+            new ArgumentPreparedStatementSetter(params).setValues(ps);
+            return ps;
+        }, keyHolder);
+        Number key = keyHolder.getKey();
+        if (key != null) {
+            log.setId(key.longValue());
+        }
     }
 
-    public int countByUserIdAndFiltered(Long userId, Boolean filtered) {
-        Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE user_id = ? AND ai_filtered = ?",
-                Integer.class, userId, filtered);
-        return count != null ? count : 0;
+    public void deleteOldLogs(Long userId, int daysToKeep) {
+        String condition = "user_id = ? AND created_at < ?";
+        long cutoff = DateTimeUtils.daysAgoMillis(daysToKeep);
+        JdbcTemplate jdbcTemplate = shardRouter.forUser(userId);
+        if (sqlDialect.supportsFullTextIndex()) {
+            jdbcTemplate.update("DELETE FROM filter_logs_fts WHERE rowid IN (SELECT id FROM filter_logs WHERE " + condition + ")",
+                    userId, cutoff);
+        }
+        jdbcTemplate.update("DELETE FROM filter_logs WHERE " + condition, userId, cutoff);
     }
 
-    public List<FilterLog> findByUserIdAndSource(Long userId, String sourceName, int page, int pageSize) {
-        int offset = (page - 1) * pageSize;
-        return jdbcTemplate.query(
-                "SELECT * FROM filter_logs WHERE user_id = ? AND source_name = ? ORDER BY created_at DESC LIMIT ? OFFSET ?",
-                rowMapper, userId, sourceName, pageSize, offset);
+    /**
+     * 分块删除超过保留天数的日志（所有用户），同时删除对应的全文索引
+     * 依次处理各分片，合计最多删除 chunkSize 行
+     * @return 本次删除的行数
+     */
+    public int deleteOlderThanChunk(int daysToKeep, int chunkSize) {
+        int deleted = 0;
+        for (JdbcTemplate jdbcTemplate : shardRouter.all()) {
+            if (deleted >= chunkSize) {
+                break;
+            }
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM filter_logs WHERE created_at < ? LIMIT ?",
+                    Long.class, DateTimeUtils.daysAgoMillis(daysToKeep), chunkSize - deleted);
+            if (ids.isEmpty()) {
+                continue;
+            }
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            if (sqlDialect.supportsFullTextIndex()) {
+                jdbcTemplate.update("DELETE FROM filter_logs_fts WHERE rowid IN (" + placeholders + ")", ids.toArray());
+            }
+            deleted += jdbcTemplate.update("DELETE FROM filter_logs WHERE id IN (" + placeholders + ")", ids.toArray());
+        }
+        return deleted;
     }
 
-    public int countByUserIdAndSource(Long userId, String sourceName) {
-        Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE user_id = ? AND source_name = ?",
-                Integer.class, userId, sourceName);
-        return count != null ? count : 0;
+    /**
+     * 分块清空超过保留天数的AI原始响应，保留日志本身，全文索引中的原始响应同步清空
+     * 依次处理各分片，合计最多清空 chunkSize 行
+     * @return 本次清空的行数
+     */
+    public int clearRawResponseOlderThanChunk(int daysToKeep, int chunkSize) {
+        int cleared = 0;
+        for (JdbcTemplate jdbcTemplate : shardRouter.all()) {
+            if (cleared >= chunkSize) {
+                break;
+            }
+            List<Long> ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM filter_logs WHERE ai_raw_response IS NOT NULL AND created_at < ? LIMIT ?",
+                    Long.class, DateTimeUtils.daysAgoMillis(daysToKeep), chunkSize - cleared);
+            if (ids.isEmpty()) {
+                continue;
+            }
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            if (sqlDialect.supportsFullTextIndex()) {
+                jdbcTemplate.update("UPDATE filter_logs_fts SET ai_raw_response = NULL WHERE rowid IN (" + placeholders + ")", ids.toArray());
+            }
+            cleared += jdbcTemplate.update("UPDATE filter_logs SET ai_raw_response = NULL WHERE id IN (" + placeholders + ")", ids.toArray());
+        }
+        return cleared;
     }
 
-    public List<FilterLog> findByUserIdAndFilteredAndSource(Long userId, Boolean filtered, String sourceName, int page, int pageSize) {
-        int offset = (page - 1) * pageSize;
-        return jdbcTemplate.query(
-                "SELECT * FROM filter_logs WHERE user_id = ? AND ai_filtered = ? AND source_name = ? ORDER BY created_at DESC LIMIT ? OFFSET ?",
-                rowMapper, userId, filtered, sourceName, pageSize, offset);
-    }
-
-    public int countByUserIdAndFilteredAndSource(Long userId, Boolean filtered, String sourceName) {
-        Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE user_id = ? AND ai_filtered = ? AND source_name = ?",
-                Integer.class, userId, filtered, sourceName);
-        return count != null ? count : 0;
+    /**
+     * 解除日志与已删除条目的关联
+     */
+    public void clearRssItemIds(List<Long> rssItemIds) {
+        if (rssItemIds == null || rssItemIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(rssItemIds.size(), "?"));
+        for (JdbcTemplate jdbcTemplate : shardRouter.all()) {
+            jdbcTemplate.update("UPDATE filter_logs SET rss_item_id = NULL WHERE rss_item_id IN (" + placeholders + ")",
+                    rssItemIds.toArray());
+        }
     }
 
     public java.util.Set<String> findDistinctSourcesByUserId(Long userId) {
-        List<String> sources = jdbcTemplate.queryForList(
+        List<String> sources = shardRouter.forUser(userId).queryForList(
                 "SELECT DISTINCT source_name FROM filter_logs WHERE user_id = ? ORDER BY source_name",
                 String.class, userId);
         return new java.util.TreeSet<>(sources);
     }
 
     public Long countTotalLogs() {
-        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM filter_logs", Long.class);
+        return sumAcrossShards("SELECT COUNT(*) FROM filter_logs");
     }
 
     public Long countTodayLogs() {
-        return jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE DATE(created_at) = DATE('now', 'localtime')",
-                Long.class);
+        return sumAcrossShards(
+                "SELECT COUNT(*) FROM filter_logs WHERE created_at >= ? AND created_at < ?",
+                timezoneConfig.startOfDayMillis(0), timezoneConfig.startOfDayMillis(1));
     }
 
     public Long countPassedLogs() {
-        return jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE ai_filtered = 1",
-                Long.class);
+        return sumAcrossShards("SELECT COUNT(*) FROM filter_logs WHERE ai_filtered = TRUE");
     }
 
     public Long countRejectedLogs() {
-        return jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE ai_filtered = 0",
-                Long.class);
+        return sumAcrossShards("SELECT COUNT(*) FROM filter_logs WHERE ai_filtered = FALSE");
     }
 
+    /**
+     * 按配置时区的自然日统计最近若干天的日志数，按天分组使用整数运算，时间范围条件可以使用索引
+     */
     public java.util.List<java.util.Map<String, Object>> countLogsByDate(int days) {
-        return jdbcTemplate.query(
-                "SELECT DATE(created_at) as date, COUNT(*) as count FROM filter_logs " +
-                "WHERE created_at >= datetime('now', 'localtime', '-" + days + " days') " +
-                "GROUP BY DATE(created_at) ORDER BY date",
-                (rs, rowNum) -> {
-                    java.util.Map<String, Object> map = new java.util.HashMap<>();
-                    map.put("date", rs.getString("date"));
-                    map.put("count", rs.getLong("count"));
-                    return map;
-                });
+        String epochDay = "(created_at + " + timezoneConfig.getOffsetMillis() + ") / " + TimeUnit.DAYS.toMillis(1);
+        TreeMap<Long, Long> counts = new TreeMap<>();
+        for (JdbcTemplate jdbcTemplate : shardRouter.all()) {
+            jdbcTemplate.query(
+                    "SELECT " + epochDay + " as epoch_day, COUNT(*) as count FROM filter_logs " +
+                    "WHERE created_at >= ? " +
+                    "GROUP BY " + epochDay,
+                    rs -> {
+                        counts.merge(rs.getLong("epoch_day"), rs.getLong("count"), Long::sum);
+                    }, DateTimeUtils.daysAgoMillis(days));
+        }
+        java.util.List<java.util.Map<String, Object>> result = new ArrayList<>(counts.size());
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            java.util.Map<String, Object> map = new java.util.HashMap<>();
+            map.put("date", LocalDate.ofEpochDay(entry.getKey()).toString());
+            map.put("count", entry.getValue());
+            result.add(map);
+        }
+        return result;
     }
 
-    public List<FilterLog> findByUserIdAndKeyword(Long userId, String keyword, int page, int pageSize) {
-        int offset = (page - 1) * pageSize;
-        String searchPattern = "%" + keyword + "%";
-        return jdbcTemplate.query(
-                "SELECT * FROM filter_logs WHERE user_id = ? AND (title LIKE ? OR ai_reason LIKE ? OR ai_raw_response LIKE ?) ORDER BY created_at DESC LIMIT ? OFFSET ?",
-                rowMapper, userId, searchPattern, searchPattern, searchPattern, pageSize, offset);
+    private Long sumAcrossShards(String sql, Object... args) {
+        long total = 0;
+        for (JdbcTemplate jdbcTemplate : shardRouter.all()) {
+            Long count = jdbcTemplate.queryForObject(sql, Long.class, args);
+            total += count != null ? count : 0;
+        }
+        return total;
     }
 
-    public int countByUserIdAndKeyword(Long userId, String keyword) {
-        String searchPattern = "%" + keyword + "%";
-        Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE user_id = ? AND (title LIKE ? OR ai_reason LIKE ? OR ai_raw_response LIKE ?)",
-                Integer.class, userId, searchPattern, searchPattern, searchPattern);
+    /**
+     * 按组合条件查询日志，按ID倒序（即写入时间倒序）返回，使用ID作为游标
+     */
+    public List<FilterLog> findByQuery(FilterLogQuery query) {
+        StringBuilder sql = new StringBuilder("SELECT fl.* FROM filter_logs fl WHERE ");
+        List<Object> params = new ArrayList<>();
+        appendConditions(sql, params, query);
+        if (query.getBeforeId() != null) {
+            sql.append(" AND fl.id < ?");
+            params.add(query.getBeforeId());
+        }
+        sql.append(" ORDER BY fl.id DESC LIMIT ?");
+        params.add(query.getLimit());
+        return shardRouter.forUser(query.getUserId()).query(sql.toString(), rowMapper, params.toArray());
+    }
+
+    /**
+     * 统计符合条件的日志数，最多数到 cap + 1 条，调用方据此判断总数是否为近似值
+     */
+    public int countByQuery(FilterLogQuery query, int cap) {
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM (SELECT 1 FROM filter_logs fl WHERE ");
+        List<Object> params = new ArrayList<>();
+        appendConditions(sql, params, query);
+        sql.append(" LIMIT ?) t");
+        params.add(cap + 1);
+        Integer count = shardRouter.forUser(query.getUserId()).queryForObject(sql.toString(), Integer.class, params.toArray());
         return count != null ? count : 0;
     }
 
-    public List<FilterLog> findByUserIdAndFilteredAndKeyword(Long userId, Boolean filtered, String keyword, int page, int pageSize) {
-        int offset = (page - 1) * pageSize;
-        String searchPattern = "%" + keyword + "%";
-        return jdbcTemplate.query(
-                "SELECT * FROM filter_logs WHERE user_id = ? AND ai_filtered = ? AND (title LIKE ? OR ai_reason LIKE ? OR ai_raw_response LIKE ?) ORDER BY created_at DESC LIMIT ? OFFSET ?",
-                rowMapper, userId, filtered, searchPattern, searchPattern, searchPattern, pageSize, offset);
+    /**
+     * 拼接查询条件：用户、筛选结果、来源为普通条件；
+     * 关键词优先使用 FTS5 MATCH，过短时按 rowid 关联索引表逐行 LIKE（只扫描当前用户的日志）；
+     * 数据库不支持全文索引时直接对日志表逐行 LIKE
+     */
+    private void appendConditions(StringBuilder sql, List<Object> params, FilterLogQuery query) {
+        sql.append("fl.user_id = ?");
+        params.add(query.getUserId());
+        if (query.getFiltered() != null) {
+            sql.append(" AND fl.ai_filtered = ?");
+            params.add(query.getFiltered());
+        }
+        if (query.getSourceName() != null) {
+            sql.append(" AND fl.source_name = ?");
+            params.add(query.getSourceName());
+        }
+        if (query.getMatchExpression() != null) {
+            sql.append(" AND fl.id IN (SELECT rowid FROM filter_logs_fts WHERE filter_logs_fts MATCH ?)");
+            params.add(query.getMatchExpression());
+        }
+        boolean fullText = sqlDialect.supportsFullTextIndex();
+        for (String pattern : query.getLikePatterns()) {
+            if (fullText) {
+                sql.append(" AND EXISTS (SELECT 1 FROM filter_logs_fts f WHERE f.rowid = fl.id AND " +
+                        "(f.title LIKE ? ESCAPE '\\' OR f.ai_reason LIKE ? ESCAPE '\\' OR f.ai_raw_response LIKE ? ESCAPE '\\'))");
+            } else {
+                String like = " " + sqlDialect.caseInsensitiveLike() + " ? ESCAPE '\\'";
+                sql.append(" AND (fl.title" + like + " OR fl.ai_reason" + like + " OR fl.ai_raw_response" + like + ")");
+            }
+            params.add(pattern);
+            params.add(pattern);
+            params.add(pattern);
+        }
     }
 
-    public int countByUserIdAndFilteredAndKeyword(Long userId, Boolean filtered, String keyword) {
-        String searchPattern = "%" + keyword + "%";
-        Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE user_id = ? AND ai_filtered = ? AND (title LIKE ? OR ai_reason LIKE ? OR ai_raw_response LIKE ?)",
-                Integer.class, userId, filtered, searchPattern, searchPattern, searchPattern);
-        return count != null ? count : 0;
+    /**
+     * 是否可以使用 MATCH 表达式检索
+     */
+    public boolean supportsFullTextSearch() {
+        return sqlDialect.supportsFullTextIndex();
     }
 
-    public List<FilterLog> findByUserIdAndSourceAndKeyword(Long userId, String sourceName, String keyword, int page, int pageSize) {
-        int offset = (page - 1) * pageSize;
-        String searchPattern = "%" + keyword + "%";
-        return jdbcTemplate.query(
-                "SELECT * FROM filter_logs WHERE user_id = ? AND source_name = ? AND (title LIKE ? OR ai_reason LIKE ? OR ai_raw_response LIKE ?) ORDER BY created_at DESC LIMIT ? OFFSET ?",
-                rowMapper, userId, sourceName, searchPattern, searchPattern, searchPattern, pageSize, offset);
+    /**
+     * 写入或覆盖一条日志的全文索引，数据库不支持全文索引时忽略
+     */
+    public void index(Long id, String title, String aiReason, String aiRawResponse) {
+        if (!sqlDialect.supportsFullTextIndex()) {
+            return;
+        }
+        shardRouter.forId(id).update("INSERT OR REPLACE INTO filter_logs_fts (rowid, title, ai_reason, ai_raw_response) VALUES (?, ?, ?, ?)",
+                id, title != null ? title : "", aiReason != null ? aiReason : "", aiRawResponse);
     }
 
-    public int countByUserIdAndSourceAndKeyword(Long userId, String sourceName, String keyword) {
-        String searchPattern = "%" + keyword + "%";
-        Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE user_id = ? AND source_name = ? AND (title LIKE ? OR ai_reason LIKE ? OR ai_raw_response LIKE ?)",
-                Integer.class, userId, sourceName, searchPattern, searchPattern, searchPattern);
-        return count != null ? count : 0;
+    /**
+     * 查询尚未建立全文索引的日志，用于后台回填；数据库不支持全文索引时返回空列表
+     * 各分片的ID区间按分片顺序递增，依次查询即可得到按ID排序的结果
+     */
+    public List<FilterLog> findUnindexedAfterId(long afterId, int limit) {
+        if (!sqlDialect.supportsFullTextIndex()) {
+            return Collections.emptyList();
+        }
+        List<FilterLog> logs = new ArrayList<>();
+        for (JdbcTemplate jdbcTemplate : shardRouter.all()) {
+            if (logs.size() >= limit) {
+                break;
+            }
+            logs.addAll(jdbcTemplate.query(
+                    "SELECT * FROM filter_logs fl WHERE fl.id > ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM filter_logs_fts f WHERE f.rowid = fl.id) ORDER BY fl.id LIMIT ?",
+                    rowMapper, afterId, limit - logs.size()));
+        }
+        return logs;
     }
 
-    public List<FilterLog> findByUserIdAndFilteredAndSourceAndKeyword(Long userId, Boolean filtered, String sourceName, String keyword, int page, int pageSize) {
-        int offset = (page - 1) * pageSize;
-        String searchPattern = "%" + keyword + "%";
-        return jdbcTemplate.query(
-                "SELECT * FROM filter_logs WHERE user_id = ? AND ai_filtered = ? AND source_name = ? AND (title LIKE ? OR ai_reason LIKE ? OR ai_raw_response LIKE ?) ORDER BY created_at DESC LIMIT ? OFFSET ?",
-                rowMapper, userId, filtered, sourceName, searchPattern, searchPattern, searchPattern, pageSize, offset);
+    /**
+     * 按ID顺序读取仍以TEXT存储的AI原始响应，用于后台压缩迁移
+     */
+    public List<Map<String, Object>> findStoredRawResponseAfterId(long afterId, int limit) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (JdbcTemplate jdbcTemplate : shardRouter.all()) {
+            if (rows.size() >= limit) {
+                break;
+            }
+            rows.addAll(jdbcTemplate.queryForList(
+                    "SELECT id, ai_raw_response FROM filter_logs WHERE id > ? AND typeof(ai_raw_response) = 'text' ORDER BY id LIMIT ?",
+                    afterId, limit - rows.size()));
+        }
+        return rows;
     }
 
-    public int countByUserIdAndFilteredAndSourceAndKeyword(Long userId, Boolean filtered, String sourceName, String keyword) {
-        String searchPattern = "%" + keyword + "%";
-        Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM filter_logs WHERE user_id = ? AND ai_filtered = ? AND source_name = ? AND (title LIKE ? OR ai_reason LIKE ? OR ai_raw_response LIKE ?)",
-                Integer.class, userId, filtered, sourceName, searchPattern, searchPattern, searchPattern);
-        return count != null ? count : 0;
+    public void updateStoredRawResponse(Long id, Object rawResponse) {
+        shardRouter.forId(id).update("UPDATE filter_logs SET ai_raw_response = ? WHERE id = ?", rawResponse, id);
     }
 }
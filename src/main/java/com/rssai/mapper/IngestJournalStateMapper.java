@@ -0,0 +1,30 @@
+package com.rssai.mapper;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 入库日志应用位置
+ * 主库和每个分片各自记录，调用方传入目标库，需要在写入数据的同一事务中调用
+ */
+@Repository
+public class IngestJournalStateMapper {
+
+    /**
+     * @return 已应用到的日志位置，没有记录时返回 0
+     */
+    public long findAppliedOffset(JdbcTemplate target, String name) {
+        List<Long> offsets = target.queryForList(
+                "SELECT applied_offset FROM ingest_journal_state WHERE name = ?", Long.class, name);
+        return offsets.isEmpty() || offsets.get(0) == null ? 0 : offsets.get(0);
+    }
+
+    public void saveAppliedOffset(JdbcTemplate target, String name, long offset) {
+        int updated = target.update("UPDATE ingest_journal_state SET applied_offset = ? WHERE name = ?", offset, name);
+        if (updated == 0) {
+            target.update("INSERT INTO ingest_journal_state (name, applied_offset) VALUES (?, ?)", name, offset);
+        }
+    }
+}
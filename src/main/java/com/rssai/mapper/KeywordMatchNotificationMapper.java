@@ -1,6 +1,7 @@
 package com.rssai.mapper;
 
 import com.rssai.config.TimezoneConfig;
+import com.rssai.dialect.SqlDialect;
 import com.rssai.model.KeywordMatchNotification;
 import com.rssai.util.DateTimeUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -9,12 +10,14 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Collections;
 import java.util.List;
 
 @Repository
 public class KeywordMatchNotificationMapper {
     private final JdbcTemplate jdbcTemplate;
     private final TimezoneConfig timezoneConfig;
+    private final SqlDialect sqlDialect;
 
     private final RowMapper<KeywordMatchNotification> rowMapper = (rs, rowNum) -> {
         KeywordMatchNotification notification = new KeywordMatchNotification();
@@ -28,9 +31,10 @@ public class KeywordMatchNotificationMapper {
         return notification;
     };
     
-    public KeywordMatchNotificationMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig) {
+    public KeywordMatchNotificationMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig, SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
         this.timezoneConfig = timezoneConfig;
+        this.sqlDialect = sqlDialect;
     }
 
     public List<KeywordMatchNotification> findByUserIdAndRssItemId(Long userId, Long rssItemId) {
@@ -45,7 +49,7 @@ public class KeywordMatchNotificationMapper {
     }
 
     public void insert(KeywordMatchNotification notification) {
-        String timeClause = String.format("datetime('now', '%s')", timezoneConfig.getTimezoneModifier());
+        String timeClause = sqlDialect.now(timezoneConfig.getTimezoneModifier());
         jdbcTemplate.update(
                 "INSERT INTO keyword_match_notifications (user_id, rss_item_id, subscription_id, matched_keyword, notified, created_at) VALUES (?, ?, ?, ?, ?, " + timeClause + ")",
                 notification.getUserId(),
@@ -58,7 +62,7 @@ public class KeywordMatchNotificationMapper {
     public List<KeywordMatchNotification> findByNotifiedAndUserId(Boolean notified, Long userId) {
         return jdbcTemplate.query(
                 "SELECT * FROM keyword_match_notifications WHERE notified = ? AND user_id = ? ORDER BY created_at DESC",
-                rowMapper, notified ? 1 : 0, userId);
+                rowMapper, notified, userId);
     }
 
     public KeywordMatchNotification findById(Long id) {
@@ -76,4 +80,25 @@ public class KeywordMatchNotificationMapper {
     public void delete(Long id) {
         jdbcTemplate.update("DELETE FROM keyword_match_notifications WHERE id = ?", id);
     }
+
+    /**
+     * 分块删除超过保留天数的匹配通知
+     * @return 本次删除的行数
+     */
+    public int deleteOlderThanChunk(int daysToKeep, int chunkSize) {
+        String cutoff = sqlDialect.daysAgo(timezoneConfig.getTimezoneModifier());
+        return jdbcTemplate.update(
+                "DELETE FROM keyword_match_notifications WHERE id IN (" +
+                "SELECT id FROM keyword_match_notifications WHERE created_at < " + cutoff + " LIMIT ?)",
+                daysToKeep, chunkSize);
+    }
+
+    public void deleteByRssItemIds(List<Long> rssItemIds) {
+        if (rssItemIds == null || rssItemIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(rssItemIds.size(), "?"));
+        jdbcTemplate.update("DELETE FROM keyword_match_notifications WHERE rss_item_id IN (" + placeholders + ")",
+                rssItemIds.toArray());
+    }
 }
@@ -1,5 +1,6 @@
 package com.rssai.mapper;
 
+import com.rssai.dialect.SqlDialect;
 import com.rssai.model.KeywordSubscription;
 import com.rssai.util.DateTimeUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -13,6 +14,7 @@ import java.util.List;
 @Repository
 public class KeywordSubscriptionMapper {
     private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
 
     private final RowMapper<KeywordSubscription> rowMapper = (rs, rowNum) -> {
         KeywordSubscription subscription = new KeywordSubscription();
@@ -25,8 +27,9 @@ public class KeywordSubscriptionMapper {
         return subscription;
     };
     
-    public KeywordSubscriptionMapper(JdbcTemplate jdbcTemplate) {
+    public KeywordSubscriptionMapper(JdbcTemplate jdbcTemplate, SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
     }
 
     public List<KeywordSubscription> findByUserId(Long userId) {
@@ -39,12 +42,12 @@ public class KeywordSubscriptionMapper {
     }
 
     public void insert(KeywordSubscription subscription) {
-        jdbcTemplate.update("INSERT INTO keyword_subscriptions (user_id, keywords, enabled, created_at, updated_at) VALUES (?, ?, ?, datetime('now', 'localtime'), datetime('now', 'localtime'))",
+        jdbcTemplate.update("INSERT INTO keyword_subscriptions (user_id, keywords, enabled, created_at, updated_at) VALUES (?, ?, ?, " + sqlDialect.now(SqlDialect.LOCALTIME) + ", " + sqlDialect.now(SqlDialect.LOCALTIME) + ")",
                 subscription.getUserId(), subscription.getKeywords(), subscription.getEnabled() != null ? subscription.getEnabled() : true);
     }
 
     public void update(KeywordSubscription subscription, Long userId) {
-        jdbcTemplate.update("UPDATE keyword_subscriptions SET keywords = ?, enabled = ?, updated_at = datetime('now', 'localtime') WHERE id = ? AND user_id = ?",
+        jdbcTemplate.update("UPDATE keyword_subscriptions SET keywords = ?, enabled = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ? AND user_id = ?",
                 subscription.getKeywords(), subscription.getEnabled(), subscription.getId(), userId);
     }
 
@@ -53,7 +56,7 @@ public class KeywordSubscriptionMapper {
     }
 
     public List<KeywordSubscription> findEnabledByUserId(Long userId) {
-        return jdbcTemplate.query("SELECT * FROM keyword_subscriptions WHERE user_id = ? AND enabled = 1 ORDER BY created_at DESC", rowMapper, userId);
+        return jdbcTemplate.query("SELECT * FROM keyword_subscriptions WHERE user_id = ? AND enabled = TRUE ORDER BY created_at DESC", rowMapper, userId);
     }
 
     public Long countByUserId(Long userId) {
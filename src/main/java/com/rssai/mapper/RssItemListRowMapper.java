@@ -0,0 +1,73 @@
+package com.rssai.mapper;
+
+import com.rssai.dto.RssItemListDTO;
+import com.rssai.util.DateTimeUtils;
+import com.rssai.util.ResultSetColumns;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 文章列表项行映射
+ * 摘要和封面图读取入库时预计算的列，不读取完整的摘要和正文；
+ * source_special_attention 只在部分查询中存在。实例持有列序号，不能跨查询复用
+ */
+class RssItemListRowMapper implements RowMapper<RssItemListDTO> {
+    /**
+     * 列表查询共用的列投影，表别名为 ri（rss_items）和 rs（rss_sources）
+     */
+    static final String COLUMNS = "ri.id, ri.title, ri.link, ri.excerpt, ri.image_url, ri.pub_date, " +
+            "rs.name AS source_name, rs.special_attention AS source_special_attention";
+
+    private boolean resolved;
+    private int id;
+    private int title;
+    private int link;
+    private int excerpt;
+    private int imageUrl;
+    private int pubDate;
+    private int sourceName;
+    private int sourceSpecialAttention;
+
+    @Override
+    public RssItemListDTO mapRow(ResultSet rs, int rowNum) throws SQLException {
+        if (!resolved) {
+            resolve(rs);
+        }
+        RssItemListDTO item = new RssItemListDTO();
+        item.setId(rs.getLong(id));
+        item.setTitle(rs.getString(title));
+        item.setLink(rs.getString(link));
+        item.setPubDate(DateTimeUtils.readEpochMillis(rs, pubDate));
+        item.setSourceName(rs.getString(sourceName));
+        item.setSourceSpecialAttention(sourceSpecialAttention > 0 && readFlag(rs, sourceSpecialAttention));
+        item.setExcerpt(rs.getString(excerpt));
+        item.setImageUrl(rs.getString(imageUrl));
+        return item;
+    }
+
+    private void resolve(ResultSet rs) throws SQLException {
+        ResultSetColumns columns = ResultSetColumns.of(rs);
+        id = columns.require("id");
+        title = columns.require("title");
+        link = columns.require("link");
+        excerpt = columns.require("excerpt");
+        imageUrl = columns.require("image_url");
+        pubDate = columns.require("pub_date");
+        sourceName = columns.require("source_name");
+        sourceSpecialAttention = columns.indexOf("source_special_attention");
+        resolved = true;
+    }
+
+    /**
+     * SQLite 的布尔值为整数，服务端数据库的 BOOLEAN 列直接返回布尔值
+     */
+    private static boolean readFlag(ResultSet rs, int index) throws SQLException {
+        Object value = rs.getObject(index);
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        return value instanceof Number && ((Number) value).intValue() == 1;
+    }
+}
@@ -1,14 +1,26 @@
 package com.rssai.mapper;
 
+import com.rssai.config.TextCompressionConfig;
 import com.rssai.config.TimezoneConfig;
 import com.rssai.constant.RssConstants;
+import com.rssai.dialect.SqlDialect;
+import com.rssai.dto.RssItemListDTO;
 import com.rssai.model.RssItem;
 import com.rssai.util.DateTimeUtils;
+import com.rssai.util.ResultSetColumns;
+import com.rssai.util.TextCompressionUtils;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * RSS条目数据访问层
@@ -18,136 +30,103 @@ import java.util.List;
 public class RssItemMapper {
     private final JdbcTemplate jdbcTemplate;
     private final TimezoneConfig timezoneConfig;
+    private final TextCompressionConfig textCompressionConfig;
+    private final SqlDialect sqlDialect;
     
-    public RssItemMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig) {
+    public RssItemMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig,
+                         TextCompressionConfig textCompressionConfig,
+                         SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
         this.timezoneConfig = timezoneConfig;
+        this.textCompressionConfig = textCompressionConfig;
+        this.sqlDialect = sqlDialect;
     }
 
-    private final RowMapper<RssItem> rowMapper = (rs, rowNum) -> {
-        RssItem item = new RssItem();
-        item.setId(rs.getLong("id"));
-        item.setSourceId(rs.getLong("source_id"));
-        item.setTitle(rs.getString("title"));
-        item.setLink(rs.getString("link"));
-        item.setDescription(rs.getString("description"));
-        item.setContent(rs.getString("content"));
-        item.setPubDate(DateTimeUtils.parseDateTime(rs.getString("pub_date")));
-        item.setAiFiltered(rs.getBoolean("ai_filtered"));
-        item.setAiReason(rs.getString("ai_reason"));
-        item.setCreatedAt(DateTimeUtils.parseDateTime(rs.getString("created_at")));
-
-        // 解析 needs_retry 字段
-        try {
-            Object needsRetryObj = rs.getObject("needs_retry");
-            if (needsRetryObj instanceof Number) {
-                item.setNeedsRetry(((Number) needsRetryObj).intValue() == 1);
-            } else {
-                item.setNeedsRetry(false);
-            }
-        } catch (Exception e) {
-            item.setNeedsRetry(false);
-        }
-
-        // 解析 source_name 字段（如果存在）
-        try {
-            String sourceName = rs.getString("source_name");
-            item.setSourceName(sourceName);
-        } catch (Exception e) {
-            item.setSourceName(null);
-        }
-
-        // 解析 is_read 字段（如果存在）
-        try {
-            Object isReadObj = rs.getObject("is_read");
-            if (isReadObj instanceof Number) {
-                item.setIsRead(((Number) isReadObj).intValue() == 1);
-            } else {
-                item.setIsRead(false);
-            }
-        } catch (Exception e) {
-            item.setIsRead(false);
-        }
-
-        // 解析 source_special_attention 字段（如果存在）
-        try {
-            Object specialAttentionObj = rs.getObject("source_special_attention");
-            if (specialAttentionObj instanceof Number) {
-                item.setSourceSpecialAttention(((Number) specialAttentionObj).intValue() == 1);
-            } else {
-                item.setSourceSpecialAttention(false);
-            }
-        } catch (Exception e) {
-            item.setSourceSpecialAttention(false);
-        }
-
-        return item;
-    };
+    /**
+     * 每次查询新建行映射实例，列序号在首行时解析
+     */
+    RowMapper<RssItem> rowMapper() {
+        return new RssItemRowMapper();
+    }
 
     public List<RssItem> findBySourceIdAndFiltered(Long sourceId, Boolean filtered) {
         return jdbcTemplate.query(
             "SELECT * FROM rss_items WHERE source_id = ? AND ai_filtered = ? ORDER BY pub_date DESC LIMIT ?", 
-            rowMapper, sourceId, filtered, RssConstants.DEFAULT_RSS_ITEM_LIMIT);
+            rowMapper(), sourceId, filtered, RssConstants.DEFAULT_RSS_ITEM_LIMIT);
     }
 
-    public List<RssItem> findFilteredByUserId(Long userId) {
+    /**
+     * 查询用户最新的通过筛选的条目，用于生成用户的RSS输出
+     */
+    public List<RssItemListDTO> findFilteredByUserId(Long userId) {
         return jdbcTemplate.query(
-                "SELECT ri.* FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id WHERE rs.user_id = ? AND ri.ai_filtered = 1 ORDER BY ri.pub_date DESC LIMIT ?",
-                rowMapper, userId, RssConstants.DEFAULT_RSS_ITEM_LIMIT);
-    }
-
-    public List<RssItem> findFilteredByUserIdWithPagination(Long userId, int page, int pageSize) {
-        return findFilteredByUserIdWithPagination(userId, page, pageSize, null);
+                "SELECT " + RssItemListRowMapper.COLUMNS + " " +
+                "FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "WHERE rs.user_id = ? AND ri.ai_filtered = TRUE ORDER BY ri.pub_date DESC LIMIT ?",
+                new RssItemListRowMapper(), userId, RssConstants.DEFAULT_RSS_ITEM_LIMIT);
     }
 
-    public List<RssItem> findFilteredByUserIdWithPagination(Long userId, int page, int pageSize, Boolean isRead) {
+    /**
+     * 分页查询用户通过筛选的条目，只投影列表页需要的列
+     */
+    public List<RssItemListDTO> findFilteredByUserIdWithPagination(Long userId, int page, int pageSize) {
         int offset = (page - 1) * pageSize;
-        StringBuilder sql = new StringBuilder(
-                "SELECT ri.*, rs.name as source_name, rs.special_attention as source_special_attention, EXISTS(SELECT 1 FROM user_read_items WHERE user_id = ? AND rss_item_id = ri.id) as is_read " +
+        return jdbcTemplate.query(
+                "SELECT " + RssItemListRowMapper.COLUMNS + " " +
                 "FROM rss_items ri " +
                 "JOIN rss_sources rs ON ri.source_id = rs.id " +
-                "WHERE rs.user_id = ? AND ri.ai_filtered = 1 ");
-
-        if (isRead != null) {
-            if (isRead) {
-                sql.append("AND EXISTS(SELECT 1 FROM user_read_items WHERE user_id = ? AND rss_item_id = ri.id) ");
-            } else {
-                sql.append("AND NOT EXISTS(SELECT 1 FROM user_read_items WHERE user_id = ? AND rss_item_id = ri.id) ");
-            }
-        }
-
-        sql.append("ORDER BY ri.pub_date DESC LIMIT ? OFFSET ?");
-
-        if (isRead != null) {
-            return jdbcTemplate.query(sql.toString(), rowMapper, userId, userId, userId, pageSize, offset);
-        } else {
-            return jdbcTemplate.query(sql.toString(), rowMapper, userId, userId, pageSize, offset);
-        }
+                "WHERE rs.user_id = ? AND ri.ai_filtered = TRUE " +
+                "ORDER BY ri.pub_date DESC LIMIT ? OFFSET ?",
+                new RssItemListRowMapper(), userId, pageSize, offset);
     }
 
-    public int countFilteredByUserId(Long userId) {
-        return countFilteredByUserId(userId, null);
+    /**
+     * 读取用户通过筛选的全部条目ID（只读ID列，不排序），用于与已读位图求交集计算精确数量
+     */
+    public RoaringBitmap findFilteredIdBitmap(Long userId) {
+        RoaringBitmap ids = new RoaringBitmap();
+        jdbcTemplate.query(
+                "SELECT ri.id FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "WHERE rs.user_id = ? AND ri.ai_filtered = TRUE",
+                (RowCallbackHandler) rs -> ids.add((int) rs.getLong(1)),
+                userId);
+        return ids;
     }
 
-    public int countFilteredByUserId(Long userId, Boolean isRead) {
-        StringBuilder sql = new StringBuilder(
-                "SELECT COUNT(*) FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id WHERE rs.user_id = ? AND ri.ai_filtered = 1 ");
+    /**
+     * 在用户通过筛选的条目中，按ID集合包含或排除后分页查询列表项，按发布时间倒序
+     *
+     * @param idArrayJson JSON数组形式的条目ID列表
+     * @param exclude true表示排除列表中的条目，false表示只取列表中的条目
+     */
+    public List<RssItemListDTO> findFilteredPageByIds(Long userId, String idArrayJson, boolean exclude,
+                                                      int pageSize, int offset) {
+        return jdbcTemplate.query(
+                "SELECT " + RssItemListRowMapper.COLUMNS + " " +
+                "FROM rss_items ri " +
+                "JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "WHERE rs.user_id = ? AND ri.ai_filtered = TRUE " +
+                "AND " + (exclude ? "NOT " : "") + sqlDialect.inJsonIdArray("ri.id") + " " +
+                "ORDER BY ri.pub_date DESC, ri.id DESC LIMIT ? OFFSET ?",
+                new RssItemListRowMapper(), userId, idArrayJson, pageSize, offset);
+    }
 
-        if (isRead != null) {
-            if (isRead) {
-                sql.append("AND EXISTS(SELECT 1 FROM user_read_items WHERE user_id = ? AND rss_item_id = ri.id) ");
-            } else {
-                sql.append("AND NOT EXISTS(SELECT 1 FROM user_read_items WHERE user_id = ? AND rss_item_id = ri.id) ");
-            }
-        }
+    /**
+     * 查询单篇条目的完整内容（用户隔离），用于列表页按需加载正文
+     */
+    public RssItem findByIdAndUserId(Long id, Long userId) {
+        List<RssItem> items = jdbcTemplate.query(
+                "SELECT ri.*, rs.name as source_name FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "WHERE ri.id = ? AND rs.user_id = ?",
+                rowMapper(), id, userId);
+        return items.isEmpty() ? null : items.get(0);
+    }
 
-        if (isRead != null) {
-            Integer count = jdbcTemplate.queryForObject(sql.toString(), Integer.class, userId, userId);
-            return count != null ? count : 0;
-        } else {
-            Integer count = jdbcTemplate.queryForObject(sql.toString(), Integer.class, userId);
-            return count != null ? count : 0;
-        }
+    public int countFilteredByUserId(Long userId) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id WHERE rs.user_id = ? AND ri.ai_filtered = TRUE",
+                Integer.class, userId);
+        return count != null ? count : 0;
     }
 
     public boolean existsByLink(String link) {
@@ -160,8 +139,8 @@ public class RssItemMapper {
      */
     public boolean existsByLinkWithinDays(String link, int days, Long userId) {
         Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id WHERE ri.link = ? AND rs.user_id = ? AND ri.created_at >= datetime('now', '-' || ? || ' days')",
-                Integer.class, link, userId, days);
+                "SELECT COUNT(*) FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id WHERE ri.link = ? AND rs.user_id = ? AND ri.created_at >= ?",
+                Integer.class, link, userId, DateTimeUtils.daysAgoMillis(days));
         return count != null && count > 0;
     }
 
@@ -170,8 +149,8 @@ public class RssItemMapper {
      */
     public boolean existsByTitleWithinDays(String title, int days, Long userId) {
         Integer count = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id WHERE ri.title = ? AND rs.user_id = ? AND ri.created_at >= datetime('now', '-' || ? || ' days')",
-                Integer.class, title, userId, days);
+                "SELECT COUNT(*) FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id WHERE ri.title = ? AND rs.user_id = ? AND ri.created_at >= ?",
+                Integer.class, title, userId, DateTimeUtils.daysAgoMillis(days));
         return count != null && count > 0;
     }
 
@@ -184,19 +163,22 @@ public class RssItemMapper {
     public RssItem findByLinkAndUserId(String link, Long userId) {
         List<RssItem> items = jdbcTemplate.query(
                 "SELECT ri.* FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id WHERE ri.link = ? AND rs.user_id = ? LIMIT 1",
-                rowMapper, link, userId);
+                rowMapper(), link, userId);
         return items.isEmpty() ? null : items.get(0);
     }
 
     public void insert(RssItem item) {
-        String timeClause = String.format("datetime('now', '%s')", timezoneConfig.getTimezoneModifier());
-
         // 先尝试插入
         int affectedRows = jdbcTemplate.update(
-            "INSERT OR IGNORE INTO rss_items (source_id, title, link, description, content, pub_date, ai_filtered, ai_reason, needs_retry, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, " + timeClause + ")",
-            item.getSourceId(), item.getTitle(), item.getLink(), item.getDescription(), item.getContent(), 
-            item.getPubDate(), item.getAiFiltered(), item.getAiReason(), 
-            item.getNeedsRetry() != null && item.getNeedsRetry() ? 1 : 0);
+            sqlDialect.insertIgnore("rss_items",
+                    "source_id, title, link, description, content, pub_date, ai_filtered, ai_reason, needs_retry, created_at, " +
+                    "excerpt, image_url",
+                    "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?"),
+            item.getSourceId(), item.getTitle(), item.getLink(),
+            textCompressionConfig.encode(item.getDescription()), textCompressionConfig.encode(item.getContent()),
+            DateTimeUtils.toEpochMillis(item.getPubDate()), item.getAiFiltered(), item.getAiReason(), 
+            item.getNeedsRetry() != null && item.getNeedsRetry() ? 1 : 0, System.currentTimeMillis(),
+            item.getExcerpt(), item.getImageUrl());
 
         // 无论插入成功还是记录已存在，都通过 link 查询记录ID
         // 避免使用 last_insert_rowid()，因为在多线程环境下可能返回不正确的值
@@ -216,14 +198,39 @@ public class RssItemMapper {
                 item.getId());
     }
 
+    /**
+     * 批量更新条目的筛选结果，由入库日志按批写入
+     */
+    public void batchUpdateVerdicts(List<RssItem> items) {
+        List<Object[]> args = new ArrayList<>(items.size());
+        for (RssItem item : items) {
+            args.add(new Object[]{item.getAiFiltered(), item.getAiReason(),
+                    item.getNeedsRetry() != null && item.getNeedsRetry() ? 1 : 0, item.getId()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE rss_items SET ai_filtered = ?, ai_reason = ?, needs_retry = ? WHERE id = ?", args);
+    }
+
+    /**
+     * 查询今天通过筛选的最新条目，用于每日摘要邮件
+     * 摘要邮件只展示标题、链接和发布时间，不读取摘要和正文
+     */
     public List<RssItem> findTodayLatestItemsByUserId(Long userId, int limit) {
         return jdbcTemplate.query(
-                "SELECT ri.* FROM rss_items ri " +
+                "SELECT ri.id, ri.source_id, ri.title, ri.link, ri.pub_date FROM rss_items ri " +
                 "JOIN rss_sources rs ON ri.source_id = rs.id " +
-                "WHERE rs.user_id = ? AND ri.ai_filtered = 1 " +
-                "AND date(ri.created_at) = date('now', 'localtime') " +
+                "WHERE rs.user_id = ? AND ri.ai_filtered = TRUE " +
+                "AND ri.created_at >= ? AND ri.created_at < ? " +
                 "ORDER BY ri.pub_date DESC LIMIT ?",
-                rowMapper, userId, limit);
+                (rs, rowNum) -> {
+                    RssItem item = new RssItem();
+                    item.setId(rs.getLong("id"));
+                    item.setSourceId(rs.getLong("source_id"));
+                    item.setTitle(rs.getString("title"));
+                    item.setLink(rs.getString("link"));
+                    item.setPubDate(DateTimeUtils.readEpochMillis(rs, "pub_date"));
+                    return item;
+                },
+                userId, timezoneConfig.startOfDayMillis(0), timezoneConfig.startOfDayMillis(1), limit);
     }
 
     /**
@@ -238,30 +245,171 @@ public class RssItemMapper {
                 "WHERE rs.user_id = ? " +
                 "AND ri.needs_retry = 1 " +
                 "ORDER BY ri.created_at DESC",
-                rowMapper, userId);
+                rowMapper(), userId);
     }
 
     /**
-     * 标记条目为已读
-     * @param userId 用户ID
-     * @param rssItemId RSS条目ID
+     * 分块清空超过保留天数的条目正文，被任意用户收藏的条目除外
+     * @return 本次清空的行数
      */
-    public void markAsRead(Long userId, Long rssItemId) {
-        jdbcTemplate.update(
-                "INSERT OR IGNORE INTO user_read_items (user_id, rss_item_id) VALUES (?, ?)",
-                userId, rssItemId);
+    public int clearContentOlderThanChunk(int daysToKeep, int chunkSize) {
+        return jdbcTemplate.update(
+                "UPDATE rss_items SET content = NULL WHERE id IN (" +
+                "SELECT ri.id FROM rss_items ri WHERE ri.content IS NOT NULL AND ri.created_at < ? " +
+                "AND NOT EXISTS (SELECT 1 FROM user_favorites uf WHERE uf.rss_item_id = ri.id) LIMIT ?)",
+                DateTimeUtils.daysAgoMillis(daysToKeep), chunkSize);
     }
 
     /**
-     * 获取用户所有已读条目的ID列表
-     * @param userId 用户ID
-     * @return 已读条目ID列表
+     * 查询超过保留天数且未被收藏的条目ID
+     */
+    public List<Long> findExpiredIds(int daysToKeep, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT ri.id FROM rss_items ri WHERE ri.created_at < ? " +
+                "AND NOT EXISTS (SELECT 1 FROM user_favorites uf WHERE uf.rss_item_id = ri.id) LIMIT ?",
+                Long.class, DateTimeUtils.daysAgoMillis(daysToKeep), limit);
+    }
+
+    public int deleteByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM rss_items WHERE id IN (" + placeholders + ")", ids.toArray());
+    }
+
+    /**
+     * 按ID顺序读取仍以TEXT存储的摘要和正文，用于后台压缩迁移
+     * 返回的 description/content 为数据库中的原始值（字符串或字节数组）
+     */
+    public List<Map<String, Object>> findStoredTextAfterId(long afterId, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id, description, content FROM rss_items WHERE id > ? " +
+                "AND (typeof(description) = 'text' OR typeof(content) = 'text') ORDER BY id LIMIT ?",
+                afterId, limit);
+    }
+
+    public void updateStoredText(Long id, Object description, Object content) {
+        jdbcTemplate.update("UPDATE rss_items SET description = ?, content = ? WHERE id = ?", description, content, id);
+    }
+
+    /**
+     * 按ID顺序查询尚未生成列表摘要的条目，用于后台回填
      */
-    public List<Long> findReadItemIds(Long userId) {
+    public List<RssItem> findWithoutExcerptAfterId(long afterId, int limit) {
         return jdbcTemplate.query(
-                "SELECT rss_item_id FROM user_read_items WHERE user_id = ?",
-                (rs, rowNum) -> rs.getLong("rss_item_id"),
-                userId);
+                "SELECT id, description, content FROM rss_items WHERE id > ? AND excerpt IS NULL ORDER BY id LIMIT ?",
+                (rs, rowNum) -> {
+                    RssItem item = new RssItem();
+                    item.setId(rs.getLong("id"));
+                    Object description = TextCompressionUtils.readRaw(rs, "description");
+                    if (description instanceof byte[]) {
+                        item.setCompressedDescription((byte[]) description);
+                    } else {
+                        item.setDescription((String) description);
+                    }
+                    Object content = TextCompressionUtils.readRaw(rs, "content");
+                    if (content instanceof byte[]) {
+                        item.setCompressedContent((byte[]) content);
+                    } else {
+                        item.setContent((String) content);
+                    }
+                    return item;
+                },
+                afterId, limit);
     }
-}
 
+    public void batchUpdatePreview(List<RssItem> items) {
+        List<Object[]> args = new ArrayList<>(items.size());
+        for (RssItem item : items) {
+            args.add(new Object[]{item.getExcerpt(), item.getImageUrl(), item.getId()});
+        }
+        jdbcTemplate.batchUpdate("UPDATE rss_items SET excerpt = ?, image_url = ? WHERE id = ?", args);
+    }
+
+    /**
+     * RSS条目行映射
+     * 首行时按结果集元数据解析列序号，之后按序号读取；needs_retry、source_name、is_read、
+     * source_special_attention 只在部分查询中存在，不存在时使用默认值。实例持有列序号，不能跨查询复用
+     */
+    private static class RssItemRowMapper implements RowMapper<RssItem> {
+        private boolean resolved;
+        private int id;
+        private int sourceId;
+        private int title;
+        private int link;
+        private int description;
+        private int content;
+        private int pubDate;
+        private int aiFiltered;
+        private int aiReason;
+        private int createdAt;
+        private int needsRetry;
+        private int sourceName;
+        private int isRead;
+        private int sourceSpecialAttention;
+
+        @Override
+        public RssItem mapRow(ResultSet rs, int rowNum) throws SQLException {
+            if (!resolved) {
+                resolve(rs);
+            }
+            RssItem item = new RssItem();
+            item.setId(rs.getLong(id));
+            item.setSourceId(rs.getLong(sourceId));
+            item.setTitle(rs.getString(title));
+            item.setLink(rs.getString(link));
+            Object descriptionValue = TextCompressionUtils.readRaw(rs, description);
+            if (descriptionValue instanceof byte[]) {
+                item.setCompressedDescription((byte[]) descriptionValue);
+            } else {
+                item.setDescription((String) descriptionValue);
+            }
+            Object contentValue = TextCompressionUtils.readRaw(rs, content);
+            if (contentValue instanceof byte[]) {
+                item.setCompressedContent((byte[]) contentValue);
+            } else {
+                item.setContent((String) contentValue);
+            }
+            item.setPubDate(DateTimeUtils.readEpochMillis(rs, pubDate));
+            item.setAiFiltered(rs.getBoolean(aiFiltered));
+            item.setAiReason(rs.getString(aiReason));
+            item.setCreatedAt(DateTimeUtils.readEpochMillis(rs, createdAt));
+            item.setNeedsRetry(needsRetry > 0 && readFlag(rs, needsRetry));
+            item.setSourceName(sourceName > 0 ? rs.getString(sourceName) : null);
+            item.setIsRead(isRead > 0 && readFlag(rs, isRead));
+            item.setSourceSpecialAttention(sourceSpecialAttention > 0 && readFlag(rs, sourceSpecialAttention));
+            return item;
+        }
+
+        private void resolve(ResultSet rs) throws SQLException {
+            ResultSetColumns columns = ResultSetColumns.of(rs);
+            id = columns.require("id");
+            sourceId = columns.require("source_id");
+            title = columns.require("title");
+            link = columns.require("link");
+            description = columns.require("description");
+            content = columns.require("content");
+            pubDate = columns.require("pub_date");
+            aiFiltered = columns.require("ai_filtered");
+            aiReason = columns.require("ai_reason");
+            createdAt = columns.require("created_at");
+            needsRetry = columns.indexOf("needs_retry");
+            sourceName = columns.indexOf("source_name");
+            isRead = columns.indexOf("is_read");
+            sourceSpecialAttention = columns.indexOf("source_special_attention");
+            resolved = true;
+        }
+
+        /**
+         * SQLite 的布尔值为整数，服务端数据库的 BOOLEAN 列直接返回布尔值
+         */
+        private static boolean readFlag(ResultSet rs, int index) throws SQLException {
+            Object value = rs.getObject(index);
+            if (value instanceof Boolean) {
+                return (Boolean) value;
+            }
+            return value instanceof Number && ((Number) value).intValue() == 1;
+        }
+    }
+}
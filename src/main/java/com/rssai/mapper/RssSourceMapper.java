@@ -1,6 +1,7 @@
 package com.rssai.mapper;
 
 import com.rssai.config.TimezoneConfig;
+import com.rssai.dialect.SqlDialect;
 import com.rssai.model.RssSource;
 import com.rssai.util.DateTimeUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -15,6 +16,7 @@ import java.util.List;
 public class RssSourceMapper {
     private final JdbcTemplate jdbcTemplate;
     private final TimezoneConfig timezoneConfig;
+    private final SqlDialect sqlDialect;
 
     private final RowMapper<RssSource> rowMapper = (rs, rowNum) -> {
         RssSource source = new RssSource();
@@ -26,15 +28,16 @@ public class RssSourceMapper {
         source.setRefreshInterval(rs.getInt("refresh_interval"));
         source.setAiFilterEnabled(rs.getBoolean("ai_filter_enabled"));
         source.setSpecialAttention(rs.getBoolean("special_attention"));
-        source.setLastFetchTime(DateTimeUtils.parseDateTime(rs.getString("last_fetch_time")));
+        source.setLastFetchTime(DateTimeUtils.readEpochMillis(rs, "last_fetch_time"));
         source.setCreatedAt(DateTimeUtils.parseDateTime(rs.getString("created_at")));
         source.setUpdatedAt(DateTimeUtils.parseDateTime(rs.getString("updated_at")));
         return source;
     };
     
-    public RssSourceMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig) {
+    public RssSourceMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig, SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
         this.timezoneConfig = timezoneConfig;
+        this.sqlDialect = sqlDialect;
     }
 
     public List<RssSource> findByUserId(Long userId) {
@@ -47,26 +50,24 @@ public class RssSourceMapper {
     }
 
     public List<RssSource> findAllEnabled() {
-        return jdbcTemplate.query("SELECT * FROM rss_sources WHERE enabled = 1", rowMapper);
+        return jdbcTemplate.query("SELECT * FROM rss_sources WHERE enabled = TRUE", rowMapper);
     }
 
     public void insert(RssSource source) {
-        jdbcTemplate.update("INSERT INTO rss_sources (user_id, name, url, enabled, refresh_interval, ai_filter_enabled, special_attention, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, datetime('now', 'localtime'), datetime('now', 'localtime'))",
+        jdbcTemplate.update("INSERT INTO rss_sources (user_id, name, url, enabled, refresh_interval, ai_filter_enabled, special_attention, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, " + sqlDialect.now(SqlDialect.LOCALTIME) + ", " + sqlDialect.now(SqlDialect.LOCALTIME) + ")",
                 source.getUserId(), source.getName(), source.getUrl(), source.getEnabled(), source.getRefreshInterval(),
                 source.getAiFilterEnabled() != null ? source.getAiFilterEnabled() : true,
                 source.getSpecialAttention() != null ? source.getSpecialAttention() : false);
     }
 
     public void update(RssSource source) {
-        jdbcTemplate.update("UPDATE rss_sources SET name = ?, url = ?, enabled = ?, refresh_interval = ?, ai_filter_enabled = ?, special_attention = ?, updated_at = datetime('now', 'localtime') WHERE id = ? AND user_id = ?",
+        jdbcTemplate.update("UPDATE rss_sources SET name = ?, url = ?, enabled = ?, refresh_interval = ?, ai_filter_enabled = ?, special_attention = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ? AND user_id = ?",
                 source.getName(), source.getUrl(), source.getEnabled(), source.getRefreshInterval(),
                 source.getAiFilterEnabled(), source.getSpecialAttention(), source.getId(), source.getUserId());
     }
 
     public void updateLastFetchTime(Long id) {
-        String timeModifier = timezoneConfig.getTimezoneModifier();
-        String sql = String.format("UPDATE rss_sources SET last_fetch_time = datetime('now', '%s') WHERE id = ?", timeModifier);
-        jdbcTemplate.update(sql, id);
+        jdbcTemplate.update("UPDATE rss_sources SET last_fetch_time = ? WHERE id = ?", System.currentTimeMillis(), id);
     }
 
     public void delete(Long id, Long userId) {
@@ -74,7 +75,7 @@ public class RssSourceMapper {
     }
 
     public void updateRefreshIntervalByUserId(Long userId, Integer refreshInterval) {
-        jdbcTemplate.update("UPDATE rss_sources SET refresh_interval = ?, updated_at = datetime('now', 'localtime') WHERE user_id = ?",
+        jdbcTemplate.update("UPDATE rss_sources SET refresh_interval = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE user_id = ?",
                 refreshInterval, userId);
     }
 
@@ -83,7 +84,7 @@ public class RssSourceMapper {
     }
 
     public Long countEnabledSources() {
-        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rss_sources WHERE enabled = 1", Long.class);
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rss_sources WHERE enabled = TRUE", Long.class);
     }
 
     public Long countByUserId(Long userId) {
@@ -91,7 +92,7 @@ public class RssSourceMapper {
     }
 
     public void updateEnabledByUserId(Long userId, Boolean enabled) {
-        jdbcTemplate.update("UPDATE rss_sources SET enabled = ?, updated_at = datetime('now', 'localtime') WHERE user_id = ?",
+        jdbcTemplate.update("UPDATE rss_sources SET enabled = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE user_id = ?",
                 enabled, userId);
     }
 }
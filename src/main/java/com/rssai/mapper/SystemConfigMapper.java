@@ -1,5 +1,6 @@
 package com.rssai.mapper;
 
+import com.rssai.dialect.SqlDialect;
 import com.rssai.model.SystemConfig;
 import com.rssai.util.DateTimeUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -13,6 +14,7 @@ import java.util.List;
 @Repository
 public class SystemConfigMapper {
     private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
 
     private final RowMapper<SystemConfig> rowMapper = (rs, rowNum) -> {
         SystemConfig config = new SystemConfig();
@@ -25,8 +27,9 @@ public class SystemConfigMapper {
         return config;
     };
     
-    public SystemConfigMapper(JdbcTemplate jdbcTemplate) {
+    public SystemConfigMapper(JdbcTemplate jdbcTemplate, SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
     }
 
     public SystemConfig findByKey(String configKey) {
@@ -39,16 +42,16 @@ public class SystemConfigMapper {
     }
 
     public void insert(SystemConfig config) {
-        jdbcTemplate.update("INSERT INTO system_configs (config_key, config_value, description, created_at, updated_at) VALUES (?, ?, ?, datetime('now', 'localtime'), datetime('now', 'localtime'))",
+        jdbcTemplate.update("INSERT INTO system_configs (config_key, config_value, description, created_at, updated_at) VALUES (?, ?, ?, " + sqlDialect.now(SqlDialect.LOCALTIME) + ", " + sqlDialect.now(SqlDialect.LOCALTIME) + ")",
                 config.getConfigKey(), config.getConfigValue(), config.getDescription());
     }
 
     public void update(String configKey, String configValue) {
-        jdbcTemplate.update("UPDATE system_configs SET config_value = ?, updated_at = datetime('now', 'localtime') WHERE config_key = ?", configValue, configKey);
+        jdbcTemplate.update("UPDATE system_configs SET config_value = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE config_key = ?", configValue, configKey);
     }
 
     public void update(String configKey, String configValue, String description) {
-        jdbcTemplate.update("UPDATE system_configs SET config_value = ?, description = ?, updated_at = datetime('now', 'localtime') WHERE config_key = ?", configValue, description, configKey);
+        jdbcTemplate.update("UPDATE system_configs SET config_value = ?, description = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE config_key = ?", configValue, description, configKey);
     }
 
     public void delete(String configKey) {
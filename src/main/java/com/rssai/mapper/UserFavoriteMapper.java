@@ -1,7 +1,7 @@
 package com.rssai.mapper;
 
 import com.rssai.config.TimezoneConfig;
-import com.rssai.model.RssItem;
+import com.rssai.dialect.SqlDialect;
 import com.rssai.model.UserFavorite;
 import com.rssai.util.DateTimeUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -14,10 +14,12 @@ import java.util.List;
 public class UserFavoriteMapper {
     private final JdbcTemplate jdbcTemplate;
     private final TimezoneConfig timezoneConfig;
+    private final SqlDialect sqlDialect;
 
-    public UserFavoriteMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig) {
+    public UserFavoriteMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig, SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
         this.timezoneConfig = timezoneConfig;
+        this.sqlDialect = sqlDialect;
     }
 
     private final RowMapper<UserFavorite> rowMapper = (rs, rowNum) -> {
@@ -29,37 +31,12 @@ public class UserFavoriteMapper {
         return favorite;
     };
 
-    private final RowMapper<UserFavorite> rowMapperWithRssItem = (rs, rowNum) -> {
-        UserFavorite favorite = new UserFavorite();
-        favorite.setId(rs.getLong("f_id"));
-        favorite.setUserId(rs.getLong("user_id"));
-        favorite.setRssItemId(rs.getLong("rss_item_id"));
-        favorite.setCreatedAt(DateTimeUtils.parseDateTime(rs.getString("f_created_at")));
-
-        // 构建RssItem对象
-        RssItem item = new RssItem();
-        item.setId(rs.getLong("id"));
-        item.setSourceId(rs.getLong("source_id"));
-        item.setTitle(rs.getString("title"));
-        item.setLink(rs.getString("link"));
-        item.setDescription(rs.getString("description"));
-        item.setContent(rs.getString("content"));
-        item.setPubDate(DateTimeUtils.parseDateTime(rs.getString("pub_date")));
-        item.setAiFiltered(rs.getBoolean("ai_filtered"));
-        item.setAiReason(rs.getString("ai_reason"));
-        item.setCreatedAt(DateTimeUtils.parseDateTime(rs.getString("created_at")));
-        item.setSourceName(rs.getString("source_name"));
-
-        favorite.setRssItem(item);
-        return favorite;
-    };
-
     /**
      * 添加收藏
      */
     public int insert(Long userId, Long rssItemId) {
         return jdbcTemplate.update(
-                "INSERT OR IGNORE INTO user_favorites (user_id, rss_item_id) VALUES (?, ?)",
+                sqlDialect.insertIgnore("user_favorites", "user_id, rss_item_id", "?, ?"),
                 userId, rssItemId);
     }
 
@@ -87,15 +64,25 @@ public class UserFavoriteMapper {
      */
     public List<UserFavorite> findByUserIdWithPagination(Long userId, int page, int pageSize) {
         int offset = (page - 1) * pageSize;
+        RssItemListRowMapper itemRowMapper = new RssItemListRowMapper();
         return jdbcTemplate.query(
                 "SELECT uf.id as f_id, uf.user_id, uf.rss_item_id, uf.created_at as f_created_at, " +
-                        "ri.*, rs.name as source_name " +
+                        RssItemListRowMapper.COLUMNS + " " +
                         "FROM user_favorites uf " +
                         "JOIN rss_items ri ON uf.rss_item_id = ri.id " +
                         "JOIN rss_sources rs ON ri.source_id = rs.id " +
                         "WHERE uf.user_id = ? " +
                         "ORDER BY uf.created_at DESC LIMIT ? OFFSET ?",
-                rowMapperWithRssItem, userId, pageSize, offset);
+                (rs, rowNum) -> {
+                    UserFavorite favorite = new UserFavorite();
+                    favorite.setId(rs.getLong("f_id"));
+                    favorite.setUserId(rs.getLong("user_id"));
+                    favorite.setRssItemId(rs.getLong("rss_item_id"));
+                    favorite.setCreatedAt(DateTimeUtils.parseDateTime(rs.getString("f_created_at")));
+                    favorite.setRssItem(itemRowMapper.mapRow(rs, rowNum));
+                    return favorite;
+                },
+                userId, pageSize, offset);
     }
 
     /**
@@ -1,6 +1,7 @@
 package com.rssai.mapper;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import com.rssai.dialect.SqlDialect;
 import com.rssai.model.User;
 import com.rssai.util.DateTimeUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -16,6 +17,7 @@ import java.util.Map;
 public class UserMapper {
     private final JdbcTemplate jdbcTemplate;
     private final Cache<String, User> userCache;
+    private final SqlDialect sqlDialect;
 
     private final RowMapper<User> rowMapper = (rs, rowNum) -> {
         User user = new User();
@@ -35,9 +37,10 @@ public class UserMapper {
         return user;
     };
     
-    public UserMapper(JdbcTemplate jdbcTemplate, Cache<String, User> userCache) {
+    public UserMapper(JdbcTemplate jdbcTemplate, Cache<String, User> userCache, SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
         this.userCache = userCache;
+        this.sqlDialect = sqlDialect;
     }
 
     public User findByUsername(String username) {
@@ -77,35 +80,35 @@ public class UserMapper {
     }
 
     public void insert(User user) {
-        jdbcTemplate.update("INSERT INTO users (username, password, email, email_subscription_enabled, created_at, updated_at) VALUES (?, ?, ?, ?, datetime('now', 'localtime'), datetime('now', 'localtime'))",
+        jdbcTemplate.update("INSERT INTO users (username, password, email, email_subscription_enabled, created_at, updated_at) VALUES (?, ?, ?, ?, " + sqlDialect.now(SqlDialect.LOCALTIME) + ", " + sqlDialect.now(SqlDialect.LOCALTIME) + ")",
                 user.getUsername(), user.getPassword(), user.getEmail(), user.getEmailSubscriptionEnabled() != null ? user.getEmailSubscriptionEnabled() : false);
     }
 
     public void updateEmailSubscription(Long userId, Boolean enabled) {
-        jdbcTemplate.update("UPDATE users SET email_subscription_enabled = ?, updated_at = datetime('now', 'localtime') WHERE id = ?", enabled, userId);
+        jdbcTemplate.update("UPDATE users SET email_subscription_enabled = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ?", enabled, userId);
         invalidateUserCache(userId);
     }
 
     public void updateLastEmailSentAt(Long userId) {
-        jdbcTemplate.update("UPDATE users SET last_email_sent_at = datetime('now', 'localtime'), updated_at = datetime('now', 'localtime') WHERE id = ?", userId);
+        jdbcTemplate.update("UPDATE users SET last_email_sent_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + ", updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ?", userId);
         invalidateUserCache(userId);
     }
 
     public List<User> findUsersWithEmailSubscriptionEnabled() {
-        return jdbcTemplate.query("SELECT * FROM users WHERE email_subscription_enabled = 1 AND email IS NOT NULL AND email != ''", rowMapper);
+        return jdbcTemplate.query("SELECT * FROM users WHERE email_subscription_enabled = TRUE AND email IS NOT NULL AND email != ''", rowMapper);
     }
 
     public List<User> findUsersDueForDigestWithPagination(String time, int offset, int limit) {
         return jdbcTemplate.query(
                 "SELECT * FROM users " +
-                "WHERE email_subscription_enabled = 1 " +
+                "WHERE email_subscription_enabled = TRUE " +
                 "  AND email_digest_time = ? " +
                 "ORDER BY id ASC LIMIT ? OFFSET ?",
                 rowMapper, time, limit, offset);
     }
 
     public void updateEmailDigestTime(Long userId, String time) {
-        jdbcTemplate.update("UPDATE users SET email_digest_time = ?, updated_at = datetime('now', 'localtime') WHERE id = ?", time, userId);
+        jdbcTemplate.update("UPDATE users SET email_digest_time = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ?", time, userId);
         invalidateUserCache(userId);
     }
 
@@ -129,17 +132,17 @@ public class UserMapper {
     }
 
     public void updatePassword(Long userId, String password) {
-        jdbcTemplate.update("UPDATE users SET password = ?, updated_at = datetime('now', 'localtime') WHERE id = ?", password, userId);
+        jdbcTemplate.update("UPDATE users SET password = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ?", password, userId);
         invalidateUserCache(userId);
     }
 
     public void updateForcePasswordChange(Long userId, Boolean forceChange) {
-        jdbcTemplate.update("UPDATE users SET force_password_change = ?, updated_at = datetime('now', 'localtime') WHERE id = ?", forceChange, userId);
+        jdbcTemplate.update("UPDATE users SET force_password_change = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ?", forceChange, userId);
         invalidateUserCache(userId);
     }
 
     public void updateIsAdmin(Long userId, Boolean isAdmin) {
-        jdbcTemplate.update("UPDATE users SET is_admin = ?, updated_at = datetime('now', 'localtime') WHERE id = ?", isAdmin, userId);
+        jdbcTemplate.update("UPDATE users SET is_admin = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ?", isAdmin, userId);
         invalidateUserCache(userId);
     }
     
@@ -161,50 +164,51 @@ public class UserMapper {
 
     public Long countTodayRegisteredUsers() {
         return jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM users WHERE DATE(created_at) = DATE('now', 'localtime')",
+                "SELECT COUNT(*) FROM users WHERE " + sqlDialect.date("created_at") + " = " + sqlDialect.today(SqlDialect.LOCALTIME, 0),
                 Long.class);
     }
 
     public Long countYesterdayRegisteredUsers() {
         return jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM users WHERE DATE(created_at) = DATE('now', 'localtime', '-1 day')",
+                "SELECT COUNT(*) FROM users WHERE " + sqlDialect.date("created_at") + " = " + sqlDialect.today(SqlDialect.LOCALTIME, -1),
                 Long.class);
     }
 
     public Long countThisWeekRegisteredUsers() {
         return jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM users WHERE created_at >= datetime('now', 'localtime', 'weekday 0', '-7 days')",
+                "SELECT COUNT(*) FROM users WHERE created_at >= " + sqlDialect.weekStart(SqlDialect.LOCALTIME, 0),
                 Long.class);
     }
 
     public Long countLastWeekRegisteredUsers() {
         return jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM users WHERE created_at >= datetime('now', 'localtime', 'weekday 0', '-14 days') " +
-                "AND created_at < datetime('now', 'localtime', 'weekday 0', '-7 days')",
+                "SELECT COUNT(*) FROM users WHERE created_at >= " + sqlDialect.weekStart(SqlDialect.LOCALTIME, 1) + " " +
+                "AND created_at < " + sqlDialect.weekStart(SqlDialect.LOCALTIME, 0),
                 Long.class);
     }
 
     public Long countThisMonthRegisteredUsers() {
         return jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM users WHERE strftime('%Y-%m', created_at) = strftime('%Y-%m', 'now', 'localtime')",
+                "SELECT COUNT(*) FROM users WHERE " + sqlDialect.yearMonth("created_at") + " = " + sqlDialect.currentYearMonth(SqlDialect.LOCALTIME, 0),
                 Long.class);
     }
 
     public Long countLastMonthRegisteredUsers() {
         return jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM users WHERE strftime('%Y-%m', created_at) = strftime('%Y-%m', 'now', 'localtime', '-1 month')",
+                "SELECT COUNT(*) FROM users WHERE " + sqlDialect.yearMonth("created_at") + " = " + sqlDialect.currentYearMonth(SqlDialect.LOCALTIME, -1),
                 Long.class);
     }
 
     public List<Map<String, Object>> countDailyRegisteredUsers(int days) {
-        String sql = "SELECT DATE(created_at) as date, COUNT(*) as count FROM users " +
-                "WHERE DATE(created_at) >= DATE('now', 'localtime', '-" + days + " days') " +
-                "GROUP BY DATE(created_at) ORDER BY DATE(created_at)";
+        String createdDate = sqlDialect.date("created_at");
+        String sql = "SELECT " + createdDate + " as date, COUNT(*) as count FROM users " +
+                "WHERE " + createdDate + " >= " + sqlDialect.today(SqlDialect.LOCALTIME, -days) + " " +
+                "GROUP BY " + createdDate + " ORDER BY " + createdDate;
         return jdbcTemplate.queryForList(sql);
     }
 
     public void updateEmail(Long userId, String email) {
-        jdbcTemplate.update("UPDATE users SET email = ?, updated_at = datetime('now', 'localtime') WHERE id = ?",
+        jdbcTemplate.update("UPDATE users SET email = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ?",
                 email, userId);
         invalidateUserCache(userId);
     }
@@ -236,12 +240,12 @@ public class UserMapper {
     }
 
     public void updateIsBanned(Long userId, Boolean isBanned) {
-        jdbcTemplate.update("UPDATE users SET is_banned = ?, updated_at = datetime('now', 'localtime') WHERE id = ?", isBanned, userId);
+        jdbcTemplate.update("UPDATE users SET is_banned = ?, updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ?", isBanned, userId);
         invalidateUserCache(userId);
     }
 
     public void updateLastLoginAt(Long userId) {
-        jdbcTemplate.update("UPDATE users SET last_login_at = datetime('now', 'localtime'), updated_at = datetime('now', 'localtime') WHERE id = ?", userId);
+        jdbcTemplate.update("UPDATE users SET last_login_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + ", updated_at = " + sqlDialect.now(SqlDialect.LOCALTIME) + " WHERE id = ?", userId);
         invalidateUserCache(userId);
     }
 }
@@ -0,0 +1,76 @@
+package com.rssai.mapper;
+
+import com.rssai.config.TimezoneConfig;
+import com.rssai.dialect.SqlDialect;
+import com.rssai.model.UserReadState;
+import com.rssai.util.DateTimeUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 用户已读状态数据访问层
+ * 每个用户一行，位图以BLOB形式存储
+ */
+@Repository
+public class UserReadStateMapper {
+    private final JdbcTemplate jdbcTemplate;
+    private final TimezoneConfig timezoneConfig;
+    private final SqlDialect sqlDialect;
+
+    private final RowMapper<UserReadState> rowMapper = (rs, rowNum) -> {
+        UserReadState state = new UserReadState();
+        state.setUserId(rs.getLong("user_id"));
+        state.setBitmap(rs.getBytes("bitmap"));
+        state.setVersion(rs.getLong("version"));
+        state.setUpdatedAt(DateTimeUtils.parseDateTime(rs.getString("updated_at")));
+        return state;
+    };
+
+    public UserReadStateMapper(JdbcTemplate jdbcTemplate, TimezoneConfig timezoneConfig, SqlDialect sqlDialect) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timezoneConfig = timezoneConfig;
+        this.sqlDialect = sqlDialect;
+    }
+
+    public UserReadState findByUserId(Long userId) {
+        List<UserReadState> states = jdbcTemplate.query(
+                "SELECT * FROM user_read_states WHERE user_id = ?", rowMapper, userId);
+        return states.isEmpty() ? null : states.get(0);
+    }
+
+    /**
+     * 写入或覆盖用户的已读位图
+     */
+    public void upsert(Long userId, byte[] bitmap, long version) {
+        String timeClause = sqlDialect.now(timezoneConfig.getTimezoneModifier());
+        jdbcTemplate.update(
+                "INSERT INTO user_read_states (user_id, bitmap, version, updated_at) VALUES (?, ?, ?, " + timeClause + ") " +
+                "ON CONFLICT(user_id) DO UPDATE SET bitmap = excluded.bitmap, version = excluded.version, updated_at = excluded.updated_at",
+                userId, bitmap, version);
+    }
+
+    /**
+     * 读取旧版 user_read_items 表中的已读记录，用于首次迁移
+     */
+    public List<Long> findLegacyReadItemIds(Long userId) {
+        return jdbcTemplate.queryForList(
+                "SELECT rss_item_id FROM user_read_items WHERE user_id = ?",
+                Long.class, userId);
+    }
+
+    /**
+     * 删除旧版已读表中指向已删除条目的记录
+     */
+    public void deleteLegacyByRssItemIds(List<Long> rssItemIds) {
+        if (rssItemIds == null || rssItemIds.isEmpty()) {
+            return;
+        }
+        String placeholders = String.join(",", Collections.nCopies(rssItemIds.size(), "?"));
+        jdbcTemplate.update("DELETE FROM user_read_items WHERE rss_item_id IN (" + placeholders + ")",
+                rssItemIds.toArray());
+    }
+}
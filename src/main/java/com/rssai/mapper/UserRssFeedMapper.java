@@ -1,5 +1,6 @@
 package com.rssai.mapper;
 
+import com.rssai.dialect.SqlDialect;
 import com.rssai.model.UserRssFeed;
 import com.rssai.util.DateTimeUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -13,6 +14,7 @@ import java.util.List;
 @Repository
 public class UserRssFeedMapper {
     private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
 
     private final RowMapper<UserRssFeed> rowMapper = (rs, rowNum) -> {
         UserRssFeed feed = new UserRssFeed();
@@ -23,8 +25,9 @@ public class UserRssFeedMapper {
         return feed;
     };
 
-    public UserRssFeedMapper(JdbcTemplate jdbcTemplate) {
+    public UserRssFeedMapper(JdbcTemplate jdbcTemplate, SqlDialect sqlDialect) {
         this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
     }
 
     public UserRssFeed findByUserId(Long userId) {
@@ -38,7 +41,7 @@ public class UserRssFeedMapper {
     }
 
     public void insert(UserRssFeed feed) {
-        jdbcTemplate.update("INSERT INTO user_rss_feeds (user_id, feed_token, created_at) VALUES (?, ?, datetime('now', 'localtime'))",
+        jdbcTemplate.update("INSERT INTO user_rss_feeds (user_id, feed_token, created_at) VALUES (?, ?, " + sqlDialect.now(SqlDialect.LOCALTIME) + ")",
                 feed.getUserId(), feed.getFeedToken());
     }
 }
@@ -19,10 +19,23 @@ public class AiConfig {
     private Integer connectTimeout;
     private Integer readTimeout;
     private Integer writeTimeout;
+    /**
+     * 批量筛选的输出token上限（max_tokens），null = 默认值
+     */
     private Integer maxTokensBatch;
+    /**
+     * 批量筛选每批的输入token预算，按模型的上下文和限流调整，null = 默认值
+     */
+    private Integer maxInputTokensBatch;
     private Integer maxTokensSingle;
     private Integer maxTokensSummary;
     
+    /**
+     * 同一AI服务（baseUrl + 模型）同时进行的批量筛选请求数
+     * null = 使用管理员设置的默认值
+     */
+    private Integer maxConcurrency;
+    
     /**
      * 是否为思考模型（推理模型）
      * 使用 Integer 存储以兼容各种数据库：
@@ -32,6 +45,23 @@ public class AiConfig {
      */
     private Integer isReasoningModel;
     
+    /**
+     * 批量筛选是否使用流式响应（SSE），逐条应用结果
+     * null / 0 = 否，1 = 是
+     */
+    private Integer useStream;
+    
+    /**
+     * 是否启用本地预筛：根据以往的筛选结果在本地判断把握较大的文章，其余的交给AI
+     * null / 0 = 否，1 = 是
+     */
+    private Integer prefilterEnabled;
+    
+    /**
+     * 筛选偏好或模型最近一次修改的时间（毫秒），本地预筛只使用此后的筛选结果训练
+     */
+    private Long promptUpdatedAt;
+    
     /**
      * AI服务状态
      * 0 = 正常
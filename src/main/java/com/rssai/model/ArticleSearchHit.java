@@ -0,0 +1,28 @@
+package com.rssai.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文章全文搜索结果
+ */
+@Data
+public class ArticleSearchHit {
+    private Long id;
+    private String title;
+    private String link;
+    private String sourceName;
+    private LocalDateTime pubDate;
+
+    /**
+     * 相关度得分（bm25，越小越相关），降级为 LIKE 匹配时为0
+     */
+    private Double score;
+
+    /**
+     * 已转义并用 &lt;mark&gt; 标记命中词的标题和正文片段
+     */
+    private String titleHighlight;
+    private String snippet;
+}
@@ -1,6 +1,10 @@
 package com.rssai.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.rssai.util.TextCompressionUtils;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -16,4 +20,25 @@ public class FilterLog {
     private String aiRawResponse;
     private String sourceName;
     private LocalDateTime createdAt;
+
+    /**
+     * 压缩存储的AI原始响应，首次调用 getAiRawResponse 时才解压
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient byte[] compressedAiRawResponse;
+
+    public String getAiRawResponse() {
+        if (aiRawResponse == null && compressedAiRawResponse != null) {
+            aiRawResponse = TextCompressionUtils.decompress(compressedAiRawResponse);
+            compressedAiRawResponse = null;
+        }
+        return aiRawResponse;
+    }
+
+    public void setAiRawResponse(String aiRawResponse) {
+        this.aiRawResponse = aiRawResponse;
+        this.compressedAiRawResponse = null;
+    }
 }
@@ -1,6 +1,10 @@
 package com.rssai.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.rssai.util.TextCompressionUtils;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
 
@@ -24,7 +28,10 @@ public class RssItem {
      */
     private Boolean needsRetry;
     
-    // 临时字段，用于前端显示
+    /**
+     * 入库时从摘要和正文中提取的纯文本摘要和封面图，列表页和输出的RSS直接读取
+     */
+    private String excerpt;
     private String imageUrl;
     
     // 源名称，用于前端显示
@@ -35,4 +42,43 @@ public class RssItem {
 
     // 源是否特别关注，用于前端显示
     private Boolean sourceSpecialAttention;
+
+    /**
+     * 压缩存储的摘要和正文，首次调用对应的 getter 时才解压
+     */
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient byte[] compressedDescription;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private transient byte[] compressedContent;
+
+    public String getDescription() {
+        if (description == null && compressedDescription != null) {
+            description = TextCompressionUtils.decompress(compressedDescription);
+            compressedDescription = null;
+        }
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+        this.compressedDescription = null;
+    }
+
+    public String getContent() {
+        if (content == null && compressedContent != null) {
+            content = TextCompressionUtils.decompress(compressedContent);
+            compressedContent = null;
+        }
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+        this.compressedContent = null;
+    }
 }
@@ -1,5 +1,6 @@
 package com.rssai.model;
 
+import com.rssai.dto.RssItemListDTO;
 import lombok.Data;
 
 import java.time.LocalDateTime;
@@ -12,5 +13,5 @@ public class UserFavorite {
     private LocalDateTime createdAt;
     
     // 关联的RSS文章信息（用于前端显示）
-    private RssItem rssItem;
+    private RssItemListDTO rssItem;
 }
@@ -0,0 +1,26 @@
+package com.rssai.model;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户已读状态
+ * 以压缩位图（Roaring Bitmap）的序列化字节保存用户所有已读条目ID
+ */
+@Data
+public class UserReadState {
+    private Long userId;
+
+    /**
+     * 序列化后的位图
+     */
+    private byte[] bitmap;
+
+    /**
+     * 状态版本号，每次标记新的已读条目时递增
+     */
+    private Long version;
+
+    private LocalDateTime updatedAt;
+}
@@ -6,17 +6,30 @@ import com.rssai.constant.AiConstants;
 import com.rssai.constant.RssConstants;
 import com.rssai.model.AiConfig;
 import com.rssai.service.ai.AiClient;
+import com.rssai.service.ai.AiConcurrencyLimiter;
+import com.rssai.service.ai.AiRateLimiter;
 import com.rssai.service.ai.AiResponseParser;
+import com.rssai.service.ai.AiVerdictCache;
 import com.rssai.util.RetryUtils;
 import com.rssai.util.TextUtils;
+import com.rssai.util.TokenEstimator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 /**
  * AI服务
@@ -30,13 +43,42 @@ import java.util.Map;
 public class AiService {
     private static final Logger logger = LoggerFactory.getLogger(AiService.class);
     
+    private static final String RESULT_UNAVAILABLE = "未通过 - AI服务不可用";
+    private static final String RESULT_PARSE_FAILED = "未通过 - 解析失败";
+    
+    /**
+     * 批量筛选的固定指令（系统消息中的规则和用户消息的开头）估算的token数
+     */
+    private static final int BATCH_INSTRUCTION_TOKENS = 150;
+    
     private final AiClient aiClient;
     private final AiResponseParser responseParser;
+    private final AiConcurrencyLimiter concurrencyLimiter;
+    private final AiRateLimiter rateLimiter;
+    private final SystemConfigService systemConfigService;
+    private final Executor dispatchExecutor;
+    private final AiVerdictCache verdictCache;
+    private final AsyncRetryService asyncRetryService;
     private final Gson gson = new Gson();
     
-    public AiService(AiClient aiClient, AiResponseParser responseParser) {
+    /**
+     * 用户ID -> 编译好的筛选系统消息，筛选偏好修改后重新生成
+     */
+    private final Map<Long, SystemMessages> systemMessages = new ConcurrentHashMap<>();
+    
+    public AiService(AiClient aiClient, AiResponseParser responseParser,
+                     AiConcurrencyLimiter concurrencyLimiter, AiRateLimiter rateLimiter,
+                     SystemConfigService systemConfigService,
+                     @Qualifier("aiDispatchExecutor") Executor dispatchExecutor, AiVerdictCache verdictCache,
+                     AsyncRetryService asyncRetryService) {
         this.aiClient = aiClient;
         this.responseParser = responseParser;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.rateLimiter = rateLimiter;
+        this.systemConfigService = systemConfigService;
+        this.dispatchExecutor = dispatchExecutor;
+        this.verdictCache = verdictCache;
+        this.asyncRetryService = asyncRetryService;
     }
     
     /**
@@ -55,7 +97,7 @@ public class AiService {
             () -> doFilterRssItem(config, title, description),
             RssConstants.MAX_RETRY_ATTEMPTS,
             "AI筛选",
-            "未通过 - AI服务不可用"
+            RESULT_UNAVAILABLE
         );
     }
     
@@ -64,24 +106,7 @@ public class AiService {
      */
     private String doFilterRssItem(AiConfig config, String title, String description) {
         try {
-            String cleanTitle = TextUtils.prepareTitle(title);
-            String cleanDescription = TextUtils.prepareDescription(description);
-            
-            String prompt = String.format(
-                "标题: %s\n内容: %s\n\n判断是否符合偏好，仅回复：YES-原因 或 NO-原因（原因限10字内）", 
-                cleanTitle, cleanDescription
-            );
-            
-            JsonObject[] messages = buildFilterMessages(config, prompt, false);
-            
-            int maxTokens = config.getMaxTokensSingle() != null ? 
-                config.getMaxTokensSingle() : AiConstants.DEFAULT_MAX_TOKENS_SINGLE;
-            
-            String responseBody = aiClient.sendChatRequest(
-                config, messages, maxTokens, AiConstants.FILTER_TEMPERATURE
-            );
-            
-            String content = responseParser.parseResponseContent(responseBody, config.getModel());
+            String content = requestSingleFilter(config, TextUtils.prepareTitle(title), TextUtils.prepareDescription(description));
             AiResponseParser.FilterResult result = responseParser.parseSingleFilterResponse(content);
             
             return result.getFormattedResult();
@@ -92,6 +117,26 @@ public class AiService {
         }
     }
     
+    /**
+     * 发送单条筛选请求，标题和内容需已清理
+     * @return AI回复的正文
+     */
+    private String requestSingleFilter(AiConfig config, String cleanTitle, String cleanDescription) throws IOException {
+        String prompt = "标题: " + cleanTitle + "\n内容: " + cleanDescription
+            + "\n\n判断是否符合偏好，仅回复：YES-原因 或 NO-原因（原因限10字内）";
+        
+        JsonObject[] messages = buildFilterMessages(config, prompt, false);
+        
+        int maxTokens = config.getMaxTokensSingle() != null ? 
+            config.getMaxTokensSingle() : AiConstants.DEFAULT_MAX_TOKENS_SINGLE;
+        
+        String responseBody = aiClient.sendChatRequest(
+            config, messages, maxTokens, AiConstants.FILTER_TEMPERATURE
+        );
+        
+        return responseParser.parseResponseContent(responseBody, config.getModel());
+    }
+    
     /**
      * 批量筛选RSS条目
      */
@@ -104,8 +149,19 @@ public class AiService {
      * 批量筛选RSS条目（带原始响应）
      */
     public BatchFilterResult filterRssItemsBatchWithRawResponse(AiConfig config, List<RssItemData> items, String sourceName) {
+        return filterRssItemsBatchWithRawResponse(config, items, sourceName, null);
+    }
+
+    /**
+     * 批量筛选RSS条目（带原始响应），缓存命中和流式响应中解析出的结果会立即交给 listener，
+     * 返回值仍包含全部结果
+     * @param listener 可为 null；可能在分发线程中并发调用
+     */
+    public BatchFilterResult filterRssItemsBatchWithRawResponse(AiConfig config, List<RssItemData> items, String sourceName,
+                                                                VerdictListener listener) {
         Map<Integer, String> results = new HashMap<>();
         Map<Integer, String> rawResponses = new HashMap<>();
+        Set<Integer> cachedIndexes = new HashSet<>();
         
         if (items == null || items.isEmpty()) {
             return new BatchFilterResult(results, rawResponses);
@@ -116,33 +172,234 @@ public class AiService {
         logger.info("共{}条内容", items.size());
         logger.info("========================================");
         
-        // 分批处理
-        for (int i = 0; i < items.size(); i += RssConstants.DEFAULT_BATCH_SIZE) {
-            int end = Math.min(i + RssConstants.DEFAULT_BATCH_SIZE, items.size());
-            List<RssItemData> batch = items.subList(i, end);
-            
-            logger.info("处理第{}-{}条", i + 1, end);
-
-            int finalI = i;
-            BatchFilterResult batchResults = RetryUtils.executeWithRetry(
-                () -> executeBatchFilter(config, batch, finalI, sourceName, true),
-                RssConstants.MAX_RETRY_ATTEMPTS,
-                "批量筛选",
-                createFailedBatchResult(batch, i)
-            );
-            
-            results.putAll(batchResults.getFilterResults());
-            rawResponses.putAll(batchResults.getRawResponses());
+        // 清理并截断标题和内容，估算每条的输入token，后续的缓存键、分批和提示词都使用同样的文本
+        List<RssItemData> prepared = new ArrayList<>(items.size());
+        List<Integer> tokens = new ArrayList<>(items.size());
+        for (RssItemData item : items) {
+            RssItemData preparedItem = prepareBatchItem(item);
+            prepared.add(preparedItem);
+            tokens.add(TokenEstimator.estimate(preparedItem.getTitle()) + TokenEstimator.estimate(preparedItem.getDescription())
+                    + AiConstants.BATCH_ITEM_OVERHEAD_TOKENS);
+        }
+        
+        // 先查筛选结果缓存，只把未命中的条目发送给AI
+        List<RssItemData> pending = prepared;
+        List<Integer> pendingTokens = tokens;
+        List<Integer> pendingIndexes = null;
+        List<String> pendingKeys = null;
+        if (verdictCache.isEnabled()) {
+            List<String> keys = new ArrayList<>(prepared.size());
+            for (RssItemData item : prepared) {
+                keys.add(verdictCache.keyOf(config, item.getTitle(), item.getDescription()));
+            }
+            Map<String, AiVerdictCache.Verdict> cached = verdictCache.lookup(keys);
+            pending = new ArrayList<>();
+            pendingTokens = new ArrayList<>();
+            pendingIndexes = new ArrayList<>();
+            pendingKeys = new ArrayList<>();
+            long tokensSaved = 0;
+            for (int i = 0; i < prepared.size(); i++) {
+                AiVerdictCache.Verdict verdict = cached.get(keys.get(i));
+                if (verdict != null) {
+                    results.put(i, verdict.getVerdict());
+                    rawResponses.put(i, verdict.getRawResponse());
+                    cachedIndexes.add(i);
+                    tokensSaved += tokens.get(i) + AiConstants.BATCH_VERDICT_OUTPUT_TOKENS;
+                    if (listener != null) {
+                        listener.onVerdict(i, verdict.getVerdict(), verdict.getRawResponse());
+                    }
+                } else {
+                    pending.add(prepared.get(i));
+                    pendingTokens.add(tokens.get(i));
+                    pendingIndexes.add(i);
+                    pendingKeys.add(keys.get(i));
+                }
+            }
+            verdictCache.recordTokensSaved(tokensSaved);
+            if (!results.isEmpty()) {
+                logger.info("筛选结果缓存命中{}条，需请求AI{}条", results.size(), pending.size());
+            }
         }
         
+        List<Integer> indexes = pendingIndexes;
+        VerdictListener pendingListener = listener == null ? null :
+            (i, filterResult, rawResponse) -> listener.onVerdict(indexes != null ? indexes.get(i) : i, filterResult, rawResponse);
+        BatchFilterResult dispatched = dispatchBatches(config, pending, pendingTokens, pendingListener);
+        Map<String, AiVerdictCache.Verdict> toCache = new HashMap<>();
+        for (int i = 0; i < pending.size(); i++) {
+            int index = pendingIndexes != null ? pendingIndexes.get(i) : i;
+            String filterResult = dispatched.getFilterResults().get(i);
+            String rawResponse = dispatched.getRawResponses().get(i);
+            results.put(index, filterResult);
+            rawResponses.put(index, rawResponse);
+            if (pendingKeys != null && filterResult != null
+                    && !RESULT_UNAVAILABLE.equals(filterResult) && !RESULT_PARSE_FAILED.equals(filterResult)) {
+                toCache.put(pendingKeys.get(i), new AiVerdictCache.Verdict(filterResult, rawResponse));
+            }
+        }
+        verdictCache.store(toCache);
+        
         logger.info("========================================");
         logger.info("批量筛选完成 RSS源: {}", sourceName);
         logger.info("成功处理{}条", results.size());
         logger.info("========================================");
         
+        return new BatchFilterResult(results, rawResponses, cachedIndexes);
+    }
+    
+    /**
+     * 分批并发请求AI，同一服务的在途请求数由 AiConcurrencyLimiter 限制
+     * 调用线程（RSS抓取线程）在这里等待所有批次完成，包括各批次的重试等待；
+     * 分发线程和重试调度线程不会因此被占用
+     * @param items 已清理截断的条目
+     * @param tokens 每条估算的输入token数
+     * @param listener 按 items 中的序号回调，可为 null
+     * @return 按 items 中的序号索引的结果
+     */
+    private BatchFilterResult dispatchBatches(AiConfig config, List<RssItemData> items, List<Integer> tokens,
+                                              VerdictListener listener) {
+        Map<Integer, String> results = new HashMap<>();
+        Map<Integer, String> rawResponses = new HashMap<>();
+        if (items.isEmpty()) {
+            return new BatchFilterResult(results, rawResponses);
+        }
+        
+        List<int[]> ranges = packBatches(config, tokens);
+        logger.info("共{}条分为{}批", items.size(), ranges.size());
+        int maxConcurrency = resolveMaxConcurrency(config);
+        int requestTokens = TokenEstimator.estimate(config.getSystemPrompt()) + BATCH_INSTRUCTION_TOKENS
+            + resolveMaxTokensBatch(config);
+        List<CompletableFuture<BatchFilterResult>> futures = new ArrayList<>(ranges.size());
+        for (int[] range : ranges) {
+            int batchTokens = requestTokens;
+            for (int i = range[0]; i < range[1]; i++) {
+                batchTokens += tokens.get(i);
+            }
+            futures.add(filterBatchWithRetry(config, items.subList(range[0], range[1]), range[0], range[1],
+                    maxConcurrency, batchTokens, listener));
+        }
+        
+        for (int i = 0; i < futures.size(); i++) {
+            int[] range = ranges.get(i);
+            BatchFilterResult batchResults;
+            try {
+                batchResults = futures.get(i).join();
+            } catch (Exception e) {
+                logger.error("批量筛选第{}-{}条的批次执行异常", range[0] + 1, range[1], e);
+                batchResults = createFailedBatchResult(items.subList(range[0], range[1]), range[0]);
+            }
+            results.putAll(batchResults.getFilterResults());
+            rawResponses.putAll(batchResults.getRawResponses());
+        }
+        
         return new BatchFilterResult(results, rawResponses);
     }
     
+    /**
+     * 按token预算把连续的条目装入批次：输入不超过模型的批量输入预算（扣除系统提示词），
+     * 每条预留的回复不超过 max_tokens 的可用部分，条数不超过 MAX_BATCH_SIZE
+     * @return 每批的 [起始序号, 结束序号)
+     */
+    List<int[]> packBatches(AiConfig config, List<Integer> tokens) {
+        int inputBudget = config.getMaxInputTokensBatch() != null && config.getMaxInputTokensBatch() > 0 ?
+            config.getMaxInputTokensBatch() : AiConstants.DEFAULT_MAX_INPUT_TOKENS_BATCH;
+        inputBudget -= TokenEstimator.estimate(config.getSystemPrompt()) + BATCH_INSTRUCTION_TOKENS;
+        
+        int maxTokens = resolveMaxTokensBatch(config);
+        double outputRatio = aiClient.isThinkingModel(config) ?
+            AiConstants.REASONING_OUTPUT_BUDGET_RATIO : AiConstants.BATCH_OUTPUT_BUDGET_RATIO;
+        int maxItems = (int) (maxTokens * outputRatio) / AiConstants.BATCH_VERDICT_OUTPUT_TOKENS;
+        maxItems = Math.max(1, Math.min(maxItems, RssConstants.MAX_BATCH_SIZE));
+        
+        List<int[]> ranges = new ArrayList<>();
+        int start = 0;
+        int used = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            int itemTokens = tokens.get(i);
+            boolean full = i - start >= maxItems || used + itemTokens > inputBudget;
+            if (i > start && full) {
+                ranges.add(new int[]{start, i});
+                start = i;
+                used = 0;
+            }
+            used += itemTokens;
+        }
+        ranges.add(new int[]{start, tokens.size()});
+        return ranges;
+    }
+    
+    /**
+     * 清理标题和内容，内容按单条输入token上限截断
+     */
+    private static RssItemData prepareBatchItem(RssItemData item) {
+        String title = TextUtils.prepareTitle(item.getTitle());
+        String description = TextUtils.cleanHtmlAndTruncate(item.getDescription(), RssConstants.MAX_DESCRIPTION_LENGTH);
+        int descriptionBudget = AiConstants.MAX_ITEM_INPUT_TOKENS_BATCH - TokenEstimator.estimate(title);
+        return new RssItemData(title, TokenEstimator.truncate(description, Math.max(descriptionBudget, 0)));
+    }
+    
+    /**
+     * 带重试地筛选一个批次，每次尝试先扣除速率限制额度，再取得该服务的并发名额，最后提交到分发线程池；
+     * 额度不足时由重试服务推迟提交，排队等待额度、名额和重试等待期间都不占用分发线程和并发名额
+     * 流式模式下已收到的结果在重试时保留，只重新请求剩余的条目；重试用尽时已收到的结果仍然有效
+     */
+    private CompletableFuture<BatchFilterResult> filterBatchWithRetry(AiConfig config, List<RssItemData> batch,
+                                                                      int startIndex, int end, int maxConcurrency,
+                                                                      int batchTokens, VerdictListener listener) {
+        logger.info("处理第{}-{}条", startIndex + 1, end);
+        Executor limitedExecutor = rateLimiter.executor(config, batchTokens,
+            concurrencyLimiter.executor(config, maxConcurrency, dispatchExecutor));
+        if (!isStreamEnabled(config)) {
+            return asyncRetryService.executeWithRetry(
+                () -> recoverMissingItems(config, batch, startIndex, executeBatchFilter(config, batch, startIndex, true)),
+                limitedExecutor,
+                RssConstants.MAX_RETRY_ATTEMPTS,
+                "批量筛选",
+                createFailedBatchResult(batch, startIndex)
+            );
+        }
+        
+        Map<Integer, String[]> received = new ConcurrentHashMap<>();
+        return asyncRetryService.executeWithRetry(
+            () -> executeStreamingBatchFilter(config, batch, startIndex, received, listener),
+            limitedExecutor,
+            RssConstants.MAX_RETRY_ATTEMPTS,
+            "流式批量筛选",
+            createFailedBatchResult(batch, startIndex)
+        ).thenApply(result -> {
+            for (Map.Entry<Integer, String[]> entry : received.entrySet()) {
+                result.getFilterResults().put(startIndex + entry.getKey(), entry.getValue()[0]);
+                result.getRawResponses().put(startIndex + entry.getKey(), entry.getValue()[1]);
+            }
+            return result;
+        });
+    }
+    
+    private static boolean isStreamEnabled(AiConfig config) {
+        return config.getUseStream() != null && config.getUseStream() == 1;
+    }
+    
+    private static int resolveMaxTokensBatch(AiConfig config) {
+        return config.getMaxTokensBatch() != null && config.getMaxTokensBatch() > 0 ?
+            config.getMaxTokensBatch() : AiConstants.DEFAULT_MAX_TOKENS_BATCH;
+    }
+    
+    /**
+     * 同一服务的最大并发批次数：用户配置优先，其次为管理员设置的默认值
+     */
+    int resolveMaxConcurrency(AiConfig config) {
+        Integer configured = config.getMaxConcurrency();
+        if (configured == null || configured < 1) {
+            try {
+                configured = Integer.valueOf(systemConfigService.getConfigValue(
+                        AiConstants.MAX_CONCURRENCY_CONFIG_KEY, String.valueOf(AiConstants.DEFAULT_MAX_CONCURRENCY)).trim());
+            } catch (NumberFormatException e) {
+                configured = AiConstants.DEFAULT_MAX_CONCURRENCY;
+            }
+        }
+        return Math.max(1, Math.min(configured, AiConstants.MAX_CONCURRENCY_LIMIT));
+    }
+    
     /**
      * 创建失败批次的默认结果
      */
@@ -151,7 +408,7 @@ public class AiService {
         Map<Integer, String> rawResponses = new HashMap<>();
         
         for (int j = 0; j < batch.size(); j++) {
-            results.put(startIndex + j, "未通过 - AI服务不可用");
+            results.put(startIndex + j, RESULT_UNAVAILABLE);
             rawResponses.put(startIndex + j, "AI服务不可用");
         }
         
@@ -165,7 +422,6 @@ public class AiService {
             AiConfig config, 
             List<RssItemData> items, 
             int startIndex, 
-            String sourceName, 
             boolean includeRawResponse) {
         
         try {
@@ -174,11 +430,8 @@ public class AiService {
             String prompt = buildBatchPrompt(items);
             JsonObject[] messages = buildFilterMessages(config, prompt, true);
             
-            int maxTokens = config.getMaxTokensBatch() != null ? 
-                config.getMaxTokensBatch() : AiConstants.DEFAULT_MAX_TOKENS_BATCH;
-            
             String responseBody = aiClient.sendChatRequest(
-                config, messages, maxTokens, AiConstants.FILTER_TEMPERATURE
+                config, messages, resolveMaxTokensBatch(config), AiConstants.FILTER_TEMPERATURE
             );
             
             String content = responseParser.parseResponseContent(responseBody, config.getModel());
@@ -195,7 +448,7 @@ public class AiService {
                 RssItemData item = items.get(i);
                 
                 AiResponseParser.FilterResult result = parsedResults.get(index);
-                String filterResult = result != null ? result.getFormattedResult() : "未通过 - 解析失败";
+                String filterResult = result != null ? result.getFormattedResult() : RESULT_PARSE_FAILED;
                 filterResults.put(index, filterResult);
                 
                 if (includeRawResponse && rawResponses != null) {
@@ -215,19 +468,169 @@ public class AiService {
     }
     
     /**
-     * 构建批量筛选的提示词
+     * 补充请求批量响应中缺失或无法解析的条目：多条时组成更小的批次，只剩一条时使用单条筛选，
+     * 最多 MAX_FOLLOW_UP_ROUNDS 轮；补充请求失败时保留已有结果，不触发整批重试
+     */
+    private BatchFilterResult recoverMissingItems(AiConfig config, List<RssItemData> batch, int startIndex,
+                                                  BatchFilterResult result) {
+        for (int round = 1; round <= AiConstants.MAX_FOLLOW_UP_ROUNDS; round++) {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (RESULT_PARSE_FAILED.equals(result.getFilterResults().get(startIndex + i))) {
+                    missing.add(i);
+                }
+            }
+            if (missing.isEmpty()) {
+                break;
+            }
+            logger.info("第{}-{}条中有{}条未解析出结果，第{}轮补充请求",
+                    startIndex + 1, startIndex + batch.size(), missing.size(), round);
+            
+            try {
+                if (missing.size() == 1) {
+                    int offset = missing.get(0);
+                    RssItemData item = batch.get(offset);
+                    String content = requestSingleFilter(config, item.getTitle(), item.getDescription());
+                    AiResponseParser.FilterResult parsed = responseParser.tryParseSingleFilterResponse(content);
+                    if (parsed != null) {
+                        result.getFilterResults().put(startIndex + offset, parsed.getFormattedResult());
+                        result.getRawResponses().put(startIndex + offset, content.trim());
+                    }
+                } else {
+                    List<RssItemData> items = new ArrayList<>(missing.size());
+                    for (int offset : missing) {
+                        items.add(batch.get(offset));
+                    }
+                    BatchFilterResult followUp = executeBatchFilter(config, items, 0, true);
+                    for (int i = 0; i < missing.size(); i++) {
+                        String filterResult = followUp.getFilterResults().get(i);
+                        if (!RESULT_PARSE_FAILED.equals(filterResult)) {
+                            result.getFilterResults().put(startIndex + missing.get(i), filterResult);
+                            result.getRawResponses().put(startIndex + missing.get(i), followUp.getRawResponses().get(i));
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                logger.warn("补充请求失败，保留已有结果: {}", e.getMessage());
+                break;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 以流式响应执行批量筛选，每收到完整的一行结果就记录并回调 listener
+     * @param received 批次内序号 -> [筛选结果, 原始响应]，跨重试保留，已有结果的条目不再请求
+     */
+    private BatchFilterResult executeStreamingBatchFilter(
+            AiConfig config,
+            List<RssItemData> batch,
+            int startIndex,
+            Map<Integer, String[]> received,
+            VerdictListener listener) {
+        
+        // 流式响应结束后仍缺少的条目（模型跳过或格式错误）再补充请求，最多 MAX_FOLLOW_UP_ROUNDS 轮
+        for (int round = 0; round <= AiConstants.MAX_FOLLOW_UP_ROUNDS; round++) {
+            List<Integer> remaining = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                if (!received.containsKey(i)) {
+                    remaining.add(i);
+                }
+            }
+            if (remaining.isEmpty()) {
+                break;
+            }
+            if (remaining.size() < batch.size()) {
+                logger.info("第{}-{}条已收到{}条结果，重新请求剩余{}条",
+                        startIndex + 1, startIndex + batch.size(), batch.size() - remaining.size(), remaining.size());
+            }
+            
+            List<RssItemData> items = new ArrayList<>(remaining.size());
+            for (int offset : remaining) {
+                items.add(batch.get(offset));
+            }
+            JsonObject[] messages = buildFilterMessages(config, buildBatchPrompt(items), true);
+            
+            StringBuilder line = new StringBuilder();
+            StringBuilder content = new StringBuilder();
+            StringBuilder reasoning = new StringBuilder();
+            Consumer<String> onLine = text -> {
+                AiResponseParser.BatchLine batchLine = responseParser.parseBatchFilterLine(text);
+                if (batchLine == null || batchLine.getNumber() < 1 || batchLine.getNumber() > remaining.size()) {
+                    return;
+                }
+                int offset = remaining.get(batchLine.getNumber() - 1);
+                String filterResult = batchLine.getResult().getFormattedResult();
+                if (received.putIfAbsent(offset, new String[]{filterResult, batchLine.getLine()}) == null) {
+                    logger.debug("流式收到第{}条: {}", startIndex + offset + 1, filterResult);
+                    if (listener != null) {
+                        listener.onVerdict(startIndex + offset, filterResult, batchLine.getLine());
+                    }
+                }
+            };
+            
+            try {
+                aiClient.streamChatRequest(config, messages, resolveMaxTokensBatch(config), AiConstants.FILTER_TEMPERATURE,
+                    data -> {
+                        String[] delta = responseParser.parseStreamDelta(data);
+                        if (delta[0] != null) {
+                            content.append(delta[0]);
+                            for (int i = 0; i < delta[0].length(); i++) {
+                                char c = delta[0].charAt(i);
+                                if (c == '\n') {
+                                    onLine.accept(line.toString());
+                                    line.setLength(0);
+                                } else {
+                                    line.append(c);
+                                }
+                            }
+                        }
+                        if (delta[1] != null) {
+                            reasoning.append(delta[1]);
+                        }
+                    });
+            } catch (IOException e) {
+                logger.error("流式批量筛选中断，已收到{}条结果", received.size(), e);
+                throw new RuntimeException(e);
+            }
+            onLine.accept(line.toString());
+            // 与非流式响应一致：正文为空时从推理过程等字段中提取结果
+            if (content.toString().trim().isEmpty()) {
+                for (String reasoningLine : reasoning.toString().split("\n")) {
+                    onLine.accept(reasoningLine);
+                }
+            }
+        }
+        
+        Map<Integer, String> filterResults = new HashMap<>();
+        Map<Integer, String> rawResponses = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            String[] verdict = received.get(i);
+            if (verdict == null) {
+                logger.warn("流式响应中缺少第{}条的结果", startIndex + i + 1);
+            }
+            filterResults.put(startIndex + i, verdict != null ? verdict[0] : RESULT_PARSE_FAILED);
+            rawResponses.put(startIndex + i, verdict != null ? verdict[1] : "未找到响应");
+        }
+        return new BatchFilterResult(filterResults, rawResponses);
+    }
+    
+    /**
+     * 构建批量筛选的提示词，条目已由 prepareBatchItem 清理截断
      */
     private String buildBatchPrompt(List<RssItemData> items) {
-        StringBuilder prompt = new StringBuilder(
-            "请判断以下文章是否符合偏好，对每条回复格式：[序号]YES-原因 或 [序号]NO-原因\n\n"
-        );
+        String header = "请判断以下文章是否符合偏好，对每条回复格式：[序号]YES-原因 或 [序号]NO-原因\n\n";
+        int capacity = header.length();
+        for (RssItemData item : items) {
+            capacity += 16 + (item.getTitle() != null ? item.getTitle().length() : 0)
+                + (item.getDescription() != null ? item.getDescription().length() : 0);
+        }
+        StringBuilder prompt = new StringBuilder(capacity).append(header);
         
         for (int i = 0; i < items.size(); i++) {
             RssItemData item = items.get(i);
-            String cleanTitle = TextUtils.prepareTitle(item.getTitle());
-            String cleanDesc = TextUtils.prepareDescriptionForBatch(item.getDescription());
-            
-            prompt.append(String.format("[%d] 标题:%s 内容:%s\n", i + 1, cleanTitle, cleanDesc));
+            prompt.append('[').append(i + 1).append("] 标题:").append(item.getTitle())
+                  .append(" 内容:").append(item.getDescription()).append('\n');
         }
         
         return prompt.toString();
@@ -235,32 +638,70 @@ public class AiService {
     
     /**
      * 构建筛选消息数组
+     * 系统消息只由筛选偏好决定，放在第一条且不含文章内容，同一用户的请求前缀保持不变，便于服务商缓存提示词
      */
     private JsonObject[] buildFilterMessages(AiConfig config, String userPrompt, boolean isBatch) {
-        JsonObject systemMessage = new JsonObject();
-        systemMessage.addProperty("role", "system");
+        JsonObject userMessage = new JsonObject();
+        userMessage.addProperty("role", "user");
+        userMessage.addProperty("content", userPrompt);
         
-        String systemContent = "【筛选偏好说明】\n" + config.getSystemPrompt() + "\n\n【重要规则】\n";
+        return new JsonObject[]{systemMessagesOf(config).get(isBatch), userMessage};
+    }
+    
+    /**
+     * 取用户编译好的系统消息，筛选偏好与编译时不同则重新生成
+     */
+    private SystemMessages systemMessagesOf(AiConfig config) {
+        String systemPrompt = config.getSystemPrompt();
+        if (config.getUserId() == null) {
+            return new SystemMessages(systemPrompt);
+        }
+        SystemMessages cached = systemMessages.get(config.getUserId());
+        if (cached != null && cached.matches(systemPrompt)) {
+            return cached;
+        }
+        SystemMessages compiled = new SystemMessages(systemPrompt);
+        systemMessages.put(config.getUserId(), compiled);
+        return compiled;
+    }
+    
+    /**
+     * 一个筛选偏好对应的批量和单条筛选系统消息，生成后只读，可在线程间共享
+     */
+    private static class SystemMessages {
+        private final String systemPrompt;
+        private final JsonObject batch;
+        private final JsonObject single;
         
-        if (isBatch) {
-            systemContent += "1. 必须对每条文章进行判断\n" +
+        SystemMessages(String systemPrompt) {
+            this.systemPrompt = systemPrompt;
+            String prefix = "【筛选偏好说明】\n" + systemPrompt + "\n\n【重要规则】\n";
+            this.batch = message(prefix +
+                           "1. 必须对每条文章进行判断\n" +
                            "2. 回复格式严格为：[序号]YES-原因 或 [序号]NO-原因\n" +
                            "3. 原因必须简洁，不超过5个字\n" +
-                           "4. 每条占一行，不要添加其他文字";
-        } else {
-            systemContent += "1. 必须快速判断并简短回复\n" +
+                           "4. 每条占一行，不要添加其他文字");
+            this.single = message(prefix +
+                           "1. 必须快速判断并简短回复\n" +
                            "2. 格式严格为：YES-原因 或 NO-原因\n" +
                            "3. 原因不超过10个字\n" +
-                           "4. 不要添加任何其他文字或解释";
+                           "4. 不要添加任何其他文字或解释");
         }
         
-        systemMessage.addProperty("content", systemContent);
+        boolean matches(String prompt) {
+            return systemPrompt == null ? prompt == null : systemPrompt.equals(prompt);
+        }
         
-        JsonObject userMessage = new JsonObject();
-        userMessage.addProperty("role", "user");
-        userMessage.addProperty("content", userPrompt);
+        JsonObject get(boolean isBatch) {
+            return isBatch ? batch : single;
+        }
         
-        return new JsonObject[]{systemMessage, userMessage};
+        private static JsonObject message(String content) {
+            JsonObject message = new JsonObject();
+            message.addProperty("role", "system");
+            message.addProperty("content", content);
+            return message;
+        }
     }
     
     /**
@@ -341,6 +782,16 @@ public class AiService {
         return summaries;
     }
     
+    /**
+     * 批量筛选的逐条结果回调
+     */
+    public interface VerdictListener {
+        /**
+         * @param index 条目在传入列表中的序号
+         */
+        void onVerdict(int index, String filterResult, String rawResponse);
+    }
+    
     /**
      * RSS条目数据类（用于批量处理）
      */
@@ -368,10 +819,17 @@ public class AiService {
     public static class BatchFilterResult {
         private final Map<Integer, String> filterResults;
         private final Map<Integer, String> rawResponses;
+        private final Set<Integer> cachedIndexes;
         
         public BatchFilterResult(Map<Integer, String> filterResults, Map<Integer, String> rawResponses) {
+            this(filterResults, rawResponses, Collections.emptySet());
+        }
+        
+        public BatchFilterResult(Map<Integer, String> filterResults, Map<Integer, String> rawResponses,
+                                 Set<Integer> cachedIndexes) {
             this.filterResults = filterResults;
             this.rawResponses = rawResponses;
+            this.cachedIndexes = cachedIndexes;
         }
         
         public Map<Integer, String> getFilterResults() {
@@ -381,5 +839,12 @@ public class AiService {
         public Map<Integer, String> getRawResponses() {
             return rawResponses;
         }
+        
+        /**
+         * 结果来自筛选结果缓存的条目序号，这些条目本次没有请求AI，不能用来判断AI服务是否正常
+         */
+        public Set<Integer> getCachedIndexes() {
+            return cachedIndexes;
+        }
     }
 }
@@ -0,0 +1,351 @@
+package com.rssai.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rssai.constant.RssConstants;
+import com.rssai.mapper.ArticleSearchMapper;
+import com.rssai.model.ArticleSearchHit;
+import com.rssai.model.RssItem;
+import com.rssai.util.DateTimeUtils;
+import com.rssai.util.FtsQueryUtils;
+import com.rssai.util.HtmlUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 文章全文搜索服务
+ * 标题和去除HTML后的正文写入 FTS5（trigram）索引，按 bm25 排序。
+ * bm25 依赖全表的统计信息，新文章入库后已有文章的得分会变化，因此第一页查询时把用户的排序结果
+ * （最多 SEARCH_MAX_RANKED_RESULTS 条ID）保存为快照，游标记录快照编号和偏移量，后续页从快照中截取。
+ * 快照在内存中保留 SEARCH_SNAPSHOT_EXPIRE_MINUTES 分钟，过期或重启后按同一偏移量重新计算，这时结果可能与前几页有少量重复或遗漏。
+ * trigram 无法匹配少于3个字符的词，或数据库不支持全文索引时，降级为仅扫描当前用户文章的 LIKE 查询。
+ */
+@Service
+public class ArticleSearchService {
+    private static final Logger logger = LoggerFactory.getLogger(ArticleSearchService.class);
+
+    private static final String CURSOR_RANKED = "r";
+    private static final String CURSOR_LIKE = "l";
+
+    private final ArticleSearchMapper articleSearchMapper;
+
+    /**
+     * 排序结果快照：快照编号 -> 用户、查询和按相关度排好序的文章ID
+     */
+    private final Cache<String, RankedSnapshot> snapshots = Caffeine.newBuilder()
+            .maximumSize(RssConstants.SEARCH_SNAPSHOT_CACHE_SIZE)
+            .expireAfterAccess(RssConstants.SEARCH_SNAPSHOT_EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private final AtomicBoolean backfilling = new AtomicBoolean(false);
+    private volatile long backfillCursor = 0;
+
+    public ArticleSearchService(ArticleSearchMapper articleSearchMapper) {
+        this.articleSearchMapper = articleSearchMapper;
+    }
+
+    /**
+     * 为文章建立或更新索引，失败只记录日志不影响抓取流程
+     */
+    public void index(RssItem item) {
+        if (item == null || item.getId() == null) {
+            return;
+        }
+        try {
+            articleSearchMapper.index(item.getId(), item.getTitle(), extractBody(item));
+        } catch (Exception e) {
+            logger.warn("写入全文索引失败 - 条目ID: {}", item.getId(), e);
+        }
+    }
+
+    public void removeFromIndex(List<Long> ids) {
+        articleSearchMapper.deleteByIds(ids);
+    }
+
+    /**
+     * 搜索用户已通过筛选的文章
+     * @param cursor 上一页返回的游标，为空表示第一页
+     */
+    public SearchPage search(Long userId, String query, String cursor, int pageSize) {
+        int size = Math.min(Math.max(pageSize, 1), RssConstants.SEARCH_MAX_PAGE_SIZE);
+        List<String> terms = FtsQueryUtils.splitTerms(query);
+        if (terms.isEmpty()) {
+            return new SearchPage(new ArrayList<>(), null);
+        }
+
+        String[] cursorParts = decodeCursor(cursor);
+        boolean ranked = articleSearchMapper.supportsFullTextSearch() && FtsQueryUtils.isTrigramSearchable(terms);
+        return ranked ? searchRanked(userId, terms, cursorParts, size) : searchLike(userId, terms, cursorParts, size);
+    }
+
+    private SearchPage searchRanked(Long userId, List<String> terms, String[] cursorParts, int size) {
+        String matchExpression = FtsQueryUtils.buildMatchExpression(terms);
+        String snapshotId = null;
+        int offset = 0;
+        if (cursorParts != null && CURSOR_RANKED.equals(cursorParts[0]) && cursorParts.length == 3) {
+            snapshotId = cursorParts[1];
+            offset = (int) Math.min(Math.max(Long.parseLong(cursorParts[2]), 0), Integer.MAX_VALUE);
+        }
+
+        RankedSnapshot snapshot = snapshotId != null ? snapshots.getIfPresent(snapshotId) : null;
+        if (snapshot == null || !snapshot.userId.equals(userId) || !snapshot.matchExpression.equals(matchExpression)) {
+            List<ArticleSearchHit> ranked = articleSearchMapper.searchRanked(userId, matchExpression,
+                    RssConstants.SEARCH_MAX_RANKED_RESULTS);
+            snapshot = new RankedSnapshot(userId, matchExpression, ranked);
+            snapshotId = Long.toString(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE));
+            snapshots.put(snapshotId, snapshot);
+        }
+
+        int end = Math.min(offset + size, snapshot.ids.length);
+        List<Long> ids = new ArrayList<>();
+        for (int i = offset; i < end; i++) {
+            ids.add(snapshot.ids[i]);
+        }
+        // 按快照顺序组装当前页，快照之后被删除或不再通过筛选的文章直接跳过
+        Map<Long, ArticleSearchHit> rows = new HashMap<>();
+        for (ArticleSearchHit hit : articleSearchMapper.findHitsByIds(userId, ids)) {
+            rows.put(hit.getId(), hit);
+        }
+        Map<Long, String[]> highlights = articleSearchMapper.highlight(matchExpression, ids);
+        List<ArticleSearchHit> hits = new ArrayList<>(ids.size());
+        for (int i = offset; i < end; i++) {
+            ArticleSearchHit hit = rows.get(snapshot.ids[i]);
+            if (hit == null) {
+                continue;
+            }
+            hit.setScore(snapshot.scores[i]);
+            String[] highlight = highlights.get(hit.getId());
+            hit.setTitleHighlight(markToHtml(highlight != null ? highlight[0] : hit.getTitle()));
+            hit.setSnippet(markToHtml(highlight != null ? highlight[1] : ""));
+            hits.add(hit);
+        }
+
+        String nextCursor = null;
+        if (end < snapshot.ids.length) {
+            nextCursor = encodeCursor(CURSOR_RANKED + ":" + snapshotId + ":" + end);
+        }
+        return new SearchPage(hits, nextCursor);
+    }
+
+    private SearchPage searchLike(Long userId, List<String> terms, String[] cursorParts, int size) {
+        Long beforeId = null;
+        if (cursorParts != null && CURSOR_LIKE.equals(cursorParts[0]) && cursorParts.length == 2) {
+            beforeId = Long.valueOf(cursorParts[1]);
+        }
+        List<String> patterns = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            patterns.add(FtsQueryUtils.toLikePattern(term));
+        }
+
+        List<Map<String, Object>> rows = articleSearchMapper.searchLike(userId, patterns, beforeId, size + 1);
+        boolean hasMore = rows.size() > size;
+        List<ArticleSearchHit> hits = new ArrayList<>();
+        for (int i = 0; i < Math.min(rows.size(), size); i++) {
+            Map<String, Object> row = rows.get(i);
+            ArticleSearchHit hit = new ArticleSearchHit();
+            hit.setId(((Number) row.get("id")).longValue());
+            hit.setTitle((String) row.get("title"));
+            hit.setLink((String) row.get("link"));
+            hit.setSourceName((String) row.get("source_name"));
+            Object pubDate = row.get("pub_date");
+            hit.setPubDate(pubDate != null ? DateTimeUtils.fromEpochMillis(((Number) pubDate).longValue()) : null);
+            hit.setScore(0d);
+            hit.setTitleHighlight(markToHtml(markTerms(hit.getTitle(), terms)));
+            String body = articleSearchMapper.supportsFullTextSearch()
+                    ? (String) row.get("body") : HtmlUtils.stripHtmlTags((String) row.get("body"));
+            hit.setSnippet(markToHtml(markTerms(buildSnippet(body, terms), terms)));
+            hits.add(hit);
+        }
+
+        String nextCursor = null;
+        if (hasMore) {
+            nextCursor = encodeCursor(CURSOR_LIKE + ":" + hits.get(hits.size() - 1).getId());
+        }
+        return new SearchPage(hits, nextCursor);
+    }
+
+    /**
+     * 后台为历史文章回填索引
+     */
+    @Scheduled(initialDelay = 30000, fixedDelay = 3600000)
+    public void backfill() {
+        if (!backfilling.compareAndSet(false, true)) {
+            return;
+        }
+        long indexed = 0;
+        try {
+            while (true) {
+                List<RssItem> items = articleSearchMapper.findUnindexedAfterId(backfillCursor, RssConstants.SEARCH_BACKFILL_CHUNK_SIZE);
+                if (items.isEmpty()) {
+                    break;
+                }
+                for (RssItem item : items) {
+                    articleSearchMapper.index(item.getId(), item.getTitle(), extractBody(item));
+                    backfillCursor = item.getId();
+                    indexed++;
+                }
+            }
+            if (indexed > 0) {
+                logger.info("全文索引回填完成，共 {} 条", indexed);
+            }
+        } catch (Exception e) {
+            logger.error("全文索引回填失败，已处理 {} 条", indexed, e);
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    private String extractBody(RssItem item) {
+        String html = item.getContent();
+        if (html == null || html.trim().isEmpty()) {
+            html = item.getDescription();
+        }
+        String text = HtmlUtils.stripHtmlTags(html, RssConstants.SEARCH_MAX_BODY_LENGTH);
+        if (text.length() > RssConstants.SEARCH_MAX_BODY_LENGTH) {
+            text = text.substring(0, RssConstants.SEARCH_MAX_BODY_LENGTH);
+        }
+        return text;
+    }
+
+    /**
+     * 截取正文中第一个命中词附近的片段
+     */
+    private String buildSnippet(String body, List<String> terms) {
+        if (body == null || body.isEmpty()) {
+            return "";
+        }
+        String lowerBody = body.toLowerCase(Locale.ROOT);
+        int position = -1;
+        for (String term : terms) {
+            int index = lowerBody.indexOf(term.toLowerCase(Locale.ROOT));
+            if (index >= 0 && (position < 0 || index < position)) {
+                position = index;
+            }
+        }
+        if (position < 0) {
+            return body.length() > 60 ? body.substring(0, 60) + "…" : body;
+        }
+        int start = Math.max(0, position - 20);
+        int end = Math.min(body.length(), position + 60);
+        return (start > 0 ? "…" : "") + body.substring(start, end) + (end < body.length() ? "…" : "");
+    }
+
+    private String markTerms(String text, List<String> terms) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String lowerText = text.toLowerCase(Locale.ROOT);
+        boolean[] marked = new boolean[text.length()];
+        for (String term : terms) {
+            String lowerTerm = term.toLowerCase(Locale.ROOT);
+            int from = 0;
+            int index;
+            while (!lowerTerm.isEmpty() && (index = lowerText.indexOf(lowerTerm, from)) >= 0) {
+                for (int i = index; i < index + lowerTerm.length() && i < marked.length; i++) {
+                    marked[i] = true;
+                }
+                from = index + lowerTerm.length();
+            }
+        }
+        StringBuilder result = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            if (marked[i] && (i == 0 || !marked[i - 1])) {
+                result.append(ArticleSearchMapper.MARK_START);
+            }
+            result.append(text.charAt(i));
+            if (marked[i] && (i == text.length() - 1 || !marked[i + 1])) {
+                result.append(ArticleSearchMapper.MARK_END);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * 先转义文本，再把命中标记替换为 &lt;mark&gt; 标签
+     */
+    private String markToHtml(String marked) {
+        if (marked == null) {
+            return "";
+        }
+        return org.springframework.web.util.HtmlUtils.htmlEscape(marked)
+                .replace(String.valueOf(ArticleSearchMapper.MARK_START), "<mark>")
+                .replace(String.valueOf(ArticleSearchMapper.MARK_END), "</mark>");
+    }
+
+    private String encodeCursor(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            // 校验数字部分，非法游标按第一页处理
+            for (int i = 1; i < parts.length; i++) {
+                Long.parseLong(parts[i]);
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            logger.debug("无效的搜索游标: {}", cursor);
+            return null;
+        }
+    }
+
+    /**
+     * 第一页查询时保存的排序结果
+     */
+    private static class RankedSnapshot {
+        private final Long userId;
+        private final String matchExpression;
+        private final long[] ids;
+        private final double[] scores;
+
+        RankedSnapshot(Long userId, String matchExpression, List<ArticleSearchHit> ranked) {
+            this.userId = userId;
+            this.matchExpression = matchExpression;
+            this.ids = new long[ranked.size()];
+            this.scores = new double[ranked.size()];
+            for (int i = 0; i < ranked.size(); i++) {
+                ids[i] = ranked.get(i).getId();
+                scores[i] = ranked.get(i).getScore();
+            }
+        }
+    }
+
+    /**
+     * 搜索结果页
+     */
+    public static class SearchPage {
+        private final List<ArticleSearchHit> hits;
+        private final String nextCursor;
+
+        public SearchPage(List<ArticleSearchHit> hits, String nextCursor) {
+            this.hits = hits;
+            this.nextCursor = nextCursor;
+        }
+
+        public List<ArticleSearchHit> getHits() {
+            return hits;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+    }
+}
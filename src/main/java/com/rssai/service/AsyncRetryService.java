@@ -0,0 +1,276 @@
+package com.rssai.service;
+
+import com.rssai.exception.RetryLaterException;
+import com.rssai.util.RetryUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 异步重试
+ * 每次尝试在调用方指定的线程池中执行，失败后由共享的调度线程在退避时间到达后重新提交，等待期间不占用工作线程；
+ * 重新提交时线程池已满则放弃重试，不会在调度线程中执行。
+ * 按操作名称维护重试预算：每次调用存入 ratio 个重试额度，每次重试消耗一个，另按 min-per-minute 匀速补充；
+ * 额度用完时直接返回默认值，服务长时间不可用时不会因为大量重试拖慢其他任务。
+ * 提交或执行时抛出 {@link RetryLaterException} 表示暂时不能执行（如AI速率限制），到时间后重新提交同一次尝试，
+ * 不计入尝试次数和重试预算；推迟的总时长超过异常给出的上限后按一次失败处理
+ */
+@Service
+public class AsyncRetryService {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncRetryService.class);
+
+    /**
+     * 当前线程是否为正在提交重试的调度线程
+     */
+    private static final ThreadLocal<Boolean> ON_SCHEDULER = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private final ScheduledExecutorService retryScheduler;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    @Value("${retry.budget.ratio:0.2}")
+    private double budgetRatio;
+
+    @Value("${retry.budget.min-per-minute:10}")
+    private int minRetriesPerMinute;
+
+    @Value("${retry.budget.capacity:100}")
+    private int budgetCapacity;
+
+    public AsyncRetryService(@Qualifier("retryScheduler") ScheduledExecutorService retryScheduler) {
+        this.retryScheduler = retryScheduler;
+    }
+
+    /**
+     * 执行带重试的操作
+     *
+     * @param operation 要执行的操作，抛出异常视为失败
+     * @param executor 执行每次尝试的线程池
+     * @param maxAttempts 最大尝试次数
+     * @param operationName 操作名称（用于日志和区分重试预算）
+     * @param defaultValue 失败时的默认返回值
+     * @return 操作结果或默认值，不会异常完成
+     */
+    public <T> CompletableFuture<T> executeWithRetry(
+            Supplier<T> operation,
+            Executor executor,
+            int maxAttempts,
+            String operationName,
+            T defaultValue) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Budget budget = budgets.computeIfAbsent(operationName, key -> new Budget());
+        budget.deposit();
+        submit(new Attempt<>(operation, executor, maxAttempts, operationName, defaultValue, budget, result), 1);
+        return result;
+    }
+
+    /**
+     * 各操作的重试预算
+     */
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new TreeMap<>();
+        for (Map.Entry<String, Budget> entry : budgets.entrySet()) {
+            stats.put(entry.getKey(), entry.getValue().stats());
+        }
+        return stats;
+    }
+
+    /**
+     * 提交一次尝试
+     * 重试由调度线程提交：线程池已满且拒绝策略为 CallerRunsPolicy 时，任务会在提交线程中直接执行，
+     * 一次请求就会占住调度线程、拖慢其他重试，因此任务发现自己在调度线程中执行时直接返回默认值
+     */
+    private <T> void submit(Attempt<T> attempt, int number) {
+        try {
+            attempt.executor.execute(() -> {
+                if (ON_SCHEDULER.get()) {
+                    logger.error("{}第{}次尝试被拒绝：线程池已满，不在重试调度线程中执行", attempt.operationName, number);
+                    attempt.result.complete(attempt.defaultValue);
+                    return;
+                }
+                run(attempt, number);
+            });
+        } catch (RetryLaterException e) {
+            if (!defer(attempt, number, e)) {
+                retryOrGiveUp(attempt, number);
+            }
+        } catch (RejectedExecutionException e) {
+            logger.error("{}无法提交第{}次尝试", attempt.operationName, number, e);
+            attempt.result.complete(attempt.defaultValue);
+        }
+    }
+
+    /**
+     * 推迟一次尝试：到时间后由调度线程重新提交，尝试次数不变
+     * @return false 表示推迟总时长将超过上限，调用方按失败处理
+     */
+    private <T> boolean defer(Attempt<T> attempt, int number, RetryLaterException e) {
+        long now = System.nanoTime();
+        if (attempt.deferDeadline == 0) {
+            attempt.deferDeadline = now + TimeUnit.MILLISECONDS.toNanos(e.getMaxWaitMillis());
+        }
+        if (now + TimeUnit.MILLISECONDS.toNanos(e.getDelayMillis()) - attempt.deferDeadline > 0) {
+            logger.error("{}第{}次尝试排队超过{}ms: {}", attempt.operationName, number, e.getMaxWaitMillis(), e.getMessage());
+            return false;
+        }
+        logger.debug("{}第{}次尝试推迟{}ms: {}", attempt.operationName, number, e.getDelayMillis(), e.getMessage());
+        try {
+            retryScheduler.schedule(() -> submitFromScheduler(attempt, number), e.getDelayMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            logger.error("{}无法安排推迟的尝试", attempt.operationName, ex);
+            attempt.result.complete(attempt.defaultValue);
+        }
+        return true;
+    }
+
+    /**
+     * 在调度线程中提交重试，期间经由线程池拒绝策略在本线程执行的任务都会被识别出来
+     */
+    private <T> void submitFromScheduler(Attempt<T> attempt, int number) {
+        ON_SCHEDULER.set(Boolean.TRUE);
+        try {
+            submit(attempt, number);
+        } finally {
+            ON_SCHEDULER.remove();
+        }
+    }
+
+    private <T> void run(Attempt<T> attempt, int number) {
+        try {
+            T value = attempt.operation.get();
+            if (number > 1) {
+                logger.info("{}第{}次重试成功", attempt.operationName, number);
+            }
+            attempt.result.complete(value);
+            return;
+        } catch (RetryLaterException e) {
+            if (defer(attempt, number, e)) {
+                return;
+            }
+        } catch (Exception e) {
+            logger.error("{}第{}次尝试失败", attempt.operationName, number, e);
+        }
+        retryOrGiveUp(attempt, number);
+    }
+
+    /**
+     * 一次尝试失败后：次数和预算允许时按退避时间安排下一次尝试，否则返回默认值
+     */
+    private <T> void retryOrGiveUp(Attempt<T> attempt, int number) {
+        attempt.deferDeadline = 0;
+        if (number >= attempt.maxAttempts) {
+            logger.error("{}失败，已重试{}次", attempt.operationName, attempt.maxAttempts);
+            attempt.result.complete(attempt.defaultValue);
+            return;
+        }
+        if (!attempt.budget.withdraw()) {
+            logger.warn("{}失败，重试预算已用完，不再重试", attempt.operationName);
+            attempt.result.complete(attempt.defaultValue);
+            return;
+        }
+        long delay = RetryUtils.calculateBackoffDelay(number);
+        logger.warn("{}失败，{}ms后重试", attempt.operationName, delay);
+        try {
+            retryScheduler.schedule(() -> submitFromScheduler(attempt, number + 1), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            logger.error("{}无法安排重试", attempt.operationName, e);
+            attempt.result.complete(attempt.defaultValue);
+        }
+    }
+
+    private static class Attempt<T> {
+        private final Supplier<T> operation;
+        private final Executor executor;
+        private final int maxAttempts;
+        private final String operationName;
+        private final T defaultValue;
+        private final Budget budget;
+        private final CompletableFuture<T> result;
+        /**
+         * 当前这次尝试推迟的截止时间（nanoTime），0 表示没有推迟
+         */
+        private long deferDeadline;
+
+        Attempt(Supplier<T> operation, Executor executor, int maxAttempts, String operationName, T defaultValue,
+                Budget budget, CompletableFuture<T> result) {
+            this.operation = operation;
+            this.executor = executor;
+            this.maxAttempts = maxAttempts;
+            this.operationName = operationName;
+            this.defaultValue = defaultValue;
+            this.budget = budget;
+            this.result = result;
+        }
+    }
+
+    private class Budget {
+        private double tokens = minRetriesPerMinute;
+        private long lastRefill = System.nanoTime();
+        private long retries;
+        private long rejected;
+
+        synchronized void deposit() {
+            refill();
+            tokens = Math.min(budgetCapacity, tokens + budgetRatio);
+        }
+
+        synchronized boolean withdraw() {
+            refill();
+            if (tokens < 1) {
+                rejected++;
+                return false;
+            }
+            tokens -= 1;
+            retries++;
+            return true;
+        }
+
+        synchronized Stats stats() {
+            refill();
+            Stats stats = new Stats();
+            stats.available = tokens;
+            stats.retries = retries;
+            stats.rejected = rejected;
+            return stats;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            double minutes = (now - lastRefill) / (double) TimeUnit.MINUTES.toNanos(1);
+            lastRefill = now;
+            tokens = Math.min(budgetCapacity, tokens + minutes * minRetriesPerMinute);
+        }
+    }
+
+    /**
+     * 启动以来的重试统计
+     */
+    public static class Stats {
+        private double available;
+        private long retries;
+        private long rejected;
+
+        public double getAvailable() {
+            return available;
+        }
+
+        public long getRetries() {
+            return retries;
+        }
+
+        public long getRejected() {
+            return rejected;
+        }
+    }
+}
@@ -0,0 +1,613 @@
+package com.rssai.service;
+
+import com.rssai.dialect.SqlDialect;
+import com.rssai.util.SqliteWalUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * SQLite 热备份与 WAL 归档服务
+ * <p>
+ * 每一代备份由一份基础快照和之后连续归档的 WAL 段组成：
+ * <ul>
+ *     <li>基础快照：持有读事务时直接复制数据库文件。WAL 模式下读事务不阻塞写入，复制期间检查点写回的页都在
+ *     随后归档的第一个段里，恢复时重放即可得到一致的数据库</li>
+ *     <li>WAL 归档：按固定间隔把 WAL 中新提交的帧复制为一个段。两个连接轮流持有读事务，保证任意时刻 WAL 都不会在
+ *     未归档的帧被复制之前重置</li>
+ *     <li>WAL 重置：归档位置超过阈值时，短暂持有写锁归档剩余帧并做一次被动检查点，再由本服务写入一帧触发重置，
+ *     避免持续写入时 WAL 无限增长</li>
+ * </ul>
+ * 恢复时把基础快照复制为新文件并按顺序写回各段中的页，可以恢复到任意一次归档的时间点。
+ * 归档工作在独立线程中执行，不占用 Spring 的调度线程。
+ */
+@Service
+public class BackupService {
+    private static final Logger logger = LoggerFactory.getLogger(BackupService.class);
+
+    private static final DateTimeFormatter GENERATION_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String BASE_FILE = "base.db";
+    private static final String SEGMENT_DIR = "wal";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final SqlDialect sqlDialect;
+
+    @Value("${backup.enabled:false}")
+    private boolean enabled;
+
+    @Value("${backup.directory:data/backup}")
+    private String directory;
+
+    @Value("${backup.ship-interval-ms:60000}")
+    private long shipIntervalMs;
+
+    @Value("${backup.base-interval-hours:24}")
+    private int baseIntervalHours;
+
+    @Value("${backup.wal-restart-bytes:67108864}")
+    private long walRestartBytes;
+
+    @Value("${backup.keep-generations:3}")
+    private int keepGenerations;
+
+    private ScheduledExecutorService executor;
+
+    // 以下状态只在备份线程中访问
+    private final Connection[] readers = new Connection[2];
+    private int activeReader = -1;
+    private Path databaseFile;
+    private Path generationDir;
+    private long generationStartedAt;
+    private SqliteWalUtils.WalHeader walHeader;
+    private long walOffset;
+    private int[] walChecksum;
+    private int segmentIndex;
+
+    private final BackupStatus status = new BackupStatus();
+
+    public BackupService(DataSource dataSource, JdbcTemplate jdbcTemplate, SqlDialect sqlDialect) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlDialect = sqlDialect;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (!sqlDialect.supportsWalArchiving()) {
+            logger.warn("当前数据库（{}）不支持应用内热备份，请使用数据库自带的备份工具", sqlDialect.getName());
+            return;
+        }
+        String journalMode = jdbcTemplate.queryForObject("PRAGMA journal_mode", String.class);
+        if (!"wal".equalsIgnoreCase(journalMode)) {
+            logger.warn("数据库日志模式为 {}，热备份需要 WAL 模式（JDBC URL 中设置 journal_mode=WAL）", journalMode);
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-backup");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runCycle, shipIntervalMs, shipIntervalMs, TimeUnit.MILLISECONDS);
+        status.enabled = true;
+        logger.info("数据库热备份已启动 - 目录: {}, 归档间隔: {} ms", directory, shipIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+                return;
+            }
+            // 退出前把最后的提交归档
+            if (generationDir != null) {
+                shipWal();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("退出前归档WAL失败", e);
+        } finally {
+            closeReaders();
+        }
+    }
+
+    public BackupStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * 立即开始新的一代备份，返回是否已提交到备份线程
+     */
+    public boolean requestNewGeneration() {
+        if (executor == null) {
+            return false;
+        }
+        executor.execute(() -> {
+            try {
+                startGeneration();
+            } catch (Exception e) {
+                handleFailure(e);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * 执行一次备份周期：需要时开始新的一代，否则归档新提交的 WAL 帧
+     */
+    void runCycle() {
+        try {
+            long baseAgeMs = System.currentTimeMillis() - generationStartedAt;
+            if (generationDir == null || baseAgeMs >= TimeUnit.HOURS.toMillis(baseIntervalHours)) {
+                startGeneration();
+                return;
+            }
+            shipWal();
+            if (walOffset > walRestartBytes) {
+                restartWal();
+            }
+        } catch (Exception e) {
+            handleFailure(e);
+        }
+    }
+
+    /**
+     * 复制基础快照并归档当前 WAL 的全部帧
+     */
+    private void startGeneration() throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        databaseFile = resolveDatabaseFile();
+        // 先持有读事务：WAL 在快照复制和首个段归档完成前不会被重置
+        rotateReader();
+
+        Path dir = Paths.get(directory, LocalDateTime.now().format(GENERATION_FORMAT));
+        try {
+            Files.createDirectories(dir.resolve(SEGMENT_DIR));
+            Path tmp = dir.resolve(BASE_FILE + ".tmp");
+            Files.copy(databaseFile, tmp, StandardCopyOption.REPLACE_EXISTING);
+            force(tmp);
+            Files.move(tmp, dir.resolve(BASE_FILE), StandardCopyOption.ATOMIC_MOVE);
+
+            generationDir = dir;
+            generationStartedAt = start;
+            walHeader = null;
+            walOffset = SqliteWalUtils.WAL_HEADER_SIZE;
+            walChecksum = null;
+            segmentIndex = 0;
+            shipWal();
+        } catch (IOException | SQLException | RuntimeException e) {
+            generationDir = null;
+            deleteRecursively(dir);
+            throw e;
+        }
+
+        status.generation = dir.getFileName().toString();
+        status.lastBaseAt = start;
+        status.lastBaseDurationMs = System.currentTimeMillis() - start;
+        status.lastBaseBytes = Files.size(dir.resolve(BASE_FILE));
+        logger.info("数据库基础快照完成 - 代: {}, 大小: {} 字节, 耗时: {} ms",
+                status.generation, status.lastBaseBytes, status.lastBaseDurationMs);
+        pruneGenerations();
+    }
+
+    /**
+     * 把 WAL 中上次归档位置之后新提交的帧写为一个段
+     * 先开始新的读事务再复制，复制完成后才结束上一个读事务，保证 WAL 不会在未归档的帧被复制前重置
+     */
+    private void shipWal() throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        int previousReader = activeReader;
+        int currentReader = beginReader();
+
+        Path walFile = Paths.get(databaseFile + "-wal");
+        long shippedBytes = 0;
+        if (Files.exists(walFile)) {
+            try (FileChannel wal = FileChannel.open(walFile, StandardOpenOption.READ)) {
+                SqliteWalUtils.WalHeader header = SqliteWalUtils.readHeader(wal);
+                if (header != null) {
+                    adoptHeader(header);
+                    shippedBytes = writeSegment(wal, start);
+                }
+            }
+        }
+
+        if (previousReader >= 0 && previousReader != currentReader) {
+            endReader(previousReader);
+        }
+        activeReader = currentReader;
+
+        status.lastShipAt = start;
+        status.lastShipDurationMs = System.currentTimeMillis() - start;
+        status.lastShipBytes = shippedBytes;
+        status.walOffset = walOffset;
+    }
+
+    /**
+     * 检查 WAL 是否在上次归档后被重置
+     * 读事务始终持有，WAL 只可能在已归档的帧全部写回后重置一次；盐值不是重置一次的结果说明连续性已中断
+     */
+    private void adoptHeader(SqliteWalUtils.WalHeader header) {
+        if (walHeader == null) {
+            walHeader = header;
+            walOffset = SqliteWalUtils.WAL_HEADER_SIZE;
+            walChecksum = header.getChecksum();
+            return;
+        }
+        if (header.isSameLog(walHeader)) {
+            return;
+        }
+        if (!header.isRestartOf(walHeader)) {
+            throw new IllegalStateException("WAL 归档不连续，WAL 在两次归档之间被重置了不止一次");
+        }
+        walHeader = header;
+        walOffset = SqliteWalUtils.WAL_HEADER_SIZE;
+        walChecksum = header.getChecksum();
+        status.walRestarts++;
+    }
+
+    private long writeSegment(FileChannel wal, long shippedAt) throws IOException {
+        Path segmentDir = generationDir.resolve(SEGMENT_DIR);
+        Path tmp = segmentDir.resolve("segment.tmp");
+        SqliteWalUtils.CopyResult result;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(walHeader.getRaw()));
+            result = SqliteWalUtils.copyCommittedFrames(wal, walHeader, walOffset, walChecksum, out);
+            if (result.getFrames() > 0) {
+                out.force(true);
+            }
+        }
+        if (result.getFrames() == 0) {
+            Files.delete(tmp);
+            return 0;
+        }
+        String name = String.format("%08d-%d%s", segmentIndex, shippedAt, SEGMENT_SUFFIX);
+        Files.move(tmp, segmentDir.resolve(name), StandardCopyOption.ATOMIC_MOVE);
+        segmentIndex++;
+        walOffset = result.getOffset();
+        walChecksum = result.getChecksum();
+        status.segments++;
+        return result.getBytes();
+    }
+
+    /**
+     * 重置 WAL：持有写锁时归档剩余帧并做被动检查点，WAL 全部写回后写入一帧，让 SQLite 从头重用 WAL 文件
+     * SQLite 只在写事务开始时 WAL 已全部写回的情况下重置，因此写入要在检查点之后的新事务中进行；
+     * 有其他读事务阻止检查点完成时放弃本次重置，下个周期再试
+     */
+    private void restartWal() throws IOException, SQLException {
+        try (Connection writer = dataSource.getConnection(); Statement statement = writer.createStatement()) {
+            boolean backfilled;
+            statement.execute("BEGIN IMMEDIATE");
+            try {
+                shipWal();
+                closeReaders();
+                Map<String, Object> checkpoint = jdbcTemplate.queryForMap("PRAGMA wal_checkpoint(PASSIVE)");
+                long log = ((Number) checkpoint.get("log")).longValue();
+                long checkpointed = ((Number) checkpoint.get("checkpointed")).longValue();
+                backfilled = log > 0 && log == checkpointed;
+                // 释放写锁前重新持有读事务：它不阻止这次重置，但会阻止之后的帧被写回，WAL 在下次归档前最多重置一次
+                activeReader = beginReader();
+            } finally {
+                statement.execute("ROLLBACK");
+            }
+            if (!backfilled) {
+                return;
+            }
+            // 期间如果已有其他写入者开始写事务，重置由它完成，这里的写入只是追加一帧
+            statement.execute("BEGIN IMMEDIATE");
+            try (ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+                long userVersion = rs.next() ? rs.getLong(1) : 0L;
+                statement.execute("PRAGMA user_version = " + userVersion);
+                statement.execute("COMMIT");
+            } catch (SQLException e) {
+                statement.execute("ROLLBACK");
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 恢复到指定时间点，写入新的数据库文件，不影响正在使用的数据库
+     *
+     * @param generation  备份代名称，为空时使用最新一代
+     * @param pointInTime 毫秒时间戳，只重放在此之前归档的段；为空时恢复到最新归档
+     * @return 恢复出的数据库文件
+     */
+    public Path restore(String generation, Long pointInTime) throws IOException, SQLException {
+        Path dir = generation != null && !generation.isEmpty()
+                ? Paths.get(directory, generation) : latestGeneration();
+        if (dir == null || !Files.isRegularFile(dir.resolve(BASE_FILE))) {
+            throw new IllegalArgumentException("备份不存在: " + generation);
+        }
+        Path target = Paths.get(directory, "restore-" + dir.getFileName() + "-"
+                + LocalDateTime.now().format(GENERATION_FORMAT) + ".db");
+        Path tmp = Paths.get(target + ".tmp");
+        Files.copy(dir.resolve(BASE_FILE), tmp, StandardCopyOption.REPLACE_EXISTING);
+
+        int applied = 0;
+        try (FileChannel database = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long pageSize = 0;
+            long databasePages = 0;
+            for (Path segment : listSegments(dir)) {
+                if (pointInTime != null && segmentShippedAt(segment) > pointInTime) {
+                    break;
+                }
+                try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                    pageSize = SqliteWalUtils.readHeader(channel).getPageSize();
+                    databasePages = SqliteWalUtils.applyFrames(channel, database);
+                }
+                applied++;
+            }
+            if (databasePages > 0) {
+                database.truncate(databasePages * pageSize);
+            }
+            database.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + target.toAbsolutePath());
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA quick_check")) {
+            String result = rs.next() ? rs.getString(1) : null;
+            if (!"ok".equalsIgnoreCase(result)) {
+                throw new IllegalStateException("恢复出的数据库校验失败: " + result);
+            }
+        }
+        logger.info("数据库已恢复到 {} - 代: {}, 重放段数: {}", target, dir.getFileName(), applied);
+        return target;
+    }
+
+    /**
+     * 列出备份代，按时间从新到旧
+     */
+    public List<String> listGenerations() throws IOException {
+        Path root = Paths.get(directory);
+        if (!Files.isDirectory(root)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> stream = Files.list(root)) {
+            return stream.filter(p -> Files.isRegularFile(p.resolve(BASE_FILE)))
+                    .map(p -> p.getFileName().toString())
+                    .sorted(Comparator.reverseOrder())
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path latestGeneration() throws IOException {
+        List<String> generations = listGenerations();
+        return generations.isEmpty() ? null : Paths.get(directory, generations.get(0));
+    }
+
+    private List<Path> listSegments(Path dir) throws IOException {
+        try (Stream<Path> stream = Files.list(dir.resolve(SEGMENT_DIR))) {
+            return stream.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private long segmentShippedAt(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(name.indexOf('-') + 1, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void pruneGenerations() throws IOException {
+        List<String> generations = listGenerations();
+        for (int i = Math.max(keepGenerations, 1); i < generations.size(); i++) {
+            deleteRecursively(Paths.get(directory, generations.get(i)));
+            logger.info("删除过期的备份代: {}", generations.get(i));
+        }
+    }
+
+    /**
+     * 出错后放弃当前代，下个周期重新开始新的一代
+     */
+    private void handleFailure(Exception e) {
+        logger.error("数据库备份失败，将在下个周期重新开始新的一代", e);
+        status.lastError = e.getMessage();
+        status.lastErrorAt = System.currentTimeMillis();
+        generationDir = null;
+        closeReaders();
+    }
+
+    private Path resolveDatabaseFile() {
+        List<Map<String, Object>> databases = jdbcTemplate.queryForList("PRAGMA database_list");
+        for (Map<String, Object> database : databases) {
+            if ("main".equals(database.get("name"))) {
+                String file = (String) database.get("file");
+                if (file == null || file.isEmpty()) {
+                    throw new IllegalStateException("内存数据库无法备份");
+                }
+                return Paths.get(file);
+            }
+        }
+        throw new IllegalStateException("未找到主数据库文件");
+    }
+
+    /**
+     * 在另一个读连接上开始读事务并立即读取，使其持有当前快照
+     */
+    private int beginReader() throws SQLException {
+        int index = activeReader == 0 ? 1 : 0;
+        if (readers[index] == null) {
+            Connection connection = dataSource.getConnection();
+            connection.setAutoCommit(false);
+            readers[index] = connection;
+        }
+        try (Statement statement = readers[index].createStatement()) {
+            statement.executeQuery("SELECT COUNT(*) FROM sqlite_master").close();
+        }
+        return index;
+    }
+
+    private void rotateReader() throws SQLException {
+        int previousReader = activeReader;
+        activeReader = beginReader();
+        if (previousReader >= 0 && previousReader != activeReader) {
+            endReader(previousReader);
+        }
+    }
+
+    private void endReader(int index) throws SQLException {
+        if (readers[index] != null) {
+            readers[index].rollback();
+        }
+    }
+
+    private void closeReaders() {
+        for (int i = 0; i < readers.length; i++) {
+            if (readers[i] != null) {
+                try {
+                    readers[i].rollback();
+                    readers[i].close();
+                } catch (SQLException e) {
+                    logger.debug("关闭备份读连接失败", e);
+                }
+                readers[i] = null;
+            }
+        }
+        activeReader = -1;
+    }
+
+    private void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    private void deleteRecursively(Path dir) {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> stream = Files.walk(dir)) {
+            List<Path> paths = stream.sorted(Comparator.reverseOrder()).collect(Collectors.toList());
+            for (Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            logger.warn("删除备份目录失败: {}", dir, e);
+        }
+    }
+
+    /**
+     * 备份运行状态，时间均为毫秒时间戳
+     */
+    public static class BackupStatus {
+        private volatile boolean enabled;
+        private volatile String generation;
+        private volatile long lastBaseAt;
+        private volatile long lastBaseDurationMs;
+        private volatile long lastBaseBytes;
+        private volatile long lastShipAt;
+        private volatile long lastShipDurationMs;
+        private volatile long lastShipBytes;
+        private volatile long walOffset;
+        private volatile long segments;
+        private volatile long walRestarts;
+        private volatile String lastError;
+        private volatile long lastErrorAt;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public String getGeneration() {
+            return generation;
+        }
+
+        public long getLastBaseAt() {
+            return lastBaseAt;
+        }
+
+        public long getLastBaseDurationMs() {
+            return lastBaseDurationMs;
+        }
+
+        public long getLastBaseBytes() {
+            return lastBaseBytes;
+        }
+
+        public long getLastShipAt() {
+            return lastShipAt;
+        }
+
+        public long getLastShipDurationMs() {
+            return lastShipDurationMs;
+        }
+
+        public long getLastShipBytes() {
+            return lastShipBytes;
+        }
+
+        /**
+         * 备份落后时间：距离最近一次成功归档的毫秒数，尚未归档时为 -1
+         */
+        public long getLagMs() {
+            return lastShipAt > 0 ? System.currentTimeMillis() - lastShipAt : -1;
+        }
+
+        /**
+         * 当前 WAL 已归档到的位置
+         */
+        public long getWalOffset() {
+            return walOffset;
+        }
+
+        public long getSegments() {
+            return segments;
+        }
+
+        public long getWalRestarts() {
+            return walRestarts;
+        }
+
+        public String getLastError() {
+            return lastError;
+        }
+
+        public long getLastErrorAt() {
+            return lastErrorAt;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package com.rssai.service;
+
+import com.rssai.config.ShardRouter;
+import com.rssai.mapper.DatabaseMaintenanceMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 数据库维护服务（仅 SQLite，主库和所有分片）
+ * <ul>
+ *     <li>统计信息：每天低峰时段执行一次 ANALYZE（按 analysis_limit 采样），前后对比热点查询的查询计划并记录变化；
+ *     每小时执行 PRAGMA optimize，只重新分析统计信息过期的表</li>
+ *     <li>WAL 检查点：在独立线程中定期检查 WAL 文件大小，超过阈值时执行 PASSIVE 检查点，超过更高阈值时执行
+ *     TRUNCATE 检查点把 WAL 文件截断为0。主库开启热备份时 WAL 的重置由 BackupService 负责（它持有读事务，
+ *     TRUNCATE 无法完成），这里只执行 PASSIVE</li>
+ * </ul>
+ * 最近的运行结果保存在内存中，通过系统配置页的维护接口查看。
+ */
+@Service
+public class DatabaseMaintenanceService {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseMaintenanceService.class);
+
+    private static final int MAX_CHECKPOINT_RECORDS = 50;
+
+    /**
+     * 记录查询计划的热点查询，参数只用于生成计划
+     */
+    private static final Map<String, String> MAIN_QUERIES = new LinkedHashMap<>();
+    private static final Map<String, String> FILTER_LOG_QUERIES = new LinkedHashMap<>();
+
+    static {
+        MAIN_QUERIES.put("文章列表分页",
+                "SELECT ri.id FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "WHERE rs.user_id = ? AND ri.ai_filtered = TRUE ORDER BY ri.pub_date DESC LIMIT 20");
+        MAIN_QUERIES.put("链接去重",
+                "SELECT COUNT(*) FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "WHERE ri.link = ? AND rs.user_id = ? AND ri.created_at >= ?");
+        MAIN_QUERIES.put("标题去重",
+                "SELECT COUNT(*) FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "WHERE ri.title = ? AND rs.user_id = ? AND ri.created_at >= ?");
+        FILTER_LOG_QUERIES.put("过滤日志分页",
+                "SELECT * FROM filter_logs WHERE user_id = ? ORDER BY created_at DESC LIMIT 20");
+        FILTER_LOG_QUERIES.put("过期日志清理",
+                "SELECT id FROM filter_logs WHERE created_at < ? LIMIT 500");
+    }
+
+    private final ShardRouter shardRouter;
+    private final DatabaseMaintenanceMapper databaseMaintenanceMapper;
+    private final BackupService backupService;
+
+    @Value("${maintenance.analysis-limit:1000}")
+    private int analysisLimit;
+
+    @Value("${maintenance.checkpoint.interval-ms:30000}")
+    private long checkpointIntervalMs;
+
+    @Value("${maintenance.checkpoint.passive-bytes:16777216}")
+    private long passiveBytes;
+
+    @Value("${maintenance.checkpoint.truncate-bytes:67108864}")
+    private long truncateBytes;
+
+    @Value("${maintenance.checkpoint.busy-timeout-ms:2000}")
+    private long checkpointBusyTimeoutMs;
+
+    private ScheduledExecutorService executor;
+
+    private final AtomicBoolean analyzing = new AtomicBoolean(false);
+    private volatile AnalyzeReport lastAnalyze;
+    private volatile LocalDateTime lastOptimizeAt;
+    private volatile long lastOptimizeDurationMs;
+    private final Map<String, String> lastPlans = new ConcurrentHashMap<>();
+    private final Deque<CheckpointRecord> checkpoints = new ArrayDeque<>();
+
+    public DatabaseMaintenanceService(ShardRouter shardRouter, DatabaseMaintenanceMapper databaseMaintenanceMapper,
+                                      BackupService backupService) {
+        this.shardRouter = shardRouter;
+        this.databaseMaintenanceMapper = databaseMaintenanceMapper;
+        this.backupService = backupService;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!databaseMaintenanceMapper.isSupported() || checkpointIntervalMs <= 0) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "db-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::checkpointQuietly, checkpointIntervalMs, checkpointIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Scheduled(cron = "${maintenance.analyze-cron:0 0 4 * * ?}")
+    public void scheduledAnalyze() {
+        runAnalyze();
+    }
+
+    @Scheduled(cron = "${maintenance.optimize-cron:0 15 * * * ?}")
+    public void scheduledOptimize() {
+        if (!databaseMaintenanceMapper.isSupported() || analyzing.get()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            for (JdbcTemplate database : shardRouter.databases().values()) {
+                databaseMaintenanceMapper.optimize(database);
+            }
+            lastOptimizeAt = LocalDateTime.now();
+            lastOptimizeDurationMs = System.currentTimeMillis() - start;
+        } catch (Exception e) {
+            logger.error("执行 PRAGMA optimize 失败", e);
+        }
+    }
+
+    /**
+     * 对所有库执行 ANALYZE 并记录查询计划的变化，已有任务在运行或数据库不支持时返回null
+     */
+    public AnalyzeReport runAnalyze() {
+        if (!databaseMaintenanceMapper.isSupported()) {
+            return null;
+        }
+        if (!analyzing.compareAndSet(false, true)) {
+            logger.info("ANALYZE 正在运行，跳过本次执行");
+            return null;
+        }
+        try {
+            AnalyzeReport report = new AnalyzeReport();
+            report.startedAt = LocalDateTime.now();
+            for (Map.Entry<String, JdbcTemplate> database : shardRouter.databases().entrySet()) {
+                JdbcTemplate target = database.getValue();
+                // 首次运行时没有上一次的计划，先记录分析前的计划
+                Map<String, String> before = capturePlans(database.getKey(), target);
+                long start = System.currentTimeMillis();
+                databaseMaintenanceMapper.analyze(target, analysisLimit);
+                report.durationsMs.put(database.getKey(), System.currentTimeMillis() - start);
+                Map<String, String> after = capturePlans(database.getKey(), target);
+                for (Map.Entry<String, String> plan : after.entrySet()) {
+                    String previous = lastPlans.getOrDefault(plan.getKey(), before.get(plan.getKey()));
+                    if (previous != null && !previous.equals(plan.getValue())) {
+                        report.planChanges.add(new PlanChange(plan.getKey(), previous, plan.getValue()));
+                        logger.info("查询计划发生变化 - {}:\n  之前: {}\n  之后: {}", plan.getKey(), previous, plan.getValue());
+                    }
+                }
+                lastPlans.putAll(after);
+            }
+            report.finishedAt = LocalDateTime.now();
+            lastAnalyze = report;
+            logger.info("ANALYZE 完成 - 耗时: {} ms, 查询计划变化: {}", report.durationsMs, report.planChanges.size());
+            return report;
+        } catch (Exception e) {
+            logger.error("ANALYZE 失败", e);
+            return null;
+        } finally {
+            analyzing.set(false);
+        }
+    }
+
+    /**
+     * 检查各库 WAL 大小并按阈值执行检查点
+     */
+    public void runCheckpoints() {
+        for (Map.Entry<String, JdbcTemplate> database : shardRouter.databases().entrySet()) {
+            JdbcTemplate target = database.getValue();
+            if (!"wal".equalsIgnoreCase(databaseMaintenanceMapper.getJournalMode(target))) {
+                continue;
+            }
+            File wal = new File(databaseMaintenanceMapper.getDatabaseFile(target) + "-wal");
+            long walBytes = wal.length();
+            String mode;
+            if (walBytes >= truncateBytes && !(database.getKey().equals("main") && backupService.getStatus().isEnabled())) {
+                mode = "TRUNCATE";
+            } else if (walBytes >= passiveBytes) {
+                mode = "PASSIVE";
+            } else {
+                continue;
+            }
+            long start = System.currentTimeMillis();
+            long[] result = databaseMaintenanceMapper.checkpoint(target, mode, checkpointBusyTimeoutMs);
+            CheckpointRecord record = new CheckpointRecord(database.getKey(), mode, walBytes, wal.length(),
+                    result[0] != 0, result[1], result[2], System.currentTimeMillis() - start);
+            synchronized (checkpoints) {
+                checkpoints.addFirst(record);
+                while (checkpoints.size() > MAX_CHECKPOINT_RECORDS) {
+                    checkpoints.removeLast();
+                }
+            }
+            logger.info("WAL 检查点 - 库: {}, 模式: {}, WAL: {} -> {} 字节, 帧: {}/{}, 冲突: {}, 耗时: {} ms",
+                    record.database, mode, walBytes, record.walBytesAfter, record.checkpointedFrames,
+                    record.logFrames, record.busy, record.durationMs);
+        }
+    }
+
+    public AnalyzeReport getLastAnalyze() {
+        return lastAnalyze;
+    }
+
+    public boolean isAnalyzing() {
+        return analyzing.get();
+    }
+
+    public LocalDateTime getLastOptimizeAt() {
+        return lastOptimizeAt;
+    }
+
+    public long getLastOptimizeDurationMs() {
+        return lastOptimizeDurationMs;
+    }
+
+    public List<CheckpointRecord> getRecentCheckpoints() {
+        synchronized (checkpoints) {
+            return new ArrayList<>(checkpoints);
+        }
+    }
+
+    /**
+     * 当前各库的 WAL 文件大小
+     */
+    public Map<String, Long> getWalSizes() {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        if (!databaseMaintenanceMapper.isSupported()) {
+            return sizes;
+        }
+        for (Map.Entry<String, JdbcTemplate> database : shardRouter.databases().entrySet()) {
+            sizes.put(database.getKey(),
+                    new File(databaseMaintenanceMapper.getDatabaseFile(database.getValue()) + "-wal").length());
+        }
+        return sizes;
+    }
+
+    private void checkpointQuietly() {
+        try {
+            runCheckpoints();
+        } catch (Exception e) {
+            logger.warn("WAL 检查点失败", e);
+        }
+    }
+
+    private Map<String, String> capturePlans(String database, JdbcTemplate target) {
+        Map<String, String> plans = new LinkedHashMap<>();
+        if (database.equals("main")) {
+            putPlans(plans, database, target, MAIN_QUERIES);
+        }
+        // 未开启分片时过滤日志在主库
+        if (!shardRouter.isEnabled() || !database.equals("main")) {
+            putPlans(plans, database, target, FILTER_LOG_QUERIES);
+        }
+        return plans;
+    }
+
+    private void putPlans(Map<String, String> plans, String database, JdbcTemplate target, Map<String, String> queries) {
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            String sql = query.getValue();
+            Object[] args = new Object[sql.length() - sql.replace("?", "").length()];
+            Arrays.fill(args, 1L);
+            plans.put(database + "/" + query.getKey(), databaseMaintenanceMapper.explainQueryPlan(target, sql, args));
+        }
+    }
+
+    /**
+     * 单次 ANALYZE 的结果
+     */
+    public static class AnalyzeReport {
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private final Map<String, Long> durationsMs = new LinkedHashMap<>();
+        private final List<PlanChange> planChanges = new ArrayList<>();
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        public Map<String, Long> getDurationsMs() {
+            return durationsMs;
+        }
+
+        public List<PlanChange> getPlanChanges() {
+            return planChanges;
+        }
+    }
+
+    public static class PlanChange {
+        private final String query;
+        private final String before;
+        private final String after;
+
+        public PlanChange(String query, String before, String after) {
+            this.query = query;
+            this.before = before;
+            this.after = after;
+        }
+
+        public String getQuery() {
+            return query;
+        }
+
+        public String getBefore() {
+            return before;
+        }
+
+        public String getAfter() {
+            return after;
+        }
+    }
+
+    public static class CheckpointRecord {
+        private final LocalDateTime at = LocalDateTime.now();
+        private final String database;
+        private final String mode;
+        private final long walBytesBefore;
+        private final long walBytesAfter;
+        private final boolean busy;
+        private final long logFrames;
+        private final long checkpointedFrames;
+        private final long durationMs;
+
+        public CheckpointRecord(String database, String mode, long walBytesBefore, long walBytesAfter, boolean busy,
+                                long logFrames, long checkpointedFrames, long durationMs) {
+            this.database = database;
+            this.mode = mode;
+            this.walBytesBefore = walBytesBefore;
+            this.walBytesAfter = walBytesAfter;
+            this.busy = busy;
+            this.logFrames = logFrames;
+            this.checkpointedFrames = checkpointedFrames;
+            this.durationMs = durationMs;
+        }
+
+        public LocalDateTime getAt() {
+            return at;
+        }
+
+        public String getDatabase() {
+            return database;
+        }
+
+        public String getMode() {
+            return mode;
+        }
+
+        public long getWalBytesBefore() {
+            return walBytesBefore;
+        }
+
+        public long getWalBytesAfter() {
+            return walBytesAfter;
+        }
+
+        public boolean isBusy() {
+            return busy;
+        }
+
+        public long getLogFrames() {
+            return logFrames;
+        }
+
+        public long getCheckpointedFrames() {
+            return checkpointedFrames;
+        }
+
+        public long getDurationMs() {
+            return durationMs;
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.rssai.service;
 
 import com.rssai.config.MailConfig;
 import com.rssai.config.TimezoneConfig;
+import com.rssai.constant.RssConstants;
 import com.rssai.model.RssItem;
 import com.rssai.util.HtmlUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
@@ -26,6 +28,8 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class EmailService {
@@ -36,6 +40,8 @@ public class EmailService {
     private final SystemConfigService systemConfigService;
     private final MailConfig mailConfig;
     private final TimezoneConfig timezoneConfig;
+    private final AsyncRetryService asyncRetryService;
+    private final Executor emailExecutor;
 
     @Value("${email.max-items:50}")
     private int maxItems;
@@ -44,12 +50,16 @@ public class EmailService {
                         TemplateEngine templateEngine,
                         SystemConfigService systemConfigService,
                         MailConfig mailConfig,
-                        TimezoneConfig timezoneConfig) {
+                        TimezoneConfig timezoneConfig,
+                        AsyncRetryService asyncRetryService,
+                        @Qualifier("emailExecutor") Executor emailExecutor) {
         this.mailSender = mailSender;
         this.templateEngine = templateEngine;
         this.systemConfigService = systemConfigService;
         this.mailConfig = mailConfig;
         this.timezoneConfig = timezoneConfig;
+        this.asyncRetryService = asyncRetryService;
+        this.emailExecutor = emailExecutor;
     }
 
     private String getFromEmail() {
@@ -68,6 +78,18 @@ public class EmailService {
         mailConfig.updateMailSenderConfig((JavaMailSenderImpl) mailSender);
     }
 
+    /**
+     * 发送通知邮件，失败时异步重试，等待重试期间不占用邮件线程
+     * @param operationName 操作名称，同类邮件共用重试预算
+     * @return 是否发送成功
+     */
+    private CompletableFuture<Boolean> sendWithRetry(MimeMessage message, String operationName) {
+        return asyncRetryService.executeWithRetry(() -> {
+            mailSender.send(message);
+            return true;
+        }, emailExecutor, RssConstants.MAX_RETRY_ATTEMPTS, operationName, false);
+    }
+
     /**
      * 获取当前时区的 LocalDateTime
      */
@@ -117,8 +139,13 @@ public class EmailService {
             String htmlContent = templateEngine.process("email-digest", context);
             helper.setText(htmlContent, true);
 
-            mailSender.send(message);
-            logger.info("成功发送每日摘要邮件给 {}，共{}条RSS", toEmail, items.size());
+            sendWithRetry(message, "发送每日摘要邮件").thenAccept(sent -> {
+                if (sent) {
+                    logger.info("成功发送每日摘要邮件给 {}，共{}条RSS", toEmail, items.size());
+                } else {
+                    logger.error("发送邮件失败给 {}", toEmail);
+                }
+            });
         } catch (MessagingException e) {
             logger.error("发送邮件失败给 {}", toEmail, e);
         }
@@ -206,8 +233,13 @@ public class EmailService {
             String htmlContent = templateEngine.process("email-keyword-match", context);
             helper.setText(htmlContent, true);
 
-            mailSender.send(message);
-            logger.info("成功发送关键词匹配提醒邮件给 {}，关键词: {}, 共{}条RSS", toEmail, keywords, items.size());
+            sendWithRetry(message, "发送关键词提醒邮件").thenAccept(sent -> {
+                if (sent) {
+                    logger.info("成功发送关键词匹配提醒邮件给 {}，关键词: {}, 共{}条RSS", toEmail, keywords, items.size());
+                } else {
+                    logger.error("发送关键词提醒邮件失败给 {}", toEmail);
+                }
+            });
         } catch (MessagingException e) {
             logger.error("发送关键词提醒邮件失败给 {}", toEmail, e);
         }
@@ -291,8 +323,13 @@ public class EmailService {
             String htmlContent = templateEngine.process("email-ai-service-alert", context);
             helper.setText(htmlContent, true);
 
-            mailSender.send(message);
-            logger.info("[EmailService] AI服务异常告警邮件发送成功，目标邮箱: {}", toEmail);
+            sendWithRetry(message, "发送AI服务异常告警邮件").thenAccept(sent -> {
+                if (sent) {
+                    logger.info("[EmailService] AI服务异常告警邮件发送成功，目标邮箱: {}", toEmail);
+                } else {
+                    logger.error("[EmailService] 发送AI服务异常告警邮件失败，目标邮箱: {}", toEmail);
+                }
+            });
         } catch (MessagingException e) {
             logger.error("[EmailService] 发送AI服务异常告警邮件失败，目标邮箱: {}", toEmail, e);
         }
@@ -347,8 +384,13 @@ public class EmailService {
             String htmlContent = templateEngine.process("email-ai-service-recovery", context);
             helper.setText(htmlContent, true);
 
-            mailSender.send(message);
-            logger.info("[EmailService] AI服务恢复通知邮件发送成功，目标邮箱: {}", toEmail);
+            sendWithRetry(message, "发送AI服务恢复通知邮件").thenAccept(sent -> {
+                if (sent) {
+                    logger.info("[EmailService] AI服务恢复通知邮件发送成功，目标邮箱: {}", toEmail);
+                } else {
+                    logger.error("[EmailService] 发送AI服务恢复通知邮件失败，目标邮箱: {}", toEmail);
+                }
+            });
         } catch (MessagingException e) {
             logger.error("[EmailService] 发送AI服务恢复通知邮件失败，目标邮箱: {}", toEmail, e);
         }
@@ -404,8 +446,13 @@ public class EmailService {
             String htmlContent = templateEngine.process("email-special-attention", context);
             helper.setText(htmlContent, true);
 
-            mailSender.send(message);
-            logger.info("成功发送特别关注通知邮件给 {}，RSS源: {}, 共{}篇文章", toEmail, sourceName, items.size());
+            sendWithRetry(message, "发送特别关注通知邮件").thenAccept(sent -> {
+                if (sent) {
+                    logger.info("成功发送特别关注通知邮件给 {}，RSS源: {}, 共{}篇文章", toEmail, sourceName, items.size());
+                } else {
+                    logger.error("发送特别关注通知邮件失败给 {}", toEmail);
+                }
+            });
         } catch (MessagingException e) {
             logger.error("发送特别关注通知邮件失败给 {}", toEmail, e);
         }
@@ -1,21 +1,33 @@
 package com.rssai.service;
 
+import com.rssai.constant.RssConstants;
+import com.rssai.dto.FilterLogQuery;
 import com.rssai.mapper.FilterLogMapper;
 import com.rssai.model.FilterLog;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.rssai.util.FtsQueryUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Service
 public class FilterLogService {
+    private static final Logger logger = LoggerFactory.getLogger(FilterLogService.class);
+
     private final FilterLogMapper filterLogMapper;
-    
+
+    private final AtomicBoolean backfilling = new AtomicBoolean(false);
+    private volatile long backfillCursor = 0;
+
     public FilterLogService(FilterLogMapper filterLogMapper) {
         this.filterLogMapper = filterLogMapper;
     }
 
-    public void saveFilterLog(Long userId, Long rssItemId, String title, String link, 
+    public void saveFilterLog(Long userId, Long rssItemId, String title, String link,
                              Boolean aiFiltered, String aiReason, String aiRawResponse, String sourceName) {
         FilterLog log = new FilterLog();
         log.setUserId(userId);
@@ -26,7 +38,15 @@ public class FilterLogService {
         log.setAiReason(aiReason);
         log.setAiRawResponse(aiRawResponse);
         log.setSourceName(sourceName);
-        filterLogMapper.insert(log);
+        saveFilterLog(log, System.currentTimeMillis());
+    }
+
+    /**
+     * 按指定的创建时间保存日志并写入全文索引
+     */
+    public void saveFilterLog(FilterLog log, long createdAt) {
+        filterLogMapper.insert(log, createdAt);
+        index(log);
     }
 
     public List<FilterLog> getUserFilterLogs(Long userId) {
@@ -48,4 +68,146 @@ public class FilterLogService {
     public void deleteOldLogs(Long userId, int daysToKeep) {
         filterLogMapper.deleteOldLogs(userId, daysToKeep);
     }
+
+    /**
+     * 按筛选结果、来源、关键词的任意组合查询日志
+     * @param cursor 上一页返回的游标，为空表示第一页；只有第一页会统计总数
+     */
+    public LogPage queryLogs(Long userId, Boolean filtered, String sourceName, String keyword,
+                             String cursor, int pageSize) {
+        int size = Math.min(Math.max(pageSize, 1), RssConstants.FILTER_LOG_MAX_PAGE_SIZE);
+        FilterLogQuery query = new FilterLogQuery();
+        query.setUserId(userId);
+        query.setFiltered(filtered);
+        query.setSourceName(sourceName);
+        List<String> terms = FtsQueryUtils.splitTerms(keyword);
+        if (filterLogMapper.supportsFullTextSearch() && FtsQueryUtils.isTrigramSearchable(terms)) {
+            query.setMatchExpression(FtsQueryUtils.buildMatchExpression(terms));
+        } else {
+            List<String> patterns = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                patterns.add(FtsQueryUtils.toLikePattern(term));
+            }
+            query.setLikePatterns(patterns);
+        }
+        query.setBeforeId(decodeCursor(cursor));
+
+        Integer total = null;
+        boolean totalApproximate = false;
+        if (query.getBeforeId() == null) {
+            int count = filterLogMapper.countByQuery(query, RssConstants.FILTER_LOG_COUNT_CAP);
+            totalApproximate = count > RssConstants.FILTER_LOG_COUNT_CAP;
+            total = Math.min(count, RssConstants.FILTER_LOG_COUNT_CAP);
+        }
+
+        // 多取一条用于判断是否还有下一页
+        query.setLimit(size + 1);
+        List<FilterLog> logs = filterLogMapper.findByQuery(query);
+        String nextCursor = null;
+        if (logs.size() > size) {
+            logs = new ArrayList<>(logs.subList(0, size));
+            nextCursor = String.valueOf(logs.get(logs.size() - 1).getId());
+        }
+        return new LogPage(logs, nextCursor, total, totalApproximate);
+    }
+
+    /**
+     * 写入全文索引，失败只记录日志，由后台回填补齐
+     */
+    private void index(FilterLog log) {
+        if (log.getId() == null) {
+            return;
+        }
+        try {
+            filterLogMapper.index(log.getId(), log.getTitle(), log.getAiReason(), truncate(log.getAiRawResponse()));
+        } catch (Exception e) {
+            logger.warn("写入过滤日志全文索引失败 - 日志ID: {}", log.getId(), e);
+        }
+    }
+
+    /**
+     * 后台为历史日志回填全文索引
+     */
+    @Scheduled(initialDelay = 45000, fixedDelay = 3600000)
+    public void backfill() {
+        if (!backfilling.compareAndSet(false, true)) {
+            return;
+        }
+        long indexed = 0;
+        try {
+            while (true) {
+                List<FilterLog> logs = filterLogMapper.findUnindexedAfterId(backfillCursor, RssConstants.SEARCH_BACKFILL_CHUNK_SIZE);
+                if (logs.isEmpty()) {
+                    break;
+                }
+                for (FilterLog log : logs) {
+                    filterLogMapper.index(log.getId(), log.getTitle(), log.getAiReason(), truncate(log.getAiRawResponse()));
+                    backfillCursor = log.getId();
+                    indexed++;
+                }
+            }
+            if (indexed > 0) {
+                logger.info("过滤日志全文索引回填完成，共 {} 条", indexed);
+            }
+        } catch (Exception e) {
+            logger.error("过滤日志全文索引回填失败，已处理 {} 条", indexed, e);
+        } finally {
+            backfilling.set(false);
+        }
+    }
+
+    private String truncate(String text) {
+        if (text != null && text.length() > RssConstants.SEARCH_MAX_BODY_LENGTH) {
+            return text.substring(0, RssConstants.SEARCH_MAX_BODY_LENGTH);
+        }
+        return text;
+    }
+
+    private Long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(cursor);
+        } catch (NumberFormatException e) {
+            logger.debug("无效的日志游标: {}", cursor);
+            return null;
+        }
+    }
+
+    /**
+     * 日志分页结果
+     */
+    public static class LogPage {
+        private final List<FilterLog> logs;
+        private final String nextCursor;
+        private final Integer total;
+        private final boolean totalApproximate;
+
+        public LogPage(List<FilterLog> logs, String nextCursor, Integer total, boolean totalApproximate) {
+            this.logs = logs;
+            this.nextCursor = nextCursor;
+            this.total = total;
+            this.totalApproximate = totalApproximate;
+        }
+
+        public List<FilterLog> getLogs() {
+            return logs;
+        }
+
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        /**
+         * 符合条件的日志数，超过上限时为上限值；非第一页为 null
+         */
+        public Integer getTotal() {
+            return total;
+        }
+
+        public boolean isTotalApproximate() {
+            return totalApproximate;
+        }
+    }
 }
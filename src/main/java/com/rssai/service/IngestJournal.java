@@ -0,0 +1,638 @@
+package com.rssai.service;
+
+import com.rssai.config.ShardRouter;
+import com.rssai.mapper.IngestJournalStateMapper;
+import com.rssai.mapper.RssItemMapper;
+import com.rssai.model.FilterLog;
+import com.rssai.model.RssItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 入库日志（追加写）
+ * <p>
+ * 抓取流程得到的AI筛选结果（条目筛选状态 + 过滤日志）先追加到日志文件，与同时到达的其他写入合并 fsync 后即返回，
+ * 抓取线程不再等待 SQLite 写锁。后台线程按顺序读取已落盘的记录，按目标库（主库、各分片）分组，每个库一个事务写入，
+ * 并在同一事务中记录该库已应用到的日志位置：
+ * <ul>
+ *     <li>启动时截掉末尾不完整的记录，从头重放日志，跳过各库已应用的部分，崩溃后既不丢失也不重复写入</li>
+ *     <li>所有记录应用完成且文件超过阈值时清空文件，逻辑位置从文件头记录的起点继续递增</li>
+ *     <li>已落盘部分中校验失败的记录连同逻辑位置转存到同目录的 .corrupt 文件后跳过，不阻塞之后的记录</li>
+ * </ul>
+ * 文件格式：文件头为魔数和起始逻辑位置；每条记录为长度、CRC32 和内容。
+ * 未开启时筛选结果直接按同样的分组和事务写入数据库。
+ */
+@Service
+public class IngestJournal {
+    private static final Logger logger = LoggerFactory.getLogger(IngestJournal.class);
+
+    private static final int MAGIC = 0x524A4E31;
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+    private static final String STATE_NAME = "ingest";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final RssItemMapper rssItemMapper;
+    private final FilterLogService filterLogService;
+    private final IngestJournalStateMapper ingestJournalStateMapper;
+
+    @Value("${ingest.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ingest.journal.path:data/journal/ingest.journal}")
+    private String path;
+
+    @Value("${ingest.journal.apply-interval-ms:1000}")
+    private long applyIntervalMs;
+
+    @Value("${ingest.journal.apply-batch-size:500}")
+    private int applyBatchSize;
+
+    @Value("${ingest.journal.reset-bytes:1048576}")
+    private long resetBytes;
+
+    private final Map<DataSource, TransactionTemplate> transactionTemplates = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private ScheduledExecutorService executor;
+
+    /**
+     * 文件开头对应的逻辑位置
+     */
+    private volatile long base;
+    /**
+     * 已写入和已落盘的文件位置，写入在 writeLock 下推进，落盘在 syncLock 下推进
+     */
+    private volatile long writtenPosition;
+    private volatile long syncedPosition;
+    /**
+     * 已应用到数据库的文件位置，只在应用线程中访问
+     */
+    private long appliedPosition;
+
+    public IngestJournal(JdbcTemplate jdbcTemplate, ShardRouter shardRouter, RssItemMapper rssItemMapper,
+                         FilterLogService filterLogService, IngestJournalStateMapper ingestJournalStateMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.rssItemMapper = rssItemMapper;
+        this.filterLogService = filterLogService;
+        this.ingestJournalStateMapper = ingestJournalStateMapper;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path file = Paths.get(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        recover();
+        appliedPosition = HEADER_SIZE;
+        applyPending();
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ingest-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::applyQuietly, applyIntervalMs, applyIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("入库日志已开启 - 文件: {}, 应用间隔: {} ms", file.toAbsolutePath(), applyIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                // 退出前把剩余的记录写入数据库，未写入的部分在下次启动时重放
+                applyPending();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("退出前应用入库日志失败，将在下次启动时重放", e);
+        } finally {
+            closeChannel();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 记录一批筛选结果
+     * 开启时追加到日志文件并等待落盘后返回，稍后由后台线程写入数据库；未开启时直接写入数据库
+     */
+    public void append(List<Verdict> verdicts) {
+        if (verdicts == null || verdicts.isEmpty()) {
+            return;
+        }
+        if (!enabled) {
+            List<Entry> entries = new ArrayList<>(verdicts.size());
+            for (Verdict verdict : verdicts) {
+                entries.add(new Entry(0, verdict));
+            }
+            writeToDatabase(entries, false);
+            return;
+        }
+        try {
+            ByteBuffer buffer = encode(verdicts);
+            long end;
+            synchronized (writeLock) {
+                long position = writtenPosition;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                writtenPosition = position;
+                end = position;
+            }
+            sync(end);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入入库日志失败", e);
+        }
+    }
+
+    /**
+     * 合并落盘：等待锁期间其他线程追加的记录由同一次 fsync 一并落盘
+     */
+    private void sync(long end) throws IOException {
+        synchronized (syncLock) {
+            if (syncedPosition >= end) {
+                return;
+            }
+            long target = writtenPosition;
+            channel.force(false);
+            syncedPosition = target;
+        }
+    }
+
+    /**
+     * 打开日志时读取文件头并截掉末尾不完整的记录
+     */
+    private void recover() throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size < HEADER_SIZE || readFully(header, 0) < HEADER_SIZE || header.getInt(0) != MAGIC) {
+            // 新文件，或清空后未写完文件头：之前的记录都已应用，从各库记录的最大位置继续
+            resetFile(maxAppliedOffset());
+            return;
+        }
+        base = header.getLong(4);
+        long position = HEADER_SIZE;
+        int records = 0;
+        while (true) {
+            Record record = readRecord(position, size);
+            if (record == null) {
+                break;
+            }
+            if (record.verdicts == null) {
+                // 长度完整但内容校验失败，保留在文件中，应用时转存并跳过
+                logger.warn("入库日志记录校验失败，逻辑位置: {}", base + position);
+            }
+            position = record.end;
+            records++;
+        }
+        if (position < size) {
+            logger.warn("入库日志末尾有 {} 字节不完整的记录，已截断", size - position);
+            channel.truncate(position);
+            channel.force(false);
+        }
+        writtenPosition = position;
+        syncedPosition = position;
+        if (records > 0) {
+            logger.info("入库日志中有 {} 条记录，开始重放未应用的部分", records);
+        }
+    }
+
+    private void resetFile(long newBase) throws IOException {
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putLong(newBase).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        channel.force(false);
+        base = newBase;
+        writtenPosition = HEADER_SIZE;
+        syncedPosition = HEADER_SIZE;
+        appliedPosition = HEADER_SIZE;
+    }
+
+    private void applyQuietly() {
+        try {
+            applyPending();
+        } catch (Exception e) {
+            logger.error("应用入库日志失败，稍后重试", e);
+        }
+    }
+
+    /**
+     * 把已落盘但未应用的记录分批写入数据库，全部应用后按阈值清空文件
+     */
+    void applyPending() throws IOException {
+        long end = syncedPosition;
+        while (appliedPosition < end) {
+            List<Entry> batch = new ArrayList<>();
+            long position = appliedPosition;
+            while (position < end && batch.size() < applyBatchSize) {
+                Record record = readRecord(position, end);
+                if (record == null) {
+                    // 记录头损坏，无法定位下一条记录；已落盘部分的末尾总是记录边界，跳到末尾继续
+                    quarantine(position, end);
+                    position = end;
+                    break;
+                }
+                if (record.verdicts == null) {
+                    quarantine(position, record.end);
+                    position = record.end;
+                    continue;
+                }
+                for (Verdict verdict : record.verdicts) {
+                    batch.add(new Entry(base + record.end, verdict));
+                }
+                position = record.end;
+            }
+            writeToDatabase(batch, true);
+            appliedPosition = position;
+        }
+        synchronized (writeLock) {
+            if (appliedPosition == writtenPosition && writtenPosition - HEADER_SIZE >= resetBytes) {
+                resetFile(base + writtenPosition - HEADER_SIZE);
+            }
+        }
+    }
+
+    /**
+     * 把损坏的记录转存到 .corrupt 文件后跳过，每段为逻辑位置、长度和原始字节
+     * 转存失败时只记录日志，仍然跳过，损坏的记录不能让之后的记录一直无法写入
+     */
+    private void quarantine(long position, long end) {
+        Path file = Paths.get(path + ".corrupt");
+        logger.error("入库日志记录损坏，已跳过 - 逻辑位置: {}, 长度: {} 字节, 转存到: {}",
+                base + position, end - position, file.toAbsolutePath());
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer header = ByteBuffer.allocate(12);
+            header.putLong(base + position).putInt((int) (end - position)).flip();
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            long copied = 0;
+            while (copied < end - position) {
+                copied += channel.transferTo(position + copied, end - position - copied, out);
+            }
+            out.force(false);
+        } catch (IOException e) {
+            logger.error("转存损坏的入库日志记录失败，逻辑位置: {}", base + position, e);
+        }
+    }
+
+    /**
+     * 按目标库分组写入：条目筛选状态写主库，过滤日志写用户所在的库，每个库一个事务
+     * 日志模式下跳过该库已应用的记录，并在同一事务中更新应用位置
+     */
+    private void writeToDatabase(List<Entry> entries, boolean journaled) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        Map<JdbcTemplate, List<Entry>> logsByTarget = new LinkedHashMap<>();
+        logsByTarget.put(jdbcTemplate, new ArrayList<>());
+        for (Entry entry : entries) {
+            logsByTarget.computeIfAbsent(shardRouter.forUser(entry.verdict.getUserId()), k -> new ArrayList<>()).add(entry);
+        }
+        long lastOffset = entries.get(entries.size() - 1).offset;
+        for (Map.Entry<JdbcTemplate, List<Entry>> group : logsByTarget.entrySet()) {
+            JdbcTemplate target = group.getKey();
+            // 应用位置只由应用线程写入，在事务外读取，事务的第一条语句即为写入，直接等待写锁
+            long applied = journaled ? ingestJournalStateMapper.findAppliedOffset(target, STATE_NAME) : -1;
+            transactionTemplate(target).execute(status -> {
+                if (target == jdbcTemplate) {
+                    List<RssItem> items = new ArrayList<>();
+                    for (Entry entry : entries) {
+                        if (entry.offset > applied) {
+                            items.add(entry.verdict.toRssItem());
+                        }
+                    }
+                    rssItemMapper.batchUpdateVerdicts(items);
+                }
+                for (Entry entry : group.getValue()) {
+                    if (entry.offset > applied) {
+                        filterLogService.saveFilterLog(entry.verdict.toFilterLog(), entry.verdict.getCreatedAt());
+                    }
+                }
+                if (journaled && lastOffset > applied) {
+                    ingestJournalStateMapper.saveAppliedOffset(target, STATE_NAME, lastOffset);
+                }
+                return null;
+            });
+        }
+    }
+
+    private TransactionTemplate transactionTemplate(JdbcTemplate target) {
+        return transactionTemplates.computeIfAbsent(target.getDataSource(),
+                dataSource -> new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+    }
+
+    private long maxAppliedOffset() {
+        long max = ingestJournalStateMapper.findAppliedOffset(jdbcTemplate, STATE_NAME);
+        for (JdbcTemplate shard : shardRouter.all()) {
+            max = Math.max(max, ingestJournalStateMapper.findAppliedOffset(shard, STATE_NAME));
+        }
+        return max;
+    }
+
+    /**
+     * 读取 position 处的记录，记录不完整或长度无效时返回 null；
+     * 长度有效但校验失败或无法解码时返回 verdicts 为 null 的记录，调用方可以据此跳过
+     */
+    private Record readRecord(long position, long limit) throws IOException {
+        if (position + RECORD_HEADER_SIZE > limit) {
+            return null;
+        }
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        if (readFully(header, position) < RECORD_HEADER_SIZE) {
+            return null;
+        }
+        int length = header.getInt(0);
+        int checksum = header.getInt(4);
+        if (length <= 0 || length > MAX_RECORD_SIZE || position + RECORD_HEADER_SIZE + length > limit) {
+            return null;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        if (readFully(payload, position + RECORD_HEADER_SIZE) < length) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, length);
+        long end = position + RECORD_HEADER_SIZE + length;
+        if ((int) crc.getValue() != checksum) {
+            return new Record(null, end);
+        }
+        try {
+            return new Record(decode(payload.array()), end);
+        } catch (IOException e) {
+            return new Record(null, end);
+        }
+    }
+
+    private int readFully(ByteBuffer buffer, long position) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            logger.warn("关闭入库日志文件失败", e);
+        }
+    }
+
+    private static ByteBuffer encode(List<Verdict> verdicts) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(verdicts.size());
+        for (Verdict verdict : verdicts) {
+            out.writeLong(verdict.getItemId());
+            out.writeLong(verdict.getUserId());
+            out.writeBoolean(verdict.isFiltered());
+            out.writeBoolean(verdict.isNeedsRetry());
+            out.writeLong(verdict.getCreatedAt());
+            writeString(out, verdict.getItemReason());
+            writeString(out, verdict.getLogReason());
+            writeString(out, verdict.getTitle());
+            writeString(out, verdict.getLink());
+            writeString(out, verdict.getRawResponse());
+            writeString(out, verdict.getSourceName());
+        }
+        out.flush();
+        byte[] payload = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length);
+        buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        return buffer;
+    }
+
+    private static List<Verdict> decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        int count = in.readInt();
+        List<Verdict> verdicts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long itemId = in.readLong();
+            long userId = in.readLong();
+            boolean filtered = in.readBoolean();
+            boolean needsRetry = in.readBoolean();
+            long createdAt = in.readLong();
+            verdicts.add(new Verdict(itemId, userId, filtered, needsRetry, readString(in), readString(in),
+                    readString(in), readString(in), readString(in), readString(in), createdAt));
+        }
+        return verdicts;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Record {
+        /**
+         * 记录损坏时为 null
+         */
+        private final List<Verdict> verdicts;
+        private final long end;
+
+        Record(List<Verdict> verdicts, long end) {
+            this.verdicts = verdicts;
+            this.end = end;
+        }
+    }
+
+    /**
+     * 带逻辑位置的筛选结果，同一条日志记录中的结果共用记录末尾的位置
+     */
+    private static final class Entry {
+        private final long offset;
+        private final Verdict verdict;
+
+        Entry(long offset, Verdict verdict) {
+            this.offset = offset;
+            this.verdict = verdict;
+        }
+    }
+
+    /**
+     * 一条AI筛选结果：更新条目的筛选状态，并写入一条过滤日志
+     */
+    public static class Verdict {
+        private final long itemId;
+        private final long userId;
+        private final boolean filtered;
+        private final boolean needsRetry;
+        private final String itemReason;
+        private final String logReason;
+        private final String title;
+        private final String link;
+        private final String rawResponse;
+        private final String sourceName;
+        private final long createdAt;
+
+        /**
+         * @param itemReason 写入条目的筛选原因
+         * @param logReason  写入过滤日志的原因，可以带有额外说明
+         */
+        public Verdict(long itemId, long userId, boolean filtered, boolean needsRetry, String itemReason,
+                       String logReason, String title, String link, String rawResponse, String sourceName) {
+            this(itemId, userId, filtered, needsRetry, itemReason, logReason, title, link, rawResponse, sourceName,
+                    System.currentTimeMillis());
+        }
+
+        private Verdict(long itemId, long userId, boolean filtered, boolean needsRetry, String itemReason,
+                        String logReason, String title, String link, String rawResponse, String sourceName,
+                        long createdAt) {
+            this.itemId = itemId;
+            this.userId = userId;
+            this.filtered = filtered;
+            this.needsRetry = needsRetry;
+            this.itemReason = itemReason;
+            this.logReason = logReason;
+            this.title = title;
+            this.link = link;
+            this.rawResponse = rawResponse;
+            this.sourceName = sourceName;
+            this.createdAt = createdAt;
+        }
+
+        public long getItemId() {
+            return itemId;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public boolean isFiltered() {
+            return filtered;
+        }
+
+        public boolean isNeedsRetry() {
+            return needsRetry;
+        }
+
+        public String getItemReason() {
+            return itemReason;
+        }
+
+        public String getLogReason() {
+            return logReason;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public String getLink() {
+            return link;
+        }
+
+        public String getRawResponse() {
+            return rawResponse;
+        }
+
+        public String getSourceName() {
+            return sourceName;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        private RssItem toRssItem() {
+            RssItem item = new RssItem();
+            item.setId(itemId);
+            item.setAiFiltered(filtered);
+            item.setAiReason(itemReason);
+            item.setNeedsRetry(needsRetry);
+            return item;
+        }
+
+        private FilterLog toFilterLog() {
+            FilterLog log = new FilterLog();
+            log.setUserId(userId);
+            log.setRssItemId(itemId);
+            log.setTitle(title);
+            log.setLink(link);
+            log.setAiFiltered(filtered);
+            log.setAiReason(logReason);
+            log.setAiRawResponse(rawResponse);
+            log.setSourceName(sourceName);
+            return log;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.rssai.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.rssai.constant.RssConstants;
+import com.rssai.dto.RssItemListDTO;
+import com.rssai.mapper.RssItemMapper;
+import com.rssai.mapper.UserReadStateMapper;
+import com.rssai.model.UserReadState;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 已读状态服务
+ * 每个用户的已读条目ID保存为一个压缩位图（Roaring Bitmap），
+ * 持久化为 user_read_states 表中的一行BLOB，并在内存中缓存。
+ * 默认标记已读只修改内存位图，由定时任务按 read-state.flush-interval-ms 合并写入，连续点击只写一次BLOB；
+ * 正常关闭时会写出，但进程崩溃或被强制结束时会丢失最近一个间隔内的标记（条目重新显示为未读）。
+ * 开启 read-state.sync-write 后每次标记都在返回前写入数据库，不会丢失，代价是每次点击重写一次整个BLOB。
+ * 旧的 user_read_items 表仅作为首次加载时的迁移来源。
+ */
+@Service
+public class ReadStateService {
+    private static final Logger logger = LoggerFactory.getLogger(ReadStateService.class);
+
+    /**
+     * 位图只能保存32位无符号整数
+     */
+    private static final long MAX_ITEM_ID = 0xFFFFFFFFL;
+
+    private final UserReadStateMapper userReadStateMapper;
+    private final RssItemMapper rssItemMapper;
+    private final Cache<Long, ReadState> readStateCache;
+
+    /**
+     * 尚未写入数据库的已读状态，缓存淘汰后仍从这里写出和加载
+     */
+    private final Map<Long, ReadState> pendingWrites = new ConcurrentHashMap<>();
+
+    @Value("${read-state.sync-write:false}")
+    private boolean syncWrite;
+
+    public ReadStateService(UserReadStateMapper userReadStateMapper,
+                            RssItemMapper rssItemMapper,
+                            Cache<Long, ReadState> readStateCache) {
+        this.userReadStateMapper = userReadStateMapper;
+        this.rssItemMapper = rssItemMapper;
+        this.readStateCache = readStateCache;
+    }
+
+    /**
+     * 标记条目为已读
+     * 未开启同步写入时只修改内存位图，最多 read-state.flush-interval-ms 后落库
+     * @return 是否为新标记的已读条目
+     */
+    public boolean markAsRead(Long userId, Long rssItemId) {
+        if (rssItemId == null || rssItemId < 0 || rssItemId > MAX_ITEM_ID) {
+            logger.warn("无效的条目ID，跳过标记已读 - 用户: {}, 条目: {}", userId, rssItemId);
+            return false;
+        }
+
+        ReadState state = getState(userId);
+        synchronized (state) {
+            if (!state.bitmap.checkedAdd((int) rssItemId.longValue())) {
+                return false;
+            }
+            state.version++;
+            state.recordDelta(rssItemId);
+            if (syncWrite) {
+                try {
+                    userReadStateMapper.upsert(userId, serialize(state.bitmap), state.version);
+                    return true;
+                } catch (Exception e) {
+                    logger.error("写入用户 {} 的已读位图失败，稍后重试", userId, e);
+                }
+            }
+        }
+        pendingWrites.put(userId, state);
+        return true;
+    }
+
+    /**
+     * 写出有变更的已读位图，同一用户在间隔内的多次标记合并为一次写入
+     */
+    @Scheduled(fixedDelayString = "${read-state.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flushPendingWrites() {
+        for (Map.Entry<Long, ReadState> entry : pendingWrites.entrySet()) {
+            Long userId = entry.getKey();
+            ReadState state = entry.getValue();
+            if (!pendingWrites.remove(userId, state)) {
+                continue;
+            }
+            try {
+                synchronized (state) {
+                    // 在锁内写入，保证落库顺序与版本号一致
+                    userReadStateMapper.upsert(userId, serialize(state.bitmap), state.version);
+                }
+            } catch (Exception e) {
+                logger.error("写入用户 {} 的已读位图失败，稍后重试", userId, e);
+                pendingWrites.putIfAbsent(userId, state);
+            }
+        }
+    }
+
+    /**
+     * 判断条目是否已读
+     */
+    public boolean isRead(Long userId, Long rssItemId) {
+        if (rssItemId == null || rssItemId < 0 || rssItemId > MAX_ITEM_ID) {
+            return false;
+        }
+        ReadState state = getState(userId);
+        synchronized (state) {
+            return state.bitmap.contains((int) rssItemId.longValue());
+        }
+    }
+
+    /**
+     * 获取客户端同步所需的已读状态
+     * 如果客户端版本仍在增量日志范围内，只返回增量条目ID；否则返回完整的序列化位图
+     *
+     * @param userId 用户ID
+     * @param sinceVersion 客户端已持有的版本号，为空表示需要完整位图
+     */
+    public ReadStateSnapshot getSnapshot(Long userId, Long sinceVersion) {
+        ReadState state = getState(userId);
+        synchronized (state) {
+            if (sinceVersion != null && sinceVersion >= 0 && sinceVersion <= state.version) {
+                List<Long> delta = state.deltaSince(sinceVersion);
+                if (delta != null) {
+                    return new ReadStateSnapshot(state.version, null, delta);
+                }
+            }
+            return new ReadStateSnapshot(state.version, serialize(state.bitmap), null);
+        }
+    }
+
+    /**
+     * 按已读状态分页查询用户通过筛选的条目
+     * 总数是精确值：读取用户通过筛选的条目ID（只读ID列），与已读位图求交集得到已读数量，未读数量为两者之差。
+     * 分页交给数据库按发布时间倒序 LIMIT/OFFSET，只把匹配集合与排除集合中较小的一个作为ID列表传入，
+     * 与不过滤时的分页查询代价相同
+     *
+     * @param isRead 为空表示不过滤，true只返回已读，false只返回未读
+     */
+    public ItemPage findFilteredItems(Long userId, int page, int pageSize, Boolean isRead) {
+        int offset = Math.max(page - 1, 0) * pageSize;
+
+        if (isRead == null) {
+            List<RssItemListDTO> items = rssItemMapper.findFilteredByUserIdWithPagination(userId, page, pageSize);
+            applyReadFlags(userId, items);
+            return new ItemPage(items, rssItemMapper.countFilteredByUserId(userId));
+        }
+
+        RoaringBitmap filteredIds = rssItemMapper.findFilteredIdBitmap(userId);
+        RoaringBitmap readIds;
+        ReadState state = getState(userId);
+        synchronized (state) {
+            readIds = RoaringBitmap.and(state.bitmap, filteredIds);
+        }
+        RoaringBitmap matched = isRead ? readIds : RoaringBitmap.andNot(filteredIds, readIds);
+        RoaringBitmap excluded = isRead ? RoaringBitmap.andNot(filteredIds, readIds) : readIds;
+
+        int total = matched.getCardinality();
+        if (offset >= total) {
+            return new ItemPage(new ArrayList<>(), total);
+        }
+        boolean exclude = excluded.getCardinality() < total;
+        List<RssItemListDTO> items = rssItemMapper.findFilteredPageByIds(
+                userId, toJsonArray(exclude ? excluded : matched), exclude, pageSize, offset);
+        for (RssItemListDTO item : items) {
+            item.setIsRead(isRead);
+        }
+        return new ItemPage(items, total);
+    }
+
+    /**
+     * 根据位图设置条目的已读标记
+     */
+    public void applyReadFlags(Long userId, List<RssItemListDTO> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        ReadState state = getState(userId);
+        synchronized (state) {
+            for (RssItemListDTO item : items) {
+                Long id = item.getId();
+                item.setIsRead(id != null && id >= 0 && id <= MAX_ITEM_ID
+                        && state.bitmap.contains((int) id.longValue()));
+            }
+        }
+    }
+
+    private ReadState getState(Long userId) {
+        return readStateCache.get(userId, this::loadState);
+    }
+
+    /**
+     * 从数据库加载位图，不存在时从旧表迁移
+     */
+    private ReadState loadState(Long userId) {
+        ReadState pending = pendingWrites.get(userId);
+        if (pending != null) {
+            return pending;
+        }
+        UserReadState stored = userReadStateMapper.findByUserId(userId);
+        if (stored != null && stored.getBitmap() != null) {
+            return new ReadState(deserialize(stored.getBitmap()), stored.getVersion() != null ? stored.getVersion() : 0L);
+        }
+
+        RoaringBitmap bitmap = new RoaringBitmap();
+        List<Long> legacyIds = userReadStateMapper.findLegacyReadItemIds(userId);
+        for (Long id : legacyIds) {
+            if (id != null && id >= 0 && id <= MAX_ITEM_ID) {
+                bitmap.add((int) id.longValue());
+            }
+        }
+
+        long version = bitmap.isEmpty() ? 0L : 1L;
+        if (!bitmap.isEmpty()) {
+            userReadStateMapper.upsert(userId, serialize(bitmap), version);
+            logger.info("已将用户 {} 的 {} 条已读记录迁移为位图", userId, legacyIds.size());
+        }
+        return new ReadState(bitmap, version);
+    }
+
+    private static String toJsonArray(RoaringBitmap ids) {
+        StringBuilder json = new StringBuilder(ids.getCardinality() * 8 + 2).append('[');
+        ids.forEach((int id) -> {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(Integer.toUnsignedLong(id));
+        });
+        return json.append(']').toString();
+    }
+
+    private static byte[] serialize(RoaringBitmap bitmap) {
+        bitmap.runOptimize();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(bitmap.serializedSizeInBytes());
+        try (DataOutputStream out = new DataOutputStream(bos)) {
+            bitmap.serialize(out);
+        } catch (IOException e) {
+            throw new IllegalStateException("序列化已读位图失败", e);
+        }
+        return bos.toByteArray();
+    }
+
+    private static RoaringBitmap deserialize(byte[] bytes) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            bitmap.deserialize(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("反序列化已读位图失败", e);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 用户的内存已读状态
+     * 除位图外保留最近若干次变更，用于向客户端返回增量
+     */
+    public static class ReadState {
+        private final RoaringBitmap bitmap;
+        private long version;
+        private final ArrayDeque<Long> recentIds = new ArrayDeque<>();
+
+        ReadState(RoaringBitmap bitmap, long version) {
+            this.bitmap = bitmap;
+            this.version = version;
+        }
+
+        private void recordDelta(Long itemId) {
+            recentIds.addLast(itemId);
+            if (recentIds.size() > RssConstants.READ_STATE_DELTA_LOG_SIZE) {
+                recentIds.removeFirst();
+            }
+        }
+
+        /**
+         * 返回指定版本之后新增的条目ID，增量日志无法覆盖时返回null
+         */
+        private List<Long> deltaSince(long sinceVersion) {
+            long missing = version - sinceVersion;
+            if (missing > recentIds.size()) {
+                return null;
+            }
+            List<Long> delta = new ArrayList<>((int) missing);
+            Iterator<Long> it = recentIds.descendingIterator();
+            for (long i = 0; i < missing; i++) {
+                delta.add(0, it.next());
+            }
+            return delta;
+        }
+    }
+
+    /**
+     * 已读状态快照：完整位图或增量ID二选一
+     */
+    public static class ReadStateSnapshot {
+        private final long version;
+        private final byte[] bitmap;
+        private final List<Long> delta;
+
+        public ReadStateSnapshot(long version, byte[] bitmap, List<Long> delta) {
+            this.version = version;
+            this.bitmap = bitmap;
+            this.delta = delta;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public byte[] getBitmap() {
+            return bitmap;
+        }
+
+        public List<Long> getDelta() {
+            return delta;
+        }
+
+        public boolean isDelta() {
+            return delta != null;
+        }
+    }
+
+    /**
+     * 分页查询结果
+     */
+    public static class ItemPage {
+        private final List<RssItemListDTO> items;
+        private final int totalItems;
+
+        public ItemPage(List<RssItemListDTO> items, int totalItems) {
+            this.items = items;
+            this.totalItems = totalItems;
+        }
+
+        public List<RssItemListDTO> getItems() {
+            return items;
+        }
+
+        public int getTotalItems() {
+            return totalItems;
+        }
+    }
+}
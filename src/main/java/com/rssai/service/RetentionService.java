@@ -0,0 +1,303 @@
+package com.rssai.service;
+
+import com.rssai.mapper.DatabaseMaintenanceMapper;
+import com.rssai.mapper.FilterLogMapper;
+import com.rssai.mapper.KeywordMatchNotificationMapper;
+import com.rssai.mapper.RssItemMapper;
+import com.rssai.mapper.UserReadStateMapper;
+import com.rssai.service.ai.AiVerdictCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * 数据保留与清理服务
+ * 按表的保留策略分块删除/清空过期数据，每块之间暂停以避免长时间占用写锁，
+ * 清理完成后执行 incremental_vacuum 归还空闲页，并记录每次运行回收的行数与字节数。
+ * 保留天数小于等于0表示该策略不启用；清空正文（item-content-days）与删除整篇条目（item-days）无法恢复，默认不启用，需要管理员显式开启。
+ * 手动触发的清理在后台线程执行，通过运行编号和 GET /system-config/retention 查看进度与结果。
+ */
+@Service
+public class RetentionService {
+    private static final Logger logger = LoggerFactory.getLogger(RetentionService.class);
+
+    private final FilterLogMapper filterLogMapper;
+    private final KeywordMatchNotificationMapper keywordMatchNotificationMapper;
+    private final RssItemMapper rssItemMapper;
+    private final UserReadStateMapper userReadStateMapper;
+    private final DatabaseMaintenanceMapper databaseMaintenanceMapper;
+    private final ArticleSearchService articleSearchService;
+    private final AiVerdictCache aiVerdictCache;
+
+    @Value("${retention.filter-log-days:90}")
+    private int filterLogDays;
+
+    @Value("${retention.filter-log-raw-response-days:7}")
+    private int filterLogRawResponseDays;
+
+    @Value("${retention.notification-days:30}")
+    private int notificationDays;
+
+    @Value("${retention.item-content-days:0}")
+    private int itemContentDays;
+
+    @Value("${retention.item-days:0}")
+    private int itemDays;
+
+    @Value("${retention.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${retention.chunk-pause-ms:200}")
+    private long chunkPauseMs;
+
+    @Value("${retention.vacuum-on-upgrade:false}")
+    private boolean vacuumOnUpgrade;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicLong runIds = new AtomicLong();
+    private volatile long currentRunId;
+    private volatile RetentionReport lastReport;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "data-retention");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RetentionService(FilterLogMapper filterLogMapper,
+                            KeywordMatchNotificationMapper keywordMatchNotificationMapper,
+                            RssItemMapper rssItemMapper,
+                            UserReadStateMapper userReadStateMapper,
+                            DatabaseMaintenanceMapper databaseMaintenanceMapper,
+                            ArticleSearchService articleSearchService,
+                            AiVerdictCache aiVerdictCache) {
+        this.filterLogMapper = filterLogMapper;
+        this.keywordMatchNotificationMapper = keywordMatchNotificationMapper;
+        this.rssItemMapper = rssItemMapper;
+        this.userReadStateMapper = userReadStateMapper;
+        this.databaseMaintenanceMapper = databaseMaintenanceMapper;
+        this.articleSearchService = articleSearchService;
+        this.aiVerdictCache = aiVerdictCache;
+    }
+
+    @Scheduled(cron = "${retention.schedule.cron:0 30 3 * * ?}")
+    public void scheduledRun() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("数据清理任务正在运行，跳过本次执行");
+            return;
+        }
+        runRetention(nextRunId());
+    }
+
+    /**
+     * 在后台线程开始一次清理
+     * @return 运行编号，已有清理任务在运行时返回null
+     */
+    public Long requestRun() {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        long runId = nextRunId();
+        try {
+            executor.execute(() -> runRetention(runId));
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return runId;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private long nextRunId() {
+        currentRunId = runIds.incrementAndGet();
+        return currentRunId;
+    }
+
+    /**
+     * 执行一次清理，调用前已设置 running
+     */
+    private void runRetention(long runId) {
+        try {
+            RetentionReport report = new RetentionReport();
+            report.runId = runId;
+            report.startedAt = LocalDateTime.now();
+            report.bytesBefore = databaseBytes();
+
+            if (filterLogDays > 0) {
+                report.rows.put("filter_logs.deleted",
+                        runChunked(() -> filterLogMapper.deleteOlderThanChunk(filterLogDays, chunkSize)));
+            }
+            if (filterLogRawResponseDays > 0) {
+                report.rows.put("filter_logs.raw_response_cleared",
+                        runChunked(() -> filterLogMapper.clearRawResponseOlderThanChunk(filterLogRawResponseDays, chunkSize)));
+            }
+            if (notificationDays > 0) {
+                report.rows.put("keyword_match_notifications.deleted",
+                        runChunked(() -> keywordMatchNotificationMapper.deleteOlderThanChunk(notificationDays, chunkSize)));
+            }
+            if (itemContentDays > 0) {
+                report.rows.put("rss_items.content_cleared",
+                        runChunked(() -> rssItemMapper.clearContentOlderThanChunk(itemContentDays, chunkSize)));
+            }
+            if (itemDays > 0) {
+                report.rows.put("rss_items.deleted", runChunked(this::deleteExpiredItemsChunk));
+            }
+            // AI筛选结果缓存按 ai.verdict-cache.ttl-hours 过期
+            report.rows.put("ai_verdict_cache.deleted",
+                    runChunked(() -> aiVerdictCache.purgeExpiredChunk(chunkSize)));
+
+            reclaimFreePages(report);
+
+            report.bytesAfter = databaseBytes();
+            report.freelistBytesAfter = databaseMaintenanceMapper.getFreelistCount() * databaseMaintenanceMapper.getPageSize();
+            report.finishedAt = LocalDateTime.now();
+            lastReport = report;
+
+            logger.info("数据清理完成 - 行数: {}, 文件大小: {} -> {} 字节, 回收: {} 字节",
+                    report.rows, report.bytesBefore, report.bytesAfter, report.getBytesReclaimed());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("数据清理任务被中断");
+        } catch (Exception e) {
+            logger.error("数据清理任务失败", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public RetentionReport getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * 正在运行或最近一次开始的清理的运行编号，尚未运行过时为0
+     */
+    public long getCurrentRunId() {
+        return currentRunId;
+    }
+
+    /**
+     * 删除一块过期条目，同时清理引用它们的通知、旧已读记录、全文索引和日志关联
+     */
+    private int deleteExpiredItemsChunk() {
+        List<Long> ids = rssItemMapper.findExpiredIds(itemDays, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        keywordMatchNotificationMapper.deleteByRssItemIds(ids);
+        userReadStateMapper.deleteLegacyByRssItemIds(ids);
+        filterLogMapper.clearRssItemIds(ids);
+        articleSearchService.removeFromIndex(ids);
+        return rssItemMapper.deleteByIds(ids);
+    }
+
+    /**
+     * 重复执行一块操作直到不再影响任何行，每块之间暂停让出写锁
+     */
+    private long runChunked(IntSupplier chunk) throws InterruptedException {
+        long total = 0;
+        int affected;
+        do {
+            affected = chunk.getAsInt();
+            total += affected;
+            if (affected > 0 && chunkPauseMs > 0) {
+                Thread.sleep(chunkPauseMs);
+            }
+        } while (affected >= chunkSize);
+        return total;
+    }
+
+    private void reclaimFreePages(RetentionReport report) {
+        if (!databaseMaintenanceMapper.isSupported()) {
+            return;
+        }
+        int mode = databaseMaintenanceMapper.getAutoVacuumMode();
+        if (mode != DatabaseMaintenanceMapper.AUTO_VACUUM_INCREMENTAL) {
+            if (!vacuumOnUpgrade) {
+                logger.warn("数据库未启用增量 auto_vacuum（当前模式: {}），空闲页会被复用但文件不会缩小；" +
+                        "设置 retention.vacuum-on-upgrade=true 可在下次清理时执行一次完整 VACUUM 完成切换", mode);
+                return;
+            }
+            logger.info("切换数据库为增量 auto_vacuum 并执行一次完整 VACUUM");
+            databaseMaintenanceMapper.enableIncrementalAutoVacuum();
+            databaseMaintenanceMapper.vacuum();
+            report.fullVacuum = true;
+            return;
+        }
+        databaseMaintenanceMapper.incrementalVacuum(0);
+    }
+
+    private long databaseBytes() {
+        return databaseMaintenanceMapper.getPageCount() * databaseMaintenanceMapper.getPageSize();
+    }
+
+    /**
+     * 单次清理运行的结果
+     */
+    public static class RetentionReport {
+        private long runId;
+        private LocalDateTime startedAt;
+        private LocalDateTime finishedAt;
+        private final Map<String, Long> rows = new LinkedHashMap<>();
+        private long bytesBefore;
+        private long bytesAfter;
+        private long freelistBytesAfter;
+        private boolean fullVacuum;
+
+        public long getRunId() {
+            return runId;
+        }
+
+        public LocalDateTime getStartedAt() {
+            return startedAt;
+        }
+
+        public LocalDateTime getFinishedAt() {
+            return finishedAt;
+        }
+
+        public Map<String, Long> getRows() {
+            return rows;
+        }
+
+        public long getBytesBefore() {
+            return bytesBefore;
+        }
+
+        public long getBytesAfter() {
+            return bytesAfter;
+        }
+
+        public long getBytesReclaimed() {
+            return Math.max(bytesBefore - bytesAfter, 0);
+        }
+
+        public long getFreelistBytesAfter() {
+            return freelistBytesAfter;
+        }
+
+        public boolean isFullVacuum() {
+            return fullVacuum;
+        }
+    }
+}
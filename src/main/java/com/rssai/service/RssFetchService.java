@@ -4,9 +4,12 @@ import com.rometools.rome.feed.synd.SyndEntry;
 import com.rometools.rome.feed.synd.SyndFeed;
 import com.rometools.rome.io.SyndFeedInput;
 import com.rometools.rome.io.XmlReader;
+import com.rssai.constant.AiConstants;
 import com.rssai.constant.RssConstants;
 import com.rssai.mapper.*;
 import com.rssai.model.*;
+import com.rssai.service.ai.AiPreFilter;
+import com.rssai.util.HtmlUtils;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -20,6 +23,7 @@ import java.io.UnsupportedEncodingException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -31,23 +35,27 @@ public class RssFetchService {
     private final RssItemMapper rssItemMapper;
     private final AiConfigMapper aiConfigMapper;
     private final AiService aiService;
-    private final FilterLogService filterLogService;
     private final UserMapper userMapper;
     private final KeywordSubscriptionService keywordSubscriptionService;
     private final EmailService emailService;
     private final KeywordMatchNotificationMapper keywordMatchNotificationMapper;
     private final SystemConfigService systemConfigService;
+    private final ArticleSearchService articleSearchService;
+    private final IngestJournal ingestJournal;
+    private final AiPreFilter aiPreFilter;
     
     public RssFetchService(RssSourceMapper rssSourceMapper,
                            RssItemMapper rssItemMapper,
                            AiConfigMapper aiConfigMapper,
                            AiService aiService,
-                           FilterLogService filterLogService,
                            UserMapper userMapper,
                            KeywordSubscriptionService keywordSubscriptionService,
                            EmailService emailService,
                            KeywordMatchNotificationMapper keywordMatchNotificationMapper,
-                           SystemConfigService systemConfigService) {
+                           SystemConfigService systemConfigService,
+                           ArticleSearchService articleSearchService,
+                           IngestJournal ingestJournal,
+                           AiPreFilter aiPreFilter) {
         this.httpClient = new OkHttpClient.Builder()
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(30, TimeUnit.SECONDS)
@@ -60,12 +68,14 @@ public class RssFetchService {
         this.rssItemMapper = rssItemMapper;
         this.aiConfigMapper = aiConfigMapper;
         this.aiService = aiService;
-        this.filterLogService = filterLogService;
         this.userMapper = userMapper;
         this.keywordSubscriptionService = keywordSubscriptionService;
         this.emailService = emailService;
         this.keywordMatchNotificationMapper = keywordMatchNotificationMapper;
         this.systemConfigService = systemConfigService;
+        this.articleSearchService = articleSearchService;
+        this.ingestJournal = ingestJournal;
+        this.aiPreFilter = aiPreFilter;
     }
 
 
@@ -173,6 +183,8 @@ public class RssFetchService {
                 String description = entry.getDescription() != null ? entry.getDescription().getValue() : "";
                 item.setDescription(description);
                 item.setContent(entry.getContents().isEmpty() ? "" : entry.getContents().get(0).getValue());
+                item.setExcerpt(HtmlUtils.buildExcerpt(item.getDescription(), item.getContent(), RssConstants.LIST_EXCERPT_LENGTH));
+                item.setImageUrl(HtmlUtils.extractCoverImage(item.getContent(), item.getDescription()));
                 if (entry.getPublishedDate() != null) {
                     item.setPubDate(entry.getPublishedDate().toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime());
                 }
@@ -183,6 +195,7 @@ public class RssFetchService {
                 
                 // 添加所有成功获取ID的记录（新插入或已存在的记录）
                 if (item.getId() != null) {
+                    articleSearchService.index(item);
                     rssItemsToProcess.add(item);
                 } else {
                     logger.warn("无法获取RSS条目ID，跳过 - 标题: {}", item.getTitle());
@@ -212,24 +225,23 @@ public class RssFetchService {
             if (!aiFilterEnabled) {
                 // 如果AI过滤被禁用，将所有条目标记为通过（无需AI过滤）
                 logger.info("RSS源 {} 已禁用AI过滤，跳过AI筛选", source.getName());
+                List<IngestJournal.Verdict> verdicts = new ArrayList<>();
                 for (RssItem item : rssItemsToProcess) {
-                    item.setAiFiltered(true);
-                    item.setAiReason("通过 - AI过滤已禁用");
-                    item.setNeedsRetry(false);
-                    rssItemMapper.update(item);
-
-                    // 保存筛选日志
-                    filterLogService.saveFilterLog(
-                        source.getUserId(),
+                    // 更新条目状态并保存筛选日志
+                    verdicts.add(new IngestJournal.Verdict(
                         item.getId(),
-                        item.getTitle(),
-                        item.getLink(),
+                        source.getUserId(),
                         true,
+                        false,
+                        "通过 - AI过滤已禁用",
                         "通过 - AI过滤已禁用",
+                        item.getTitle(),
+                        item.getLink(),
                         "该RSS源已禁用AI过滤功能",
                         source.getName()
-                    );
+                    ));
                 }
+                ingestJournal.append(verdicts);
 
                 logger.info("========================================");
                 logger.info("抓取完成: {}", source.getName());
@@ -239,27 +251,88 @@ public class RssFetchService {
                 return;
             }
 
+            // 本地预筛：把握较大的文章直接在本地判断，其余的交给AI；抽查的文章记下本地预测的结果
+            List<RssItem> aiItems = rssItemsToProcess;
+            Map<Integer, Boolean> audits = new HashMap<>();
+            int localPassedCount = 0;
+            int localRejectedCount = 0;
+            if (AiPreFilter.isEnabled(aiConfig)) {
+                aiItems = new ArrayList<>();
+                List<IngestJournal.Verdict> localVerdicts = new ArrayList<>();
+                for (RssItem item : rssItemsToProcess) {
+                    AiPreFilter.Decision decision = aiPreFilter.decide(aiConfig, source.getName(), item.getTitle(), item.getDescription());
+                    if (decision.getVerdict() == null) {
+                        if (decision.getExpected() != null) {
+                            audits.put(aiItems.size(), decision.getExpected());
+                        }
+                        aiItems.add(item);
+                        continue;
+                    }
+                    boolean filtered = decision.getVerdict();
+                    String reason = filtered ? "通过 - " + AiConstants.PREFILTER_REASON_TAG + "：与以往通过的文章相似"
+                            : "未通过 - " + AiConstants.PREFILTER_REASON_TAG + "：与以往未通过的文章相似";
+                    if (filtered) {
+                        localPassedCount++;
+                    } else {
+                        localRejectedCount++;
+                    }
+                    localVerdicts.add(new IngestJournal.Verdict(
+                        item.getId(), source.getUserId(), filtered, false, reason, reason,
+                        item.getTitle(), item.getLink(),
+                        String.format("%s 置信度 %.3f", AiConstants.PREFILTER_REASON_TAG, decision.getConfidence()),
+                        source.getName()));
+                }
+                ingestJournal.append(localVerdicts);
+                if (!localVerdicts.isEmpty()) {
+                    logger.info("本地预筛判断{}条（通过{}条），交给AI{}条",
+                        localVerdicts.size(), localPassedCount, aiItems.size());
+                }
+                if (aiItems.isEmpty()) {
+                    logger.info("========================================");
+                    logger.info("抓取完成: {}", source.getName());
+                    logger.info("统计: 总消息={}, 新消息={}, 跳过重复={}, 重复标题过滤={}, 处理成功={}, 通过={}, 未通过={}",
+                        allEntries.size(), newEntries.size(), skippedDuplicateCount, duplicateCount, rssItemsToProcess.size(),
+                        localPassedCount, localRejectedCount);
+                    logger.info("========================================");
+                    return;
+                }
+            }
+
             // 准备批量筛选数据
             List<AiService.RssItemData> itemsToFilter = new ArrayList<>();
-            for (RssItem item : rssItemsToProcess) {
+            for (RssItem item : aiItems) {
                 itemsToFilter.add(new AiService.RssItemData(item.getTitle(), item.getDescription()));
             }
 
-            // 批量AI筛选（带原始响应）
+            // 批量AI筛选（带原始响应），缓存命中和流式收到的结果合并后分批入库，不必等整批完成
+            List<RssItem> itemsSentToAi = aiItems;
+            Set<Integer> applied = ConcurrentHashMap.newKeySet();
+            StreamedVerdictWriter streamedWriter = new StreamedVerdictWriter(ingestJournal, applied);
+            AiService.VerdictListener listener = (index, aiReason, aiRawResponse) -> {
+                RssItem item = itemsSentToAi.get(index);
+                boolean isServiceUnavailable = !aiReason.startsWith("通过") && isAiServiceUnavailable(aiReason, aiRawResponse);
+                streamedWriter.add(index, toVerdict(source, aiConfig, item, aiReason, aiRawResponse, isServiceUnavailable));
+            };
             long startTime = System.currentTimeMillis();
-            AiService.BatchFilterResult filterResult = aiService.filterRssItemsBatchWithRawResponse(aiConfig, itemsToFilter, source.getName());
+            AiService.BatchFilterResult filterResult = aiService.filterRssItemsBatchWithRawResponse(
+                aiConfig, itemsToFilter, source.getName(), listener);
+            streamedWriter.flush();
             Map<Integer, String> filterResults = filterResult.getFilterResults();
             Map<Integer, String> rawResponses = filterResult.getRawResponses();
             long duration = System.currentTimeMillis() - startTime;
-            logger.info("批量筛选完成，耗时: {}ms，平均每条: {}ms", duration, duration / rssItemsToProcess.size());
+            logger.info("批量筛选完成，耗时: {}ms，平均每条: {}ms", duration, duration / aiItems.size());
 
             // 更新AI过滤结果
             int passedCount = 0;
             int rejectedCount = 0;
             int aiServiceFailureCount = 0; // 统计AI服务失败的数量
+            // 缓存命中的结果本次没有请求AI，不计入AI服务状态判断
+            Set<Integer> cachedIndexes = filterResult.getCachedIndexes();
+            int aiAnsweredPassedCount = 0;
+            List<IngestJournal.Verdict> verdicts = new ArrayList<>();
 
-            for (int i = 0; i < rssItemsToProcess.size(); i++) {
-                RssItem item = rssItemsToProcess.get(i);
+            for (int i = 0; i < aiItems.size(); i++) {
+                RssItem item = aiItems.get(i);
                 String aiReason = filterResults.getOrDefault(i, "未通过 - 处理失败");
                 String aiRawResponse = rawResponses.getOrDefault(i, "未找到响应");
                 boolean filtered = aiReason.startsWith("通过");
@@ -268,6 +341,9 @@ public class RssFetchService {
                 boolean isServiceUnavailable = false;
                 if (filtered) {
                     passedCount++;
+                    if (!cachedIndexes.contains(i)) {
+                        aiAnsweredPassedCount++;
+                    }
                 } else {
                     rejectedCount++;
                     isServiceUnavailable = isAiServiceUnavailable(aiReason, aiRawResponse);
@@ -277,33 +353,27 @@ public class RssFetchService {
                 }
 
                 logger.info("消息 #{}: {} - {}", i + 1, item.getTitle(), aiReason);
+                if (!isServiceUnavailable) {
+                    aiPreFilter.learn(aiConfig, source.getName(), item.getTitle(), aiReason, filtered, audits.get(i));
+                }
+                if (applied.contains(i)) {
+                    continue;
+                }
 
-                item.setAiFiltered(filtered);
-                item.setAiReason(aiReason);
-                item.setNeedsRetry(isServiceUnavailable); // 设置是否需要重试
-                rssItemMapper.update(item);
-
-                // 保存筛选日志
-                filterLogService.saveFilterLog(
-                    source.getUserId(),
-                    item.getId(),
-                    item.getTitle(),
-                    item.getLink(),
-                    filtered,
-                    aiReason,
-                    aiRawResponse,
-                    source.getName()
-                );
+                // 更新条目状态（设置是否需要重试）并保存筛选日志
+                verdicts.add(toVerdict(source, aiConfig, item, aiReason, aiRawResponse, isServiceUnavailable));
             }
+            ingestJournal.append(verdicts);
 
             // 检查是否需要发送AI服务异常告警
             checkAndSendAiServiceAlert(source.getUserId(), source.getName(), aiConfig,
-                    aiServiceFailureCount, rssItemsToProcess.size(), passedCount);
+                    aiServiceFailureCount, aiItems.size() - cachedIndexes.size(), aiAnsweredPassedCount);
 
             logger.info("========================================");
             logger.info("抓取完成: {}", source.getName());
             logger.info("统计: 总消息={}, 新消息={}, 跳过重复={}, 重复标题过滤={}, 处理成功={}, 通过={}, 未通过={}",
-                allEntries.size(), newEntries.size(), skippedDuplicateCount, duplicateCount, rssItemsToProcess.size(), passedCount, rejectedCount);
+                allEntries.size(), newEntries.size(), skippedDuplicateCount, duplicateCount, rssItemsToProcess.size(),
+                passedCount + localPassedCount, rejectedCount + localRejectedCount);
             logger.info("========================================");
             
         } catch (Exception e) {
@@ -486,6 +556,27 @@ public class RssFetchService {
         return new ArrayList<>(uniqueEntries.values());
     }
 
+    /**
+     * 生成AI筛选结果的入库记录
+     * AI服务不可用时（降级模式）改用本地模型按用户的历史筛选结果给出临时结果，原因中带有临时判断标记，
+     * 条目仍标记为需要重试，服务恢复后由 reprocessAffectedItems 重新筛选
+     */
+    private IngestJournal.Verdict toVerdict(RssSource source, AiConfig aiConfig, RssItem item,
+                                            String aiReason, String aiRawResponse, boolean isServiceUnavailable) {
+        boolean filtered = aiReason.startsWith("通过");
+        String reason = aiReason;
+        if (isServiceUnavailable) {
+            Boolean provisional = aiPreFilter.provisionalVerdict(aiConfig, source.getName(), item.getTitle());
+            if (provisional != null) {
+                filtered = provisional;
+                reason = (filtered ? "通过 - " : "未通过 - ") + AiConstants.PROVISIONAL_REASON_TAG
+                        + "：AI服务不可用，恢复后重新筛选";
+            }
+        }
+        return new IngestJournal.Verdict(item.getId(), source.getUserId(), filtered, isServiceUnavailable,
+                reason, reason, item.getTitle(), item.getLink(), aiRawResponse, source.getName());
+    }
+
     /**
      * 判断是否为AI服务不可用
      * 通过分析AI返回的原因和原始响应来判断
@@ -527,6 +618,7 @@ public class RssFetchService {
     /**
      * 检查并发送AI服务异常告警
      * 只有当所有条目都因AI服务不可用而失败时才发送告警
+     * totalCount 和 passedCount 只统计本次实际请求AI的条目，缓存命中的结果不代表AI服务已恢复
      */
     private void checkAndSendAiServiceAlert(Long userId, String sourceName, AiConfig aiConfig,
                                            int aiServiceFailureCount, int totalCount, int passedCount) {
@@ -589,16 +681,16 @@ public class RssFetchService {
                                 aiConfig.getModel(),
                                 aiConfig.getBaseUrl()
                             );
-                            
-                            // 更新AI配置状态为异常
-                            aiConfigMapper.updateServiceStatus(userId, 1);
-                            logger.info("已更新AI服务状态为异常 - 用户: {}", userId);
                         } else {
                             logger.info("管理员未配置邮箱，跳过发送AI服务异常告警 - 用户: {}", userId);
                         }
                     } else {
                         logger.info("用户未配置邮箱，跳过发送AI服务异常告警 - 用户: {}", userId);
                     }
+
+                    // 更新AI配置状态为异常（与是否发送告警无关），恢复时据此重新筛选临时结果
+                    aiConfigMapper.updateServiceStatus(userId, 1);
+                    logger.info("已更新AI服务状态为异常 - 用户: {}", userId);
                 } else {
                     logger.debug("AI服务状态已为异常，跳过重复告警 - 用户: {}", userId);
                 }
@@ -646,6 +738,7 @@ public class RssFetchService {
             // 更新AI过滤结果
             int updatedCount = 0;
             int passedCount = 0;
+            List<IngestJournal.Verdict> verdicts = new ArrayList<>();
             
             for (int i = 0; i < affectedItems.size(); i++) {
                 RssItem item = affectedItems.get(i);
@@ -653,14 +746,14 @@ public class RssFetchService {
                 String aiRawResponse = rawResponses.getOrDefault(i, "未找到响应");
                 boolean filtered = aiReason.startsWith("通过");
                 
-                // 判断是否仍然是AI服务不可用
+                // 判断是否仍然是AI服务不可用，是则保留之前的临时结果
                 boolean stillNeedsRetry = !filtered && isAiServiceUnavailable(aiReason, aiRawResponse);
+                if (stillNeedsRetry && item.getAiReason() != null
+                        && item.getAiReason().contains(AiConstants.PROVISIONAL_REASON_TAG)) {
+                    filtered = Boolean.TRUE.equals(item.getAiFiltered());
+                    aiReason = item.getAiReason();
+                }
                 
-                // 更新条目
-                item.setAiFiltered(filtered);
-                item.setAiReason(aiReason);
-                item.setNeedsRetry(stillNeedsRetry); // 如果仍然失败，保持需要重试状态
-                rssItemMapper.update(item);
                 updatedCount++;
                 
                 if (filtered) {
@@ -672,18 +765,21 @@ public class RssFetchService {
                         filtered ? "通过" : "未通过",
                         stillNeedsRetry);
                 
-                // 保存筛选日志
-                filterLogService.saveFilterLog(
-                    userId,
+                // 更新条目并保存筛选日志，如果仍然失败，保持需要重试状态
+                verdicts.add(new IngestJournal.Verdict(
                     item.getId(),
-                    item.getTitle(),
-                    item.getLink(),
+                    userId,
                     filtered,
+                    stillNeedsRetry,
+                    aiReason,
                     aiReason + " (故障恢复重新处理)",
+                    item.getTitle(),
+                    item.getLink(),
                     aiRawResponse,
                     "故障恢复重新处理"
-                );
+                ));
             }
+            ingestJournal.append(verdicts);
 
             logger.info("重新处理完成 - 用户: {}, 总数: {}, 更新: {}, 新通过: {}", 
                     userId, affectedItems.size(), updatedCount, passedCount);
@@ -695,4 +791,53 @@ public class RssFetchService {
             return 0;
         }
     }
+
+    /**
+     * 流式筛选结果的合并写入
+     * 攒够 STREAM_VERDICT_FLUSH_SIZE 条或距上次写入超过 STREAM_VERDICT_FLUSH_INTERVAL_MS 时写入一次，
+     * 批次结束后由调用方写入剩余部分；入库日志关闭时每次写入是一个数据库事务，逐条写入会放大事务数。
+     * 写入成功的序号加入 applied，批次结束后不再重复写入
+     */
+    private static class StreamedVerdictWriter {
+        private final IngestJournal ingestJournal;
+        private final Set<Integer> applied;
+        private List<Integer> indexes = new ArrayList<>();
+        private List<IngestJournal.Verdict> verdicts = new ArrayList<>();
+        private long lastFlushAt = System.currentTimeMillis();
+
+        StreamedVerdictWriter(IngestJournal ingestJournal, Set<Integer> applied) {
+            this.ingestJournal = ingestJournal;
+            this.applied = applied;
+        }
+
+        void add(int index, IngestJournal.Verdict verdict) {
+            boolean due;
+            synchronized (this) {
+                indexes.add(index);
+                verdicts.add(verdict);
+                due = verdicts.size() >= RssConstants.STREAM_VERDICT_FLUSH_SIZE
+                        || System.currentTimeMillis() - lastFlushAt >= RssConstants.STREAM_VERDICT_FLUSH_INTERVAL_MS;
+            }
+            if (due) {
+                flush();
+            }
+        }
+
+        void flush() {
+            List<Integer> flushIndexes;
+            List<IngestJournal.Verdict> flushVerdicts;
+            synchronized (this) {
+                if (verdicts.isEmpty()) {
+                    return;
+                }
+                flushIndexes = indexes;
+                flushVerdicts = verdicts;
+                indexes = new ArrayList<>();
+                verdicts = new ArrayList<>();
+                lastFlushAt = System.currentTimeMillis();
+            }
+            ingestJournal.append(flushVerdicts);
+            applied.addAll(flushIndexes);
+        }
+    }
 }
@@ -2,8 +2,8 @@ package com.rssai.service;
 
 import com.rometools.rome.feed.synd.*;
 import com.rometools.rome.io.SyndFeedOutput;
+import com.rssai.dto.RssItemListDTO;
 import com.rssai.mapper.RssItemMapper;
-import com.rssai.model.RssItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -12,7 +12,6 @@ import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 @Service
@@ -20,13 +19,9 @@ public class RssGeneratorService {
     private static final Logger logger = LoggerFactory.getLogger(RssGeneratorService.class);
     private final RssItemMapper rssItemMapper;
     
-    private static final int MAX_DESCRIPTION_LENGTH = 200;
-    
     public RssGeneratorService(RssItemMapper rssItemMapper) {
         this.rssItemMapper = rssItemMapper;
     }
-    private static final Pattern IMG_PATTERN = Pattern.compile("<img[^>]+src=[\"']([^\"']+)[\"']", Pattern.CASE_INSENSITIVE);
-    private static final Pattern HTML_TAG_PATTERN = Pattern.compile("<[^>]+>");
     // XSS防护：危险标签和属性模式
     private static final Pattern DANGEROUS_TAG_PATTERN = Pattern.compile(
         "<script[^>]*>.*?</script>|javascript:|on\\w+\\s*=|data:text/html|<iframe|<object|<embed|<form",
@@ -35,7 +30,7 @@ public class RssGeneratorService {
 
     public String generateUserRss(Long userId, String baseUrl) {
         try {
-            List<RssItem> items = rssItemMapper.findFilteredByUserId(userId);
+            List<RssItemListDTO> items = rssItemMapper.findFilteredByUserId(userId);
             
             SyndFeed feed = new SyndFeedImpl();
             feed.setFeedType("rss_2.0");
@@ -44,7 +39,7 @@ public class RssGeneratorService {
             feed.setLink(baseUrl);
             
             List<SyndEntry> entries = new ArrayList<>();
-            for (RssItem item : items) {
+            for (RssItemListDTO item : items) {
                 SyndEntry entry = new SyndEntryImpl();
                 // XSS防护：转义标题中的特殊字符
                 entry.setTitle(escapeHtml(item.getTitle()));
@@ -101,71 +96,17 @@ public class RssGeneratorService {
     }
     
     /**
-     * 生成简洁的描述：提取封面图 + 纯文本摘要
+     * 生成简洁的描述：入库时提取的封面图 + 纯文本摘要
      */
-    private String generateCleanDescription(RssItem item) {
+    private String generateCleanDescription(RssItemListDTO item) {
         StringBuilder result = new StringBuilder();
         
-        // 1. 提取第一张图片作为封面
-        String coverImage = extractFirstImage(item.getDescription());
-        if (coverImage == null && item.getContent() != null) {
-            coverImage = extractFirstImage(item.getContent());
-        }
-        
-        if (coverImage != null) {
-            result.append("<img src=\"").append(coverImage).append("\" style=\"max-width:100%;height:auto;margin-bottom:10px;\" /><br/>");
+        if (item.getImageUrl() != null) {
+            result.append("<img src=\"").append(item.getImageUrl()).append("\" style=\"max-width:100%;height:auto;margin-bottom:10px;\" /><br/>");
         }
         
-        // 2. 提取纯文本摘要
-        String textSummary = extractTextSummary(item.getDescription());
-        if (textSummary.isEmpty() && item.getContent() != null) {
-            textSummary = extractTextSummary(item.getContent());
-        }
-        
-        result.append("<p>").append(textSummary).append("</p>");
+        result.append("<p>").append(escapeHtml(item.getExcerpt())).append("</p>");
         
         return result.toString();
     }
-    
-    /**
-     * 提取第一张图片URL
-     */
-    private String extractFirstImage(String html) {
-        if (html == null || html.isEmpty()) {
-            return null;
-        }
-        
-        Matcher matcher = IMG_PATTERN.matcher(html);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
-    
-    /**
-     * 提取纯文本摘要（移除HTML标签，截断长度）
-     */
-    private String extractTextSummary(String html) {
-        if (html == null || html.isEmpty()) {
-            return "";
-        }
-        
-        // 移除所有HTML标签
-        String text = HTML_TAG_PATTERN.matcher(html).replaceAll("");
-        
-        // 解码HTML实体
-        text = text.replace("&nbsp;", " ")
-                   .replace("&lt;", "<")
-                   .replace("&gt;", ">")
-                   .replace("&amp;", "&")
-                   .replace("&quot;", "\"")
-                   .trim();
-        
-        // 截断到指定长度
-        if (text.length() > MAX_DESCRIPTION_LENGTH) {
-            text = text.substring(0, MAX_DESCRIPTION_LENGTH) + "...";
-        }
-        
-        return text;
-    }
 }
@@ -0,0 +1,63 @@
+package com.rssai.service;
+
+import com.rssai.constant.RssConstants;
+import com.rssai.mapper.RssItemMapper;
+import com.rssai.model.RssItem;
+import com.rssai.util.HtmlUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 列表摘要和封面图回填服务
+ * 新文章在入库时计算 excerpt 和 image_url，这里在后台按ID顺序分块为历史文章补齐；
+ * 没有可用文本的文章写入空字符串，避免被重复扫描
+ */
+@Service
+public class RssItemPreviewBackfillService {
+    private static final Logger logger = LoggerFactory.getLogger(RssItemPreviewBackfillService.class);
+
+    private final RssItemMapper rssItemMapper;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile long cursor = 0;
+
+    public RssItemPreviewBackfillService(RssItemMapper rssItemMapper) {
+        this.rssItemMapper = rssItemMapper;
+    }
+
+    @Scheduled(initialDelay = 20000, fixedDelay = 3600000)
+    public void backfill() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        long updated = 0;
+        try {
+            while (true) {
+                List<RssItem> items = rssItemMapper.findWithoutExcerptAfterId(cursor, RssConstants.PREVIEW_BACKFILL_CHUNK_SIZE);
+                if (items.isEmpty()) {
+                    break;
+                }
+                for (RssItem item : items) {
+                    item.setExcerpt(HtmlUtils.buildExcerpt(item.getDescription(), item.getContent(),
+                            RssConstants.LIST_EXCERPT_LENGTH));
+                    item.setImageUrl(HtmlUtils.extractCoverImage(item.getContent(), item.getDescription()));
+                }
+                rssItemMapper.batchUpdatePreview(items);
+                cursor = items.get(items.size() - 1).getId();
+                updated += items.size();
+            }
+            if (updated > 0) {
+                logger.info("文章列表摘要回填完成，共 {} 条", updated);
+            }
+        } catch (Exception e) {
+            logger.error("文章列表摘要回填失败，已处理 {} 条", updated, e);
+        } finally {
+            running.set(false);
+        }
+    }
+}
@@ -111,7 +111,8 @@ public class SystemConfigService {
             "email.from-alias|AI RSS HUB|系统邮件发件人别名",
             "system-config.allow-register|true|是否允许用户注册",
             "system-config.require-email-verification|false|注册时是否需要邮箱验证",
-            "system-config.allowed-email-domains||允许注册的邮箱域名，多个用逗号分隔，为空则不限制"
+            "system-config.allowed-email-domains||允许注册的邮箱域名，多个用逗号分隔，为空则不限制",
+            "ai.max-concurrency|4|同一AI服务（地址+模型）同时进行的批量筛选请求数，用户未设置时使用"
         };
 
         for (String configStr : defaultConfigs) {
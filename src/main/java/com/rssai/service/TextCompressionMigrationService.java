@@ -0,0 +1,126 @@
+package com.rssai.service;
+
+import com.rssai.config.TextCompressionConfig;
+import com.rssai.mapper.FilterLogMapper;
+import com.rssai.mapper.RssItemMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 大文本列压缩迁移服务
+ * 开启压缩存储后，在后台按ID顺序分块把历史TEXT数据转换为压缩BLOB。
+ * 已处理到的ID保存在内存中，重启后从头扫描（已压缩的行会被 typeof 条件直接跳过）。
+ */
+@Service
+public class TextCompressionMigrationService {
+    private static final Logger logger = LoggerFactory.getLogger(TextCompressionMigrationService.class);
+
+    private final TextCompressionConfig textCompressionConfig;
+    private final RssItemMapper rssItemMapper;
+    private final FilterLogMapper filterLogMapper;
+
+    @Value("${storage.compression.migration.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${storage.compression.migration.chunk-pause-ms:100}")
+    private long chunkPauseMs;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile long rssItemCursor = 0;
+    private volatile long filterLogCursor = 0;
+
+    public TextCompressionMigrationService(TextCompressionConfig textCompressionConfig,
+                                           RssItemMapper rssItemMapper,
+                                           FilterLogMapper filterLogMapper) {
+        this.textCompressionConfig = textCompressionConfig;
+        this.rssItemMapper = rssItemMapper;
+        this.filterLogMapper = filterLogMapper;
+    }
+
+    @Scheduled(initialDelayString = "${storage.compression.migration.initial-delay-ms:60000}",
+               fixedDelayString = "${storage.compression.migration.interval-ms:3600000}")
+    public void migrate() {
+        if (!textCompressionConfig.isEnabled() || !running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long items = migrateRssItems();
+            long logs = migrateFilterLogs();
+            if (items > 0 || logs > 0) {
+                logger.info("压缩迁移完成 - RSS条目: {} 条, 过滤日志: {} 条", items, logs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("压缩迁移被中断");
+        } catch (Exception e) {
+            logger.error("压缩迁移失败", e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private long migrateRssItems() throws InterruptedException {
+        long migrated = 0;
+        while (true) {
+            List<Map<String, Object>> rows = rssItemMapper.findStoredTextAfterId(rssItemCursor, chunkSize);
+            if (rows.isEmpty()) {
+                return migrated;
+            }
+            for (Map<String, Object> row : rows) {
+                Long id = ((Number) row.get("id")).longValue();
+                Object description = encodeIfText(row.get("description"));
+                Object content = encodeIfText(row.get("content"));
+                if (description != row.get("description") || content != row.get("content")) {
+                    rssItemMapper.updateStoredText(id, description, content);
+                    migrated++;
+                }
+                rssItemCursor = id;
+            }
+            pause();
+        }
+    }
+
+    private long migrateFilterLogs() throws InterruptedException {
+        long migrated = 0;
+        while (true) {
+            List<Map<String, Object>> rows = filterLogMapper.findStoredRawResponseAfterId(filterLogCursor, chunkSize);
+            if (rows.isEmpty()) {
+                return migrated;
+            }
+            for (Map<String, Object> row : rows) {
+                Long id = ((Number) row.get("id")).longValue();
+                Object rawResponse = encodeIfText(row.get("ai_raw_response"));
+                if (rawResponse != row.get("ai_raw_response")) {
+                    filterLogMapper.updateStoredRawResponse(id, rawResponse);
+                    migrated++;
+                }
+                filterLogCursor = id;
+            }
+            pause();
+        }
+    }
+
+    /**
+     * 只转换字符串值；低于阈值或压缩收益不足时返回原对象
+     */
+    private Object encodeIfText(Object value) {
+        if (value instanceof String) {
+            Object encoded = textCompressionConfig.encode((String) value);
+            return encoded instanceof byte[] ? encoded : value;
+        }
+        return value;
+    }
+
+    private void pause() throws InterruptedException {
+        if (chunkPauseMs > 0) {
+            Thread.sleep(chunkPauseMs);
+        }
+    }
+}
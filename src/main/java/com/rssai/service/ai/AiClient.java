@@ -1,17 +1,20 @@
 package com.rssai.service.ai;
 
 import com.github.benmanes.caffeine.cache.Cache;
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.rssai.constant.AiConstants;
 import com.rssai.model.AiConfig;
+import com.rssai.util.TokenEstimator;
 import okhttp3.*;
+import okio.BufferedSource;
+import okio.ByteString;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * AI客户端
@@ -21,34 +24,24 @@ import java.util.concurrent.TimeUnit;
 public class AiClient {
     private static final Logger logger = LoggerFactory.getLogger(AiClient.class);
     
+    private static final MediaType JSON_MEDIA_TYPE = MediaType.parse("application/json");
+    
     private final Cache<String, OkHttpClient> httpClientCache;
-    private final Gson gson = new Gson();
+    private final AiRateLimiter rateLimiter;
     
-    public AiClient(Cache<String, OkHttpClient> httpClientCache) {
+    public AiClient(Cache<String, OkHttpClient> httpClientCache, AiRateLimiter rateLimiter) {
         this.httpClientCache = httpClientCache;
+        this.rateLimiter = rateLimiter;
     }
     
     /**
      * 发送聊天请求
      */
     public String sendChatRequest(AiConfig config, JsonObject[] messages, int maxTokens, double temperature) throws IOException {
-        JsonObject requestBody = new JsonObject();
-        requestBody.addProperty("model", config.getModel());
-        requestBody.add("messages", gson.toJsonTree(messages));
-        requestBody.addProperty("max_tokens", maxTokens);
-        requestBody.addProperty("temperature", temperature);
-        
-        logger.debug("发送AI请求: {}", requestBody.toString());
-        
-        Request request = new Request.Builder()
-                .url(config.getBaseUrl() + AiConstants.CHAT_COMPLETIONS_ENDPOINT)
-                .addHeader("Authorization", "Bearer " + config.getApiKey())
-                .addHeader("Content-Type", "application/json")
-                .post(RequestBody.create(requestBody.toString(), MediaType.parse("application/json")))
-                .build();
+        Request request = buildChatRequest(config, messages, maxTokens, temperature, false);
         
         OkHttpClient client = getOrCreateClient(config);
-        try (Response response = client.newCall(request).execute()) {
+        try (Response response = executeRateLimited(client, config, request, estimateTokens(messages, maxTokens))) {
             if (response.isSuccessful() && response.body() != null) {
                 String responseBody = response.body().string();
                 logger.debug("AI响应: {}", responseBody);
@@ -64,6 +57,95 @@ public class AiClient {
         }
     }
     
+    /**
+     * 以流式（SSE）方式发送聊天请求，每收到一个 data 块就交给 onData 处理
+     * 中途断开时抛出 IOException，此前已交给 onData 的内容不受影响
+     */
+    public void streamChatRequest(AiConfig config, JsonObject[] messages, int maxTokens, double temperature,
+                                  Consumer<String> onData) throws IOException {
+        Request request = buildChatRequest(config, messages, maxTokens, temperature, true);
+        
+        OkHttpClient client = getOrCreateClient(config);
+        try (Response response = executeRateLimited(client, config, request, estimateTokens(messages, maxTokens))) {
+            if (!response.isSuccessful() || response.body() == null) {
+                String errorMsg = "HTTP " + response.code();
+                if (response.body() != null) {
+                    errorMsg += ": " + response.body().string();
+                }
+                logger.error("AI流式请求失败: {}", errorMsg);
+                throw new IOException(errorMsg);
+            }
+            BufferedSource source = response.body().source();
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (!line.startsWith("data:")) {
+                    continue;
+                }
+                String data = line.substring(5).trim();
+                if ("[DONE]".equals(data)) {
+                    return;
+                }
+                if (!data.isEmpty()) {
+                    onData.accept(data);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 按速率限制排队后发送请求；429 时按 Retry-After 暂停并重新排队，不计入调用方的重试次数
+     * 批量筛选的批次任务中额度不足时不排队，由 AiRateLimiter 抛出 RetryLaterException，交给重试服务推迟
+     */
+    private Response executeRateLimited(OkHttpClient client, AiConfig config, Request request, int tokens)
+            throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            rateLimiter.acquire(config, tokens);
+            Response response = client.newCall(request).execute();
+            rateLimiter.onResponse(config, response.code(), response.headers());
+            if (response.code() != 429 || attempt >= AiConstants.MAX_RATE_LIMITED_ATTEMPTS) {
+                return response;
+            }
+            response.close();
+            logger.info("AI服务限流，排队后重新发送（第{}次）", attempt + 1);
+        }
+    }
+    
+    /**
+     * 预计消耗的token数：输入估算 + max_tokens，与服务商计算限额的方式一致
+     */
+    private static int estimateTokens(JsonObject[] messages, int maxTokens) {
+        int tokens = maxTokens;
+        for (JsonObject message : messages) {
+            if (message.has("content") && message.get("content").isJsonPrimitive()) {
+                tokens += TokenEstimator.estimate(message.get("content").getAsString());
+            }
+        }
+        return tokens;
+    }
+    
+    /**
+     * 请求体由 AiRequestWriter 直接写入Okio缓冲区，snapshot 与缓冲区共享分段，发送时不再复制
+     */
+    private Request buildChatRequest(AiConfig config, JsonObject[] messages, int maxTokens, double temperature,
+                                     boolean stream) {
+        ByteString requestBody = AiRequestWriter.write(config.getModel(), messages, maxTokens, temperature, stream)
+                .snapshot();
+        
+        if (logger.isDebugEnabled()) {
+            logger.debug("发送AI请求: {}", requestBody.utf8());
+        }
+        
+        Request.Builder builder = new Request.Builder()
+                .url(config.getBaseUrl() + AiConstants.CHAT_COMPLETIONS_ENDPOINT)
+                .addHeader("Authorization", "Bearer " + config.getApiKey())
+                .addHeader("Content-Type", "application/json")
+                .post(RequestBody.create(requestBody, JSON_MEDIA_TYPE));
+        if (stream) {
+            builder.addHeader("Accept", "text/event-stream");
+        }
+        return builder.build();
+    }
+    
     /**
      * 获取或创建HTTP客户端
      */
@@ -107,7 +189,7 @@ public class AiClient {
     /**
      * 判断是否为思考模型（推理模型）
      */
-    private boolean isThinkingModel(AiConfig config) {
+    public boolean isThinkingModel(AiConfig config) {
         // 优先使用显式配置
         if (config.getIsReasoningModel() != null) {
             return config.getIsReasoningModel() == 1;
@@ -0,0 +1,182 @@
+package com.rssai.service.ai;
+
+import com.rssai.model.AiConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * AI请求并发限制
+ * 按 baseUrl + 模型 统计正在进行的请求数，同一服务被多个用户、多个RSS源共享时总并发不超过上限。
+ * 上限由调用方传入：不同用户对同一服务配置了不同上限时，每个调用方只在在途请求数低于自己的上限时进入。
+ * 先取得名额再把任务提交到线程池，没有名额的任务在服务的队列中排队，名额释放时再提交，等待期间不占用线程
+ */
+@Component
+public class AiConcurrencyLimiter {
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * 取得名额后在 executor 中执行 task，执行结束（包括异常）后释放名额
+     * 有空闲名额时立即提交，否则排队到其他任务释放名额时提交
+     * @throws RejectedExecutionException 立即提交时线程池拒绝执行，此时名额已释放
+     */
+    public void execute(AiConfig config, int limit, Executor executor, Runnable task) {
+        Slot slot = slots.computeIfAbsent(keyOf(config), key -> new Slot());
+        Waiter waiter = new Waiter(Math.max(1, limit), executor, task);
+        if (slot.tryAcquire(waiter)) {
+            try {
+                dispatch(slot, waiter);
+            } catch (RejectedExecutionException e) {
+                // 任务已在拒绝策略中执行过时名额已经释放，这里不会重复释放
+                release(slot, waiter);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 包装为 Executor：提交的任务都经过该服务的名额限制
+     */
+    public Executor executor(AiConfig config, int limit, Executor executor) {
+        return task -> execute(config, limit, executor, task);
+    }
+
+    /**
+     * 各服务当前在途的请求数，只包含有请求的服务
+     */
+    public Map<String, Integer> getInFlight() {
+        Map<String, Integer> inFlight = new TreeMap<>();
+        for (Map.Entry<String, Slot> entry : slots.entrySet()) {
+            int count = entry.getValue().inFlight();
+            if (count > 0) {
+                inFlight.put(entry.getKey(), count);
+            }
+        }
+        return inFlight;
+    }
+
+    /**
+     * 各服务排队等待名额的任务数，只包含有排队的服务
+     */
+    public Map<String, Integer> getQueued() {
+        Map<String, Integer> queued = new TreeMap<>();
+        for (Map.Entry<String, Slot> entry : slots.entrySet()) {
+            int count = entry.getValue().queued();
+            if (count > 0) {
+                queued.put(entry.getKey(), count);
+            }
+        }
+        return queued;
+    }
+
+    private void dispatch(Slot slot, Waiter waiter) {
+        waiter.executor.execute(() -> {
+            try {
+                waiter.task.run();
+            } finally {
+                release(slot, waiter);
+            }
+        });
+    }
+
+    /**
+     * 释放名额并提交可以进入的排队任务
+     * 排队任务提交时线程池已拒绝（关闭中），在当前线程执行，保证排队的任务都会执行
+     */
+    private void release(Slot slot, Waiter finished) {
+        if (!finished.released.compareAndSet(false, true)) {
+            return;
+        }
+        for (Waiter waiter : slot.release()) {
+            try {
+                dispatch(slot, waiter);
+            } catch (RejectedExecutionException e) {
+                if (waiter.released.get()) {
+                    continue;
+                }
+                try {
+                    waiter.task.run();
+                } finally {
+                    release(slot, waiter);
+                }
+            }
+        }
+    }
+
+    private static String keyOf(AiConfig config) {
+        String baseUrl = config.getBaseUrl() != null ? config.getBaseUrl().trim() : "";
+        while (baseUrl.endsWith("/")) {
+            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        }
+        return baseUrl + "|" + config.getModel();
+    }
+
+    private static class Waiter {
+        private final int limit;
+        private final Executor executor;
+        private final Runnable task;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        Waiter(int limit, Executor executor, Runnable task) {
+            this.limit = limit;
+            this.executor = executor;
+            this.task = task;
+        }
+    }
+
+    private static class Slot {
+        private int inFlight;
+        private final Deque<Waiter> waiters = new ArrayDeque<>();
+
+        /**
+         * 有空闲名额且没有排在前面的任务时占用名额，否则排队
+         */
+        synchronized boolean tryAcquire(Waiter waiter) {
+            if (waiters.isEmpty() && inFlight < waiter.limit) {
+                inFlight++;
+                return true;
+            }
+            waiters.addLast(waiter);
+            return false;
+        }
+
+        /**
+         * 释放一个名额，按排队顺序取出在途数低于各自上限的任务并为它们占用名额
+         */
+        synchronized List<Waiter> release() {
+            if (inFlight > 0) {
+                inFlight--;
+            }
+            List<Waiter> ready = new ArrayList<>();
+            Iterator<Waiter> iterator = waiters.iterator();
+            while (iterator.hasNext()) {
+                Waiter waiter = iterator.next();
+                if (inFlight < waiter.limit) {
+                    iterator.remove();
+                    inFlight++;
+                    ready.add(waiter);
+                }
+            }
+            return ready;
+        }
+
+        synchronized int inFlight() {
+            return inFlight;
+        }
+
+        synchronized int queued() {
+            return waiters.size();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.rssai.service.ai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rssai.constant.AiConstants;
+import com.rssai.mapper.FilterLogMapper;
+import com.rssai.model.AiConfig;
+import com.rssai.model.FilterLog;
+import com.rssai.util.TokenEstimator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地预筛
+ * 为开启的用户在进程内训练朴素贝叶斯分类器（HashedNaiveBayes），训练数据是筛选偏好最近一次修改后AI给出的结果，
+ * 之后随新的AI结果增量学习。把握超过 confidence 的文章直接在本地判断，其余交给AI。
+ * 本地判断的结果会按 audit-rate 抽查（仍交给AI并比较），最近的抽查准确率低于 min-accuracy 或抽查次数不足时不做本地判断。
+ * AI服务不可用时（降级模式，所有用户）用同一模型给出临时结果，未开启预筛的用户在此时按历史记录训练模型
+ */
+@Component
+public class AiPreFilter {
+    private static final Logger logger = LoggerFactory.getLogger(AiPreFilter.class);
+
+    private static final int AUDIT_WINDOW = 50;
+
+    private final FilterLogMapper filterLogMapper;
+
+    @Value("${ai.prefilter.confidence:0.98}")
+    private double confidence;
+
+    @Value("${ai.prefilter.min-samples:200}")
+    private int minSamples;
+
+    @Value("${ai.prefilter.audit-rate:0.1}")
+    private double auditRate;
+
+    @Value("${ai.prefilter.min-audits:20}")
+    private int minAudits;
+
+    @Value("${ai.prefilter.min-accuracy:0.95}")
+    private double minAccuracy;
+
+    @Value("${ai.prefilter.training-limit:5000}")
+    private int trainingLimit;
+
+    @Value("${ai.prefilter.max-users:1000}")
+    private long maxUsers;
+
+    @Value("${ai.degraded.enabled:true}")
+    private boolean degradedEnabled;
+
+    @Value("${ai.degraded.min-samples:50}")
+    private int degradedMinSamples;
+
+    /**
+     * 样本不足或模型无法判断时的临时结果
+     */
+    @Value("${ai.degraded.default-pass:true}")
+    private boolean degradedDefaultPass;
+
+    private Cache<Long, UserModel> models;
+    private final Map<Long, Stats> stats = new ConcurrentHashMap<>();
+
+    public AiPreFilter(FilterLogMapper filterLogMapper) {
+        this.filterLogMapper = filterLogMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        models = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(1, TimeUnit.DAYS)
+                .build();
+    }
+
+    public static boolean isEnabled(AiConfig config) {
+        return config != null && config.getPrefilterEnabled() != null && config.getPrefilterEnabled() == 1;
+    }
+
+    /**
+     * 判断一篇文章是否可以在本地决定
+     */
+    public Decision decide(AiConfig config, String sourceName, String title, String description) {
+        if (!isEnabled(config)) {
+            return Decision.ASK_AI;
+        }
+        Stats userStats = statsOf(config.getUserId());
+        UserModel model = modelOf(config);
+        Decision decision;
+        synchronized (model) {
+            Double probability = model.classifier.getSampleCount() >= minSamples ?
+                    model.classifier.predictPassProbability(sourceName, title) : null;
+            if (probability == null || Math.max(probability, 1 - probability) < confidence) {
+                decision = Decision.ASK_AI;
+            } else {
+                boolean predicted = probability >= 0.5;
+                boolean trusted = model.auditCount >= minAudits && model.accuracy() >= minAccuracy;
+                if (!trusted || ThreadLocalRandom.current().nextDouble() < auditRate) {
+                    decision = new Decision(null, predicted, Math.max(probability, 1 - probability));
+                } else {
+                    decision = new Decision(predicted, null, Math.max(probability, 1 - probability));
+                }
+            }
+        }
+        if (decision.getVerdict() != null) {
+            userStats.autoDecided.incrementAndGet();
+            userStats.tokensSaved.addAndGet(TokenEstimator.estimate(title)
+                    + Math.min(TokenEstimator.estimate(description), AiConstants.MAX_ITEM_INPUT_TOKENS_BATCH)
+                    + AiConstants.BATCH_ITEM_OVERHEAD_TOKENS + AiConstants.BATCH_VERDICT_OUTPUT_TOKENS);
+        } else {
+            userStats.askedAi.incrementAndGet();
+        }
+        return decision;
+    }
+
+    /**
+     * AI服务不可用时给出的临时结果：模型样本达到 degraded min-samples 且能够判断时按预测，否则按 default-pass
+     * @return 未开启降级模式时返回 null
+     */
+    public Boolean provisionalVerdict(AiConfig config, String sourceName, String title) {
+        if (!degradedEnabled || config == null) {
+            return null;
+        }
+        UserModel model = modelOf(config);
+        Double probability;
+        synchronized (model) {
+            probability = model.classifier.getSampleCount() >= degradedMinSamples ?
+                    model.classifier.predictPassProbability(sourceName, title) : null;
+        }
+        statsOf(config.getUserId()).provisional.incrementAndGet();
+        return probability != null ? probability >= 0.5 : degradedDefaultPass;
+    }
+
+    /**
+     * 学习一条AI给出的结果，未开启预筛的用户只更新降级模式已训练的模型
+     * @param expected 抽查时本地预测的结果，不是抽查时为 null
+     */
+    public void learn(AiConfig config, String sourceName, String title, String aiReason, boolean passed, Boolean expected) {
+        if (config == null || !isLearnable(aiReason)) {
+            return;
+        }
+        UserModel model = isEnabled(config) ? modelOf(config) : cachedModelOf(config);
+        if (model == null) {
+            return;
+        }
+        synchronized (model) {
+            model.classifier.learn(sourceName, title, passed);
+            if (expected != null) {
+                model.recordAudit(expected == passed);
+            }
+        }
+        if (expected != null) {
+            Stats userStats = statsOf(config.getUserId());
+            userStats.audits.incrementAndGet();
+            if (expected != passed) {
+                userStats.auditMisses.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 单个用户启动以来的统计，当前模型的样本数和抽查准确率
+     */
+    public Stats getStats(Long userId) {
+        Stats userStats = stats.get(userId);
+        Stats snapshot = userStats != null ? userStats.copy() : new Stats();
+        UserModel model = models.getIfPresent(userId);
+        if (model != null) {
+            synchronized (model) {
+                snapshot.samples = model.classifier.getSampleCount();
+                snapshot.recentAccuracy = model.auditCount > 0 ? model.accuracy() : null;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 所有用户的合计
+     */
+    public Stats getTotalStats() {
+        Stats total = new Stats();
+        for (Stats userStats : stats.values()) {
+            total.autoDecided.addAndGet(userStats.autoDecided.get());
+            total.askedAi.addAndGet(userStats.askedAi.get());
+            total.audits.addAndGet(userStats.audits.get());
+            total.auditMisses.addAndGet(userStats.auditMisses.get());
+            total.tokensSaved.addAndGet(userStats.tokensSaved.get());
+            total.provisional.addAndGet(userStats.provisional.get());
+        }
+        total.users = models.estimatedSize();
+        return total;
+    }
+
+    /**
+     * 本地判断、临时结果、服务不可用和解析失败的结果不用于训练
+     */
+    static boolean isLearnable(String aiReason) {
+        return aiReason != null && !aiReason.contains(AiConstants.PREFILTER_REASON_TAG)
+                && !aiReason.contains(AiConstants.PROVISIONAL_REASON_TAG)
+                && !aiReason.contains("AI服务不可用") && !aiReason.contains("解析失败") && !aiReason.contains("处理失败");
+    }
+
+    private Stats statsOf(Long userId) {
+        return stats.computeIfAbsent(userId, key -> new Stats());
+    }
+
+    private UserModel cachedModelOf(AiConfig config) {
+        UserModel model = models.getIfPresent(config.getUserId());
+        return model != null && model.promptKey.equals(promptKeyOf(config)) ? model : null;
+    }
+
+    private UserModel modelOf(AiConfig config) {
+        UserModel model = cachedModelOf(config);
+        if (model != null) {
+            return model;
+        }
+        model = new UserModel(promptKeyOf(config));
+        long since = config.getPromptUpdatedAt() != null ? config.getPromptUpdatedAt() : 0;
+        List<FilterLog> samples = filterLogMapper.findTrainingSamples(config.getUserId(), since, trainingLimit);
+        for (FilterLog sample : samples) {
+            if (isLearnable(sample.getAiReason()) && sample.getAiFiltered() != null) {
+                model.classifier.learn(sample.getSourceName(), sample.getTitle(), sample.getAiFiltered());
+            }
+        }
+        logger.info("用户 {} 的本地预筛模型已训练，样本数: {}", config.getUserId(), model.classifier.getSampleCount());
+        models.put(config.getUserId(), model);
+        return model;
+    }
+
+    private static String promptKeyOf(AiConfig config) {
+        return config.getModel() + '\u0000'
+                + (config.getSystemPrompt() != null ? config.getSystemPrompt().trim().replaceAll("\\s+", " ") : "");
+    }
+
+    private static class UserModel {
+        private final String promptKey;
+        private final HashedNaiveBayes classifier = new HashedNaiveBayes();
+        private final boolean[] recentAudits = new boolean[AUDIT_WINDOW];
+        private int auditCount;
+        private int auditPosition;
+
+        UserModel(String promptKey) {
+            this.promptKey = promptKey;
+        }
+
+        void recordAudit(boolean correct) {
+            recentAudits[auditPosition] = correct;
+            auditPosition = (auditPosition + 1) % AUDIT_WINDOW;
+            auditCount++;
+        }
+
+        double accuracy() {
+            int window = Math.min(auditCount, AUDIT_WINDOW);
+            int correct = 0;
+            for (int i = 0; i < window; i++) {
+                if (recentAudits[i]) {
+                    correct++;
+                }
+            }
+            return window > 0 ? (double) correct / window : 0;
+        }
+    }
+
+    /**
+     * 预筛结果：verdict 为本地判断的结果，null 表示交给AI；
+     * 交给AI的文章如果是抽查，expected 为本地预测的结果
+     */
+    public static class Decision {
+        static final Decision ASK_AI = new Decision(null, null, 0);
+
+        private final Boolean verdict;
+        private final Boolean expected;
+        private final double confidence;
+
+        Decision(Boolean verdict, Boolean expected, double confidence) {
+            this.verdict = verdict;
+            this.expected = expected;
+            this.confidence = confidence;
+        }
+
+        public Boolean getVerdict() {
+            return verdict;
+        }
+
+        public Boolean getExpected() {
+            return expected;
+        }
+
+        public double getConfidence() {
+            return confidence;
+        }
+    }
+
+    /**
+     * 启动以来的统计
+     */
+    public static class Stats {
+        private final AtomicLong autoDecided = new AtomicLong();
+        private final AtomicLong askedAi = new AtomicLong();
+        private final AtomicLong audits = new AtomicLong();
+        private final AtomicLong auditMisses = new AtomicLong();
+        private final AtomicLong tokensSaved = new AtomicLong();
+        private final AtomicLong provisional = new AtomicLong();
+        private long samples;
+        private Double recentAccuracy;
+        private long users;
+
+        Stats copy() {
+            Stats copy = new Stats();
+            copy.autoDecided.set(autoDecided.get());
+            copy.askedAi.set(askedAi.get());
+            copy.audits.set(audits.get());
+            copy.auditMisses.set(auditMisses.get());
+            copy.tokensSaved.set(tokensSaved.get());
+            copy.provisional.set(provisional.get());
+            return copy;
+        }
+
+        /**
+         * 本地判断、未请求AI的文章数
+         */
+        public long getAutoDecided() {
+            return autoDecided.get();
+        }
+
+        public long getAskedAi() {
+            return askedAi.get();
+        }
+
+        public double getSavedRate() {
+            long total = autoDecided.get() + askedAi.get();
+            return total > 0 ? (double) autoDecided.get() / total : 0;
+        }
+
+        public long getAudits() {
+            return audits.get();
+        }
+
+        public long getAuditMisses() {
+            return auditMisses.get();
+        }
+
+        public long getTokensSaved() {
+            return tokensSaved.get();
+        }
+
+        /**
+         * AI服务不可用时给出临时结果的文章数
+         */
+        public long getProvisional() {
+            return provisional.get();
+        }
+
+        public long getSamples() {
+            return samples;
+        }
+
+        public Double getRecentAccuracy() {
+            return recentAccuracy;
+        }
+
+        public long getUsers() {
+            return users;
+        }
+    }
+}
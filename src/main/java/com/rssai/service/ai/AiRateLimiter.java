@@ -0,0 +1,415 @@
+package com.rssai.service.ai;
+
+import com.rssai.exception.RetryLaterException;
+import com.rssai.model.AiConfig;
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AI请求速率限制
+ * 按 服务主机 + API密钥 维护请求数和token数两个令牌桶（每分钟匀速补充），同一账号被多个用户、多个RSS源共享时按账号额度排队。
+ * 服务返回的 Retry-After 和 x-ratelimit-remaining-* / x-ratelimit-reset-* 响应头会暂停或收紧对应的令牌桶，
+ * 限流期间请求在本地排队等待，而不是发出后收到 429 再消耗重试次数。
+ * <p>
+ * 批量筛选的批次通过 {@link #executor} 在取得并发名额之前预先扣除额度：额度不足时抛出 {@link RetryLaterException}，
+ * 由重试服务到时间后重新提交，排队期间不占用并发名额和分发线程；批次内的后续请求（补充请求、429 后重发）
+ * 额度不足时同样抛出该异常，不在持有名额的线程中等待。其他请求（单条筛选、连接测试）在调用线程中排队等待
+ */
+@Component
+public class AiRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AiRateLimiter.class);
+
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    /**
+     * 当前线程正在执行通过 {@link #executor} 提交的任务：TRUE 表示预先扣除的额度还未使用，FALSE 表示已使用
+     */
+    private static final ThreadLocal<Boolean> PREPAID = new ThreadLocal<>();
+
+    /**
+     * 每分钟请求数，0 表示不限制
+     */
+    @Value("${ai.rate-limit.requests-per-minute:0}")
+    private int requestsPerMinute;
+
+    /**
+     * 每分钟token数（输入估算 + max_tokens），0 表示不限制
+     */
+    @Value("${ai.rate-limit.tokens-per-minute:0}")
+    private int tokensPerMinute;
+
+    /**
+     * 429 响应没有给出 Retry-After 时暂停的秒数
+     */
+    @Value("${ai.rate-limit.default-retry-after-seconds:5}")
+    private int defaultRetryAfterSeconds;
+
+    /**
+     * 单个请求最长排队时间，超过后按请求失败处理
+     */
+    @Value("${ai.rate-limit.max-wait-seconds:300}")
+    private int maxWaitSeconds;
+
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 包装为 Executor：先扣除一个请求的额度，再把任务提交到 next（通常是并发名额限制）
+     * 额度不足时不提交任务，抛出 {@link RetryLaterException} 告知需要等待的时间
+     * @param tokens 任务中第一个请求预计消耗的token数
+     */
+    public Executor executor(AiConfig config, int tokens, Executor next) {
+        return task -> {
+            long waitNanos = bucketOf(config).tryAcquire(tokens);
+            if (waitNanos > 0) {
+                throw retryLater(config, waitNanos);
+            }
+            next.execute(() -> {
+                PREPAID.set(Boolean.TRUE);
+                try {
+                    task.run();
+                } finally {
+                    PREPAID.remove();
+                }
+            });
+        };
+    }
+
+    /**
+     * 获取发送一个请求的额度，额度不足或服务要求暂停时排队等待
+     * 在 {@link #executor} 提交的任务中，第一个请求使用预先扣除的额度，之后的请求额度不足时抛出 {@link RetryLaterException}
+     * @param tokens 本次请求预计消耗的token数
+     * @throws IOException 排队超过 max-wait-seconds 或等待被中断
+     */
+    public void acquire(AiConfig config, int tokens) throws IOException {
+        Boolean prepaid = PREPAID.get();
+        if (prepaid != null) {
+            if (prepaid) {
+                PREPAID.set(Boolean.FALSE);
+                return;
+            }
+            long waitNanos = bucketOf(config).tryAcquire(tokens);
+            if (waitNanos > 0) {
+                throw retryLater(config, waitNanos);
+            }
+            return;
+        }
+        Bucket bucket = bucketOf(config);
+        try {
+            bucket.acquire(tokens, TimeUnit.SECONDS.toNanos(maxWaitSeconds));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待AI速率限制被中断", e);
+        }
+    }
+
+    private RetryLaterException retryLater(AiConfig config, long waitNanos) {
+        Bucket bucket = bucketOf(config);
+        bucket.deferred.incrementAndGet();
+        return new RetryLaterException("AI速率限制额度不足: " + bucket.name,
+                Math.max(TimeUnit.NANOSECONDS.toMillis(waitNanos), 1), TimeUnit.SECONDS.toMillis(maxWaitSeconds));
+    }
+
+    /**
+     * 根据响应头更新令牌桶：429 时按 Retry-After 暂停，其他响应按剩余额度收紧
+     */
+    public void onResponse(AiConfig config, int code, Headers headers) {
+        Bucket bucket = bucketOf(config);
+        long now = System.nanoTime();
+        if (code == 429) {
+            long retryAfterNanos = parseRetryAfter(headers);
+            if (retryAfterNanos < 0) {
+                retryAfterNanos = TimeUnit.SECONDS.toNanos(defaultRetryAfterSeconds);
+            }
+            logger.warn("AI服务限流(429) {}，暂停{}ms", bucket.name, TimeUnit.NANOSECONDS.toMillis(retryAfterNanos));
+            bucket.throttle(now + retryAfterNanos);
+        }
+        Long remainingRequests = parseLong(headers.get("x-ratelimit-remaining-requests"));
+        Long remainingTokens = parseLong(headers.get("x-ratelimit-remaining-tokens"));
+        long resetRequests = parseDuration(headers.get("x-ratelimit-reset-requests"));
+        long resetTokens = parseDuration(headers.get("x-ratelimit-reset-tokens"));
+        bucket.observe(now, remainingRequests, resetRequests, remainingTokens, resetTokens);
+    }
+
+    /**
+     * 各账号当前的额度和排队情况
+     */
+    public Map<String, Status> getStatus() {
+        Map<String, Status> status = new TreeMap<>();
+        for (Bucket bucket : buckets.values()) {
+            status.put(bucket.name, bucket.status());
+        }
+        return status;
+    }
+
+    private Bucket bucketOf(AiConfig config) {
+        String host = hostOf(config.getBaseUrl());
+        String apiKey = config.getApiKey() != null ? config.getApiKey() : "";
+        return buckets.computeIfAbsent(host + "|" + apiKey,
+                key -> new Bucket(host + "|" + maskApiKey(apiKey), requestsPerMinute, tokensPerMinute));
+    }
+
+    private static String hostOf(String baseUrl) {
+        HttpUrl url = baseUrl != null ? HttpUrl.parse(baseUrl.trim()) : null;
+        if (url == null) {
+            return baseUrl != null ? baseUrl.trim() : "";
+        }
+        return url.host() + ":" + url.port();
+    }
+
+    private static String maskApiKey(String apiKey) {
+        if (apiKey.length() <= 8) {
+            return "****";
+        }
+        return apiKey.substring(0, 3) + "****" + apiKey.substring(apiKey.length() - 4);
+    }
+
+    /**
+     * Retry-After（秒数或HTTP日期）和 retry-after-ms
+     * @return 纳秒，没有时返回 -1
+     */
+    static long parseRetryAfter(Headers headers) {
+        Long millis = parseLong(headers.get("retry-after-ms"));
+        if (millis != null) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(millis, 0));
+        }
+        String value = headers.get("Retry-After");
+        if (value == null) {
+            return -1;
+        }
+        try {
+            return (long) (Math.max(Double.parseDouble(value.trim()), 0) * TimeUnit.SECONDS.toNanos(1));
+        } catch (NumberFormatException e) {
+            Date date = headers.getDate("Retry-After");
+            if (date == null) {
+                return -1;
+            }
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(date.getTime() - System.currentTimeMillis(), 0));
+        }
+    }
+
+    /**
+     * x-ratelimit-reset-* 的时长格式，如 "1s"、"6m0s"、"20ms"、"0.5s"
+     * @return 纳秒，无法解析时返回 -1
+     */
+    static long parseDuration(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        Matcher matcher = DURATION_PATTERN.matcher(value.trim());
+        double nanos = 0;
+        boolean matched = false;
+        while (matcher.find()) {
+            matched = true;
+            double amount = Double.parseDouble(matcher.group(1));
+            switch (matcher.group(2)) {
+                case "h":
+                    nanos += amount * TimeUnit.HOURS.toNanos(1);
+                    break;
+                case "m":
+                    nanos += amount * TimeUnit.MINUTES.toNanos(1);
+                    break;
+                case "s":
+                    nanos += amount * TimeUnit.SECONDS.toNanos(1);
+                    break;
+                default:
+                    nanos += amount * TimeUnit.MILLISECONDS.toNanos(1);
+                    break;
+            }
+        }
+        return matched ? (long) nanos : -1;
+    }
+
+    private static Long parseLong(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static class Bucket {
+        private final String name;
+        private final int requestsPerMinute;
+        private final int tokensPerMinute;
+        private double requests;
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+        private long pausedUntil = System.nanoTime();
+        private int waiting;
+        private final AtomicLong throttled = new AtomicLong();
+        private final AtomicLong deferred = new AtomicLong();
+
+        Bucket(String name, int requestsPerMinute, int tokensPerMinute) {
+            this.name = name;
+            this.requestsPerMinute = requestsPerMinute;
+            this.tokensPerMinute = tokensPerMinute;
+            this.requests = requestsPerMinute;
+            this.tokens = tokensPerMinute;
+        }
+
+        synchronized void acquire(int cost, long maxWaitNanos) throws InterruptedException, IOException {
+            long deadline = System.nanoTime() + maxWaitNanos;
+            waiting++;
+            try {
+                while (true) {
+                    long now = System.nanoTime();
+                    long waitNanos = take(now, cost);
+                    if (waitNanos <= 0) {
+                        return;
+                    }
+                    long remaining = deadline - now;
+                    if (remaining <= 0) {
+                        throw new IOException("等待AI速率限制超时: " + name);
+                    }
+                    long sleep = Math.min(waitNanos, remaining);
+                    TimeUnit.NANOSECONDS.timedWait(this, Math.max(sleep, TimeUnit.MILLISECONDS.toNanos(1)));
+                }
+            } finally {
+                waiting--;
+            }
+        }
+
+        /**
+         * 不等待：额度足够时扣除并返回 0，否则返回需要等待的纳秒数
+         */
+        synchronized long tryAcquire(int cost) {
+            return take(System.nanoTime(), cost);
+        }
+
+        /**
+         * 额度足够且没有暂停时扣除额度并返回 0，否则返回需要等待的纳秒数
+         */
+        private long take(long now, int cost) {
+            refill(now);
+            // 超过桶容量的请求只要求桶满，避免永远等不到
+            double tokenCost = tokensPerMinute > 0 ? Math.min(cost, tokensPerMinute) : 0;
+            long waitNanos = Math.max(pausedUntil - now, 0);
+            if (requestsPerMinute > 0 && requests < 1) {
+                waitNanos = Math.max(waitNanos, nanosToRefill(1 - requests, requestsPerMinute));
+            }
+            if (tokensPerMinute > 0 && tokens < tokenCost) {
+                waitNanos = Math.max(waitNanos, nanosToRefill(tokenCost - tokens, tokensPerMinute));
+            }
+            if (waitNanos <= 0) {
+                requests -= 1;
+                tokens -= tokensPerMinute > 0 ? cost : 0;
+            }
+            return waitNanos;
+        }
+
+        synchronized void throttle(long until) {
+            throttled.incrementAndGet();
+            pausedUntil = Math.max(pausedUntil, until);
+        }
+
+        /**
+         * 服务返回的剩余额度低于本地估计时以服务为准，额度用尽时暂停到重置时间
+         */
+        synchronized void observe(long now, Long remainingRequests, long resetRequests,
+                                  Long remainingTokens, long resetTokens) {
+            refill(now);
+            if (remainingRequests != null) {
+                if (requestsPerMinute > 0) {
+                    requests = Math.min(requests, remainingRequests);
+                }
+                if (remainingRequests <= 0 && resetRequests > 0) {
+                    pausedUntil = Math.max(pausedUntil, now + resetRequests);
+                }
+            }
+            if (remainingTokens != null) {
+                if (tokensPerMinute > 0) {
+                    tokens = Math.min(tokens, remainingTokens);
+                }
+                if (remainingTokens <= 0 && resetTokens > 0) {
+                    pausedUntil = Math.max(pausedUntil, now + resetTokens);
+                }
+            }
+            notifyAll();
+        }
+
+        synchronized Status status() {
+            long now = System.nanoTime();
+            refill(now);
+            Status status = new Status();
+            status.requestsAvailable = requestsPerMinute > 0 ? (long) Math.floor(requests) : null;
+            status.tokensAvailable = tokensPerMinute > 0 ? (long) Math.floor(tokens) : null;
+            status.queueLength = waiting;
+            status.pausedMillis = TimeUnit.NANOSECONDS.toMillis(Math.max(pausedUntil - now, 0));
+            status.throttledCount = throttled.get();
+            status.deferredCount = deferred.get();
+            return status;
+        }
+
+        private void refill(long now) {
+            double minutes = (now - lastRefill) / (double) TimeUnit.MINUTES.toNanos(1);
+            lastRefill = now;
+            if (requestsPerMinute > 0) {
+                requests = Math.min(requestsPerMinute, requests + minutes * requestsPerMinute);
+            }
+            if (tokensPerMinute > 0) {
+                tokens = Math.min(tokensPerMinute, tokens + minutes * tokensPerMinute);
+            }
+        }
+
+        private static long nanosToRefill(double amount, int perMinute) {
+            return (long) Math.ceil(amount / perMinute * TimeUnit.MINUTES.toNanos(1));
+        }
+    }
+
+    /**
+     * 单个账号的额度状态，未限制的项为 null
+     */
+    public static class Status {
+        private Long requestsAvailable;
+        private Long tokensAvailable;
+        private int queueLength;
+        private long pausedMillis;
+        private long throttledCount;
+        private long deferredCount;
+
+        public Long getRequestsAvailable() {
+            return requestsAvailable;
+        }
+
+        public Long getTokensAvailable() {
+            return tokensAvailable;
+        }
+
+        public int getQueueLength() {
+            return queueLength;
+        }
+
+        public long getPausedMillis() {
+            return pausedMillis;
+        }
+
+        public long getThrottledCount() {
+            return throttledCount;
+        }
+
+        /**
+         * 批次因额度不足推迟提交的次数（推迟期间不占用线程，不计入 queueLength）
+         */
+        public long getDeferredCount() {
+            return deferredCount;
+        }
+    }
+}
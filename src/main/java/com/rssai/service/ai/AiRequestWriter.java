@@ -0,0 +1,115 @@
+package com.rssai.service.ai;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import okio.Buffer;
+
+import java.util.Map;
+
+/**
+ * 聊天请求体的JSON写入器
+ * 直接把请求体以UTF-8写入Okio缓冲区，不构建JSON树、不生成中间字符串；
+ * 字段顺序固定（model、messages、max_tokens、temperature、stream），消息按原顺序写出，
+ * 系统消息不变时请求体的前缀逐字节相同，便于服务商的提示词缓存命中
+ */
+public final class AiRequestWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private AiRequestWriter() {
+    }
+
+    /**
+     * 写出聊天请求体
+     */
+    public static Buffer write(String model, JsonObject[] messages, int maxTokens, double temperature, boolean stream) {
+        Buffer buffer = new Buffer();
+        buffer.writeUtf8("{\"model\":");
+        writeString(buffer, model);
+        buffer.writeUtf8(",\"messages\":[");
+        for (int i = 0; i < messages.length; i++) {
+            if (i > 0) {
+                buffer.writeByte(',');
+            }
+            writeMessage(buffer, messages[i]);
+        }
+        buffer.writeUtf8("],\"max_tokens\":").writeDecimalLong(maxTokens);
+        buffer.writeUtf8(",\"temperature\":").writeUtf8(Double.toString(temperature));
+        if (stream) {
+            buffer.writeUtf8(",\"stream\":true");
+        }
+        buffer.writeByte('}');
+        return buffer;
+    }
+
+    private static void writeMessage(Buffer buffer, JsonObject message) {
+        buffer.writeByte('{');
+        boolean first = true;
+        for (Map.Entry<String, JsonElement> entry : message.entrySet()) {
+            if (!first) {
+                buffer.writeByte(',');
+            }
+            first = false;
+            writeString(buffer, entry.getKey());
+            buffer.writeByte(':');
+            JsonElement value = entry.getValue();
+            if (value.isJsonPrimitive() && ((JsonPrimitive) value).isString()) {
+                writeString(buffer, value.getAsString());
+            } else {
+                // 非字符串的字段（如多模态内容数组）很少出现，交给Gson序列化
+                buffer.writeUtf8(value.toString());
+            }
+        }
+        buffer.writeByte('}');
+    }
+
+    /**
+     * 写出JSON字符串，不需要转义的连续字符整段写入
+     */
+    static void writeString(Buffer buffer, String value) {
+        if (value == null) {
+            buffer.writeUtf8("null");
+            return;
+        }
+        buffer.writeByte('"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\' && c != '\u2028' && c != '\u2029') {
+                continue;
+            }
+            if (i > start) {
+                buffer.writeUtf8(value, start, i);
+            }
+            switch (c) {
+                case '"':
+                    buffer.writeUtf8("\\\"");
+                    break;
+                case '\\':
+                    buffer.writeUtf8("\\\\");
+                    break;
+                case '\n':
+                    buffer.writeUtf8("\\n");
+                    break;
+                case '\r':
+                    buffer.writeUtf8("\\r");
+                    break;
+                case '\t':
+                    buffer.writeUtf8("\\t");
+                    break;
+                default:
+                    buffer.writeUtf8("\\u")
+                            .writeByte(HEX[(c >> 12) & 0xf]).writeByte(HEX[(c >> 8) & 0xf])
+                            .writeByte(HEX[(c >> 4) & 0xf]).writeByte(HEX[c & 0xf]);
+                    break;
+            }
+            start = i + 1;
+        }
+        if (start < length) {
+            buffer.writeUtf8(value, start, length);
+        }
+        buffer.writeByte('"');
+    }
+}
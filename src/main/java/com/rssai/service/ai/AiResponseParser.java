@@ -114,24 +114,37 @@ public class AiResponseParser {
             return new FilterResult(false, "响应为空");
         }
         
-        Matcher matcher = YES_NO_PATTERN.matcher(content);
-        
-        if (matcher.find()) {
-            String decision = matcher.group(1).toUpperCase();
-            String reason = matcher.group(2).trim();
-            
-            if (reason.isEmpty()) {
-                reason = decision.equals("YES") ? "符合偏好" : "不符合偏好";
-            }
-            
-            boolean passed = decision.equals("YES");
-            return new FilterResult(passed, reason);
+        FilterResult result = tryParseSingleFilterResponse(content);
+        if (result != null) {
+            return result;
         }
         
         logger.warn("AI响应格式异常，无法提取YES/NO: {}", content);
         return new FilterResult(false, "响应格式异常");
     }
     
+    /**
+     * 解析单条筛选响应
+     * @return 无法提取YES/NO时返回 null
+     */
+    public FilterResult tryParseSingleFilterResponse(String content) {
+        if (content == null) {
+            return null;
+        }
+        Matcher matcher = YES_NO_PATTERN.matcher(content);
+        if (!matcher.find()) {
+            return null;
+        }
+        String decision = matcher.group(1).toUpperCase();
+        String reason = matcher.group(2).trim();
+        
+        if (reason.isEmpty()) {
+            reason = decision.equals("YES") ? "符合偏好" : "不符合偏好";
+        }
+        
+        return new FilterResult(decision.equals("YES"), reason);
+    }
+    
     /**
      * 解析批量筛选响应
      */
@@ -140,23 +153,11 @@ public class AiResponseParser {
         String[] lines = content.split("\n");
         
         for (String line : lines) {
-            line = line.trim();
-            if (line.isEmpty()) continue;
-            
-            Matcher matcher = BATCH_YES_NO_PATTERN.matcher(line);
-            
-            if (matcher.find()) {
-                int index = Integer.parseInt(matcher.group(1)) - 1;
-                String decision = matcher.group(2).toUpperCase();
-                String reason = matcher.group(3).trim();
-                
+            BatchLine batchLine = parseBatchFilterLine(line);
+            if (batchLine != null) {
+                int index = batchLine.getNumber() - 1;
                 if (index >= 0 && index < itemCount) {
-                    if (reason.isEmpty()) {
-                        reason = decision.equals("YES") ? "符合偏好" : "不符合偏好";
-                    }
-                    
-                    boolean passed = decision.equals("YES");
-                    results.put(startIndex + index, new FilterResult(passed, reason));
+                    results.put(startIndex + index, batchLine.getResult());
                 }
             }
         }
@@ -172,6 +173,55 @@ public class AiResponseParser {
         return results;
     }
     
+    /**
+     * 解析批量响应中的一行，流式响应收到完整的一行后即可调用
+     * @return 序号（从1开始）和结果，不是结果行时返回 null
+     */
+    public BatchLine parseBatchFilterLine(String line) {
+        line = line.trim();
+        if (line.isEmpty()) {
+            return null;
+        }
+        Matcher matcher = BATCH_YES_NO_PATTERN.matcher(line);
+        if (!matcher.find()) {
+            return null;
+        }
+        int number = Integer.parseInt(matcher.group(1));
+        String decision = matcher.group(2).toUpperCase();
+        String reason = matcher.group(3).trim();
+        if (reason.isEmpty()) {
+            reason = decision.equals("YES") ? "符合偏好" : "不符合偏好";
+        }
+        return new BatchLine(number, new FilterResult(decision.equals("YES"), reason), line);
+    }
+    
+    /**
+     * 解析流式响应（SSE）的一个 data 块
+     * @return [正文增量, 推理过程增量]，没有对应内容时为 null
+     */
+    public String[] parseStreamDelta(String data) {
+        JsonObject chunk = gson.fromJson(data, JsonObject.class);
+        if (chunk == null || !chunk.has("choices") || !chunk.get("choices").isJsonArray()
+                || chunk.getAsJsonArray("choices").size() == 0) {
+            return new String[2];
+        }
+        JsonObject choice = chunk.getAsJsonArray("choices").get(0).getAsJsonObject();
+        if (!choice.has("delta") || !choice.get("delta").isJsonObject()) {
+            return new String[2];
+        }
+        JsonObject delta = choice.getAsJsonObject("delta");
+        String[] result = new String[2];
+        for (String field : AiConstants.CONTENT_FIELDS) {
+            if (delta.has(field) && !delta.get(field).isJsonNull()) {
+                int slot = field.equals("content") ? 0 : 1;
+                if (result[slot] == null) {
+                    result[slot] = delta.get(field).getAsString();
+                }
+            }
+        }
+        return result;
+    }
+    
     /**
      * 从批量响应中提取特定条目的AI原始响应
      * 使用与parseBatchFilterResponse相同的正则表达式来确保一致性
@@ -194,6 +244,33 @@ public class AiResponseParser {
         return "未找到响应";
     }
     
+    /**
+     * 批量响应中的一行结果
+     */
+    public static class BatchLine {
+        private final int number;
+        private final FilterResult result;
+        private final String line;
+        
+        public BatchLine(int number, FilterResult result, String line) {
+            this.number = number;
+            this.result = result;
+            this.line = line;
+        }
+        
+        public int getNumber() {
+            return number;
+        }
+        
+        public FilterResult getResult() {
+            return result;
+        }
+        
+        public String getLine() {
+            return line;
+        }
+    }
+    
     /**
      * 筛选结果类
      */
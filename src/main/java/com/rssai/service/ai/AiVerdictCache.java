@@ -0,0 +1,242 @@
+package com.rssai.service.ai;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rssai.mapper.AiVerdictCacheMapper;
+import com.rssai.model.AiConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AI筛选结果缓存
+ * 缓存键是 服务地址（baseUrl）、模型、规范化后的筛选偏好、发送给AI的标题和内容 的 SHA-256，
+ * 多个用户使用相同偏好订阅同一RSS源时只有第一次需要请求AI；修改偏好、模型或服务后键随之变化，旧结果自然失效。
+ * 内存中保留最近使用的结果，数据库中保留 ttl-hours 内的结果，过期数据由 RetentionService 清理
+ */
+@Component
+public class AiVerdictCache {
+    private static final Logger logger = LoggerFactory.getLogger(AiVerdictCache.class);
+
+    private final AiVerdictCacheMapper aiVerdictCacheMapper;
+
+    @Value("${ai.verdict-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${ai.verdict-cache.memory-size:20000}")
+    private long memorySize;
+
+    @Value("${ai.verdict-cache.ttl-hours:168}")
+    private long ttlHours;
+
+    private Cache<String, Verdict> memory;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong persistentHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong tokensSaved = new AtomicLong();
+
+    public AiVerdictCache(AiVerdictCacheMapper aiVerdictCacheMapper) {
+        this.aiVerdictCacheMapper = aiVerdictCacheMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        memory = Caffeine.newBuilder()
+                .maximumSize(memorySize)
+                .expireAfterWrite(ttlHours, TimeUnit.HOURS)
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 计算缓存键，标题和内容需与实际发送给AI的文本一致
+     */
+    public String keyOf(AiConfig config, String preparedTitle, String preparedDescription) {
+        // 不同服务的同名模型可能是不同的模型，baseUrl 按 AiConcurrencyLimiter 的方式规范化
+        String baseUrl = config.getBaseUrl() != null ? config.getBaseUrl().trim() : "";
+        while (baseUrl.endsWith("/")) {
+            baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+        }
+        String prompt = config.getSystemPrompt() != null ? config.getSystemPrompt().trim().replaceAll("\\s+", " ") : "";
+        String material = baseUrl + '\u0000' + config.getModel() + '\u0000' + prompt + '\u0000' + preparedTitle + '\u0000' + preparedDescription;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(material.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
+    /**
+     * 查询缓存，先查内存再查数据库，数据库命中的结果放回内存
+     * @return 命中的缓存键 -> 结果
+     */
+    public Map<String, Verdict> lookup(Collection<String> keys) {
+        Map<String, Verdict> found = new HashMap<>();
+        List<String> remaining = new ArrayList<>();
+        for (String key : new LinkedHashSet<>(keys)) {
+            Verdict verdict = memory.getIfPresent(key);
+            if (verdict != null) {
+                found.put(key, verdict);
+            } else {
+                remaining.add(key);
+            }
+        }
+        memoryHits.addAndGet(found.size());
+
+        if (!remaining.isEmpty()) {
+            try {
+                Map<String, String[]> rows = aiVerdictCacheMapper.findByKeys(remaining, System.currentTimeMillis() - ttlMillis());
+                for (Map.Entry<String, String[]> row : rows.entrySet()) {
+                    Verdict verdict = new Verdict(row.getValue()[0], row.getValue()[1]);
+                    memory.put(row.getKey(), verdict);
+                    found.put(row.getKey(), verdict);
+                }
+                persistentHits.addAndGet(rows.size());
+                misses.addAndGet(remaining.size() - rows.size());
+            } catch (Exception e) {
+                logger.warn("查询AI筛选结果缓存失败，本次按未命中处理: {}", e.getMessage());
+                misses.addAndGet(remaining.size());
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 写入缓存，只应写入AI实际给出的结果，服务不可用或解析失败的结果不缓存
+     */
+    public void store(Map<String, Verdict> verdicts) {
+        if (verdicts.isEmpty()) {
+            return;
+        }
+        Map<String, String[]> rows = new HashMap<>();
+        for (Map.Entry<String, Verdict> entry : verdicts.entrySet()) {
+            memory.put(entry.getKey(), entry.getValue());
+            rows.put(entry.getKey(), new String[]{entry.getValue().getVerdict(), entry.getValue().getRawResponse()});
+        }
+        try {
+            aiVerdictCacheMapper.saveAll(rows, System.currentTimeMillis());
+        } catch (Exception e) {
+            logger.warn("写入AI筛选结果缓存失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 记录缓存命中节省的token数（估算值）
+     */
+    public void recordTokensSaved(long tokens) {
+        tokensSaved.addAndGet(tokens);
+    }
+
+    /**
+     * 删除一块数据库中过期的缓存结果，供 RetentionService 分块调用
+     */
+    public int purgeExpiredChunk(int chunkSize) {
+        return aiVerdictCacheMapper.deleteOlderThanChunk(System.currentTimeMillis() - ttlMillis(), chunkSize);
+    }
+
+    public Stats getStats() {
+        Stats stats = new Stats();
+        stats.enabled = enabled;
+        stats.memoryHits = memoryHits.get();
+        stats.persistentHits = persistentHits.get();
+        stats.misses = misses.get();
+        stats.tokensSaved = tokensSaved.get();
+        stats.memoryEntries = memory.estimatedSize();
+        stats.persistentEntries = aiVerdictCacheMapper.count();
+        return stats;
+    }
+
+    private long ttlMillis() {
+        return TimeUnit.HOURS.toMillis(ttlHours);
+    }
+
+    /**
+     * 缓存的单条筛选结果
+     */
+    public static class Verdict {
+        private final String verdict;
+        private final String rawResponse;
+
+        public Verdict(String verdict, String rawResponse) {
+            this.verdict = verdict;
+            this.rawResponse = rawResponse;
+        }
+
+        public String getVerdict() {
+            return verdict;
+        }
+
+        public String getRawResponse() {
+            return rawResponse;
+        }
+    }
+
+    /**
+     * 启动以来的命中统计
+     */
+    public static class Stats {
+        private boolean enabled;
+        private long memoryHits;
+        private long persistentHits;
+        private long misses;
+        private long tokensSaved;
+        private long memoryEntries;
+        private long persistentEntries;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public long getMemoryHits() {
+            return memoryHits;
+        }
+
+        public long getPersistentHits() {
+            return persistentHits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public double getHitRate() {
+            long total = memoryHits + persistentHits + misses;
+            return total > 0 ? (double) (memoryHits + persistentHits) / total : 0;
+        }
+
+        public long getTokensSaved() {
+            return tokensSaved;
+        }
+
+        public long getMemoryEntries() {
+            return memoryEntries;
+        }
+
+        public long getPersistentEntries() {
+            return persistentEntries;
+        }
+    }
+}
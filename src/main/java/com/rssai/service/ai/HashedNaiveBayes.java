@@ -0,0 +1,127 @@
+package com.rssai.service.ai;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 二分类朴素贝叶斯文本分类器（特征哈希，可增量训练）
+ * 特征为RSS源名称、中日韩文字的相邻二字组和其他文字的单词，每篇文章中同一特征只计一次。
+ * 非线程安全，由调用方加锁
+ */
+public class HashedNaiveBayes {
+
+    private static final int FEATURE_BUCKETS = 1 << 20;
+    private static final double ALPHA = 1.0;
+
+    /**
+     * 特征 -> [未通过次数, 通过次数]
+     */
+    private final Map<Integer, int[]> featureCounts = new HashMap<>();
+    private final long[] featureTotals = new long[2];
+    private final long[] documentCounts = new long[2];
+
+    /**
+     * 学习一条样本
+     */
+    public void learn(String sourceName, String title, boolean passed) {
+        int label = passed ? 1 : 0;
+        for (int feature : features(sourceName, title)) {
+            featureCounts.computeIfAbsent(feature, key -> new int[2])[label]++;
+            featureTotals[label]++;
+        }
+        documentCounts[label]++;
+    }
+
+    /**
+     * 预测通过的概率
+     * @return 训练样本中没有出现过任何特征，或两类样本不全时返回 null
+     */
+    public Double predictPassProbability(String sourceName, String title) {
+        if (documentCounts[0] == 0 || documentCounts[1] == 0) {
+            return null;
+        }
+        long documents = documentCounts[0] + documentCounts[1];
+        double[] scores = new double[2];
+        for (int label = 0; label < 2; label++) {
+            scores[label] = Math.log((documentCounts[label] + ALPHA) / (documents + 2 * ALPHA));
+        }
+        int vocabulary = featureCounts.size();
+        int known = 0;
+        for (int feature : features(sourceName, title)) {
+            int[] counts = featureCounts.get(feature);
+            if (counts == null) {
+                continue;
+            }
+            known++;
+            for (int label = 0; label < 2; label++) {
+                scores[label] += Math.log((counts[label] + ALPHA) / (featureTotals[label] + ALPHA * vocabulary));
+            }
+        }
+        if (known == 0) {
+            return null;
+        }
+        return 1.0 / (1.0 + Math.exp(scores[0] - scores[1]));
+    }
+
+    public long getSampleCount() {
+        return documentCounts[0] + documentCounts[1];
+    }
+
+    static Set<Integer> features(String sourceName, String title) {
+        Set<Integer> features = new LinkedHashSet<>();
+        if (sourceName != null && !sourceName.isEmpty()) {
+            features.add(bucket("s:" + sourceName));
+        }
+        if (title == null) {
+            return features;
+        }
+        String text = title.toLowerCase();
+        StringBuilder word = new StringBuilder();
+        int previousCjk = -1;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (isCjk(codePoint)) {
+                addWord(features, word);
+                if (previousCjk >= 0) {
+                    features.add(bucket(new StringBuilder("c:").appendCodePoint(previousCjk).appendCodePoint(codePoint).toString()));
+                } else if (i >= text.length() || !isCjk(text.codePointAt(i))) {
+                    // 单独的一个汉字
+                    features.add(bucket(new StringBuilder("c:").appendCodePoint(codePoint).toString()));
+                }
+                previousCjk = codePoint;
+            } else {
+                previousCjk = -1;
+                if (Character.isLetterOrDigit(codePoint)) {
+                    word.appendCodePoint(codePoint);
+                } else {
+                    addWord(features, word);
+                }
+            }
+        }
+        addWord(features, word);
+        return features;
+    }
+
+    private static void addWord(Set<Integer> features, StringBuilder word) {
+        if (word.length() >= 2) {
+            features.add(bucket("w:" + word));
+        }
+        word.setLength(0);
+    }
+
+    private static int bucket(String feature) {
+        return (feature.hashCode() & 0x7fffffff) % FEATURE_BUCKETS;
+    }
+
+    private static boolean isCjk(int codePoint) {
+        if (codePoint < 0x2E80) {
+            return false;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+}
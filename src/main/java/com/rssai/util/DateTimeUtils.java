@@ -1,15 +1,20 @@
 package com.rssai.util;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 日期时间工具类
  * 统一处理项目中日期时间的解析和格式化
  * 所有时间都基于配置的时区（默认 GMT+8）
+ * rss_items、filter_logs 的时间列和 rss_sources.last_fetch_time 以毫秒时间戳存储，
+ * 读取时直接换算为系统时区的 LocalDateTime，不再经过字符串解析
  */
 public class DateTimeUtils {
 
@@ -23,6 +28,8 @@ public class DateTimeUtils {
      */
     private static final int DEFAULT_TIMEZONE_OFFSET = 8;
 
+    private static final ZoneId SYSTEM_ZONE = ZoneId.systemDefault();
+
     /**
      * 解析日期时间字符串
      * 支持多种格式：ISO格式、SQLite格式等
@@ -44,35 +51,35 @@ public class DateTimeUtils {
      * @return 解析后的LocalDateTime，解析失败返回null
      */
     public static LocalDateTime parseDateTime(String dateStr, int timezoneOffset) {
+        LocalDateTime localDateTime = parseLocalDateTime(dateStr);
+        if (localDateTime == null) {
+            return null;
+        }
+        // 将解析出的时间视为指定时区的时间，转换为系统本地时区
+        ZoneId sourceZoneId = ZoneId.ofOffset("GMT", java.time.ZoneOffset.ofHours(timezoneOffset));
+        return localDateTime.atZone(sourceZoneId).withZoneSameInstant(SYSTEM_ZONE).toLocalDateTime();
+    }
+
+    /**
+     * 解析日期时间字符串，不做时区换算
+     * 支持 yyyy-MM-dd HH:mm:ss、yyyy-MM-dd HH:mm 及带 T 分隔符、毫秒的写法
+     *
+     * @return 解析后的LocalDateTime，解析失败返回null
+     */
+    public static LocalDateTime parseLocalDateTime(String dateStr) {
         if (dateStr == null || dateStr.isEmpty()) {
             return null;
         }
-        
+
         // 标准化格式：替换T为空格，移除毫秒
-        String normalized = normalizeDateString(dateStr);
-        
+        String normalized = normalizeDateString(dateStr.trim());
+
         // 尝试不同格式解析
         try {
-            LocalDateTime localDateTime = LocalDateTime.parse(normalized, DEFAULT_FORMATTER);
-            // 将解析出的时间视为指定时区的时间，转换为系统本地时区
-            ZoneId sourceZoneId = ZoneId.ofOffset("GMT", java.time.ZoneOffset.ofHours(timezoneOffset));
-            ZoneId targetZoneId = ZoneId.systemDefault();
-            
-            ZonedDateTime sourceZoned = localDateTime.atZone(sourceZoneId);
-            ZonedDateTime targetZoned = sourceZoned.withZoneSameInstant(targetZoneId);
-            
-            return targetZoned.toLocalDateTime();
+            return LocalDateTime.parse(normalized, DEFAULT_FORMATTER);
         } catch (DateTimeParseException e) {
             try {
-                LocalDateTime localDateTime = LocalDateTime.parse(normalized, SHORT_FORMATTER);
-                // 将解析出的时间视为指定时区的时间，转换为系统本地时区
-                ZoneId sourceZoneId = ZoneId.ofOffset("GMT", java.time.ZoneOffset.ofHours(timezoneOffset));
-                ZoneId targetZoneId = ZoneId.systemDefault();
-                
-                ZonedDateTime sourceZoned = localDateTime.atZone(sourceZoneId);
-                ZonedDateTime targetZoned = sourceZoned.withZoneSameInstant(targetZoneId);
-                
-                return targetZoned.toLocalDateTime();
+                return LocalDateTime.parse(normalized, SHORT_FORMATTER);
             } catch (DateTimeParseException e2) {
                 return null;
             }
@@ -92,6 +99,43 @@ public class DateTimeUtils {
         return result;
     }
 
+    /**
+     * 毫秒时间戳转换为系统时区的日期时间
+     */
+    public static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), SYSTEM_ZONE);
+    }
+
+    /**
+     * 系统时区的日期时间转换为毫秒时间戳，null输入返回null
+     */
+    public static Long toEpochMillis(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return null;
+        }
+        return dateTime.atZone(SYSTEM_ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 当前时间减去若干天的毫秒时间戳，用于时间范围查询
+     */
+    public static long daysAgoMillis(int days) {
+        return System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days);
+    }
+
+    /**
+     * 读取毫秒时间戳列，NULL 返回null
+     */
+    public static LocalDateTime readEpochMillis(ResultSet rs, int columnIndex) throws SQLException {
+        long value = rs.getLong(columnIndex);
+        return rs.wasNull() ? null : fromEpochMillis(value);
+    }
+
+    public static LocalDateTime readEpochMillis(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : fromEpochMillis(value);
+    }
+
     /**
      * 格式化日期时间为标准字符串
      * 
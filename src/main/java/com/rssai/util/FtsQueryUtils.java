@@ -0,0 +1,65 @@
+package com.rssai.util;
+
+import com.rssai.constant.RssConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * FTS5（trigram 分词）查询构造工具
+ * 用户输入按空白切分为多个词，各词之间为 AND 关系。
+ */
+public class FtsQueryUtils {
+
+    private FtsQueryUtils() {
+    }
+
+    public static List<String> splitTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String term : query.trim().split("\\s+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * trigram 无法匹配少于3个字符的词，只要有一个词过短就不能使用 MATCH
+     */
+    public static boolean isTrigramSearchable(List<String> terms) {
+        if (terms.isEmpty()) {
+            return false;
+        }
+        for (String term : terms) {
+            if (term.codePointCount(0, term.length()) < RssConstants.SEARCH_MIN_TRIGRAM_LENGTH) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 每个词作为短语加引号，避免用户输入被解析为 FTS5 语法
+     */
+    public static String buildMatchExpression(List<String> terms) {
+        StringBuilder expression = new StringBuilder();
+        for (String term : terms) {
+            if (expression.length() > 0) {
+                expression.append(' ');
+            }
+            expression.append('"').append(term.replace("\"", "\"\"")).append('"');
+        }
+        return expression.toString();
+    }
+
+    /**
+     * 转换为 LIKE 模式，配合 ESCAPE '\' 使用
+     */
+    public static String toLikePattern(String term) {
+        return "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,268 @@
+package com.rssai.util;
+
+/**
+ * HTML转纯文本的单遍扫描器
+ * 一次顺序扫描完成去除标签、解码实体和压缩空白，输出达到指定长度即停止，不再处理剩余的HTML。
+ * 块级标签和未知标签视为空白，常见行内标签（a、b、span 等）不插入空白；
+ * script、style 的内容和HTML注释整体跳过；实体支持常用命名实体和数字实体，无法识别的保持原样
+ */
+public final class HtmlTextScanner {
+    public static final String ELLIPSIS = "...";
+
+    /**
+     * 不产生空白的行内标签
+     */
+    private static final String[] INLINE_TAGS = {
+            "a", "b", "i", "u", "s", "em", "strong", "span", "small", "big", "sub", "sup", "code",
+            "font", "mark", "abbr", "cite", "q", "del", "ins", "time", "label", "tt", "kbd", "var"
+    };
+
+    private static final String[] RAW_TEXT_TAGS = {"script", "style"};
+
+    private static final String[] ENTITY_NAMES = {
+            "nbsp", "lt", "gt", "amp", "quot", "apos", "mdash", "ndash", "hellip",
+            "lsquo", "rsquo", "ldquo", "rdquo", "middot", "copy", "reg", "trade"
+    };
+    private static final char[] ENTITY_VALUES = {
+            ' ', '<', '>', '&', '"', '\'', '—', '–', '…',
+            '‘', '’', '“', '”', '·', '©', '®', '™'
+    };
+
+    /**
+     * 实体（不含 & 和 ;）的最大长度，超过则按普通文本处理
+     */
+    private static final int MAX_ENTITY_LENGTH = 10;
+
+    private HtmlTextScanner() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    /**
+     * 把HTML转换为单行纯文本
+     *
+     * @param maxLength 输出的最大字符数，超出时截断并追加 {@link #ELLIPSIS}；传入 Integer.MAX_VALUE 表示不截断
+     * @return 纯文本，输入为空时返回空字符串
+     */
+    public static String toPlainText(String html, int maxLength) {
+        if (html == null || html.isEmpty()) {
+            return "";
+        }
+        int length = html.length();
+        Output out = new Output(maxLength, length);
+        boolean noMoreTags = false;
+        int i = 0;
+        while (i < length && !out.full) {
+            char c = html.charAt(i);
+            if (c == '<' && !noMoreTags) {
+                int close = html.indexOf('>', i + 1);
+                if (close < 0) {
+                    // 之后不再有 '>'，剩余的 '<' 都按普通字符处理
+                    noMoreTags = true;
+                } else if (close > i + 1) {
+                    i = skipTag(html, i, close, out);
+                    continue;
+                }
+            } else if (c == '&') {
+                int end = decodeEntity(html, i, out);
+                if (end > i) {
+                    i = end;
+                    continue;
+                }
+            }
+            if (isWhitespace(c)) {
+                out.space();
+            } else {
+                out.append(c);
+            }
+            i++;
+        }
+        return out.toString();
+    }
+
+    /**
+     * 处理从 start 开始、在 close 处结束的标签
+     * @return 标签之后的位置
+     */
+    private static int skipTag(String html, int start, int close, Output out) {
+        if (html.startsWith("!--", start + 1)) {
+            int end = html.indexOf("-->", start + 4);
+            out.space();
+            return end < 0 ? html.length() : end + 3;
+        }
+        boolean closing = html.charAt(start + 1) == '/';
+        int nameStart = closing ? start + 2 : start + 1;
+        int nameEnd = nameStart;
+        while (nameEnd < close && Character.isLetterOrDigit(html.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        if (!isInlineTag(html, nameStart, nameEnd)) {
+            out.space();
+        }
+        if (!closing) {
+            for (String tag : RAW_TEXT_TAGS) {
+                if (matchesName(html, nameStart, nameEnd, tag)) {
+                    return skipRawText(html, close + 1, tag);
+                }
+            }
+        }
+        return close + 1;
+    }
+
+    /**
+     * 跳过 script/style 的内容直到对应的结束标签
+     */
+    private static int skipRawText(String html, int from, String tag) {
+        int position = from;
+        while (true) {
+            int open = html.indexOf("</", position);
+            if (open < 0) {
+                return html.length();
+            }
+            if (html.regionMatches(true, open + 2, tag, 0, tag.length())) {
+                int close = html.indexOf('>', open + 2 + tag.length());
+                return close < 0 ? html.length() : close + 1;
+            }
+            position = open + 2;
+        }
+    }
+
+    private static boolean isInlineTag(String html, int nameStart, int nameEnd) {
+        for (String tag : INLINE_TAGS) {
+            if (matchesName(html, nameStart, nameEnd, tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean matchesName(String html, int nameStart, int nameEnd, String tag) {
+        return nameEnd - nameStart == tag.length() && html.regionMatches(true, nameStart, tag, 0, tag.length());
+    }
+
+    /**
+     * 解码从 start（'&'）开始的实体并写入输出
+     * @return 实体之后的位置，无法识别时返回 start
+     */
+    private static int decodeEntity(String html, int start, Output out) {
+        int limit = Math.min(html.length(), start + MAX_ENTITY_LENGTH + 2);
+        int semicolon = -1;
+        for (int j = start + 1; j < limit; j++) {
+            char c = html.charAt(j);
+            if (c == ';') {
+                semicolon = j;
+                break;
+            }
+            if (!Character.isLetterOrDigit(c) && !(j == start + 1 && c == '#')) {
+                return start;
+            }
+        }
+        if (semicolon < start + 2) {
+            return start;
+        }
+        if (html.charAt(start + 1) == '#') {
+            int codePoint = parseCodePoint(html, start + 2, semicolon);
+            if (codePoint < 0) {
+                return start;
+            }
+            if (codePoint == 0xA0 || (codePoint < 0x80 && isWhitespace((char) codePoint))) {
+                out.space();
+            } else if (Character.isBmpCodePoint(codePoint)) {
+                out.append((char) codePoint);
+            } else {
+                out.append(Character.highSurrogate(codePoint));
+                out.append(Character.lowSurrogate(codePoint));
+            }
+            return semicolon + 1;
+        }
+        for (int k = 0; k < ENTITY_NAMES.length; k++) {
+            String name = ENTITY_NAMES[k];
+            if (semicolon - start - 1 == name.length() && html.startsWith(name, start + 1)) {
+                if (ENTITY_VALUES[k] == ' ') {
+                    out.space();
+                } else {
+                    out.append(ENTITY_VALUES[k]);
+                }
+                return semicolon + 1;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * 解析 &#123; 或 &#x7B; 中的码点，格式错误或超出范围时返回 -1
+     */
+    private static int parseCodePoint(String html, int from, int to) {
+        int radix = 10;
+        if (from < to && (html.charAt(from) == 'x' || html.charAt(from) == 'X')) {
+            radix = 16;
+            from++;
+        }
+        if (from >= to) {
+            return -1;
+        }
+        int value = 0;
+        for (int j = from; j < to; j++) {
+            int digit = Character.digit(html.charAt(j), radix);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value * radix + digit;
+            if (value > Character.MAX_CODE_POINT) {
+                return -1;
+            }
+        }
+        return value == 0 ? -1 : value;
+    }
+
+    /**
+     * 与正则 \s 一致的空白字符
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    /**
+     * 输出缓冲：连续空白合并为一个空格，首尾空白不输出，达到最大长度后标记为已满
+     */
+    private static final class Output {
+        private final StringBuilder builder;
+        private final int maxLength;
+        private boolean pendingSpace;
+        private boolean full;
+
+        Output(int maxLength, int inputLength) {
+            this.maxLength = maxLength;
+            this.builder = new StringBuilder(Math.min(maxLength, inputLength) + ELLIPSIS.length());
+        }
+
+        void space() {
+            pendingSpace = builder.length() > 0;
+        }
+
+        void append(char c) {
+            if (pendingSpace) {
+                pendingSpace = false;
+                if (!reserve()) {
+                    return;
+                }
+                builder.append(' ');
+            }
+            if (reserve()) {
+                builder.append(c);
+            }
+        }
+
+        private boolean reserve() {
+            if (builder.length() >= maxLength) {
+                full = true;
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return full ? builder.append(ELLIPSIS).toString() : builder.toString();
+        }
+    }
+}
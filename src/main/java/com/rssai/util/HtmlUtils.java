@@ -4,50 +4,20 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class HtmlUtils {
-    private static final Pattern HTML_TAG_PATTERN = Pattern.compile("<[^>]+>");
-    private static final Pattern HTML_ENTITY_PATTERN = Pattern.compile("&[a-zA-Z]+;");
-    private static final Pattern MULTIPLE_SPACES_PATTERN = Pattern.compile("\\s+");
-    private static final Pattern MULTIPLE_NEWLINES_PATTERN = Pattern.compile("\\n{3,}");
     private static final Pattern IMG_SRC_PATTERN = Pattern.compile("<img[^>]+src=[\"']([^\"']+)[\"'][^>]*>", Pattern.CASE_INSENSITIVE);
 
+    /**
+     * 去除HTML标签并解码实体，连续空白压缩为一个空格
+     */
     public static String stripHtmlTags(String html) {
-        if (html == null || html.trim().isEmpty()) {
-            return "";
-        }
-
-        String text = html;
-
-        // 先处理换行标签，将它们替换为换行符
-        text = text.replaceAll("(?i)<br\\s*/?\\s*>", "\n");
-        text = text.replaceAll("(?i)</?(p|div|li|h[1-6]|blockquote|pre)[^>]*>", "\n");
-
-        // 然后去除其他HTML标签
-        text = HTML_TAG_PATTERN.matcher(text).replaceAll(" ");
-
-        text = text.replace("&nbsp;", " ");
-        text = text.replace("&lt;", "<");
-        text = text.replace("&gt;", ">");
-        text = text.replace("&amp;", "&");
-        text = text.replace("&quot;", "\"");
-        text = text.replace("&apos;", "'");
-        text = text.replace("&mdash;", "—");
-        text = text.replace("&ndash;", "–");
-        text = text.replace("&hellip;", "…");
-
-        // 压缩连续空格，但保留换行符
-        text = MULTIPLE_SPACES_PATTERN.matcher(text).replaceAll(" ");
-        // 将多个换行符压缩为最多2个
-        text = MULTIPLE_NEWLINES_PATTERN.matcher(text).replaceAll("\n\n");
-
-        return text.trim();
+        return HtmlTextScanner.toPlainText(html, Integer.MAX_VALUE);
     }
 
+    /**
+     * 去除HTML标签，输出超过 maxLength 时截断并追加省略号，扫描在达到长度后即停止
+     */
     public static String stripHtmlTags(String html, int maxLength) {
-        String text = stripHtmlTags(html);
-        if (text.length() > maxLength) {
-            return text.substring(0, maxLength) + "...";
-        }
-        return text;
+        return HtmlTextScanner.toPlainText(html, maxLength);
     }
 
     public static String stripHtml(String html) {
@@ -72,4 +42,24 @@ public class HtmlUtils {
         }
         return null;
     }
+
+    /**
+     * 列表摘要：优先使用摘要，摘要去除HTML后为空时使用正文，截断到指定长度
+     * @return 纯文本摘要，两者都为空时返回空字符串
+     */
+    public static String buildExcerpt(String description, String content, int maxLength) {
+        String text = stripHtmlTags(description, maxLength);
+        if (text.isEmpty()) {
+            text = stripHtmlTags(content, maxLength);
+        }
+        return text;
+    }
+
+    /**
+     * 封面图：优先取正文中的第一张图片，正文没有图片时取摘要中的
+     */
+    public static String extractCoverImage(String content, String description) {
+        String imageUrl = extractFirstImage(content);
+        return imageUrl != null ? imageUrl : extractFirstImage(description);
+    }
 }
@@ -0,0 +1,51 @@
+package com.rssai.util;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 结果集列序号解析工具
+ * 每个结果集只读取一次元数据，行映射按序号读取；查询中不存在的列返回0，
+ * 调用方据此使用默认值，而不是逐行按列名读取并捕获 SQLException
+ */
+public class ResultSetColumns {
+    private final Map<String, Integer> indexes;
+
+    private ResultSetColumns(Map<String, Integer> indexes) {
+        this.indexes = indexes;
+    }
+
+    public static ResultSetColumns of(ResultSet rs) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        int count = metaData.getColumnCount();
+        Map<String, Integer> indexes = new HashMap<>(count * 2);
+        for (int i = 1; i <= count; i++) {
+            // 同名列取第一个，与 ResultSet 按列名读取的行为一致
+            indexes.putIfAbsent(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+        return new ResultSetColumns(indexes);
+    }
+
+    /**
+     * @return 列序号（从1开始），列不存在时返回0
+     */
+    public int indexOf(String column) {
+        Integer index = indexes.get(column.toLowerCase(Locale.ROOT));
+        return index != null ? index : 0;
+    }
+
+    /**
+     * 查询必须包含的列，不存在时抛出异常
+     */
+    public int require(String column) throws SQLException {
+        int index = indexOf(column);
+        if (index == 0) {
+            throw new SQLException("结果集中不存在列: " + column);
+        }
+        return index;
+    }
+}
@@ -4,11 +4,12 @@ import com.rssai.constant.RssConstants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
 
 /**
  * 重试工具类
- * 提供统一的重试逻辑
+ * 提供统一的重试逻辑，在当前线程中等待；批量筛选和通知邮件使用 AsyncRetryService，等待期间不占用线程
  */
 public class RetryUtils {
     private static final Logger logger = LoggerFactory.getLogger(RetryUtils.class);
@@ -82,11 +83,13 @@ public class RetryUtils {
     }
     
     /**
-     * 计算退避延迟时间（指数退避）
+     * 计算退避延迟时间（指数退避，取上限的一半加随机的另一半，避免同时失败的请求同时重试）
+     * @param attempt 刚失败的是第几次尝试，从1开始
      */
-    private static long calculateBackoffDelay(int attempt) {
-        return RssConstants.INITIAL_RETRY_DELAY_MS * 
-               (long) Math.pow(RssConstants.RETRY_BACKOFF_MULTIPLIER, attempt - 1);
+    public static long calculateBackoffDelay(int attempt) {
+        long ceiling = Math.min(RssConstants.MAX_RETRY_DELAY_MS, RssConstants.INITIAL_RETRY_DELAY_MS *
+               (long) Math.pow(RssConstants.RETRY_BACKOFF_MULTIPLIER, Math.min(attempt - 1, 20)));
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
     }
     
     /**
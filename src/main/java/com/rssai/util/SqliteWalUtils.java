@@ -0,0 +1,230 @@
+package com.rssai.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * SQLite WAL 文件格式工具
+ * WAL 由32字节文件头和若干帧组成，每帧为24字节帧头加一页数据；帧头中的盐值与文件头一致且累积校验和正确时帧才有效，
+ * 提交帧的 commit 字段记录提交后的数据库页数。格式参见 https://www.sqlite.org/fileformat2.html#walformat
+ */
+public class SqliteWalUtils {
+    public static final int WAL_HEADER_SIZE = 32;
+    public static final int FRAME_HEADER_SIZE = 24;
+
+    private static final int MAGIC_LITTLE_ENDIAN = 0x377f0682;
+    private static final int MAGIC_BIG_ENDIAN = 0x377f0683;
+
+    /**
+     * 读取并校验 WAL 文件头，文件不足32字节或魔数、校验和不正确时返回 null
+     */
+    public static WalHeader readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < WAL_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(WAL_HEADER_SIZE);
+        readFully(channel, buffer, 0);
+        byte[] raw = buffer.array();
+        int magic = buffer.getInt(0);
+        if (magic != MAGIC_LITTLE_ENDIAN && magic != MAGIC_BIG_ENDIAN) {
+            return null;
+        }
+        WalHeader header = new WalHeader();
+        header.raw = raw;
+        header.bigEndianChecksum = magic == MAGIC_BIG_ENDIAN;
+        header.pageSize = buffer.getInt(8);
+        header.salt1 = buffer.getInt(16);
+        header.salt2 = buffer.getInt(20);
+        header.checksum = new int[]{buffer.getInt(24), buffer.getInt(28)};
+        int[] expected = checksum(raw, 0, 24, header.bigEndianChecksum, new int[]{0, 0});
+        if (expected[0] != header.checksum[0] || expected[1] != header.checksum[1]) {
+            return null;
+        }
+        return header;
+    }
+
+    /**
+     * 从 offset 开始顺序读取有效帧并追加写入 out，只保留到最后一个提交帧为止
+     * 遇到盐值不符、校验和错误或不完整的帧即停止，因此正在写入的事务不会被复制
+     *
+     * @param checksum offset 之前最后一帧的累积校验和，offset 为文件头末尾时传入文件头校验和
+     * @return 复制结果；没有新的提交帧时 frames 为0，out 保持原长度
+     */
+    public static CopyResult copyCommittedFrames(FileChannel wal, WalHeader header, long offset, int[] checksum,
+                                                 FileChannel out) throws IOException {
+        int frameSize = FRAME_HEADER_SIZE + header.pageSize;
+        ByteBuffer frame = ByteBuffer.allocate(frameSize);
+        long outStart = out.position();
+        long size = wal.size();
+
+        CopyResult result = new CopyResult();
+        result.offset = offset;
+        result.checksum = checksum;
+        int[] running = checksum;
+        long position = offset;
+        int pending = 0;
+        while (position + frameSize <= size) {
+            frame.clear();
+            readFully(wal, frame, position);
+            byte[] data = frame.array();
+            int pageNumber = frame.getInt(0);
+            int commitSize = frame.getInt(4);
+            if (pageNumber == 0 || frame.getInt(8) != header.salt1 || frame.getInt(12) != header.salt2) {
+                break;
+            }
+            int[] next = checksum(data, 0, 8, header.bigEndianChecksum, running);
+            next = checksum(data, FRAME_HEADER_SIZE, header.pageSize, header.bigEndianChecksum, next);
+            if (next[0] != frame.getInt(16) || next[1] != frame.getInt(20)) {
+                break;
+            }
+            while (frame.hasRemaining()) {
+                out.write(frame);
+            }
+            running = next;
+            position += frameSize;
+            pending++;
+            if (commitSize != 0) {
+                result.offset = position;
+                result.checksum = running;
+                result.frames += pending;
+                result.bytes = out.position() - outStart;
+                pending = 0;
+            }
+        }
+        // 丢弃最后一个提交帧之后尚未提交的帧
+        out.truncate(outStart + result.bytes);
+        out.position(outStart + result.bytes);
+        return result;
+    }
+
+    /**
+     * 把一个归档段中的帧按顺序写回数据库文件
+     * 归档段由 WAL 文件头和已提交的帧组成
+     *
+     * @return 最后一个提交帧记录的数据库页数，段中没有帧时返回0
+     */
+    public static long applyFrames(FileChannel segment, FileChannel database) throws IOException {
+        WalHeader header = readHeader(segment);
+        if (header == null) {
+            throw new IOException("归档段文件头无效");
+        }
+        int frameSize = FRAME_HEADER_SIZE + header.pageSize;
+        ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+        ByteBuffer page = ByteBuffer.allocate(header.pageSize);
+        long databasePages = 0;
+        for (long position = WAL_HEADER_SIZE; position + frameSize <= segment.size(); position += frameSize) {
+            frameHeader.clear();
+            readFully(segment, frameHeader, position);
+            page.clear();
+            readFully(segment, page, position + FRAME_HEADER_SIZE);
+            long pageNumber = frameHeader.getInt(0) & 0xFFFFFFFFL;
+            long target = (pageNumber - 1) * header.pageSize;
+            while (page.hasRemaining()) {
+                target += database.write(page, target);
+            }
+            int commitSize = frameHeader.getInt(4);
+            if (commitSize != 0) {
+                databasePages = commitSize & 0xFFFFFFFFL;
+            }
+        }
+        return databasePages;
+    }
+
+    /**
+     * WAL 累积校验和，按文件头魔数决定以大端或小端解释每个32位字
+     */
+    static int[] checksum(byte[] data, int offset, int length, boolean bigEndian, int[] initial) {
+        ByteBuffer buffer = ByteBuffer.wrap(data, offset, length)
+                .order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        int s1 = initial[0];
+        int s2 = initial[1];
+        for (int i = offset; i < offset + length; i += 8) {
+            s1 += buffer.getInt(i) + s2;
+            s2 += buffer.getInt(i + 4) + s1;
+        }
+        return new int[]{s1, s2};
+    }
+
+    /**
+     * 从指定位置读满缓冲区，读取完成后缓冲区已 flip 可直接读取
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("读取WAL时遇到文件末尾");
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    /**
+     * WAL 文件头
+     */
+    public static class WalHeader {
+        private byte[] raw;
+        private boolean bigEndianChecksum;
+        private int pageSize;
+        private int salt1;
+        private int salt2;
+        private int[] checksum;
+
+        /**
+         * 原始32字节文件头，写在每个归档段开头
+         */
+        public byte[] getRaw() {
+            return raw;
+        }
+
+        public int getPageSize() {
+            return pageSize;
+        }
+
+        public boolean isSameLog(WalHeader other) {
+            return other != null && salt1 == other.salt1 && salt2 == other.salt2;
+        }
+
+        /**
+         * 是否由 previous 重置一次得到：SQLite 重置 WAL 时第一个盐值加1、第二个盐值重新随机生成
+         */
+        public boolean isRestartOf(WalHeader previous) {
+            return previous != null && salt1 == previous.salt1 + 1;
+        }
+
+        public int[] getChecksum() {
+            return checksum;
+        }
+    }
+
+    /**
+     * 一次帧复制的结果
+     */
+    public static class CopyResult {
+        private long offset;
+        private int[] checksum;
+        private int frames;
+        private long bytes;
+
+        /**
+         * 已复制的最后一个提交帧之后的位置，下次从这里继续
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        public int[] getChecksum() {
+            return checksum;
+        }
+
+        public int getFrames() {
+            return frames;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.rssai.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 大文本列压缩工具
+ * 压缩后的数据以BLOB形式写入原TEXT列，格式为：
+ * 2字节魔数(0x1F 0x5A) + 1字节编码(1 = deflate) + 1字节字典ID + deflate数据。
+ * 未压缩的历史数据仍为TEXT，读取时按列的实际类型区分，两种格式可以共存。
+ */
+public class TextCompressionUtils {
+    private static final byte MAGIC_0 = 0x1F;
+    private static final byte MAGIC_1 = 0x5A;
+    private static final byte CODEC_DEFLATE = 1;
+    private static final int HEADER_LENGTH = 4;
+
+    /**
+     * 当前写入使用的字典ID，字典只能追加不能修改，否则历史数据无法解压
+     */
+    private static final byte CURRENT_DICTIONARY_ID = 1;
+
+    /**
+     * 预置字典：RSS正文中常见的HTML片段和AI筛选响应中的常见词，越常见的放在越靠后的位置
+     */
+    private static final byte[][] DICTIONARIES = {
+            new byte[0],
+            ("\"}]{\"role\":\"assistant\",\"content\":\"reason\":\"filtered\":true,false"
+                    + "原因：理由：不符合符合用户的兴趣偏好，与主题相关无关内容文章"
+                    + "<table><tr><td></td></tr></table><ul><li></li></ul><ol></ol>"
+                    + "<h1></h1><h2></h2><h3></h3><blockquote></blockquote><pre><code></code></pre>"
+                    + "<figure><figcaption></figcaption></figure><em></em><strong></strong>"
+                    + " target=\"_blank\" rel=\"noopener noreferrer\" style=\"\" width=\"\" height=\"\" alt=\"\" "
+                    + "<span></span><div class=\"\"></div>&nbsp;&amp;&quot;&lt;&gt;<br/><br />"
+                    + "<img src=\"https://<a href=\"https://</a></p><p>")
+                    .getBytes(StandardCharsets.UTF_8)
+    };
+
+    private TextCompressionUtils() {
+    }
+
+    public static byte[] compress(String text) {
+        byte[] input = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setDictionary(DICTIONARIES[CURRENT_DICTIONARY_ID]);
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2 + HEADER_LENGTH);
+            out.write(MAGIC_0);
+            out.write(MAGIC_1);
+            out.write(CODEC_DEFLATE);
+            out.write(CURRENT_DICTIONARY_ID);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        return data != null && data.length >= HEADER_LENGTH
+                && data[0] == MAGIC_0 && data[1] == MAGIC_1 && data[2] == CODEC_DEFLATE;
+    }
+
+    public static String decompress(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (!isCompressed(data)) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+        int dictionaryId = data[3];
+        if (dictionaryId < 0 || dictionaryId >= DICTIONARIES.length) {
+            throw new IllegalStateException("未知的压缩字典ID: " + dictionaryId);
+        }
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buffer);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        inflater.setDictionary(DICTIONARIES[dictionaryId]);
+                    } else if (!inflater.finished() && inflater.needsInput()) {
+                        throw new IllegalStateException("压缩数据不完整");
+                    }
+                }
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("解压文本失败", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 读取可能被压缩的列：TEXT 原样返回字符串，BLOB 原样返回字节数组（不解压），其他类型转为字符串
+     */
+    public static Object readRaw(ResultSet rs, String column) throws SQLException {
+        return toRaw(rs.getObject(column));
+    }
+
+    /**
+     * 按列序号读取，供已解析列序号的行映射使用
+     */
+    public static Object readRaw(ResultSet rs, int columnIndex) throws SQLException {
+        return toRaw(rs.getObject(columnIndex));
+    }
+
+    private static Object toRaw(Object value) {
+        if (value instanceof String || value instanceof byte[]) {
+            return value;
+        }
+        return value != null ? value.toString() : null;
+    }
+}
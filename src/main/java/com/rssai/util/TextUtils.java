@@ -45,15 +45,10 @@ public class TextUtils {
     
     /**
      * 清理HTML并截断
+     * 单遍扫描去除标签、解码实体并压缩空白，输出达到 maxLength 后不再处理剩余内容
      */
     public static String cleanHtmlAndTruncate(String html, int maxLength) {
-        if (html == null || html.isEmpty()) {
-            return "";
-        }
-        
-        String cleaned = HtmlUtils.stripHtmlTags(html);
-        cleaned = cleanText(cleaned);
-        return truncate(cleaned, maxLength);
+        return HtmlTextScanner.toPlainText(html, maxLength);
     }
     
     /**
@@ -70,13 +65,6 @@ public class TextUtils {
         return cleanHtmlAndTruncate(description, RssConstants.MAX_DESCRIPTION_LENGTH);
     }
     
-    /**
-     * 准备用于批量AI处理的描述（使用较短长度）
-     */
-    public static String prepareDescriptionForBatch(String description) {
-        return cleanHtmlAndTruncate(description, RssConstants.MAX_DESCRIPTION_LENGTH / 2);
-    }
-    
     /**
      * 检查字符串是否为空或仅包含空白字符
      */
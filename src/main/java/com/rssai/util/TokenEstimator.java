@@ -0,0 +1,73 @@
+package com.rssai.util;
+
+/**
+ * token数估算工具类
+ * 不依赖具体模型的分词器：中日韩文字和全角符号按每字1个token计，其他字符按每4个字符1个token计。
+ * 对常见模型中文偏保守（实际通常更少），用于批量请求的预算划分，不用于计费
+ */
+public class TokenEstimator {
+
+    /**
+     * 以 1/4 token 为单位计算，避免浮点运算
+     */
+    private static final int CJK_COST = 4;
+    private static final int OTHER_COST = 1;
+    private static final int UNITS_PER_TOKEN = 4;
+
+    private TokenEstimator() {
+        throw new AssertionError("Cannot instantiate utility class");
+    }
+
+    /**
+     * 估算文本的token数
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        long units = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            units += cost(codePoint);
+            i += Character.charCount(codePoint);
+        }
+        return (int) ((units + UNITS_PER_TOKEN - 1) / UNITS_PER_TOKEN);
+    }
+
+    /**
+     * 截断文本使估算的token数不超过 maxTokens
+     */
+    public static String truncate(String text, int maxTokens) {
+        if (text == null || text.isEmpty()) {
+            return text;
+        }
+        long limit = (long) Math.max(maxTokens, 0) * UNITS_PER_TOKEN;
+        long units = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            units += cost(codePoint);
+            if (units > limit) {
+                return text.substring(0, i);
+            }
+            i += Character.charCount(codePoint);
+        }
+        return text;
+    }
+
+    private static int cost(int codePoint) {
+        if (codePoint < 0x2E80) {
+            return OTHER_COST;
+        }
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        if (script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL) {
+            return CJK_COST;
+        }
+        Character.UnicodeBlock block = Character.UnicodeBlock.of(codePoint);
+        if (block == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION
+                || block == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS) {
+            return CJK_COST;
+        }
+        return OTHER_COST;
+    }
+}
@@ -40,3 +40,46 @@ CREATE INDEX IF NOT EXISTS idx_user_read_items_rss_item_id ON user_read_items(rs
 -- 添加RSS源特别关注字段
 -- 注意：该字段已在 DatabaseInitializer.java 中创建，此处保留空版本以保持版本连续性
 -- ALTER TABLE rss_sources ADD COLUMN special_attention BOOLEAN DEFAULT 0;
+
+-- VERSION:v1.4.0
+-- 添加用户已读位图表，user_read_items 保留为迁移来源
+CREATE TABLE IF NOT EXISTS user_read_states (
+    user_id INTEGER PRIMARY KEY,
+    bitmap BLOB NOT NULL,
+    version INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
+-- VERSION:v1.5.0
+-- 添加文章全文索引，历史文章由 ArticleSearchService 在后台回填
+CREATE VIRTUAL TABLE IF NOT EXISTS rss_items_fts USING fts5(title, body, tokenize = 'trigram');
+
+-- VERSION:v1.6.0
+-- 添加过滤日志全文索引，历史日志由 FilterLogService 在后台回填
+CREATE VIRTUAL TABLE IF NOT EXISTS filter_logs_fts USING fts5(title, ai_reason, ai_raw_response, tokenize = 'trigram');
+
+-- VERSION:v1.7.0
+-- 文章、过滤日志和RSS源抓取时间改为毫秒时间戳，已有数据由 DatabaseMigrationService 的数据迁移转换
+CREATE INDEX IF NOT EXISTS idx_filter_logs_created_at ON filter_logs(created_at);
+
+-- VERSION:v1.8.0
+-- 文章添加预计算的列表摘要和封面图列，新建的库已在 DatabaseInitializer 中包含这两列，
+-- 旧库由 DatabaseMigrationService 补充缺失的列，历史文章由 RssItemPreviewBackfillService 在后台回填
+
+-- VERSION:v1.9.0
+-- AI配置添加同一服务的最大并发批次数，空值使用管理员设置的默认值（系统配置 ai.max-concurrency），
+-- 新建的库已在 DatabaseInitializer 中包含该列，旧库由 DatabaseMigrationService 补充
+
+-- VERSION:v1.10.0
+-- 添加跨用户共享的AI筛选结果缓存表 ai_verdict_cache，该表已在 DatabaseInitializer 中创建，此处保留空版本以保持版本连续性
+
+-- VERSION:v1.11.0
+-- AI配置添加批量筛选的输出token上限和每批输入token预算，空值使用默认值，
+-- 新建的库已在 DatabaseInitializer 中包含这两列，旧库由 DatabaseMigrationService 补充
+
+-- VERSION:v1.12.0
+-- AI配置添加流式响应开关 use_stream，新建的库已在 DatabaseInitializer 中包含该列，旧库由 DatabaseMigrationService 补充
+
+-- VERSION:v1.13.0
+-- AI配置添加本地预筛开关 prefilter_enabled 和筛选偏好修改时间 prompt_updated_at，新建的库已在 DatabaseInitializer 中包含，旧库由 DatabaseMigrationService 补充
@@ -0,0 +1,76 @@
+package com.rssai.config;
+
+import com.rssai.dialect.SqliteDialect;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * v1.7.0 时间列转换：按配置时区逐行换算（夏令时前后偏移不同），无法解析的值保留原样
+ */
+public class DatabaseMigrationServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private DatabaseMigrationService migrationService;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("rss.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        SqliteDialect sqlDialect = new SqliteDialect();
+        DatabaseInitializer databaseInitializer = new DatabaseInitializer(jdbcTemplate, null, null, sqlDialect);
+        databaseInitializer.ensureTables();
+
+        TimezoneConfig timezoneConfig = new TimezoneConfig();
+        ReflectionTestUtils.setField(timezoneConfig, "timezone", "Europe/Berlin");
+        migrationService = new DatabaseMigrationService(jdbcTemplate, sqlDialect, databaseInitializer, timezoneConfig);
+
+        jdbcTemplate.update("INSERT INTO users (id, username, password) VALUES (1, 'u1', 'p')");
+        jdbcTemplate.update("INSERT INTO rss_sources (id, user_id, name, url) VALUES (1, 1, '源', 'http://a')");
+    }
+
+    @Test
+    public void testConvertsTextTimestampsPerRow() {
+        insertItem(1, "2024-01-15 12:00:00");
+        insertItem(2, "2024-07-15T12:00:00.123");
+        insertItem(3, "2024-07-15 12:00");
+        insertItem(4, "Mon, 15 Jul 2024 12:00:00 GMT");
+        jdbcTemplate.update("INSERT INTO rss_items (id, source_id, title, link, pub_date, created_at) VALUES (5, 1, 't', 'l5', ?, 0)",
+                1700000000000L);
+
+        ReflectionTestUtils.invokeMethod(migrationService, "convertTimestampsToEpochMillis");
+
+        // 冬季 UTC+1，夏季 UTC+2
+        assertEquals(Instant.parse("2024-01-15T11:00:00Z").toEpochMilli(), pubDate(1));
+        assertEquals(Instant.parse("2024-07-15T10:00:00Z").toEpochMilli(), pubDate(2));
+        assertEquals(Instant.parse("2024-07-15T10:00:00Z").toEpochMilli(), pubDate(3));
+        assertEquals("text", jdbcTemplate.queryForObject("SELECT typeof(pub_date) FROM rss_items WHERE id = 4", String.class));
+        assertEquals("Mon, 15 Jul 2024 12:00:00 GMT",
+                jdbcTemplate.queryForObject("SELECT pub_date FROM rss_items WHERE id = 4", String.class));
+        assertEquals(1700000000000L, pubDate(5));
+        assertEquals(Instant.parse("2024-03-01T09:30:00Z").toEpochMilli(),
+                jdbcTemplate.queryForObject("SELECT created_at FROM rss_items WHERE id = 1", Long.class));
+    }
+
+    private void insertItem(long id, String pubDate) {
+        jdbcTemplate.update("INSERT INTO rss_items (id, source_id, title, link, pub_date, created_at) " +
+                "VALUES (?, 1, 't', ?, ?, '2024-03-01 10:30:00')", id, "l" + id, pubDate);
+    }
+
+    private long pubDate(long id) {
+        return jdbcTemplate.queryForObject("SELECT pub_date FROM rss_items WHERE id = ?", Long.class, id);
+    }
+}
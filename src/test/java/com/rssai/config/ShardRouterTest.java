@@ -0,0 +1,147 @@
+package com.rssai.config;
+
+import com.rssai.dialect.SqliteDialect;
+import com.rssai.mapper.FilterLogMapper;
+import com.rssai.model.FilterLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 过滤日志分片：开启后主库中的历史日志搬到用户所在分片（中断后重新执行不重复），写入按用户路由，
+ * 统计汇总所有分片；分片记录自己的数据库版本并执行涉及分片表的迁移
+ */
+public class ShardRouterTest {
+    private static final int SHARDS = 4;
+
+    @TempDir
+    Path tempDir;
+
+    private final SqliteDialect sqlDialect = new SqliteDialect();
+    private JdbcTemplate jdbcTemplate;
+    private DatabaseInitializer databaseInitializer;
+    private TimezoneConfig timezoneConfig;
+    private TextCompressionConfig textCompressionConfig;
+    private DatabaseMigrationService databaseMigrationService;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("rss.db") + "?journal_mode=WAL&busy_timeout=30000");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        databaseInitializer = new DatabaseInitializer(jdbcTemplate, null, null, sqlDialect);
+        databaseInitializer.createShardTables(jdbcTemplate);
+
+        timezoneConfig = new TimezoneConfig();
+        ReflectionTestUtils.setField(timezoneConfig, "timezone", "GMT+8");
+        textCompressionConfig = new TextCompressionConfig(sqlDialect);
+        databaseMigrationService = new DatabaseMigrationService(jdbcTemplate, sqlDialect, databaseInitializer, timezoneConfig);
+    }
+
+    @Test
+    public void testMoveAndRoute() {
+        FilterLogMapper mainMapper = new FilterLogMapper(newRouter(false), timezoneConfig, textCompressionConfig, sqlDialect);
+        for (long userId = 1; userId <= 6; userId++) {
+            mainMapper.insert(newLog(userId, "历史日志 " + userId));
+        }
+
+        ShardRouter router = newRouter(true);
+        assertEquals(0, count(jdbcTemplate));
+        assertEquals(SHARDS, router.all().size());
+
+        FilterLogMapper filterLogMapper = new FilterLogMapper(router, timezoneConfig, textCompressionConfig, sqlDialect);
+        assertEquals(6L, filterLogMapper.countTotalLogs());
+        assertEquals(1, filterLogMapper.countByUserId(5L));
+        assertEquals(2, count(router.forUser(1L)));
+
+        FilterLog log = newLog(5L, "新日志");
+        filterLogMapper.insert(log);
+        assertSame(router.forUser(5L), router.forId(log.getId()));
+        assertEquals(5 % SHARDS + 1, log.getId() >> ShardRouter.SHARD_ID_BITS);
+        assertEquals(2, filterLogMapper.countByUserId(5L));
+        assertEquals(7L, filterLogMapper.countTodayLogs());
+        assertEquals(1, filterLogMapper.countLogsByDate(7).size());
+        assertEquals(7, filterLogMapper.findUnindexedAfterId(0, 100).size());
+
+        // 重新启动时不会重复搬移，ID 区间保持不变
+        ShardRouter restarted = newRouter(true);
+        assertEquals(7, restarted.all().stream().mapToInt(this::count).sum());
+        assertThrows(IllegalArgumentException.class, () -> restarted.forId(1L));
+    }
+
+    @Test
+    public void testInterruptedMoveIsNotDuplicated() {
+        FilterLogMapper mainMapper = new FilterLogMapper(newRouter(false), timezoneConfig, textCompressionConfig, sqlDialect);
+        for (long userId = 1; userId <= 6; userId++) {
+            mainMapper.insert(newLog(userId, "历史日志 " + userId));
+        }
+        List<Map<String, Object>> legacy = jdbcTemplate.queryForList("SELECT * FROM filter_logs ORDER BY id");
+
+        ShardRouter router = newRouter(true);
+        assertEquals(6, router.all().stream().mapToInt(this::count).sum());
+
+        // 模拟写入分片后、从主库删除前中断：主库中的原始行仍在
+        for (Map<String, Object> row : legacy) {
+            jdbcTemplate.update("INSERT INTO filter_logs (id, user_id, title, link, ai_filtered, created_at) VALUES (?, ?, ?, ?, ?, ?)",
+                    row.get("id"), row.get("user_id"), row.get("title"), row.get("link"), row.get("ai_filtered"), row.get("created_at"));
+        }
+        ShardRouter restarted = newRouter(true);
+        assertEquals(0, count(jdbcTemplate));
+        assertEquals(6, restarted.all().stream().mapToInt(this::count).sum());
+    }
+
+    @Test
+    public void testShardMigrations() {
+        ShardRouter router = newRouter(true);
+        JdbcTemplate shard = router.all().get(0);
+        String latest = shard.queryForObject("SELECT version FROM schema_version", String.class);
+        assertNotNull(latest);
+
+        // 退回到 v1.5.0：之后版本中涉及过滤日志的语句在分片上重新执行，其他表的语句跳过
+        shard.update("DELETE FROM schema_version");
+        shard.update("INSERT INTO schema_version (version, sortable_version) VALUES ('1.5.0', 100050000)");
+        shard.execute("DROP INDEX idx_filter_logs_created_at");
+        newRouter(true);
+        assertEquals(1, (int) shard.queryForObject(
+                "SELECT COUNT(*) FROM sqlite_master WHERE name = 'idx_filter_logs_created_at'", Integer.class));
+        assertEquals(latest, shard.queryForObject(
+                "SELECT version FROM schema_version ORDER BY sortable_version DESC LIMIT 1", String.class));
+    }
+
+    private ShardRouter newRouter(boolean enabled) {
+        ShardRouter router = new ShardRouter(jdbcTemplate, sqlDialect, databaseInitializer, databaseMigrationService);
+        ReflectionTestUtils.setField(router, "enabled", enabled);
+        ReflectionTestUtils.setField(router, "shardCount", SHARDS);
+        ReflectionTestUtils.setField(router, "directory", tempDir.resolve("shards").toString());
+        ReflectionTestUtils.setField(router, "jdbcUrl", "jdbc:sqlite:rss.db?busy_timeout=30000");
+        router.init();
+        return router;
+    }
+
+    private int count(JdbcTemplate target) {
+        Integer count = target.queryForObject("SELECT COUNT(*) FROM filter_logs", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private FilterLog newLog(Long userId, String title) {
+        FilterLog log = new FilterLog();
+        log.setUserId(userId);
+        log.setTitle(title);
+        log.setLink("https://example.com/" + title.hashCode());
+        log.setAiFiltered(true);
+        log.setAiReason("原因");
+        log.setAiRawResponse("原始响应");
+        log.setSourceName("示例源");
+        return log;
+    }
+}
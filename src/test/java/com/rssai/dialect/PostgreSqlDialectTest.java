@@ -0,0 +1,204 @@
+package com.rssai.dialect;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rssai.config.DatabaseInitializer;
+import com.rssai.config.DatabaseMigrationService;
+import com.rssai.config.SecurityKeyProvider;
+import com.rssai.config.ShardRouter;
+import com.rssai.config.TextCompressionConfig;
+import com.rssai.config.TimezoneConfig;
+import com.rssai.dto.FilterLogQuery;
+import com.rssai.mapper.FilterLogMapper;
+import com.rssai.mapper.RssItemMapper;
+import com.rssai.mapper.RssSourceMapper;
+import com.rssai.mapper.UserFavoriteMapper;
+import com.rssai.mapper.UserMapper;
+import com.rssai.model.FilterLog;
+import com.rssai.model.RssItem;
+import com.rssai.model.RssSource;
+import com.rssai.model.User;
+import com.rssai.service.SystemConfigService;
+import com.rssai.util.FtsQueryUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 使用 H2 的 PostgreSQL 兼容模式验证服务端数据库方言：
+ * 建表和版本迁移能完整执行，数据访问层生成的SQL可以正常运行
+ */
+public class PostgreSqlDialectTest {
+
+    private final SqlDialect sqlDialect = new PostgreSqlDialect();
+
+    private JdbcTemplate jdbcTemplate;
+    private TimezoneConfig timezoneConfig;
+    private TextCompressionConfig textCompressionConfig;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.h2.Driver");
+        dataSource.setUrl("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        timezoneConfig = new TimezoneConfig();
+        ReflectionTestUtils.setField(timezoneConfig, "timezone", "GMT+8");
+        textCompressionConfig = new TextCompressionConfig(sqlDialect);
+        ReflectionTestUtils.setField(textCompressionConfig, "enabled", true);
+        ReflectionTestUtils.setField(textCompressionConfig, "minBytes", 16);
+
+        DatabaseInitializer databaseInitializer = new DatabaseInitializer(jdbcTemplate,
+                mock(SystemConfigService.class), mock(SecurityKeyProvider.class), sqlDialect);
+        DatabaseMigrationService migrationService = new DatabaseMigrationService(jdbcTemplate, sqlDialect,
+                databaseInitializer, timezoneConfig);
+        ReflectionTestUtils.setField(migrationService, "applicationVersion", "1.0.0");
+        migrationService.migrate();
+    }
+
+    @Test
+    public void testMigrationsRunOnServerDatabase() {
+        // 包含 FTS5 虚拟表的版本同样记录为已执行
+        Integer latest = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM schema_version WHERE version = '1.7.0'", Integer.class);
+        assertEquals(1, latest);
+        Integer ftsTables = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_name LIKE '%fts%'", Integer.class);
+        assertEquals(0, ftsTables);
+    }
+
+    @Test
+    public void testCompressionDisabledWithoutDynamicTyping() {
+        assertFalse(textCompressionConfig.isEnabled());
+        String text = "一段足够长、超过压缩阈值的文本内容，一段足够长、超过压缩阈值的文本内容";
+        assertEquals(text, textCompressionConfig.encode(text));
+    }
+
+    @Test
+    public void testUserStatistics() {
+        UserMapper userMapper = new UserMapper(jdbcTemplate, Caffeine.newBuilder().<String, User>build(), sqlDialect);
+        userMapper.insert(newUser("alice"));
+
+        assertEquals(1L, userMapper.countTodayRegisteredUsers());
+        assertEquals(0L, userMapper.countYesterdayRegisteredUsers());
+        assertEquals(1L, userMapper.countThisWeekRegisteredUsers());
+        assertEquals(0L, userMapper.countLastWeekRegisteredUsers());
+        assertEquals(1L, userMapper.countThisMonthRegisteredUsers());
+        assertEquals(0L, userMapper.countLastMonthRegisteredUsers());
+        assertEquals(1, userMapper.countDailyRegisteredUsers(7).size());
+    }
+
+    @Test
+    public void testItemInsertIgnoresDuplicateLink() {
+        Long userId = createUser("bob");
+        RssSourceMapper rssSourceMapper = new RssSourceMapper(jdbcTemplate, timezoneConfig, sqlDialect);
+        RssSource source = new RssSource();
+        source.setUserId(userId);
+        source.setName("示例源");
+        source.setUrl("https://example.com/feed");
+        source.setEnabled(true);
+        source.setRefreshInterval(60);
+        rssSourceMapper.insert(source);
+        Long sourceId = rssSourceMapper.findByUserId(userId).get(0).getId();
+
+        RssItemMapper rssItemMapper = new RssItemMapper(jdbcTemplate, timezoneConfig, textCompressionConfig, sqlDialect);
+        RssItem first = newItem(sourceId, "https://example.com/a");
+        rssItemMapper.insert(first);
+        RssItem duplicate = newItem(sourceId, "https://example.com/a");
+        rssItemMapper.insert(duplicate);
+
+        assertNotNull(first.getId());
+        assertEquals(first.getId(), duplicate.getId());
+        assertEquals(1, rssItemMapper.countFilteredByUserId(userId));
+        assertTrue(rssItemMapper.existsByLinkWithinDays("https://example.com/a", 7, userId));
+
+        UserFavoriteMapper userFavoriteMapper = new UserFavoriteMapper(jdbcTemplate, timezoneConfig, sqlDialect);
+        assertEquals(1, userFavoriteMapper.insert(userId, first.getId()));
+        assertEquals(0, userFavoriteMapper.insert(userId, first.getId()));
+    }
+
+    @Test
+    public void testFilterLogQueryAndRetention() {
+        Long userId = createUser("carol");
+        FilterLogMapper filterLogMapper = new FilterLogMapper(new ShardRouter(jdbcTemplate, sqlDialect, null, null), timezoneConfig, textCompressionConfig, sqlDialect);
+        assertFalse(filterLogMapper.supportsFullTextSearch());
+
+        FilterLog passed = newLog(userId, "Kubernetes 发布新版本", true);
+        filterLogMapper.insert(passed);
+        FilterLog rejected = newLog(userId, "体育新闻", false);
+        filterLogMapper.insert(rejected);
+        assertNotNull(passed.getId());
+        assertTrue(rejected.getId() > passed.getId());
+
+        // 不支持全文索引时关键词按忽略大小写的 LIKE 匹配
+        FilterLogQuery query = new FilterLogQuery();
+        query.setUserId(userId);
+        query.setLikePatterns(Collections.singletonList(FtsQueryUtils.toLikePattern("kubernetes")));
+        query.setLimit(10);
+        List<FilterLog> logs = filterLogMapper.findByQuery(query);
+        assertEquals(1, logs.size());
+        assertEquals(passed.getId(), logs.get(0).getId());
+        assertEquals(1, filterLogMapper.countByQuery(query, 100));
+
+        FilterLogQuery page = new FilterLogQuery();
+        page.setUserId(userId);
+        page.setFiltered(false);
+        page.setBeforeId(rejected.getId() + 1);
+        page.setLimit(10);
+        assertEquals(1, filterLogMapper.findByQuery(page).size());
+        assertEquals(2L, filterLogMapper.countTodayLogs());
+        assertEquals(1, filterLogMapper.countLogsByDate(7).size());
+
+        jdbcTemplate.update("UPDATE filter_logs SET created_at = created_at - ? WHERE id = ?",
+                TimeUnit.DAYS.toMillis(40), passed.getId());
+        assertEquals(1, filterLogMapper.deleteOlderThanChunk(30, 100));
+        assertEquals(1L, filterLogMapper.countTotalLogs());
+    }
+
+    private Long createUser(String username) {
+        UserMapper userMapper = new UserMapper(jdbcTemplate, Caffeine.newBuilder().<String, User>build(), sqlDialect);
+        userMapper.insert(newUser(username));
+        return userMapper.findByUsername(username).getId();
+    }
+
+    private User newUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password");
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+
+    private RssItem newItem(Long sourceId, String link) {
+        RssItem item = new RssItem();
+        item.setSourceId(sourceId);
+        item.setTitle("标题");
+        item.setLink(link);
+        item.setDescription("<p>摘要</p>");
+        item.setAiFiltered(true);
+        return item;
+    }
+
+    private FilterLog newLog(Long userId, String title, boolean filtered) {
+        FilterLog log = new FilterLog();
+        log.setUserId(userId);
+        log.setTitle(title);
+        log.setLink("https://example.com/" + title.hashCode());
+        log.setAiFiltered(filtered);
+        log.setAiReason("原因");
+        log.setAiRawResponse("原始响应");
+        log.setSourceName("示例源");
+        return log;
+    }
+}
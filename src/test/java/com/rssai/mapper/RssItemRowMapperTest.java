@@ -0,0 +1,139 @@
+package com.rssai.mapper;
+
+import com.rssai.config.TextCompressionConfig;
+import com.rssai.config.TimezoneConfig;
+import com.rssai.dialect.SqliteDialect;
+import com.rssai.model.RssItem;
+import com.rssai.util.DateTimeUtils;
+import com.rssai.util.TextCompressionUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RSS条目行映射：按列序号读取的新实现与按列名读取并逐列捕获异常的旧实现结果一致
+ * 查询只选择 rss_items 的列，旧实现在 source_name、is_read、source_special_attention 上每行各抛出一次异常；
+ * 耗时对比标记为 benchmark，默认不执行，使用 mvn test -Pbenchmark 运行
+ */
+public class RssItemRowMapperTest {
+    private static final int ROWS = 10000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURE_ROUNDS = 5;
+    private static final String QUERY = "SELECT ri.* FROM rss_items ri ORDER BY ri.id";
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private RssItemMapper rssItemMapper;
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new SingleConnectionDataSource("jdbc:sqlite::memory:", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE rss_items (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, source_id INTEGER NOT NULL, title TEXT NOT NULL, " +
+                "link TEXT UNIQUE NOT NULL, description TEXT, content TEXT, pub_date BIGINT, " +
+                "ai_filtered BOOLEAN DEFAULT FALSE, ai_reason TEXT, needs_retry INTEGER DEFAULT 0, " +
+                "created_at BIGINT)");
+        long now = System.currentTimeMillis();
+        List<Object[]> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(new Object[]{i % 20 + 1, "标题 " + i, "https://example.com/" + i, "<p>摘要 " + i + "</p>",
+                    "<p>正文 " + i + "</p>", now - i * 60000L, i % 2 == 0, "原因 " + i, i % 7 == 0 ? 1 : 0, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO rss_items (source_id, title, link, description, content, pub_date, " +
+                "ai_filtered, ai_reason, needs_retry, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+
+        TimezoneConfig timezoneConfig = new TimezoneConfig();
+        SqliteDialect sqlDialect = new SqliteDialect();
+        rssItemMapper = new RssItemMapper(jdbcTemplate, timezoneConfig, new TextCompressionConfig(sqlDialect), sqlDialect);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    public void testMatchesLegacyMapper() {
+        List<RssItem> legacy = jdbcTemplate.query(QUERY, legacyRowMapper());
+        List<RssItem> indexed = jdbcTemplate.query(QUERY, rssItemMapper.rowMapper());
+        assertEquals(ROWS, indexed.size());
+        assertEquals(legacy, indexed);
+        assertTrue(indexed.get(0).getNeedsRetry());
+        assertNull(indexed.get(0).getSourceName());
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void testFasterThanLegacyMapper() {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            jdbcTemplate.query(QUERY, legacyRowMapper());
+            jdbcTemplate.query(QUERY, rssItemMapper.rowMapper());
+        }
+        long legacyNanos = 0;
+        long indexedNanos = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            long start = System.nanoTime();
+            jdbcTemplate.query(QUERY, legacyRowMapper());
+            legacyNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            jdbcTemplate.query(QUERY, rssItemMapper.rowMapper());
+            indexedNanos += System.nanoTime() - start;
+        }
+        assertTrue(indexedNanos < legacyNanos, String.format("映射 %d 行平均耗时 - 按列名+异常: %.1f ms, 按列序号: %.1f ms",
+                ROWS, legacyNanos / 1e6 / MEASURE_ROUNDS, indexedNanos / 1e6 / MEASURE_ROUNDS));
+    }
+
+    /**
+     * 优化前的行映射实现，仅用于对比
+     */
+    private RowMapper<RssItem> legacyRowMapper() {
+        return (rs, rowNum) -> {
+            RssItem item = new RssItem();
+            item.setId(rs.getLong("id"));
+            item.setSourceId(rs.getLong("source_id"));
+            item.setTitle(rs.getString("title"));
+            item.setLink(rs.getString("link"));
+            item.setDescription((String) TextCompressionUtils.readRaw(rs, "description"));
+            item.setContent((String) TextCompressionUtils.readRaw(rs, "content"));
+            item.setPubDate(DateTimeUtils.readEpochMillis(rs, "pub_date"));
+            item.setAiFiltered(rs.getBoolean("ai_filtered"));
+            item.setAiReason(rs.getString("ai_reason"));
+            item.setCreatedAt(DateTimeUtils.readEpochMillis(rs, "created_at"));
+            try {
+                Object needsRetryObj = rs.getObject("needs_retry");
+                item.setNeedsRetry(needsRetryObj instanceof Number && ((Number) needsRetryObj).intValue() == 1);
+            } catch (Exception e) {
+                item.setNeedsRetry(false);
+            }
+            try {
+                item.setSourceName(rs.getString("source_name"));
+            } catch (Exception e) {
+                item.setSourceName(null);
+            }
+            try {
+                Object isReadObj = rs.getObject("is_read");
+                item.setIsRead(isReadObj instanceof Number && ((Number) isReadObj).intValue() == 1);
+            } catch (Exception e) {
+                item.setIsRead(false);
+            }
+            try {
+                Object specialAttentionObj = rs.getObject("source_special_attention");
+                item.setSourceSpecialAttention(specialAttentionObj instanceof Number
+                        && ((Number) specialAttentionObj).intValue() == 1);
+            } catch (Exception e) {
+                item.setSourceSpecialAttention(false);
+            }
+            return item;
+        };
+    }
+}
@@ -0,0 +1,374 @@
+package com.rssai.service;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.rssai.constant.AiConstants;
+import com.rssai.dialect.SqliteDialect;
+import com.rssai.mapper.AiVerdictCacheMapper;
+import com.rssai.model.AiConfig;
+import com.rssai.service.ai.AiClient;
+import com.rssai.service.ai.AiConcurrencyLimiter;
+import com.rssai.service.ai.AiRateLimiter;
+import com.rssai.service.ai.AiResponseParser;
+import com.rssai.service.ai.AiVerdictCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量筛选：批次并发分发，按服务限制在途请求数，结果按条目序号合并；缓存命中的条目不再请求AI；
+ * 流式响应中断时保留已收到的结果；响应中漏掉的条目单独补充请求
+ */
+public class AiServiceTest {
+
+    private static final long RESPONSE_DELAY_MS = 300;
+    private static final Pattern ITEM_PATTERN = Pattern.compile("\\[(\\d+)\\] 标题:文章 (\\d+)");
+    private static final Pattern SINGLE_ITEM_PATTERN = Pattern.compile("^标题: 文章 (\\d+)");
+
+    @TempDir
+    Path tempDir;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<String> streamPrompts = new ArrayList<>();
+    private final List<String> prompts = new ArrayList<>();
+    // 回复中第一次遇到时跳过的文章序号，模拟模型漏掉部分条目
+    private final Set<Integer> skipOnce = ConcurrentHashMap.newKeySet();
+    private ThreadPoolTaskExecutor executor;
+    private ScheduledExecutorService retryScheduler;
+    private AiVerdictCache verdictCache;
+    private AiService aiService;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        AiClient aiClient = mock(AiClient.class);
+        when(aiClient.sendChatRequest(any(AiConfig.class), any(JsonObject[].class), anyInt(), anyDouble()))
+                .thenAnswer(invocation -> {
+                    requests.incrementAndGet();
+                    int current = inFlight.incrementAndGet();
+                    maxInFlight.accumulateAndGet(current, Math::max);
+                    try {
+                        Thread.sleep(RESPONSE_DELAY_MS);
+                        JsonObject[] messages = invocation.getArgument(1);
+                        String prompt = messages[1].get("content").getAsString();
+                        synchronized (prompts) {
+                            prompts.add(prompt);
+                        }
+                        return reply(prompt);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+        // 流式响应逐行返回；第一次请求在返回3行后断开
+        doAnswer(invocation -> {
+            JsonObject[] messages = invocation.getArgument(1);
+            Consumer<String> onData = invocation.getArgument(4);
+            String prompt = messages[1].get("content").getAsString();
+            boolean interrupt;
+            synchronized (streamPrompts) {
+                streamPrompts.add(prompt);
+                interrupt = streamPrompts.size() == 1;
+            }
+            String[] lines = replyContent(prompt).split("(?<=\n)");
+            for (int i = 0; i < lines.length; i++) {
+                if (interrupt && i == 3) {
+                    throw new IOException("连接中断");
+                }
+                onData.accept(streamDelta(lines[i]));
+            }
+            return null;
+        }).when(aiClient).streamChatRequest(any(AiConfig.class), any(JsonObject[].class), anyInt(), anyDouble(), any());
+        SystemConfigService systemConfigService = mock(SystemConfigService.class);
+        when(systemConfigService.getConfigValue(eq(AiConstants.MAX_CONCURRENCY_CONFIG_KEY), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(8);
+        executor.initialize();
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("rss.db"));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE ai_verdict_cache (cache_key TEXT PRIMARY KEY, verdict TEXT NOT NULL, " +
+                "raw_response TEXT, created_at BIGINT NOT NULL)");
+        verdictCache = new AiVerdictCache(new AiVerdictCacheMapper(jdbcTemplate, new SqliteDialect()));
+        ReflectionTestUtils.setField(verdictCache, "enabled", true);
+        ReflectionTestUtils.setField(verdictCache, "memorySize", 1000L);
+        ReflectionTestUtils.setField(verdictCache, "ttlHours", 24L);
+        verdictCache.init();
+
+        retryScheduler = Executors.newSingleThreadScheduledExecutor();
+        AsyncRetryService asyncRetryService = new AsyncRetryService(retryScheduler);
+        ReflectionTestUtils.setField(asyncRetryService, "budgetRatio", 0.2);
+        ReflectionTestUtils.setField(asyncRetryService, "minRetriesPerMinute", 10);
+        ReflectionTestUtils.setField(asyncRetryService, "budgetCapacity", 100);
+
+        aiService = new AiService(aiClient, new AiResponseParser(), new AiConcurrencyLimiter(), new AiRateLimiter(),
+                systemConfigService, executor, verdictCache, asyncRetryService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdown();
+        retryScheduler.shutdownNow();
+    }
+
+    @Test
+    public void testBatchesDispatchedConcurrently() {
+        AiConfig config = config(4);
+        List<AiService.RssItemData> items = items(40);
+
+        long start = System.currentTimeMillis();
+        AiService.BatchFilterResult result = aiService.filterRssItemsBatchWithRawResponse(config, items, "示例源");
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertEquals(4, maxInFlight.get());
+        assertTrue(elapsed < RESPONSE_DELAY_MS * 3, "4 个批次应并发执行，实际耗时 " + elapsed + "ms");
+        assertEquals(40, result.getFilterResults().size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i % 2 == 0, result.getFilterResults().get(i).startsWith("通过"), "第 " + i + " 条");
+        }
+    }
+
+    @Test
+    public void testConcurrencyLimitPerProvider() {
+        AiService.BatchFilterResult result = aiService.filterRssItemsBatchWithRawResponse(config(2), items(60), "示例源");
+
+        assertEquals(2, maxInFlight.get());
+        assertEquals(60, result.getFilterResults().size());
+        assertEquals(60, result.getRawResponses().size());
+    }
+
+    @Test
+    public void testVerdictCacheSharedAcrossUsers() {
+        List<AiService.RssItemData> items = items(15);
+        aiService.filterRssItemsBatchWithRawResponse(config(4), items, "示例源");
+        assertEquals(2, requests.get());
+
+        // 另一个用户使用相同的偏好，部分文章已缓存，只请求新文章
+        List<AiService.RssItemData> more = items(25);
+        AiService.BatchFilterResult result = aiService.filterRssItemsBatchWithRawResponse(config(4), more, "示例源");
+        assertEquals(3, requests.get());
+        for (int i = 0; i < 25; i++) {
+            assertEquals(i % 2 == 0, result.getFilterResults().get(i).startsWith("通过"), "第 " + i + " 条");
+        }
+        assertEquals(15, verdictCache.getStats().getMemoryHits());
+        assertTrue(verdictCache.getStats().getTokensSaved() > 0);
+        // 缓存命中的序号单独报告，不计入AI服务状态判断
+        assertEquals(15, result.getCachedIndexes().size());
+        assertTrue(result.getCachedIndexes().contains(14));
+        assertFalse(result.getCachedIndexes().contains(15));
+
+        // 修改偏好后缓存键变化，重新请求
+        AiConfig changed = config(4);
+        changed.setSystemPrompt("体育新闻");
+        aiService.filterRssItemsBatchWithRawResponse(changed, items, "示例源");
+        assertEquals(5, requests.get());
+
+        // 同名模型换成其他服务时不复用结果，baseUrl 末尾的 / 不影响缓存键
+        AiConfig otherProvider = config(4);
+        otherProvider.setBaseUrl("https://proxy.example.org/v1");
+        aiService.filterRssItemsBatchWithRawResponse(otherProvider, items, "示例源");
+        assertEquals(7, requests.get());
+        AiConfig trailingSlash = config(4);
+        trailingSlash.setBaseUrl(" https://proxy.example.org/v1/ ");
+        aiService.filterRssItemsBatchWithRawResponse(trailingSlash, items, "示例源");
+        assertEquals(7, requests.get());
+    }
+
+    @Test
+    public void testPackBatchesByTokenBudget() {
+        AiConfig config = config(4);
+        config.setMaxTokensBatch(null);
+        config.setMaxInputTokensBatch(1000);
+        // 可用输入 1000 - 4（偏好）- 150（固定指令）= 846
+        List<Integer> tokens = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            tokens.add(300);
+        }
+        for (int i = 0; i < 100; i++) {
+            tokens.add(10);
+        }
+
+        List<int[]> ranges = aiService.packBatches(config, tokens);
+        assertArrayEquals(new int[]{0, 2}, ranges.get(0));
+        int covered = 0;
+        for (int[] range : ranges) {
+            assertEquals(covered, range[0]);
+            int sum = 0;
+            for (int i = range[0]; i < range[1]; i++) {
+                sum += tokens.get(i);
+            }
+            assertTrue(sum <= 846 || range[1] - range[0] == 1);
+            assertTrue(range[1] - range[0] <= 50);
+            covered = range[1];
+        }
+        assertEquals(110, covered);
+        // 短文章一批装满 50 条
+        assertEquals(50, ranges.get(ranges.size() - 2)[1] - ranges.get(ranges.size() - 2)[0]);
+    }
+
+    @Test
+    public void testLongItemsTruncatedToBudget() {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            description.append('长');
+        }
+        List<AiService.RssItemData> items = new ArrayList<>();
+        items.add(new AiService.RssItemData("文章 0", description.toString()));
+        items.add(new AiService.RssItemData("文章 1", "内容"));
+
+        AiService.BatchFilterResult result = aiService.filterRssItemsBatchWithRawResponse(config(4), items, "示例源");
+        assertEquals(1, requests.get());
+        assertTrue(result.getFilterResults().get(0).startsWith("通过"));
+        assertFalse(result.getFilterResults().get(1).startsWith("通过"));
+    }
+
+    @Test
+    public void testStreamingKeepsReceivedVerdictsOnInterruption() {
+        AiConfig config = config(1);
+        config.setUseStream(1);
+        Map<Integer, String> notified = new ConcurrentHashMap<>();
+
+        AiService.BatchFilterResult result = aiService.filterRssItemsBatchWithRawResponse(config, items(10), "示例源",
+                (index, filterResult, rawResponse) -> assertNull(notified.put(index, filterResult)));
+
+        // 第二次请求只包含中断后尚未收到结果的7条
+        assertEquals(2, streamPrompts.size());
+        assertFalse(streamPrompts.get(1).contains("标题:文章 2 "));
+        assertTrue(streamPrompts.get(1).contains("[1] 标题:文章 3"));
+        assertTrue(streamPrompts.get(1).contains("[7] 标题:文章 9"));
+        assertEquals(0, requests.get());
+        assertEquals(10, notified.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 2 == 0, result.getFilterResults().get(i).startsWith("通过"), "第 " + i + " 条");
+            assertEquals(result.getFilterResults().get(i), notified.get(i));
+        }
+    }
+
+    @Test
+    public void testMissingItemsReRequested() {
+        skipOnce.add(3);
+        skipOnce.add(4);
+        skipOnce.add(7);
+        AiService.BatchFilterResult result = aiService.filterRssItemsBatchWithRawResponse(config(4), items(10), "示例源");
+
+        // 补充请求只包含漏掉的3条
+        assertEquals(2, prompts.size());
+        assertTrue(prompts.get(1).contains("[1] 标题:文章 3 "));
+        assertTrue(prompts.get(1).contains("[3] 标题:文章 7 "));
+        assertFalse(prompts.get(1).contains("标题:文章 0 "));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i % 2 == 0, result.getFilterResults().get(i).startsWith("通过"), "第 " + i + " 条");
+        }
+
+        // 只漏掉一条时使用单条筛选
+        skipOnce.add(15);
+        result = aiService.filterRssItemsBatchWithRawResponse(config(4), items(20).subList(10, 20), "示例源");
+        assertEquals(4, prompts.size());
+        assertTrue(prompts.get(3).startsWith("标题: 文章 15"));
+        assertEquals("未通过 - 无关", result.getFilterResults().get(5));
+        assertEquals("NO-无关", result.getRawResponses().get(5));
+    }
+
+    @Test
+    public void testResolveMaxConcurrency() {
+        assertEquals(AiConstants.DEFAULT_MAX_CONCURRENCY, aiService.resolveMaxConcurrency(config(null)));
+        assertEquals(AiConstants.MAX_CONCURRENCY_LIMIT, aiService.resolveMaxConcurrency(config(100)));
+        assertEquals(1, aiService.resolveMaxConcurrency(config(1)));
+    }
+
+    private static AiConfig config(Integer maxConcurrency) {
+        AiConfig config = new AiConfig();
+        config.setBaseUrl("https://api.example.com/v1");
+        config.setModel("test-model");
+        config.setSystemPrompt("科技新闻");
+        config.setMaxConcurrency(maxConcurrency);
+        // 每条回复预留20个token，可用输出 250 * 0.8 对应每批10条
+        config.setMaxTokensBatch(250);
+        return config;
+    }
+
+    private static List<AiService.RssItemData> items(int count) {
+        List<AiService.RssItemData> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(new AiService.RssItemData("文章 " + i, "内容"));
+        }
+        return items;
+    }
+
+    /**
+     * 序号为偶数的文章通过，模拟 OpenAI 兼容接口的响应
+     */
+    private String reply(String prompt) {
+        JsonObject message = new JsonObject();
+        message.addProperty("content", replyContent(prompt));
+        JsonObject choice = new JsonObject();
+        choice.add("message", message);
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+        JsonObject body = new JsonObject();
+        body.add("choices", choices);
+        return body.toString();
+    }
+
+    private String replyContent(String prompt) {
+        Matcher single = SINGLE_ITEM_PATTERN.matcher(prompt);
+        if (single.find()) {
+            return Integer.parseInt(single.group(1)) % 2 == 0 ? "YES-相关" : "NO-无关";
+        }
+        StringBuilder content = new StringBuilder();
+        Matcher matcher = ITEM_PATTERN.matcher(prompt);
+        while (matcher.find()) {
+            int article = Integer.parseInt(matcher.group(2));
+            if (skipOnce.remove(article)) {
+                continue;
+            }
+            boolean passed = article % 2 == 0;
+            content.append('[').append(matcher.group(1)).append(']').append(passed ? "YES-相关" : "NO-无关").append('\n');
+        }
+        return content.toString();
+    }
+
+    /**
+     * 流式响应中的一个 data 块
+     */
+    private static String streamDelta(String text) {
+        JsonObject delta = new JsonObject();
+        delta.addProperty("content", text);
+        JsonObject choice = new JsonObject();
+        choice.add("delta", delta);
+        JsonArray choices = new JsonArray();
+        choices.add(choice);
+        JsonObject body = new JsonObject();
+        body.add("choices", choices);
+        return body.toString();
+    }
+}
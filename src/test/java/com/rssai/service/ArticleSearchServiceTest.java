@@ -0,0 +1,194 @@
+package com.rssai.service;
+
+import com.rssai.config.DatabaseInitializer;
+import com.rssai.dialect.SqliteDialect;
+import com.rssai.mapper.ArticleSearchMapper;
+import com.rssai.model.ArticleSearchHit;
+import com.rssai.model.RssItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 全文搜索：游标翻页不重不漏，短词降级为 LIKE，只返回当前用户已通过筛选的文章
+ */
+public class ArticleSearchServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private ArticleSearchService articleSearchService;
+
+    /**
+     * 用户1已通过筛选的命中文章
+     */
+    private final Set<Long> userOneMatches = new HashSet<>();
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("rss.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        SqliteDialect sqlDialect = new SqliteDialect();
+        new DatabaseInitializer(jdbcTemplate, null, null, sqlDialect).ensureTables();
+        articleSearchService = new ArticleSearchService(new ArticleSearchMapper(jdbcTemplate, sqlDialect));
+
+        jdbcTemplate.update("INSERT INTO users (id, username, password) VALUES (1, 'u1', 'p'), (2, 'u2', 'p')");
+        jdbcTemplate.update("INSERT INTO rss_sources (id, user_id, name, url) VALUES (1, 1, '源一', 'http://a'), (2, 2, '源二', 'http://b')");
+        long id = 1;
+        // 用户1：25 篇命中（正文重复次数不同，得分有高有低也有相同），3 篇未通过筛选，5 篇不相关
+        for (int i = 0; i < 25; i++, id++) {
+            insert(id, 1, true, "人工智能周报 " + id, repeat("大语言模型进展。", i % 4 + 1));
+            userOneMatches.add(id);
+        }
+        for (int i = 0; i < 3; i++, id++) {
+            insert(id, 1, false, "人工智能周报 " + id, "大语言模型进展。");
+        }
+        for (int i = 0; i < 5; i++, id++) {
+            insert(id, 1, true, "天气预报 " + id, "明天多云。");
+        }
+        // 用户2：得分更高的命中文章，会排在全局 bm25 结果的前面
+        for (int i = 0; i < 10; i++, id++) {
+            insert(id, 2, true, "大语言模型 人工智能 " + id, repeat("大语言模型 人工智能。", 5));
+        }
+    }
+
+    @Test
+    public void testRankedCursorPagesWithoutGapsOrDuplicates() {
+        List<Long> seen = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ArticleSearchService.SearchPage page = articleSearchService.search(1L, "大语言模型", cursor, 7);
+            for (ArticleSearchHit hit : page.getHits()) {
+                seen.add(hit.getId());
+                scores.add(hit.getScore());
+                assertTrue(hit.getSnippet().contains("<mark>大语言模型</mark>"));
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertEquals(4, pages);
+        assertEquals(25, seen.size());
+        assertEquals(userOneMatches, new HashSet<>(seen));
+        for (int i = 1; i < scores.size(); i++) {
+            assertTrue(scores.get(i - 1) <= scores.get(i));
+        }
+    }
+
+    @Test
+    public void testRankedPagesStableWhenIndexChanges() {
+        ArticleSearchService.SearchPage first = articleSearchService.search(1L, "大语言模型", null, 10);
+        List<Long> seen = new ArrayList<>(ids(first.getHits()));
+
+        // 翻页过程中新入库的文章会改变 bm25 的全局统计，已取得的排序不受影响
+        long id = 1000;
+        for (int i = 0; i < 20; i++, id++) {
+            insert(id, 2, true, "大语言模型 " + id, repeat("大语言模型。", 8));
+        }
+        insert(id, 1, true, "大语言模型 " + id, repeat("大语言模型。", 8));
+
+        String cursor = first.getNextCursor();
+        while (cursor != null) {
+            ArticleSearchService.SearchPage page = articleSearchService.search(1L, "大语言模型", cursor, 10);
+            for (ArticleSearchHit hit : page.getHits()) {
+                seen.add(hit.getId());
+            }
+            cursor = page.getNextCursor();
+        }
+        assertEquals(25, seen.size());
+        assertEquals(userOneMatches, new HashSet<>(seen));
+
+        // 新的搜索包含新文章
+        assertEquals(26, articleSearchService.search(1L, "大语言模型", null, 50).getHits().size());
+    }
+
+    @Test
+    public void testShortTermFallsBackToLike() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            // “模型” 只有2个字符，trigram 无法匹配
+            ArticleSearchService.SearchPage page = articleSearchService.search(1L, "模型", cursor, 10);
+            for (ArticleSearchHit hit : page.getHits()) {
+                seen.add(hit.getId());
+                assertEquals(0d, hit.getScore());
+                assertTrue(hit.getSnippet().contains("<mark>模型</mark>"));
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertEquals(3, pages);
+        assertEquals(userOneMatches, new HashSet<>(seen));
+        assertEquals(25, seen.size());
+        // 降级路径按ID倒序
+        for (int i = 1; i < seen.size(); i++) {
+            assertTrue(seen.get(i - 1) > seen.get(i));
+        }
+    }
+
+    @Test
+    public void testResultsScopedToUser() {
+        ArticleSearchService.SearchPage ranked = articleSearchService.search(1L, "人工智能", null, 50);
+        assertEquals(userOneMatches, ids(ranked.getHits()));
+        assertNull(ranked.getNextCursor());
+
+        ArticleSearchService.SearchPage other = articleSearchService.search(2L, "人工智能", null, 50);
+        assertEquals(10, other.getHits().size());
+        for (ArticleSearchHit hit : other.getHits()) {
+            assertFalse(userOneMatches.contains(hit.getId()));
+            assertEquals("源二", hit.getSourceName());
+        }
+
+        assertEquals(5, articleSearchService.search(1L, "天气", null, 50).getHits().size());
+        assertTrue(articleSearchService.search(2L, "天气预报", null, 50).getHits().isEmpty());
+        // 另一个用户的游标不会带出不属于自己的文章
+        String cursor = articleSearchService.search(2L, "人工智能", null, 3).getNextCursor();
+        assertNotNull(cursor);
+        for (ArticleSearchHit hit : articleSearchService.search(1L, "人工智能", cursor, 50).getHits()) {
+            assertTrue(userOneMatches.contains(hit.getId()));
+        }
+    }
+
+    private void insert(long id, long sourceId, boolean filtered, String title, String content) {
+        jdbcTemplate.update("INSERT INTO rss_items (id, source_id, title, link, content, ai_filtered, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, 0)", id, sourceId, title, "http://item/" + id, content, filtered);
+        RssItem item = new RssItem();
+        item.setId(id);
+        item.setTitle(title);
+        item.setContent("<p>" + content + "</p>");
+        articleSearchService.index(item);
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    private static Set<Long> ids(List<ArticleSearchHit> hits) {
+        Set<Long> ids = new HashSet<>();
+        for (ArticleSearchHit hit : hits) {
+            ids.add(hit.getId());
+        }
+        return ids;
+    }
+}
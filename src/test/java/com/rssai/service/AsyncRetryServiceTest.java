@@ -0,0 +1,146 @@
+package com.rssai.service;
+
+import com.rssai.exception.RetryLaterException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 异步重试：等待期间不占用工作线程，重试预算用完后直接返回默认值，线程池已满时重试不在调度线程中执行，
+ * 稍后重试的尝试不计入尝试次数
+ */
+public class AsyncRetryServiceTest {
+
+    private ScheduledExecutorService retryScheduler;
+    private ExecutorService worker;
+    private AsyncRetryService asyncRetryService;
+
+    @BeforeEach
+    public void setUp() {
+        retryScheduler = Executors.newSingleThreadScheduledExecutor();
+        worker = Executors.newSingleThreadExecutor();
+        asyncRetryService = new AsyncRetryService(retryScheduler);
+        ReflectionTestUtils.setField(asyncRetryService, "budgetRatio", 0.2);
+        ReflectionTestUtils.setField(asyncRetryService, "minRetriesPerMinute", 2);
+        ReflectionTestUtils.setField(asyncRetryService, "budgetCapacity", 100);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        retryScheduler.shutdownNow();
+        worker.shutdownNow();
+    }
+
+    @Test
+    public void testWorkerFreeWhileWaitingForRetry() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<String> result = asyncRetryService.executeWithRetry(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("暂时不可用");
+            }
+            return "完成";
+        }, worker, 3, "测试操作", "默认");
+
+        // 第一次失败后等待重试期间，唯一的工作线程可以执行其他任务
+        Thread.sleep(100);
+        assertFalse(result.isDone());
+        assertEquals("其他任务", CompletableFuture.supplyAsync(() -> "其他任务", worker).get(100, TimeUnit.MILLISECONDS));
+
+        assertEquals("完成", result.get(5, TimeUnit.SECONDS));
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testRetryBudgetExhausted() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            String value = asyncRetryService.executeWithRetry(() -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("服务不可用");
+            }, worker, 2, "测试操作", "默认").get(10, TimeUnit.SECONDS);
+            assertEquals("默认", value);
+        }
+
+        // 初始额度2次加每次调用存入的0.2次，第三次调用失败后不再重试
+        assertEquals(5, attempts.get());
+        AsyncRetryService.Stats stats = asyncRetryService.getStats().get("测试操作");
+        assertEquals(2, stats.getRetries());
+        assertEquals(1, stats.getRejected());
+    }
+
+    @Test
+    public void testRetryLaterNotCountedAsAttempt() throws Exception {
+        // 提交时两次额度不足，执行时又一次额度不足，只允许一次尝试也能完成
+        AtomicInteger submissions = new AtomicInteger();
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<String> result = asyncRetryService.executeWithRetry(() -> {
+            if (runs.incrementAndGet() == 1) {
+                throw new RetryLaterException("额度不足", 20, 5000);
+            }
+            return "完成";
+        }, task -> {
+            if (submissions.incrementAndGet() <= 2) {
+                throw new RetryLaterException("额度不足", 20, 5000);
+            }
+            worker.execute(task);
+        }, 1, "测试操作", "默认");
+
+        assertEquals("完成", result.get(5, TimeUnit.SECONDS));
+        assertEquals(4, submissions.get());
+        assertEquals(2, runs.get());
+        assertEquals(0, asyncRetryService.getStats().get("测试操作").getRetries());
+
+        // 排队超过上限后按失败处理
+        CompletableFuture<String> expired = asyncRetryService.executeWithRetry(() -> "完成", task -> {
+            throw new RetryLaterException("额度不足", 200, 100);
+        }, 1, "测试操作", "默认");
+        assertEquals("默认", expired.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testRetryNotRunOnSchedulerWhenPoolFull() throws Exception {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(), new ThreadPoolExecutor.CallerRunsPolicy());
+        try {
+            List<String> threads = new CopyOnWriteArrayList<>();
+            CompletableFuture<String> result = asyncRetryService.executeWithRetry(() -> {
+                threads.add(Thread.currentThread().getName());
+                throw new IllegalStateException("暂时不可用");
+            }, pool, 3, "测试操作", "默认");
+
+            // 第一次尝试结束后占满线程池，重试到达时只能由提交线程执行
+            while (threads.isEmpty() || pool.getActiveCount() > 0) {
+                Thread.sleep(10);
+            }
+            CountDownLatch release = new CountDownLatch(1);
+            pool.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            assertEquals("默认", result.get(10, TimeUnit.SECONDS));
+            assertEquals(1, threads.size());
+            release.countDown();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.rssai.service;
+
+import com.rssai.config.ShardRouter;
+import com.rssai.dialect.SqliteDialect;
+import com.rssai.mapper.DatabaseMaintenanceMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 数据库维护：WAL 超过阈值时执行检查点，ANALYZE 记录各库耗时
+ */
+public class DatabaseMaintenanceServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final BackupService.BackupStatus backupStatus = new BackupService.BackupStatus();
+    private DatabaseMaintenanceService maintenanceService;
+    private Path databaseFile;
+    private Connection holder;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        databaseFile = tempDir.resolve("rss.db");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite:" + databaseFile + "?journal_mode=WAL&busy_timeout=30000");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("PRAGMA journal_mode = WAL");
+        // 最后一个连接关闭时 SQLite 会写回并删除 WAL，保持一个连接模拟并发访问
+        holder = DriverManager.getConnection("jdbc:sqlite:" + databaseFile);
+        try (Statement statement = holder.createStatement()) {
+            statement.execute("SELECT COUNT(*) FROM sqlite_master");
+        }
+        jdbcTemplate.execute("CREATE TABLE rss_sources (id INTEGER PRIMARY KEY, user_id INTEGER)");
+        jdbcTemplate.execute("CREATE TABLE rss_items (id INTEGER PRIMARY KEY, source_id INTEGER, title TEXT, link TEXT, " +
+                "ai_filtered BOOLEAN, pub_date BIGINT, created_at BIGINT)");
+        jdbcTemplate.execute("CREATE INDEX idx_rss_items_link ON rss_items(link)");
+        jdbcTemplate.execute("CREATE TABLE filter_logs (id INTEGER PRIMARY KEY, user_id INTEGER, created_at BIGINT)");
+        for (int i = 0; i < 200; i++) {
+            jdbcTemplate.update("INSERT INTO rss_items (source_id, title, link, ai_filtered, pub_date, created_at) " +
+                    "VALUES (1, ?, ?, TRUE, ?, ?)", "标题 " + i, "https://example.com/" + i, i, i);
+        }
+
+        SqliteDialect sqlDialect = new SqliteDialect();
+        BackupService backupService = mock(BackupService.class);
+        when(backupService.getStatus()).thenReturn(backupStatus);
+        maintenanceService = new DatabaseMaintenanceService(new ShardRouter(jdbcTemplate, sqlDialect, null, null),
+                new DatabaseMaintenanceMapper(jdbcTemplate, sqlDialect), backupService);
+        ReflectionTestUtils.setField(maintenanceService, "analysisLimit", 1000);
+        ReflectionTestUtils.setField(maintenanceService, "passiveBytes", 1024L);
+        ReflectionTestUtils.setField(maintenanceService, "truncateBytes", 4096L);
+        ReflectionTestUtils.setField(maintenanceService, "checkpointBusyTimeoutMs", 2000L);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        holder.close();
+    }
+
+    @Test
+    public void testTruncateCheckpoint() {
+        assertTrue(maintenanceService.getWalSizes().get("main") > 4096);
+        maintenanceService.runCheckpoints();
+
+        List<DatabaseMaintenanceService.CheckpointRecord> records = maintenanceService.getRecentCheckpoints();
+        assertEquals(1, records.size());
+        assertEquals("TRUNCATE", records.get(0).getMode());
+        assertFalse(records.get(0).isBusy());
+        assertEquals(0L, records.get(0).getWalBytesAfter());
+    }
+
+    @Test
+    public void testPassiveCheckpointWhileBackupEnabled() {
+        ReflectionTestUtils.setField(backupStatus, "enabled", true);
+        maintenanceService.runCheckpoints();
+
+        DatabaseMaintenanceService.CheckpointRecord record = maintenanceService.getRecentCheckpoints().get(0);
+        assertEquals("PASSIVE", record.getMode());
+        assertEquals(record.getLogFrames(), record.getCheckpointedFrames());
+    }
+
+    @Test
+    public void testAnalyze() {
+        DatabaseMaintenanceService.AnalyzeReport report = maintenanceService.runAnalyze();
+        assertNotNull(report);
+        assertTrue(report.getDurationsMs().containsKey("main"));
+        assertNotNull(maintenanceService.getLastAnalyze());
+    }
+}
@@ -0,0 +1,193 @@
+package com.rssai.service;
+
+import com.rssai.config.DatabaseInitializer;
+import com.rssai.config.ShardRouter;
+import com.rssai.config.TextCompressionConfig;
+import com.rssai.config.TimezoneConfig;
+import com.rssai.dialect.SqliteDialect;
+import com.rssai.mapper.FilterLogMapper;
+import com.rssai.mapper.IngestJournalStateMapper;
+import com.rssai.mapper.RssItemMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 入库日志：追加后崩溃，重启时重放未应用的记录，已应用的记录不重复写入，末尾不完整的记录被截掉，
+ * 中间校验失败的记录被转存并跳过
+ */
+public class IngestJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SqliteDialect sqlDialect = new SqliteDialect();
+    private JdbcTemplate jdbcTemplate;
+    private ShardRouter shardRouter;
+    private RssItemMapper rssItemMapper;
+    private FilterLogService filterLogService;
+    private final List<IngestJournal> journals = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("rss.db") + "?journal_mode=WAL&busy_timeout=30000");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        new DatabaseInitializer(jdbcTemplate, null, null, sqlDialect).createShardTables(jdbcTemplate);
+        jdbcTemplate.execute("CREATE TABLE rss_items (id INTEGER PRIMARY KEY, ai_filtered BOOLEAN, ai_reason TEXT, needs_retry INTEGER)");
+        for (long id = 1; id <= 10; id++) {
+            jdbcTemplate.update("INSERT INTO rss_items (id, ai_filtered, ai_reason, needs_retry) VALUES (?, FALSE, '待处理', 0)", id);
+        }
+
+        TimezoneConfig timezoneConfig = new TimezoneConfig();
+        ReflectionTestUtils.setField(timezoneConfig, "timezone", "GMT+8");
+        TextCompressionConfig textCompressionConfig = new TextCompressionConfig(sqlDialect);
+        shardRouter = new ShardRouter(jdbcTemplate, sqlDialect, null, null);
+        rssItemMapper = new RssItemMapper(jdbcTemplate, timezoneConfig, textCompressionConfig, sqlDialect);
+        filterLogService = new FilterLogService(new FilterLogMapper(shardRouter, timezoneConfig, textCompressionConfig, sqlDialect));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        for (IngestJournal journal : journals) {
+            crash(journal);
+        }
+    }
+
+    @Test
+    public void testReplayAfterCrash() throws Exception {
+        IngestJournal journal = newJournal();
+        journal.append(verdicts(1, 5));
+        journal.applyPending();
+        journal.append(verdicts(6, 10));
+        crash(journal);
+
+        assertEquals(5, countLogs());
+        assertEquals(5, countPassed());
+
+        // 重启时只重放未应用的后半部分
+        newJournal();
+        assertEquals(10, countLogs());
+        assertEquals(10, countPassed());
+
+        // 再次重启不会重复写入
+        crash(journals.get(1));
+        newJournal();
+        assertEquals(10, countLogs());
+    }
+
+    @Test
+    public void testTruncateTornTail() throws Exception {
+        IngestJournal journal = newJournal();
+        journal.append(verdicts(1, 3));
+        crash(journal);
+        try (FileChannel channel = FileChannel.open(journalFile(), StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 1, 0, 7, 7}));
+        }
+
+        IngestJournal restarted = newJournal();
+        assertEquals(3, countLogs());
+        restarted.append(verdicts(4, 4));
+        restarted.applyPending();
+        assertEquals(4, countLogs());
+    }
+
+    @Test
+    public void testSkipCorruptRecord() throws Exception {
+        IngestJournal journal = newJournal();
+        journal.append(verdicts(1, 2));
+        long recordSize = Files.size(journalFile()) - 12;
+        journal.append(verdicts(3, 4));
+        journal.append(verdicts(5, 6));
+        // 破坏第二条记录的内容，长度不变
+        try (FileChannel channel = FileChannel.open(journalFile(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), 12 + recordSize + 8 + 10);
+        }
+
+        journal.applyPending();
+        assertEquals(4, countLogs());
+        assertTrue(Files.size(tempDir.resolve("journal").resolve("ingest.journal.corrupt")) >= recordSize);
+
+        // 之后的记录照常应用
+        journal.append(verdicts(7, 7));
+        journal.applyPending();
+        assertEquals(5, countLogs());
+    }
+
+    @Test
+    public void testResetKeepsOffsetsIncreasing() throws Exception {
+        IngestJournal journal = newJournal();
+        ReflectionTestUtils.setField(journal, "resetBytes", 1L);
+        journal.append(verdicts(1, 2));
+        journal.applyPending();
+        assertEquals(12L, Files.size(journalFile()));
+
+        journal.append(verdicts(3, 4));
+        crash(journal);
+        newJournal();
+        assertEquals(4, countLogs());
+    }
+
+    private IngestJournal newJournal() throws Exception {
+        IngestJournal journal = new IngestJournal(jdbcTemplate, shardRouter, rssItemMapper, filterLogService,
+                new IngestJournalStateMapper());
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "path", journalFile().toString());
+        ReflectionTestUtils.setField(journal, "applyIntervalMs", 3600000L);
+        ReflectionTestUtils.setField(journal, "applyBatchSize", 3);
+        ReflectionTestUtils.setField(journal, "resetBytes", 1024L * 1024);
+        journal.start();
+        journals.add(journal);
+        return journal;
+    }
+
+    /**
+     * 模拟进程退出：停止应用线程并关闭文件，不应用剩余的记录
+     */
+    private void crash(IngestJournal journal) {
+        ScheduledExecutorService executor = (ScheduledExecutorService) ReflectionTestUtils.getField(journal, "executor");
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        ReflectionTestUtils.invokeMethod(journal, "closeChannel");
+    }
+
+    private Path journalFile() {
+        return tempDir.resolve("journal").resolve("ingest.journal");
+    }
+
+    private List<IngestJournal.Verdict> verdicts(long fromId, long toId) {
+        List<IngestJournal.Verdict> verdicts = new ArrayList<>();
+        for (long id = fromId; id <= toId; id++) {
+            verdicts.add(new IngestJournal.Verdict(id, 1L, true, false, "通过", "通过", "标题 " + id,
+                    "https://example.com/" + id, "原始响应", "示例源"));
+        }
+        return verdicts;
+    }
+
+    private int countLogs() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM filter_logs", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private int countPassed() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rss_items WHERE ai_filtered = TRUE", Integer.class);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,144 @@
+package com.rssai.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rssai.config.DatabaseInitializer;
+import com.rssai.config.TextCompressionConfig;
+import com.rssai.config.TimezoneConfig;
+import com.rssai.dialect.SqliteDialect;
+import com.rssai.dto.RssItemListDTO;
+import com.rssai.mapper.RssItemMapper;
+import com.rssai.mapper.UserReadStateMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按已读状态分页：总数精确，分页顺序与 pub_date 倒序一致；标记已读合并写入或同步写入
+ */
+public class ReadStateServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JdbcTemplate jdbcTemplate;
+    private ReadStateService readStateService;
+
+    @BeforeEach
+    public void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+        dataSource.setDriverClassName("org.sqlite.JDBC");
+        dataSource.setUrl("jdbc:sqlite:" + tempDir.resolve("rss.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        SqliteDialect sqlDialect = new SqliteDialect();
+        new DatabaseInitializer(jdbcTemplate, null, null, sqlDialect).ensureTables();
+
+        TimezoneConfig timezoneConfig = new TimezoneConfig();
+        ReflectionTestUtils.setField(timezoneConfig, "timezone", "GMT+8");
+        RssItemMapper rssItemMapper = new RssItemMapper(jdbcTemplate, timezoneConfig,
+                new TextCompressionConfig(sqlDialect), sqlDialect);
+        readStateService = new ReadStateService(new UserReadStateMapper(jdbcTemplate, timezoneConfig, sqlDialect),
+                rssItemMapper, Caffeine.newBuilder().<Long, ReadStateService.ReadState>build());
+
+        jdbcTemplate.update("INSERT INTO users (id, username, password) VALUES (1, 'u1', 'p'), (2, 'u2', 'p')");
+        jdbcTemplate.update("INSERT INTO rss_sources (id, user_id, name, url) VALUES (1, 1, '源', 'http://a'), (2, 2, '源', 'http://b')");
+        // 1200 条有发布时间（每两条相同），另有 5 条没有发布时间，排在最后
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = 1; i <= 1200; i++) {
+            rows.add(item(i, 1, (i + 1) / 2 * 1000));
+        }
+        for (long i = 1201; i <= 1205; i++) {
+            rows.add(item(i, 1, null));
+        }
+        rows.add(item(2000, 2, 999999999L));
+        jdbcTemplate.batchUpdate("INSERT INTO rss_items (id, source_id, title, link, pub_date, ai_filtered, created_at) " +
+                "VALUES (?, ?, ?, ?, ?, 1, 0)", rows);
+    }
+
+    @Test
+    public void testUnreadPagesFollowPubDateOrder() {
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT ri.id FROM rss_items ri JOIN rss_sources rs ON ri.source_id = rs.id " +
+                "WHERE rs.user_id = 1 AND ri.ai_filtered = 1 ORDER BY ri.pub_date DESC, ri.id DESC", Long.class);
+        // 标记前 600 条中的偶数位置为已读
+        List<Long> unread = new ArrayList<>();
+        for (int i = 0; i < expected.size(); i++) {
+            if (i < 600 && i % 2 == 0) {
+                assertTrue(readStateService.markAsRead(1L, expected.get(i)));
+            } else {
+                unread.add(expected.get(i));
+            }
+        }
+
+        ReadStateService.ItemPage first = readStateService.findFilteredItems(1L, 1, 20, false);
+        assertEquals(unread.subList(0, 20), ids(first.getItems()));
+        assertEquals(unread.size(), first.getTotalItems());
+
+        // 一直翻到包含无发布时间条目的最后一页
+        List<Long> all = new ArrayList<>();
+        int totalPages = (int) Math.ceil((double) first.getTotalItems() / 100);
+        for (int page = 1; page <= totalPages; page++) {
+            ReadStateService.ItemPage itemPage = readStateService.findFilteredItems(1L, page, 100, false);
+            assertEquals(unread.size(), itemPage.getTotalItems());
+            all.addAll(ids(itemPage.getItems()));
+        }
+        assertEquals(unread, all);
+        assertTrue(readStateService.findFilteredItems(1L, totalPages + 1, 100, false).getItems().isEmpty());
+
+        // 已读集合小于未读集合时按ID列表包含查询
+        ReadStateService.ItemPage read = readStateService.findFilteredItems(1L, 3, 100, true);
+        assertEquals(300, read.getTotalItems());
+        assertEquals(100, read.getItems().size());
+        assertEquals(expected.get(400), read.getItems().get(0).getId());
+
+        // 其他用户的条目不计入已读数量
+        readStateService.markAsRead(1L, 2000L);
+        assertEquals(300, readStateService.findFilteredItems(1L, 1, 20, true).getTotalItems());
+    }
+
+    @Test
+    public void testMarkAsReadWritesCoalesced() {
+        readStateService.markAsRead(1L, 1L);
+        readStateService.markAsRead(1L, 2L);
+        assertEquals(0, countStates());
+
+        readStateService.flushPendingWrites();
+        assertEquals(1, countStates());
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT version FROM user_read_states WHERE user_id = 1", Long.class));
+        assertTrue(readStateService.isRead(1L, 2L));
+    }
+
+    @Test
+    public void testSyncWritePersistsOnMark() {
+        ReflectionTestUtils.setField(readStateService, "syncWrite", true);
+        readStateService.markAsRead(1L, 1L);
+        assertEquals(1, countStates());
+        readStateService.markAsRead(1L, 2L);
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT version FROM user_read_states WHERE user_id = 1", Long.class));
+    }
+
+    private static Object[] item(long id, long sourceId, Long pubDate) {
+        return new Object[]{id, sourceId, "文章 " + id, "http://item/" + id, pubDate};
+    }
+
+    private int countStates() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_read_states", Integer.class);
+        return count != null ? count : 0;
+    }
+
+    private static List<Long> ids(List<RssItemListDTO> items) {
+        List<Long> ids = new ArrayList<>();
+        for (RssItemListDTO item : items) {
+            ids.add(item.getId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,97 @@
+package com.rssai.service.ai;
+
+import com.rssai.model.AiConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 并发名额：没有名额的任务排队而不是占用线程，名额释放时按顺序提交，不同上限的调用方各自生效
+ */
+public class AiConcurrencyLimiterTest {
+
+    private final AiConcurrencyLimiter limiter = new AiConcurrencyLimiter();
+    private final Deque<Runnable> submitted = new ArrayDeque<>();
+    private final Executor executor = submitted::addLast;
+
+    @Test
+    public void testQueuesUntilPermitReleased() {
+        AiConfig config = config("https://api.example.com/v1/", "model-a");
+        List<String> order = new ArrayList<>();
+        for (String name : new String[]{"a", "b", "c"}) {
+            limiter.execute(config, 2, executor, () -> order.add(name));
+        }
+        assertEquals(2, submitted.size());
+        assertEquals(2, (int) limiter.getInFlight().get("https://api.example.com/v1|model-a"));
+        assertEquals(1, (int) limiter.getQueued().get("https://api.example.com/v1|model-a"));
+
+        // 第一个任务结束后排队的任务才提交
+        submitted.pollFirst().run();
+        assertEquals(2, submitted.size());
+        assertTrue(limiter.getQueued().isEmpty());
+        while (!submitted.isEmpty()) {
+            submitted.pollFirst().run();
+        }
+        assertEquals(Arrays.asList("a", "b", "c"), order);
+        assertTrue(limiter.getInFlight().isEmpty());
+
+        // 其他服务不受影响
+        limiter.execute(config, 1, executor, () -> { });
+        limiter.execute(config("https://api.example.com/v1", "model-b"), 1, executor, () -> { });
+        assertEquals(2, submitted.size());
+    }
+
+    @Test
+    public void testReleasesPermitWhenTaskFailsOrIsRejected() {
+        AiConfig config = config("https://api.example.com/v1", "model-a");
+        limiter.execute(config, 1, executor, () -> {
+            throw new IllegalStateException("请求失败");
+        });
+        assertThrows(IllegalStateException.class, () -> submitted.pollFirst().run());
+        assertTrue(limiter.getInFlight().isEmpty());
+
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException("已关闭");
+        };
+        assertThrows(RejectedExecutionException.class,
+                () -> limiter.execute(config, 1, rejecting, () -> { }));
+        assertTrue(limiter.getInFlight().isEmpty());
+    }
+
+    @Test
+    public void testCallerLimitsApplySeparately() {
+        AiConfig config = config("https://api.example.com/v1", "model-a");
+        limiter.execute(config, 1, executor, () -> { });
+        // 上限为1的调用方排队，排在它后面上限更高的调用方在名额释放时一起进入
+        limiter.execute(config, 1, executor, () -> { });
+        limiter.execute(config, 3, executor, () -> { });
+        assertEquals(1, submitted.size());
+        submitted.pollFirst().run();
+        assertEquals(2, submitted.size());
+        assertTrue(limiter.getQueued().isEmpty());
+
+        // 在途2个：上限为1的调用方排队，上限为3的调用方直接进入会越过排队的任务，因此也排队
+        limiter.execute(config, 1, executor, () -> { });
+        limiter.execute(config, 3, executor, () -> { });
+        assertEquals(2, submitted.size());
+        submitted.pollFirst().run();
+        // 在途降为1，只有上限为3的调用方可以进入
+        assertEquals(2, submitted.size());
+        assertEquals(1, (int) limiter.getQueued().values().iterator().next());
+    }
+
+    private static AiConfig config(String baseUrl, String model) {
+        AiConfig config = new AiConfig();
+        config.setBaseUrl(baseUrl);
+        config.setModel(model);
+        return config;
+    }
+}
@@ -0,0 +1,157 @@
+package com.rssai.service.ai;
+
+import com.rssai.mapper.FilterLogMapper;
+import com.rssai.model.AiConfig;
+import com.rssai.model.FilterLog;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 本地预筛：从过滤日志训练，抽查足够准确后才在本地判断，修改筛选偏好后重新训练；AI服务不可用时给出临时结果
+ */
+public class AiPreFilterTest {
+
+    private static final String[] PASSED_TOPICS = {"人工智能大模型", "开源编程框架", "芯片架构设计", "数据库性能优化"};
+    private static final String[] REJECTED_TOPICS = {"明星八卦新闻", "足球比赛比分", "股市收盘行情", "电视剧综艺节目"};
+
+    private FilterLogMapper filterLogMapper;
+    private AiPreFilter aiPreFilter;
+
+    @BeforeEach
+    public void setUp() {
+        filterLogMapper = mock(FilterLogMapper.class);
+        List<FilterLog> samples = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            boolean passed = i % 2 == 0;
+            String[] topics = passed ? PASSED_TOPICS : REJECTED_TOPICS;
+            FilterLog log = new FilterLog();
+            log.setTitle(topics[(i / 2) % 4] + "最新进展 " + i);
+            log.setSourceName("示例源");
+            log.setAiFiltered(passed);
+            log.setAiReason(passed ? "通过 - 相关" : "未通过 - 无关");
+            samples.add(log);
+        }
+        // 服务不可用的记录不参与训练
+        FilterLog unavailable = new FilterLog();
+        unavailable.setTitle("人工智能大模型发布");
+        unavailable.setAiFiltered(false);
+        unavailable.setAiReason("未通过 - AI服务不可用");
+        samples.add(unavailable);
+        when(filterLogMapper.findTrainingSamples(eq(1L), anyLong(), anyInt())).thenReturn(samples);
+
+        aiPreFilter = new AiPreFilter(filterLogMapper);
+        ReflectionTestUtils.setField(aiPreFilter, "confidence", 0.98);
+        ReflectionTestUtils.setField(aiPreFilter, "minSamples", 200);
+        ReflectionTestUtils.setField(aiPreFilter, "auditRate", 0.0);
+        ReflectionTestUtils.setField(aiPreFilter, "minAudits", 20);
+        ReflectionTestUtils.setField(aiPreFilter, "minAccuracy", 0.95);
+        ReflectionTestUtils.setField(aiPreFilter, "trainingLimit", 5000);
+        ReflectionTestUtils.setField(aiPreFilter, "maxUsers", 100L);
+        ReflectionTestUtils.setField(aiPreFilter, "degradedEnabled", true);
+        ReflectionTestUtils.setField(aiPreFilter, "degradedMinSamples", 50);
+        ReflectionTestUtils.setField(aiPreFilter, "degradedDefaultPass", true);
+        aiPreFilter.init();
+    }
+
+    @Test
+    public void testAuditedBeforeDecidingLocally() {
+        AiConfig config = config("科技新闻");
+
+        // 抽查次数不足时仍交给AI，但给出本地预测
+        AiPreFilter.Decision decision = aiPreFilter.decide(config, "示例源", "芯片架构设计的新趋势", "");
+        assertNull(decision.getVerdict());
+        assertEquals(Boolean.TRUE, decision.getExpected());
+
+        for (int i = 0; i < 20; i++) {
+            aiPreFilter.learn(config, "示例源", "足球比赛比分速报 " + i, "未通过 - 无关", false, false);
+        }
+        decision = aiPreFilter.decide(config, "示例源", "明星八卦新闻汇总", "正文");
+        assertEquals(Boolean.FALSE, decision.getVerdict());
+        assertTrue(decision.getConfidence() >= 0.98);
+
+        // 与训练数据无关的文章交给AI
+        assertNull(aiPreFilter.decide(config, "其他源", "Weekly notes", "").getVerdict());
+
+        AiPreFilter.Stats stats = aiPreFilter.getStats(1L);
+        assertEquals(1, stats.getAutoDecided());
+        assertEquals(2, stats.getAskedAi());
+        assertEquals(20, stats.getAudits());
+        assertEquals(320, stats.getSamples());
+        assertTrue(stats.getTokensSaved() > 0);
+    }
+
+    @Test
+    public void testInaccurateAuditsDisableLocalDecisions() {
+        AiConfig config = config("科技新闻");
+        for (int i = 0; i < 20; i++) {
+            // 本地预测通过，AI判断未通过
+            aiPreFilter.learn(config, "示例源", "人工智能大模型评测 " + i, "未通过 - 无关", false, true);
+        }
+        assertNull(aiPreFilter.decide(config, "示例源", "明星八卦新闻汇总", "").getVerdict());
+    }
+
+    @Test
+    public void testRetrainedAfterPromptChange() {
+        aiPreFilter.decide(config("科技新闻"), "示例源", "芯片架构设计", "");
+        aiPreFilter.decide(config("科技新闻"), "示例源", "芯片架构设计", "");
+        verify(filterLogMapper, times(1)).findTrainingSamples(eq(1L), anyLong(), anyInt());
+
+        aiPreFilter.decide(config("体育新闻"), "示例源", "芯片架构设计", "");
+        verify(filterLogMapper, times(2)).findTrainingSamples(eq(1L), anyLong(), anyInt());
+    }
+
+    @Test
+    public void testDisabledOrUnlearnable() {
+        AiConfig config = config("科技新闻");
+        config.setPrefilterEnabled(0);
+        assertNull(aiPreFilter.decide(config, "示例源", "芯片架构设计", "").getVerdict());
+        verify(filterLogMapper, times(0)).findTrainingSamples(eq(1L), anyLong(), anyInt());
+
+        assertFalse(AiPreFilter.isLearnable("通过 - 本地预筛：与以往通过的文章相似"));
+        assertFalse(AiPreFilter.isLearnable("未通过 - 解析失败"));
+        assertFalse(AiPreFilter.isLearnable("通过 - 临时判断：AI服务不可用，恢复后重新筛选"));
+        assertTrue(AiPreFilter.isLearnable("通过 - 相关"));
+    }
+
+    @Test
+    public void testProvisionalVerdictWithoutPrefilter() {
+        AiConfig config = config("科技新闻");
+        config.setPrefilterEnabled(0);
+
+        // 降级模式按历史记录训练，不需要开启预筛，也不需要抽查
+        assertEquals(Boolean.FALSE, aiPreFilter.provisionalVerdict(config, "示例源", "足球比赛比分速报"));
+        assertEquals(Boolean.TRUE, aiPreFilter.provisionalVerdict(config, "示例源", "开源编程框架发布新版本"));
+        // 模型无法判断时按 default-pass
+        assertEquals(Boolean.TRUE, aiPreFilter.provisionalVerdict(config, "其他源", "Weekly notes"));
+        assertEquals(3, aiPreFilter.getStats(1L).getProvisional());
+
+        // 已训练的模型继续学习新的AI结果
+        aiPreFilter.learn(config, "示例源", "芯片架构设计", "通过 - 相关", true, null);
+        assertEquals(301, aiPreFilter.getStats(1L).getSamples());
+
+        ReflectionTestUtils.setField(aiPreFilter, "degradedEnabled", false);
+        assertNull(aiPreFilter.provisionalVerdict(config, "示例源", "足球比赛比分速报"));
+    }
+
+    private static AiConfig config(String prompt) {
+        AiConfig config = new AiConfig();
+        config.setUserId(1L);
+        config.setModel("test-model");
+        config.setSystemPrompt(prompt);
+        config.setPrefilterEnabled(1);
+        return config;
+    }
+}
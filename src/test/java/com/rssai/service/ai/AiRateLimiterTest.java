@@ -0,0 +1,127 @@
+package com.rssai.service.ai;
+
+import com.rssai.exception.RetryLaterException;
+import com.rssai.model.AiConfig;
+import okhttp3.Headers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 速率限制：令牌桶按账号隔离，429 的 Retry-After 和剩余额度响应头会让后续请求排队，
+ * 批次在提交前扣除额度，额度不足时不等待
+ */
+public class AiRateLimiterTest {
+
+    private AiRateLimiter rateLimiter;
+
+    @BeforeEach
+    public void setUp() {
+        rateLimiter = new AiRateLimiter();
+        ReflectionTestUtils.setField(rateLimiter, "requestsPerMinute", 60);
+        ReflectionTestUtils.setField(rateLimiter, "tokensPerMinute", 0);
+        ReflectionTestUtils.setField(rateLimiter, "defaultRetryAfterSeconds", 5);
+        ReflectionTestUtils.setField(rateLimiter, "maxWaitSeconds", 10);
+    }
+
+    @Test
+    public void testRequestBucketQueuesWhenEmpty() throws Exception {
+        AiConfig config = config("sk-aaaaaaaaaaaa");
+        for (int i = 0; i < 60; i++) {
+            rateLimiter.acquire(config, 100);
+        }
+        long start = System.nanoTime();
+        rateLimiter.acquire(config, 100);
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        // 每秒补充1个请求，取完额度的耗时远小于1秒，机器繁忙时也不会提前补满
+        assertTrue(waited >= 500, "应排队约1s，实际 " + waited + "ms");
+
+        // 其他API密钥不受影响
+        start = System.nanoTime();
+        rateLimiter.acquire(config("sk-bbbbbbbbbbbb"), 100);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50);
+    }
+
+    @Test
+    public void testRetryAfterPausesProvider() throws Exception {
+        AiConfig config = config("sk-aaaaaaaaaaaa");
+        rateLimiter.onResponse(config, 429, Headers.of("Retry-After", "1"));
+
+        Map<String, AiRateLimiter.Status> status = rateLimiter.getStatus();
+        AiRateLimiter.Status provider = status.get("api.example.com:443|sk-****aaaa");
+        assertNotNull(provider, status.keySet().toString());
+        assertEquals(1, provider.getThrottledCount());
+        assertTrue(provider.getPausedMillis() > 500);
+
+        long start = System.nanoTime();
+        rateLimiter.acquire(config, 100);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 900);
+    }
+
+    @Test
+    public void testRemainingHeadersPauseUntilReset() throws Exception {
+        AiConfig config = config("sk-aaaaaaaaaaaa");
+        rateLimiter.onResponse(config, 200, Headers.of(
+                "x-ratelimit-remaining-requests", "0", "x-ratelimit-reset-requests", "300ms"));
+
+        long start = System.nanoTime();
+        rateLimiter.acquire(config, 100);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 250);
+    }
+
+    @Test
+    public void testExecutorTakesBudgetBeforeSubmitting() throws Exception {
+        ReflectionTestUtils.setField(rateLimiter, "requestsPerMinute", 1);
+        AiConfig config = config("sk-aaaaaaaaaaaa");
+        Executor executor = rateLimiter.executor(config, 100, Runnable::run);
+
+        // 任务中第一个请求使用预先扣除的额度，之后的请求额度不足时不等待
+        AtomicInteger runs = new AtomicInteger();
+        executor.execute(() -> {
+            runs.incrementAndGet();
+            try {
+                rateLimiter.acquire(config, 100);
+            } catch (IOException e) {
+                fail(e);
+            }
+            long start = System.nanoTime();
+            RetryLaterException e = assertThrows(RetryLaterException.class, () -> rateLimiter.acquire(config, 100));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 50);
+            assertTrue(e.getDelayMillis() > 30000, "应等待约1分钟，实际 " + e.getDelayMillis() + "ms");
+        });
+        assertEquals(1, runs.get());
+
+        // 额度不足时任务不会提交
+        RetryLaterException e = assertThrows(RetryLaterException.class, () -> executor.execute(runs::incrementAndGet));
+        assertEquals(10000, e.getMaxWaitMillis());
+        assertEquals(1, runs.get());
+        assertEquals(2, rateLimiter.getStatus().get("api.example.com:443|sk-****aaaa").getDeferredCount());
+    }
+
+    @Test
+    public void testParseHeaders() {
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(20), AiRateLimiter.parseDuration("20ms"));
+        assertEquals(TimeUnit.SECONDS.toNanos(360), AiRateLimiter.parseDuration("6m0s"));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1500), AiRateLimiter.parseDuration("1.5s"));
+        assertEquals(-1, AiRateLimiter.parseDuration("soon"));
+        assertEquals(TimeUnit.SECONDS.toNanos(2), AiRateLimiter.parseRetryAfter(Headers.of("Retry-After", "2")));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(250), AiRateLimiter.parseRetryAfter(Headers.of("retry-after-ms", "250")));
+        assertEquals(-1, AiRateLimiter.parseRetryAfter(Headers.of()));
+    }
+
+    private static AiConfig config(String apiKey) {
+        AiConfig config = new AiConfig();
+        config.setBaseUrl("https://api.example.com/v1");
+        config.setModel("test-model");
+        config.setApiKey(apiKey);
+        return config;
+    }
+}
@@ -0,0 +1,51 @@
+package com.rssai.service.ai;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 请求体写入：与Gson解析结果一致，特殊字符正确转义，系统消息相同时前缀逐字节相同
+ */
+public class AiRequestWriterTest {
+
+    @Test
+    public void testWritesValidJson() {
+        String content = "标题:\"引号\" \\ 反斜杠\n换行\t制表\u0001控制 分隔 😀 <tag>&";
+        JsonObject[] messages = {message("system", "【筛选偏好说明】\n科技新闻"), message("user", content)};
+
+        String json = AiRequestWriter.write("test-model", messages, 500, 0.1, true).readUtf8();
+
+        JsonObject parsed = JsonParser.parseString(json).getAsJsonObject();
+        assertEquals("test-model", parsed.get("model").getAsString());
+        assertEquals(500, parsed.get("max_tokens").getAsInt());
+        assertEquals(0.1, parsed.get("temperature").getAsDouble());
+        assertTrue(parsed.get("stream").getAsBoolean());
+        assertEquals(2, parsed.getAsJsonArray("messages").size());
+        assertEquals(content, parsed.getAsJsonArray("messages").get(1).getAsJsonObject().get("content").getAsString());
+        assertFalse(json.contains("\n"));
+
+        String plain = AiRequestWriter.write("test-model", messages, 500, 0.1, false).readUtf8();
+        assertFalse(JsonParser.parseString(plain).getAsJsonObject().has("stream"));
+    }
+
+    @Test
+    public void testSystemMessageIsStablePrefix() {
+        JsonObject system = message("system", "【筛选偏好说明】\n科技新闻");
+        String first = AiRequestWriter.write("test-model", new JsonObject[]{system, message("user", "[1] 标题:甲")}, 500, 0.1, false).readUtf8();
+        String second = AiRequestWriter.write("test-model", new JsonObject[]{system, message("user", "[1] 标题:乙")}, 500, 0.1, false).readUtf8();
+
+        int prefix = first.indexOf("{\"role\":\"user\"");
+        assertTrue(prefix > 0);
+        assertEquals(first.substring(0, prefix), second.substring(0, prefix));
+    }
+
+    private static JsonObject message(String role, String content) {
+        JsonObject message = new JsonObject();
+        message.addProperty("role", role);
+        message.addProperty("content", content);
+        return message;
+    }
+}
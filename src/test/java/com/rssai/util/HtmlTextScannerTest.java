@@ -0,0 +1,91 @@
+package com.rssai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HTML转纯文本：单遍扫描的新实现与多次正则替换的旧实现输出一致
+ * 输入为约50KB的文章，输出截断到AI描述使用的长度；耗时对比见 src/jmh 下的 HtmlTextScannerBenchmark
+ */
+public class HtmlTextScannerTest {
+    static final int MAX_LENGTH = 250;
+
+    private static final Pattern LEGACY_TAG_PATTERN = Pattern.compile("<[^>]+>");
+    private static final Pattern LEGACY_SPACES_PATTERN = Pattern.compile("\\s+");
+    private static final Pattern LEGACY_NEWLINES_PATTERN = Pattern.compile("\\n{3,}");
+
+    @Test
+    public void testConversion() {
+        assertEquals("", HtmlTextScanner.toPlainText(null, MAX_LENGTH));
+        assertEquals("标题 第一段 第二段", HtmlTextScanner.toPlainText("<h1>标题</h1><p>第一段</p>\n\n<p>第二段</p>", MAX_LENGTH));
+        assertEquals("加粗和链接", HtmlTextScanner.toPlainText("<b>加粗</b>和<a href=\"#\">链接</a>", MAX_LENGTH));
+        assertEquals("a < b & c \"d\" — é ’", HtmlTextScanner.toPlainText("a &lt; b &amp; c &quot;d&quot; &mdash; &#233; &#x2019;", MAX_LENGTH));
+        assertEquals("&lt;", HtmlTextScanner.toPlainText("&amp;lt;", MAX_LENGTH));
+        assertEquals("未知 &foo; 实体 & 符号", HtmlTextScanner.toPlainText("未知 &foo; 实体 & 符号", MAX_LENGTH));
+        assertEquals("正文 结尾", HtmlTextScanner.toPlainText("正文<script>var a = '<p>x</p>';</script><style>p{}</style><!-- 注释 > -->结尾", MAX_LENGTH));
+        assertEquals("a < b", HtmlTextScanner.toPlainText("a < b", MAX_LENGTH));
+        assertEquals("x y", HtmlTextScanner.toPlainText("x&nbsp;&nbsp; <br/> y", MAX_LENGTH));
+        assertEquals("abc d...", HtmlTextScanner.toPlainText("<p>abc</p>de<p>fgh</p>", 5));
+        assertEquals("abcde", HtmlTextScanner.toPlainText("<p>abcde</p>   ", 5));
+    }
+
+    @Test
+    public void testCompareWithLegacy() {
+        String article = buildArticle();
+        String legacy = legacyCleanHtmlAndTruncate(article, MAX_LENGTH);
+        String scanned = HtmlTextScanner.toPlainText(article, MAX_LENGTH);
+        assertEquals(legacy, scanned);
+        assertEquals(legacyCleanHtmlAndTruncate(article, Integer.MAX_VALUE), HtmlTextScanner.toPlainText(article, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 标签两侧都有空白，行内标签是否插入空白不影响结果，新旧实现的输出应完全一致
+     */
+    static String buildArticle() {
+        StringBuilder html = new StringBuilder();
+        int paragraph = 0;
+        while (html.length() < 50 * 1024) {
+            html.append("<div class=\"section\">\n  <h2>第 ").append(paragraph).append(" 节</h2>\n")
+                    .append("  <p>这是一段用于测试的正文，包含 <strong>加粗</strong> 和 <a href=\"https://example.com/")
+                    .append(paragraph).append("\">链接</a> ，以及实体 &amp; &lt;tag&gt; &quot;引号&quot; &hellip;</p>\n")
+                    .append("  <img src=\"https://example.com/").append(paragraph).append(".png\" />\n</div>\n");
+            paragraph++;
+        }
+        return html.toString();
+    }
+
+    /**
+     * 优化前的 HtmlUtils.stripHtmlTags + TextUtils.cleanText + truncate，仅用于对比
+     */
+    static String legacyCleanHtmlAndTruncate(String html, int maxLength) {
+        if (html == null || html.isEmpty()) {
+            return "";
+        }
+        String text = html;
+        text = text.replaceAll("(?i)<br\\s*/?\\s*>", "\n");
+        text = text.replaceAll("(?i)</?(p|div|li|h[1-6]|blockquote|pre)[^>]*>", "\n");
+        text = LEGACY_TAG_PATTERN.matcher(text).replaceAll(" ");
+        text = text.replace("&nbsp;", " ");
+        text = text.replace("&lt;", "<");
+        text = text.replace("&gt;", ">");
+        text = text.replace("&amp;", "&");
+        text = text.replace("&quot;", "\"");
+        text = text.replace("&apos;", "'");
+        text = text.replace("&mdash;", "—");
+        text = text.replace("&ndash;", "–");
+        text = text.replace("&hellip;", "…");
+        text = LEGACY_SPACES_PATTERN.matcher(text).replaceAll(" ");
+        text = LEGACY_NEWLINES_PATTERN.matcher(text).replaceAll("\n\n");
+        text = text.trim();
+
+        text = LEGACY_SPACES_PATTERN.matcher(text).replaceAll(" ");
+        text = text.replace("\n", " ").replace("\r", " ").trim();
+        if (text.length() <= maxLength) {
+            return text;
+        }
+        return text.substring(0, maxLength) + "...";
+    }
+}
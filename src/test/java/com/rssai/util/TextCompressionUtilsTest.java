@@ -0,0 +1,41 @@
+package com.rssai.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextCompressionUtilsTest {
+
+    @Test
+    public void testCompressAndDecompress() {
+        StringBuilder html = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            html.append("<p>第").append(i).append("段内容 <a href=\"https://example.com/").append(i).append("\">链接</a></p>");
+        }
+        String original = html.toString();
+        byte[] compressed = TextCompressionUtils.compress(original);
+
+        // 压缩后带格式标记且体积更小
+        assertTrue(TextCompressionUtils.isCompressed(compressed));
+        assertTrue(compressed.length < original.getBytes(StandardCharsets.UTF_8).length);
+
+        assertEquals(original, TextCompressionUtils.decompress(compressed));
+    }
+
+    @Test
+    public void testDecompressPlainBytes() {
+        // 没有格式标记的字节按UTF-8原文处理（向后兼容）
+        byte[] plain = "普通文本".getBytes(StandardCharsets.UTF_8);
+        assertFalse(TextCompressionUtils.isCompressed(plain));
+        assertEquals("普通文本", TextCompressionUtils.decompress(plain));
+        assertNull(TextCompressionUtils.decompress(null));
+    }
+
+    @Test
+    public void testCompressEmptyString() {
+        byte[] compressed = TextCompressionUtils.compress("");
+        assertEquals("", TextCompressionUtils.decompress(compressed));
+    }
+}
@@ -0,0 +1,34 @@
+package com.rssai.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * token估算：中日韩文字按每字1个token，其他字符按每4个字符1个token
+ */
+public class TokenEstimatorTest {
+
+    @Test
+    public void testEstimate() {
+        assertEquals(0, TokenEstimator.estimate(null));
+        assertEquals(0, TokenEstimator.estimate(""));
+        assertEquals(3, TokenEstimator.estimate("hello world"));
+        assertEquals(4, TokenEstimator.estimate("人工智能"));
+        assertEquals(6, TokenEstimator.estimate("人工智能，AI"));
+        assertEquals(2, TokenEstimator.estimate("カタ"));
+    }
+
+    @Test
+    public void testTruncate() {
+        assertEquals("人工", TokenEstimator.truncate("人工智能", 2));
+        assertEquals("abcdefgh", TokenEstimator.truncate("abcdefghijkl", 2));
+        assertEquals("short", TokenEstimator.truncate("short", 100));
+        assertEquals("", TokenEstimator.truncate("人工智能", 0));
+
+        String truncated = TokenEstimator.truncate("新闻news报道report", 5);
+        assertTrue(TokenEstimator.estimate(truncated) <= 5);
+        // 按码点截断，不会截断在代理对中间
+        assertEquals(8, TokenEstimator.truncate("😀😀😀😀😀😀", 1).length());
+    }
+}